@@ -16,14 +16,12 @@
 
 package org.uberfire.backend.server;
 
-import java.net.URI;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
@@ -36,16 +34,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.backend.server.util.Paths;
 import org.uberfire.backend.vfs.Path;
-import org.uberfire.backend.vfs.PathFactory;
 import org.uberfire.backend.vfs.VFSLockService;
 import org.uberfire.backend.vfs.impl.LockInfo;
 import org.uberfire.backend.vfs.impl.LockResult;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
-import org.uberfire.java.nio.file.DirectoryStream.Filter;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.Files;
-import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.rpc.SessionInfo;
 import org.uberfire.workbench.events.ResourceDeletedEvent;
 import org.uberfire.workbench.events.ResourceRenamedEvent;
@@ -71,29 +66,35 @@ public class VFSLockServiceImpl implements VFSLockService {
     @Inject
     private SessionInfo sessionInfo;
 
+    private volatile VFSLockTable lockTable;
+
+    @PreDestroy
+    public void shutdown() {
+        if (lockTable != null) {
+            lockTable.shutdown();
+        }
+    }
+
     @Override
     public LockResult acquireLock(final Path path)
             throws IllegalArgumentException, IOException, UnsupportedOperationException {
 
-        try {
-            ioService.startBatch(fileSystem);
-
-            final String userId = sessionInfo.getIdentity().getIdentifier();
-            final LockInfo lockInfo = retrieveLockInfo(path);
-            final LockResult result;
-            if (lockInfo.isLocked() && !lockInfo.lockedBy().equals(userId)) {
-                result = LockResult.failed(lockInfo);
-            } else {
-                ioService.write(Paths.convert(lockInfo.getLock()),
-                                userId);
-                result = LockResult.acquired(path,
-                                             userId);
-                updateSession(result.getLockInfo());
+        final String userId = sessionInfo.getIdentity().getIdentifier();
+        return lockTable().update(() -> {
+            while (true) {
+                final LockInfo lockInfo = lockTable().retrieve(path);
+                if (lockInfo.isLocked() && !lockInfo.lockedBy().equals(userId)) {
+                    return LockResult.failed(lockInfo);
+                }
+                if (lockTable().compareAndSet(lockInfo,
+                                              userId)) {
+                    final LockResult result = LockResult.acquired(path,
+                                                                  userId);
+                    updateSession(result.getLockInfo());
+                    return result;
+                }
             }
-            return result;
-        } finally {
-            ioService.endBatch();
-        }
+        });
     }
 
     @Override
@@ -119,55 +120,31 @@ public class VFSLockServiceImpl implements VFSLockService {
                                    final boolean force)
             throws IllegalArgumentException, IOException {
 
-        try {
-            ioService.startBatch(fileSystem);
-
-            final LockInfo lockInfo = retrieveLockInfo(path);
-            final LockResult result;
-            if (lockInfo.isLocked()) {
-                if (sessionInfo.getIdentity().getIdentifier().equals(lockInfo.lockedBy()) || force) {
-                    ioService.delete(Paths.convert(lockInfo.getLock()));
-                    updateSession(lockInfo,
-                                  true);
-                    result = LockResult.released(path);
-                } else {
+        return lockTable().update(() -> {
+            while (true) {
+                final LockInfo lockInfo = lockTable().retrieve(path);
+                if (!lockInfo.isLocked()) {
+                    return LockResult.failed(lockInfo);
+                }
+                if (!sessionInfo.getIdentity().getIdentifier().equals(lockInfo.lockedBy()) && !force) {
                     logger.error("Client requested to release a lock it doesn't hold: " + path.toURI());
                     throw new IOException("Not allowed");
                 }
-            } else {
-                result = LockResult.failed(lockInfo);
+                if (lockTable().compareAndSet(lockInfo,
+                                              null)) {
+                    updateSession(lockInfo,
+                                  true);
+                    return LockResult.released(path);
+                }
             }
-            return result;
-        } finally {
-            ioService.endBatch();
-        }
+        });
     }
 
     @Override
     public LockInfo retrieveLockInfo(Path path)
             throws IllegalArgumentException, IOException {
 
-        final Path vfsLock = PathFactory.newLock(path);
-        final org.uberfire.java.nio.file.Path realLock = Paths.convert(vfsLock);
-
-        if (ioService.exists(realLock)) {
-            try {
-                final String lockedBy = ioService.readAllString(realLock);
-                return new LockInfo(true,
-                                    lockedBy,
-                                    path,
-                                    vfsLock);
-            } catch (NoSuchFileException nsfe) {
-                // We want to avoid starting a batch (to ensure cluster-wide consistent reads) here since 
-                // this method is invoked very frequently. Therefore it's possible that the lock file
-                // was deleted after the check to exists but before readAllString was invoked. There's
-                // no need for special exception handling as it simply means that file is no longer locked.
-            }
-        }
-        return new LockInfo(false,
-                            null,
-                            path,
-                            vfsLock);
+        return lockTable().retrieve(path);
     }
 
     @Override
@@ -179,52 +156,26 @@ public class VFSLockServiceImpl implements VFSLockService {
             return Collections.emptyList();
         }
 
-        final Path lockPath = PathFactory.newLockPath(path);
-
-        final List<Path> locks = new ArrayList<Path>();
-        retrieveLocks(ioService.get(URI.create(lockPath.toURI())),
-                      locks);
-
         final List<LockInfo> lockInfos = new LinkedList<LockInfo>();
-        for (Path lock : locks) {
-            final LockInfo lockInfo = retrieveLockInfo(PathFactory.fromLock(lock));
-
+        for (LockInfo lockInfo : lockTable().retrieveLocked(path)) {
             if (!excludeOwnedLocks || !sessionInfo.getIdentity().getIdentifier().equals(lockInfo.lockedBy())) {
-                if (Files.exists(Paths.convert(lockInfo.getFile()))) {
-                    lockInfos.add(lockInfo);
-                }
+                lockInfos.add(lockInfo);
             }
         }
 
         return lockInfos;
     }
 
-    private void retrieveLocks(final org.uberfire.java.nio.file.Path path,
-                               final List<Path> accu) {
-
-        if (!Files.exists(path)) {
-            return;
-        }
-
-        Filter<org.uberfire.java.nio.file.Path> filter = new Filter<org.uberfire.java.nio.file.Path>() {
-
-            @Override
-            public boolean accept(final org.uberfire.java.nio.file.Path entry) throws org.uberfire.java.nio.IOException {
-                if (Paths.convert(entry).toURI().endsWith(PathFactory.LOCK_FILE_EXTENSION)) {
-                    accu.add(Paths.convert(entry));
-                } else if (Files.isDirectory(entry)) {
-                    retrieveLocks(ioService.get(entry.toUri()),
-                                  accu);
+    VFSLockTable lockTable() {
+        if (lockTable == null) {
+            synchronized (this) {
+                if (lockTable == null) {
+                    lockTable = new VFSLockTable(ioService,
+                                                 fileSystem);
                 }
-                return true;
             }
-        };
-
-        Iterator<org.uberfire.java.nio.file.Path> it = ioService.newDirectoryStream(path,
-                                                                                    filter).iterator();
-        while (it.hasNext()) {
-            it.next();
         }
+        return lockTable;
     }
 
     /**
@@ -270,15 +221,13 @@ public class VFSLockServiceImpl implements VFSLockService {
     }
 
     private void maybeDeleteLock(final Path path) {
-        try {
-            ioService.startBatch(fileSystem);
-
-            final LockInfo lockInfo = retrieveLockInfo(path);
-            if (lockInfo.isLocked()) {
-                ioService.delete(Paths.convert(lockInfo.getLock()));
+        lockTable().update(() -> {
+            LockInfo lockInfo = lockTable().retrieve(path);
+            while (lockInfo.isLocked() && !lockTable().compareAndSet(lockInfo,
+                                                                     null)) {
+                lockInfo = lockTable().retrieve(path);
             }
-        } finally {
-            ioService.endBatch();
-        }
+            return lockInfo;
+        });
     }
-}
\ No newline at end of file
+}
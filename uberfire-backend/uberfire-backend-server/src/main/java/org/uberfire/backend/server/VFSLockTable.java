@@ -0,0 +1,460 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.backend.vfs.impl.LockInfo;
+import org.uberfire.commons.cluster.ClusterParameters;
+import org.uberfire.commons.config.ConfigProperties;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream.Filter;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Files;
+import org.uberfire.java.nio.file.NoSuchFileException;
+
+/**
+ * Lock table backing {@link VFSLockServiceImpl}.
+ * <p>
+ * On a single node the table is held in memory: lock state is loaded from the <code>.ulock</code>
+ * files on first access, changed with compare-and-set, and written back to the system file system
+ * asynchronously, several changes coalescing into one batch. Locked files are indexed by lock URI, so
+ * the locks under a directory are a range lookup instead of a walk of the lock tree.
+ * <p>
+ * In a cluster the other nodes can't see this table, so every operation reads and writes the lock
+ * files directly, inside a batch on the system file system.
+ */
+public class VFSLockTable {
+
+    public static final String FLUSH_DELAY = "org.uberfire.lock.flush.delay";
+    public static final String TABLE_SIZE = "org.uberfire.lock.table.size";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VFSLockTable.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final IOService ioService;
+    private final FileSystem fileSystem;
+    private final boolean writeBehind;
+    private final long flushDelay;
+    private final int tableSize;
+
+    private final ConcurrentMap<String, LockState> locks = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Path> lockedIndex = new ConcurrentSkipListMap<>();
+    private final Set<String> scannedPrefixes = ConcurrentHashMap.newKeySet();
+    private final Map<String, LockState> pending = new LinkedHashMap<>();
+    // loads hold the read lock from reading the lock file until the state is in the table, so an
+    // eviction can't slip in between and leave a stale state behind
+    private final ReadWriteLock evictionLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService flusher;
+
+    public VFSLockTable(final IOService ioService,
+                        final FileSystem fileSystem) {
+        this(ioService,
+             fileSystem,
+             new ConfigProperties(System.getProperties()));
+    }
+
+    private VFSLockTable(final IOService ioService,
+                         final FileSystem fileSystem,
+                         final ConfigProperties config) {
+        this(ioService,
+             fileSystem,
+             !config.get(ClusterParameters.APPFORMER_CLUSTER,
+                         "false").getBooleanValue(),
+             config.get(FLUSH_DELAY,
+                        "500").getLongValue(500),
+             config.get(TABLE_SIZE,
+                        "10000").getIntValue(10000));
+    }
+
+    VFSLockTable(final IOService ioService,
+                 final FileSystem fileSystem,
+                 final boolean writeBehind,
+                 final long flushDelay,
+                 final int tableSize) {
+        this.ioService = ioService;
+        this.fileSystem = fileSystem;
+        this.writeBehind = writeBehind;
+        this.flushDelay = flushDelay;
+        this.tableSize = tableSize;
+        if (writeBehind) {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                                                                                         VFSLockTable::newFlusherThread);
+            // on shutdown the pending changes are flushed right away instead of waiting for the delay
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            this.flusher = executor;
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Runs a read-modify-write sequence on the table. When the lock files are accessed directly the
+     * sequence runs inside a batch, to keep it consistent across the cluster.
+     */
+    public <T> T update(final Supplier<T> operation) {
+        if (writeBehind) {
+            return operation.get();
+        }
+        try {
+            ioService.startBatch(fileSystem);
+            return operation.get();
+        } finally {
+            ioService.endBatch();
+        }
+    }
+
+    public LockInfo retrieve(final Path file) {
+        final Path lock = PathFactory.newLock(file);
+        final LockState state = state(lock);
+        return new LockInfo(state.owner != null,
+                            state.owner,
+                            file,
+                            lock);
+    }
+
+    /**
+     * Sets the owner of the lock, provided it is still held as described by <code>expected</code>.
+     * @param expected the lock state the change is based on
+     * @param owner the new owner, or null to release the lock
+     * @return false if the lock changed since <code>expected</code> was read
+     */
+    public boolean compareAndSet(final LockInfo expected,
+                                 final String owner) {
+        final Path lock = expected.getLock();
+        if (!writeBehind) {
+            if (!Objects.equals(read(lock).owner,
+                                expected.lockedBy())) {
+                return false;
+            }
+            final org.uberfire.java.nio.file.Path realLock = Paths.convert(lock);
+            if (owner != null) {
+                ioService.write(realLock,
+                                owner);
+            } else {
+                // the lock file was just read inside the batch, it must be there
+                ioService.delete(realLock);
+            }
+            return true;
+        }
+
+        final String uri = lock.toURI();
+        final LockState current = state(lock);
+        if (!Objects.equals(current.owner,
+                            expected.lockedBy())) {
+            return false;
+        }
+        if (Objects.equals(current.owner,
+                           owner)) {
+            return true;
+        }
+        final LockState next = new LockState(lock,
+                                             owner);
+        if (!locks.replace(uri,
+                           current,
+                           next)) {
+            return false;
+        }
+        index(next);
+        schedule(next);
+        return true;
+    }
+
+    /**
+     * Returns the locks held on files under the given directory.
+     */
+    public List<LockInfo> retrieveLocked(final Path directory) {
+        final Path lockPath = PathFactory.newLockPath(directory);
+        final List<LockInfo> result = new ArrayList<>();
+
+        if (!writeBehind) {
+            final List<Path> locks = new ArrayList<>();
+            scan(ioService.get(URI.create(lockPath.toURI())),
+                 locks);
+            for (final Path lock : locks) {
+                final LockInfo lockInfo = retrieve(PathFactory.fromLock(lock));
+                if (lockInfo.isLocked() && Files.exists(Paths.convert(lockInfo.getFile()))) {
+                    result.add(lockInfo);
+                }
+            }
+            return result;
+        }
+
+        final String prefix = lockPath.toURI().endsWith("/") ? lockPath.toURI() : lockPath.toURI() + "/";
+        ensureScanned(prefix,
+                      lockPath);
+
+        for (final Map.Entry<String, Path> entry : lockedIndex.subMap(prefix,
+                                                                      prefix + Character.MAX_VALUE).entrySet()) {
+            final LockState state = locks.get(entry.getKey());
+            if (state == null || state.owner == null) {
+                // stale, the lock was released concurrently with its indexing
+                lockedIndex.remove(entry.getKey(),
+                                   entry.getValue());
+                continue;
+            }
+            result.add(new LockInfo(true,
+                                    state.owner,
+                                    PathFactory.fromLock(state.lock),
+                                    state.lock));
+        }
+        return result;
+    }
+
+    /**
+     * Writes all pending changes to the system file system.
+     */
+    public synchronized void flush() {
+        flushScheduled.set(false);
+        final List<LockState> changes;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            changes = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+
+        try {
+            ioService.startBatch(fileSystem);
+            for (final LockState change : changes) {
+                try {
+                    persist(change);
+                } catch (final Exception e) {
+                    LOGGER.error("Unable to persist lock " + change.lock.toURI(),
+                                 e);
+                }
+            }
+        } finally {
+            ioService.endBatch();
+        }
+
+        evictUnlocked();
+    }
+
+    /**
+     * Stops the flusher, letting a flush in progress finish, then writes whatever is still pending.
+     */
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                if (!flusher.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS,
+                                              TimeUnit.SECONDS)) {
+                    LOGGER.warn("Lock flusher did not finish within " + SHUTDOWN_TIMEOUT_SECONDS + "s");
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+        }
+    }
+
+    private static Thread newFlusherThread(final Runnable r) {
+        final Thread thread = new Thread(r,
+                                         "vfs-lock-flusher");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private LockState state(final Path lock) {
+        if (!writeBehind) {
+            return read(lock);
+        }
+        final String uri = lock.toURI();
+        final LockState cached = locks.get(uri);
+        if (cached != null) {
+            return cached;
+        }
+        // the lock file is read outside of the map, concurrent loads of the same lock keep the first
+        evictionLock.readLock().lock();
+        try {
+            final LockState loaded = read(lock);
+            final LockState current = locks.putIfAbsent(uri,
+                                                        loaded);
+            if (current != null) {
+                return current;
+            }
+            index(loaded);
+            return loaded;
+        } finally {
+            evictionLock.readLock().unlock();
+        }
+    }
+
+    private LockState read(final Path lock) {
+        final org.uberfire.java.nio.file.Path realLock = Paths.convert(lock);
+        if (ioService.exists(realLock)) {
+            try {
+                return new LockState(lock,
+                                     ioService.readAllString(realLock));
+            } catch (NoSuchFileException nsfe) {
+                // Reads don't start a batch, so the lock file may have been deleted after the
+                // check to exists; it simply means that the file is no longer locked.
+            }
+        }
+        return new LockState(lock,
+                             null);
+    }
+
+    /**
+     * Writes a lock state of the table. A lock acquired and released within one flush window never
+     * reaches the disk, so a released lock may have no file to delete.
+     */
+    private void persist(final LockState state) {
+        final org.uberfire.java.nio.file.Path realLock = Paths.convert(state.lock);
+        if (state.owner != null) {
+            ioService.write(realLock,
+                            state.owner);
+        } else {
+            ioService.deleteIfExists(realLock);
+        }
+    }
+
+    private void index(final LockState state) {
+        if (state.owner != null) {
+            lockedIndex.put(state.lock.toURI(),
+                            state.lock);
+        } else {
+            lockedIndex.remove(state.lock.toURI());
+        }
+    }
+
+    private void schedule(final LockState state) {
+        synchronized (pending) {
+            // only the latest state of a lock matters, acquire + release within the window is a no-op
+            pending.remove(state.lock.toURI());
+            pending.put(state.lock.toURI(),
+                        state);
+        }
+        if (flushScheduled.compareAndSet(false,
+                                         true)) {
+            try {
+                flusher.schedule(this::flush,
+                                 flushDelay,
+                                 TimeUnit.MILLISECONDS);
+            } catch (final Exception e) {
+                flushScheduled.set(false);
+                flush();
+            }
+        }
+    }
+
+    private void evictUnlocked() {
+        if (locks.size() <= tableSize) {
+            return;
+        }
+        evictionLock.writeLock().lock();
+        try {
+            final Iterator<Map.Entry<String, LockState>> it = locks.entrySet().iterator();
+            while (it.hasNext() && locks.size() > tableSize) {
+                final Map.Entry<String, LockState> entry = it.next();
+                final boolean isPending;
+                synchronized (pending) {
+                    isPending = pending.containsKey(entry.getKey());
+                }
+                // unlocked entries already on disk can be reloaded at any time
+                if (entry.getValue().owner == null && !isPending) {
+                    locks.remove(entry.getKey(),
+                                 entry.getValue());
+                }
+            }
+        } finally {
+            evictionLock.writeLock().unlock();
+        }
+    }
+
+    private void ensureScanned(final String prefix,
+                               final Path lockPath) {
+        for (final String scanned : scannedPrefixes) {
+            if (prefix.startsWith(scanned)) {
+                return;
+            }
+        }
+        final List<Path> found = new ArrayList<>();
+        scan(ioService.get(URI.create(lockPath.toURI())),
+             found);
+        for (final Path lock : found) {
+            state(lock);
+        }
+        scannedPrefixes.add(prefix);
+    }
+
+    private void scan(final org.uberfire.java.nio.file.Path path,
+                      final List<Path> accu) {
+
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        final Filter<org.uberfire.java.nio.file.Path> filter = entry -> {
+            if (Paths.convert(entry).toURI().endsWith(PathFactory.LOCK_FILE_EXTENSION)) {
+                accu.add(Paths.convert(entry));
+            } else if (Files.isDirectory(entry)) {
+                scan(ioService.get(entry.toUri()),
+                     accu);
+            }
+            return true;
+        };
+
+        final Iterator<org.uberfire.java.nio.file.Path> it = ioService.newDirectoryStream(path,
+                                                                                          filter).iterator();
+        while (it.hasNext()) {
+            it.next();
+        }
+    }
+
+    private static class LockState {
+
+        private final Path lock;
+        private final String owner;
+
+        LockState(final Path lock,
+                  final String owner) {
+            this.lock = lock;
+            this.owner = owner;
+        }
+    }
+}
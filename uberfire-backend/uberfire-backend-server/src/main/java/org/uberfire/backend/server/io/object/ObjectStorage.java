@@ -57,6 +57,12 @@ public interface ObjectStorage {
      */
     void delete(String path);
 
+    /**
+     * Runs the given writes and deletes in a single batch, so that they are stored together as one change.
+     * @param work the writes and deletes to run
+     */
+    void batch(Runnable work);
+
     /**
      * Return a path based on the filesystem that is implemented for storage
      * @param first the path string or initial part of the path string
@@ -65,4 +71,12 @@ public interface ObjectStorage {
      */
     Path getPath(String first,
                  String... path);
+
+    /**
+     * Returns a counter that changes every time a stored object may have been written or deleted, by this storage or,
+     * when its file system delivers watch events, by anyone else. Lets callers cache what they derive from stored
+     * objects.
+     * @return the current version of the storage content.
+     */
+    long getVersion();
 }
@@ -16,41 +16,92 @@
 
 package org.uberfire.backend.server.io.object;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.jboss.errai.marshalling.server.MappingContextSingleton;
 import org.jboss.errai.marshalling.server.ServerMarshalling;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.SubscribableWatchService;
+import org.uberfire.java.nio.base.WatchContext;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
+import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.WatchService;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
 
+/**
+ * Stored objects are cached decoded, keyed by path and by the id of the blob they were decoded from.
+ * <p>
+ * When the file system delivers watch events, entries are trusted until an event touches their path and are then
+ * revalidated against the current blob id, decoding again only if the content really changed. Otherwise every read
+ * revalidates. Immutable values (strings, numbers, booleans, enums) are shared, any other value is decoded again from
+ * the cached content on each read, so callers can keep mutating what they get without touching git.
+ */
 public class ObjectStorageImpl implements ObjectStorage {
 
+    public static final String CACHE_SIZE = "org.uberfire.objectstorage.cache.size";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjectStorageImpl.class);
+
+    private static final CachedObject ABSENT = new CachedObject(null,
+                                                                null,
+                                                                null);
+
+    private final Map<String, CachedObject> cache;
+
+    private final AtomicLong version = new AtomicLong();
+
     private IOService ioService;
 
     private FileSystem fileSystem;
 
+    private WatchService watchService;
+
+    private volatile boolean watched;
+
     @Inject
     public ObjectStorageImpl(@Named("configIO") final IOService ioService) {
         this.ioService = ioService;
+        final int maxSize = new ConfigProperties(System.getProperties()).get(CACHE_SIZE,
+                                                                             "1000").getIntValue(1000);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedObject>(16,
+                                                                                         0.75f,
+                                                                                         true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedObject> eldest) {
+                return size() > maxSize;
+            }
+        });
     }
 
     @Override
     public void init(String rootPath) {
         initializeMarshaller();
         initializeFileSystem(rootPath);
+        initializeWatchService();
     }
 
     @Override
     public boolean exists(final String path) {
-        Path fsPath = fileSystem.getPath(path);
-
         try {
-            return ioService.exists(fsPath);
+            return lookup(fileSystem.getPath(path)) != ABSENT;
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
@@ -58,17 +109,11 @@ public class ObjectStorageImpl implements ObjectStorage {
 
     @Override
     public <T> T read(final String path) {
-        Path fsPath = fileSystem.getPath(path);
         try {
-            if (ioService.exists(fsPath)) {
-                String content = ioService.readAllString(fsPath);
-                return (T) ServerMarshalling.fromJSON(content);
-            }
+            return (T) lookup(fileSystem.getPath(path)).get();
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
-
-        return null;
     }
 
     @Override
@@ -80,6 +125,11 @@ public class ObjectStorageImpl implements ObjectStorage {
             String content = ServerMarshalling.toJSON(value);
             ioService.write(fsPath,
                             content);
+            cache.put(fsPath.toString(),
+                      new CachedObject(blobId(fsPath),
+                                       content,
+                                       isShareable(value) ? value : null));
+            version.incrementAndGet();
         } catch (final Exception e) {
             throw new RuntimeException(e);
         } finally {
@@ -89,7 +139,21 @@ public class ObjectStorageImpl implements ObjectStorage {
 
     @Override
     public void delete(final String path) {
-        ioService.deleteIfExists(fileSystem.getPath(path));
+        final Path fsPath = fileSystem.getPath(path);
+        ioService.deleteIfExists(fsPath);
+        cache.put(fsPath.toString(),
+                  ABSENT);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void batch(final Runnable work) {
+        ioService.startBatch(fileSystem);
+        try {
+            work.run();
+        } finally {
+            ioService.endBatch();
+        }
     }
 
     @Override
@@ -99,6 +163,116 @@ public class ObjectStorageImpl implements ObjectStorage {
                                        paths);
     }
 
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @PreDestroy
+    public void dispose() {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    CachedObject lookup(final Path fsPath) {
+        final String key = fsPath.toString();
+        final CachedObject cached = cache.get(key);
+        if (cached != null && watched && !cached.stale) {
+            return cached;
+        }
+
+        final String blobId;
+        try {
+            blobId = blobId(fsPath);
+        } catch (final NoSuchFileException e) {
+            cache.put(key,
+                      ABSENT);
+            return ABSENT;
+        }
+        if (cached != null && cached != ABSENT && blobId != null && blobId.equals(cached.blobId)) {
+            cached.stale = false;
+            return cached;
+        }
+
+        final CachedObject loaded;
+        try {
+            final String content = ioService.readAllString(fsPath);
+            final Object value = ServerMarshalling.fromJSON(content);
+            loaded = new CachedObject(blobId,
+                                      content,
+                                      isShareable(value) ? value : null);
+        } catch (final NoSuchFileException e) {
+            cache.put(key,
+                      ABSENT);
+            return ABSENT;
+        }
+        cache.put(key,
+                  loaded);
+        return loaded;
+    }
+
+    private String blobId(final Path fsPath) {
+        final BasicFileAttributeView view = ioService.getFileAttributeView(fsPath,
+                                                                           BasicFileAttributeView.class);
+        if (view == null) {
+            if (!ioService.exists(fsPath)) {
+                throw new NoSuchFileException(fsPath.toString());
+            }
+            return null;
+        }
+        final Object fileKey = view.readAttributes().fileKey();
+        return fileKey == null ? null : fileKey.toString();
+    }
+
+    void invalidate(final WatchKey watchKey) {
+        for (final WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKind.OVERFLOW || !(event.context() instanceof WatchContext)) {
+                invalidateAll();
+                continue;
+            }
+            final WatchContext context = (WatchContext) event.context();
+            invalidate(context.getPath());
+            invalidate(context.getOldPath());
+        }
+        version.incrementAndGet();
+    }
+
+    private void invalidate(final Path path) {
+        if (path == null) {
+            return;
+        }
+        final CachedObject cached = cache.get(path.toString());
+        if (cached == ABSENT) {
+            cache.remove(path.toString());
+        } else if (cached != null) {
+            cached.stale = true;
+        }
+    }
+
+    private void invalidateAll() {
+        synchronized (cache) {
+            cache.values().removeIf(cached -> cached == ABSENT);
+            cache.values().forEach(cached -> cached.stale = true);
+        }
+    }
+
+    static boolean isShareable(final Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Long
+                || value instanceof Integer
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof Double
+                || value instanceof Float
+                || value instanceof BigDecimal
+                || value instanceof BigInteger
+                || value instanceof Enum;
+    }
+
     private void initializeMarshaller() {
         MappingContextSingleton.get();
     }
@@ -116,4 +290,43 @@ public class ObjectStorageImpl implements ObjectStorage {
             fileSystem = ioService.getFileSystem(URI.create(rootPath));
         }
     }
+
+    private void initializeWatchService() {
+        try {
+            final WatchService ws = fileSystem.newWatchService();
+            if (ws instanceof SubscribableWatchService) {
+                ((SubscribableWatchService) ws).subscribe(this::invalidate);
+                watchService = ws;
+                watched = true;
+            } else if (ws != null) {
+                ws.close();
+            }
+        } catch (final Exception e) {
+            LOGGER.debug("Watch service not available for the object storage, cached objects are revalidated on each read.",
+                         e);
+        }
+    }
+
+    static class CachedObject {
+
+        private final String blobId;
+        private final String content;
+        private final Object value;
+        private volatile boolean stale;
+
+        CachedObject(final String blobId,
+                     final String content,
+                     final Object value) {
+            this.blobId = blobId;
+            this.content = content;
+            this.value = value;
+        }
+
+        Object get() {
+            if (value != null || content == null) {
+                return value;
+            }
+            return ServerMarshalling.fromJSON(content);
+        }
+    }
 }
@@ -38,6 +38,7 @@ import org.uberfire.commons.async.DescriptiveRunnable;
 import org.uberfire.commons.concurrent.Unmanaged;
 import org.uberfire.commons.services.cdi.ApplicationStarted;
 import org.uberfire.io.IOWatchService;
+import org.uberfire.java.nio.base.SubscribableWatchService;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.WatchEvent;
 import org.uberfire.java.nio.file.WatchKey;
@@ -62,6 +63,7 @@ public abstract class AbstractIOWatchService implements IOWatchService,
 
     private boolean started;
     private final Set<AsyncWatchService> watchThreads = new HashSet<>();
+    private final List<SubscribableWatchService> pendingSubscriptions = new ArrayList<>();
     private Event<ResourceBatchChangesEvent> resourceBatchChanges;
     private Event<ResourceUpdatedEvent> resourceUpdatedEvent;
     private Event<ResourceRenamedEvent> resourceRenamedEvent;
@@ -119,6 +121,10 @@ public abstract class AbstractIOWatchService implements IOWatchService,
                 }));
             }
             watchThreads.clear();
+            for (final SubscribableWatchService ws : pendingSubscriptions) {
+                subscribe(ws);
+            }
+            pendingSubscriptions.clear();
         }
     }
 
@@ -164,6 +170,19 @@ public abstract class AbstractIOWatchService implements IOWatchService,
         fileSystems.add(fs.getName());
         watchServices.add(ws);
 
+        // watch services able to push their keys are served by the file system's dispatch
+        // threads, no need to park one of ours on take()
+        if (ws instanceof SubscribableWatchService) {
+            synchronized (this) {
+                if (started) {
+                    subscribe((SubscribableWatchService) ws);
+                } else {
+                    pendingSubscriptions.add((SubscribableWatchService) ws);
+                }
+            }
+            return;
+        }
+
         final AsyncWatchService asyncWatchService = new AsyncWatchService() {
             @Override
             public void execute(final IOWatchServiceExecutor wsExecutor) {
@@ -217,6 +236,26 @@ public abstract class AbstractIOWatchService implements IOWatchService,
         }
     }
 
+    private void subscribe(final SubscribableWatchService ws) {
+        final IOWatchServiceExecutor watchServiceExecutor = getWatchServiceExecutor();
+        ws.subscribe(wk -> {
+            if (isDisposed) {
+                return;
+            }
+            try {
+                watchServiceExecutor.execute(wk,
+                                             AbstractIOWatchService.this);
+            } catch (final Exception ex) {
+                LOG.error("Unexpected error during WatchService execution",
+                          ex);
+            }
+
+            if (!wk.reset()) {
+                ws.close();
+            }
+        });
+    }
+
     public void configureOnEvent(@Observes ApplicationStarted applicationStartedEvent) {
         start();
     }
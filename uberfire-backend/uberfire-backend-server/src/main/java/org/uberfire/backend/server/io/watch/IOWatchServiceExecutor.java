@@ -16,6 +16,9 @@
 
 package org.uberfire.backend.server.io.watch;
 
+import java.util.Collections;
+import java.util.Map;
+
 import org.uberfire.backend.server.util.Filter;
 import org.uberfire.java.nio.file.WatchEvent;
 import org.uberfire.java.nio.file.WatchKey;
@@ -24,4 +27,12 @@ public interface IOWatchServiceExecutor {
 
     void execute(final WatchKey watchKey,
                  final Filter<WatchEvent<?>> filter);
+
+    /**
+     * Returns the metrics of each file system that had watch events, keyed by file system name. Executors that do
+     * not partition their work report none.
+     */
+    default Map<String, WatchPartitionMetrics> getPartitionMetrics() {
+        return Collections.emptyMap();
+    }
 }
@@ -18,10 +18,14 @@ package org.uberfire.backend.server.io.watch;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.ejb.AccessTimeout;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.ejb.ConcurrencyManagement;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
 import javax.ejb.TransactionAttribute;
@@ -35,9 +39,11 @@ import org.uberfire.backend.server.util.Filter;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.commons.data.Pair;
 import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.StandardWatchEventKind;
 import org.uberfire.java.nio.file.WatchEvent;
 import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.Watchable;
 import org.uberfire.rpc.SessionInfo;
 import org.uberfire.rpc.impl.SessionInfoImpl;
 import org.uberfire.workbench.events.ResourceAdded;
@@ -52,15 +58,27 @@ import org.uberfire.workbench.events.ResourceRenamedEvent;
 import org.uberfire.workbench.events.ResourceUpdated;
 import org.uberfire.workbench.events.ResourceUpdatedEvent;
 
+import static javax.ejb.ConcurrencyManagementType.BEAN;
 import static javax.ejb.TransactionAttributeType.NOT_SUPPORTED;
 import static org.uberfire.backend.server.util.Paths.convert;
 
+/**
+ * Turns watch keys into CDI resource events. Keys are partitioned by file system: the keys of a
+ * file system are fired one at a time and in arrival order, while different file systems are
+ * processed concurrently, so a busy repository can't hold back the events of the others.
+ */
 @Singleton
 @Startup
+@ConcurrencyManagement(BEAN)
 @TransactionAttribute(NOT_SUPPORTED)
-@AccessTimeout(value = 30, unit = java.util.concurrent.TimeUnit.SECONDS)
 public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
 
+    private static final Logger LOG = LoggerFactory.getLogger(IOWatchServiceExecutorImpl.class);
+
+    private static final String UNKNOWN_PARTITION = "<unknown>";
+
+    private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+
     @Inject
     private Event<ResourceBatchChangesEvent> resourceBatchChanges;
 
@@ -91,6 +109,45 @@ public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
     @Override
     public void execute(final WatchKey wk,
                         final Filter<WatchEvent<?>> filter) {
+        final long enqueuedAt = System.nanoTime();
+        final Partition partition = partitions.computeIfAbsent(partitionOf(wk),
+                                                               Partition::new);
+        partition.metrics.enqueued();
+        // fair lock, waiting keys of the same file system are fired in arrival order
+        partition.lock.lock();
+        try {
+            fire(wk,
+                 filter);
+        } finally {
+            partition.lock.unlock();
+            partition.metrics.fired(System.nanoTime() - enqueuedAt);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Watch events of [" + partition.name + "] fired: " + partition.metrics);
+        }
+    }
+
+    @Override
+    public Map<String, WatchPartitionMetrics> getPartitionMetrics() {
+        final Map<String, WatchPartitionMetrics> result = new HashMap<>();
+        partitions.forEach((name, partition) -> result.put(name,
+                                                           partition.metrics));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private String partitionOf(final WatchKey wk) {
+        final Watchable watchable = wk.watchable();
+        if (watchable instanceof org.uberfire.java.nio.file.Path) {
+            final FileSystem fs = ((org.uberfire.java.nio.file.Path) watchable).getFileSystem();
+            if (fs != null && fs.getName() != null) {
+                return fs.getName();
+            }
+        }
+        return UNKNOWN_PARTITION;
+    }
+
+    private void fire(final WatchKey wk,
+                      final Filter<WatchEvent<?>> filter) {
         final List<WatchEvent<?>> events = wk.pollEvents();
         WatchContext firstContext = null;
 
@@ -272,4 +329,15 @@ public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
         return new SessionInfoImpl(sessionId,
                                    new UserImpl(user));
     }
+
+    private static class Partition {
+
+        private final String name;
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final WatchPartitionMetrics metrics = new WatchPartitionMetrics();
+
+        Partition(final String name) {
+            this.name = name;
+        }
+    }
 }
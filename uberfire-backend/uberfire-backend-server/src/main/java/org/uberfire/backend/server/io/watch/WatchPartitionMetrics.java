@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.io.watch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Queue depth and event-to-fire latency of the watch events of a single file system.
+ */
+public class WatchPartitionMetrics {
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max,
+                                                                      0);
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max,
+                                                                        0);
+
+    void enqueued() {
+        maxQueueDepth.accumulate(queueDepth.incrementAndGet());
+    }
+
+    void fired(final long latencyNanos) {
+        queueDepth.decrementAndGet();
+        processed.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        maxLatencyNanos.accumulate(latencyNanos);
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getMaxLatency(final TimeUnit unit) {
+        return unit.convert(maxLatencyNanos.get(),
+                            TimeUnit.NANOSECONDS);
+    }
+
+    public long getAverageLatency(final TimeUnit unit) {
+        final long count = processed.get();
+        return count == 0 ? 0 : unit.convert(totalLatencyNanos.get() / count,
+                                             TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "WatchPartitionMetrics{" +
+                "queueDepth=" + getQueueDepth() +
+                ", maxQueueDepth=" + getMaxQueueDepth() +
+                ", processed=" + getProcessed() +
+                ", avgLatencyMs=" + getAverageLatency(TimeUnit.MILLISECONDS) +
+                ", maxLatencyMs=" + getMaxLatency(TimeUnit.MILLISECONDS) +
+                '}';
+    }
+}
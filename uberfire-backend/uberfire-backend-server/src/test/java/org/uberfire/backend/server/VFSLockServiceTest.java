@@ -36,6 +36,7 @@ import org.uberfire.backend.vfs.Path;
 import org.uberfire.backend.vfs.PathFactory;
 import org.uberfire.backend.vfs.impl.LockInfo;
 import org.uberfire.backend.vfs.impl.LockResult;
+import org.uberfire.commons.cluster.ClusterParameters;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.NoSuchFileException;
@@ -134,16 +135,43 @@ public class VFSLockServiceTest {
     // Unfortunately, batching is required for ensuring writes are properly 
     // replicated in the cluster. This needs to addressed in a future version 
     // of UF: https://issues.jboss.org/browse/UF-242
-    public void acquireLockUsesBatch() {
+    public void acquireLockUsesBatchInCluster() {
+        System.setProperty(ClusterParameters.APPFORMER_CLUSTER,
+                           "true");
+        try {
+            when(ioService.exists(any(org.uberfire.java.nio.file.Path.class))).thenReturn(false);
+
+            lockService.acquireLock(path);
+
+            final InOrder inOrder = inOrder(ioService);
+            inOrder.verify(ioService).startBatch(fileSystem);
+            inOrder.verify(ioService).exists(any(org.uberfire.java.nio.file.Path.class));
+            inOrder.verify(ioService).write(any(org.uberfire.java.nio.file.Path.class),
+                                            any(String.class));
+            inOrder.verify(ioService).endBatch();
+        } finally {
+            System.clearProperty(ClusterParameters.APPFORMER_CLUSTER);
+        }
+    }
+
+    @Test
+    public void acquireLockIsWrittenBehind() {
         when(ioService.exists(any(org.uberfire.java.nio.file.Path.class))).thenReturn(false);
 
         lockService.acquireLock(path);
 
+        verify(ioService,
+               never()).startBatch(fileSystem);
+        verify(ioService,
+               never()).write(any(org.uberfire.java.nio.file.Path.class),
+                              any(String.class));
+
+        lockService.lockTable().flush();
+
         final InOrder inOrder = inOrder(ioService);
         inOrder.verify(ioService).startBatch(fileSystem);
-        inOrder.verify(ioService).exists(any(org.uberfire.java.nio.file.Path.class));
         inOrder.verify(ioService).write(any(org.uberfire.java.nio.file.Path.class),
-                                        any(String.class));
+                                        eq("testUser"));
         inOrder.verify(ioService).endBatch();
     }
 
@@ -217,20 +245,42 @@ public class VFSLockServiceTest {
     // Unfortunately, batching is required for ensuring writes are properly 
     // replicated in the cluster. This needs to addressed in a future version 
     // of UF: https://issues.jboss.org/browse/UF-242
-    public void releaseLockUsesBatch() {
-        lockService.acquireLock(path);
+    public void releaseLockUsesBatchInCluster() {
+        System.setProperty(ClusterParameters.APPFORMER_CLUSTER,
+                           "true");
+        try {
+            lockService.acquireLock(path);
 
-        when(ioService.exists(any(org.uberfire.java.nio.file.Path.class))).thenReturn(true);
-        when(ioService.readAllString(any(org.uberfire.java.nio.file.Path.class))).thenReturn("testUser");
+            when(ioService.exists(any(org.uberfire.java.nio.file.Path.class))).thenReturn(true);
+            when(ioService.readAllString(any(org.uberfire.java.nio.file.Path.class))).thenReturn("testUser");
 
-        lockService.releaseLock(path);
+            lockService.releaseLock(path);
 
-        final InOrder inOrder = inOrder(ioService);
-        inOrder.verify(ioService).startBatch(fileSystem);
-        inOrder.verify(ioService).exists(any(org.uberfire.java.nio.file.Path.class));
-        inOrder.verify(ioService).readAllString(any(org.uberfire.java.nio.file.Path.class));
-        inOrder.verify(ioService).delete(any(org.uberfire.java.nio.file.Path.class));
-        inOrder.verify(ioService).endBatch();
+            final InOrder inOrder = inOrder(ioService);
+            inOrder.verify(ioService).startBatch(fileSystem);
+            inOrder.verify(ioService).exists(any(org.uberfire.java.nio.file.Path.class));
+            inOrder.verify(ioService).readAllString(any(org.uberfire.java.nio.file.Path.class));
+            inOrder.verify(ioService).delete(any(org.uberfire.java.nio.file.Path.class));
+            inOrder.verify(ioService).endBatch();
+        } finally {
+            System.clearProperty(ClusterParameters.APPFORMER_CLUSTER);
+        }
+    }
+
+    @Test
+    public void acquireAndReleaseShouldCoalesce() {
+        when(ioService.exists(any(org.uberfire.java.nio.file.Path.class))).thenReturn(false);
+
+        lockService.acquireLock(path);
+        lockService.releaseLock(path);
+        lockService.lockTable().flush();
+
+        verify(ioService,
+               never()).write(any(org.uberfire.java.nio.file.Path.class),
+                              any(String.class));
+        verify(ioService).deleteIfExists(any(org.uberfire.java.nio.file.Path.class));
+        verify(ioService,
+               times(1)).startBatch(fileSystem);
     }
 
     @Test
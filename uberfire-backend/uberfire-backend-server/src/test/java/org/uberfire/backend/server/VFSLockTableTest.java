@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.backend.vfs.impl.LockInfo;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.FileSystem;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VFSLockTableTest {
+
+    @Mock
+    private IOService ioService;
+
+    @Mock
+    private FileSystem fileSystem;
+
+    private VFSLockTable table;
+
+    private Path file1 = PathFactory.newPath("file1.txt",
+                                             "default://master@repo/dir/file1.txt");
+    private Path file2 = PathFactory.newPath("file2.txt",
+                                             "default://master@repo/dir/sub/file2.txt");
+    private Path other = PathFactory.newPath("other.txt",
+                                             "default://master@repo/otherdir/other.txt");
+    private Path dir = PathFactory.newPath("dir",
+                                           "default://master@repo/dir");
+
+    @Before
+    public void setup() {
+        when(ioService.exists(any(org.uberfire.java.nio.file.Path.class))).thenReturn(false);
+        when(ioService.get(any(URI.class))).thenReturn(mock(org.uberfire.java.nio.file.Path.class));
+        table = new VFSLockTable(ioService,
+                                 fileSystem,
+                                 true,
+                                 60000,
+                                 10000);
+    }
+
+    @After
+    public void tearDown() {
+        table.shutdown();
+    }
+
+    @Test
+    public void compareAndSetShouldFailOnStaleState() {
+        final LockInfo unlocked = table.retrieve(file1);
+        assertTrue(table.compareAndSet(unlocked,
+                                       "dora"));
+        assertFalse(table.compareAndSet(unlocked,
+                                        "bento"));
+
+        final LockInfo locked = table.retrieve(file1);
+        assertEquals("dora",
+                     locked.lockedBy());
+        assertTrue(table.compareAndSet(locked,
+                                       null));
+        assertFalse(table.retrieve(file1).isLocked());
+    }
+
+    @Test
+    public void lockStateIsLoadedOnce() {
+        table.retrieve(file1);
+        table.retrieve(file1);
+
+        verify(ioService,
+               times(1)).exists(any(org.uberfire.java.nio.file.Path.class));
+    }
+
+    @Test
+    public void retrieveLockedShouldUsePrefixIndex() {
+        table.compareAndSet(table.retrieve(file1),
+                            "dora");
+        table.compareAndSet(table.retrieve(file2),
+                            "bento");
+        table.compareAndSet(table.retrieve(other),
+                            "dora");
+
+        final List<LockInfo> locked = table.retrieveLocked(dir);
+
+        assertEquals(2,
+                     locked.size());
+        assertEquals(file1.toURI(),
+                     locked.get(0).getFile().toURI());
+        assertEquals(file2.toURI(),
+                     locked.get(1).getFile().toURI());
+
+        table.compareAndSet(table.retrieve(file1),
+                            null);
+        assertEquals(1,
+                     table.retrieveLocked(dir).size());
+    }
+
+    @Test
+    public void flushShouldWriteLatestStateInOneBatch() {
+        table.compareAndSet(table.retrieve(file1),
+                            "dora");
+        table.compareAndSet(table.retrieve(file2),
+                            "bento");
+        table.compareAndSet(table.retrieve(file2),
+                            null);
+
+        table.flush();
+
+        verify(ioService,
+               times(1)).startBatch(fileSystem);
+        verify(ioService,
+               times(1)).write(any(org.uberfire.java.nio.file.Path.class),
+                               any(String.class));
+        verify(ioService,
+               times(1)).deleteIfExists(any(org.uberfire.java.nio.file.Path.class));
+        verify(ioService,
+               times(1)).endBatch();
+
+        table.flush();
+        verify(ioService,
+               times(1)).startBatch(fileSystem);
+    }
+
+    @Test
+    public void shutdownShouldFlushPendingChanges() {
+        table.compareAndSet(table.retrieve(file1),
+                            "dora");
+
+        table.shutdown();
+
+        verify(ioService,
+               times(1)).write(any(org.uberfire.java.nio.file.Path.class),
+                               eq("dora"));
+    }
+}
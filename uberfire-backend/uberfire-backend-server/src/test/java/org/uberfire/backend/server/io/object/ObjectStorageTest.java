@@ -27,6 +27,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
 import org.uberfire.mocks.FileSystemTestingUtils;
 import org.uberfire.mocks.SessionInfoMock;
 import org.uberfire.rpc.SessionInfo;
@@ -143,6 +144,72 @@ public class ObjectStorageTest {
         assertFalse(objectStorage.exists("/forks/uberfire"));
     }
 
+    @Test
+    public void testRepeatedReadsAreCached() {
+        objectStorage.write("/forks/uberfire",
+                            "content");
+        reset(ioService);
+
+        assertEquals("content",
+                     objectStorage.read("/forks/uberfire"));
+        assertEquals("content",
+                     objectStorage.read("/forks/uberfire"));
+        assertTrue(objectStorage.exists("/forks/uberfire"));
+
+        verify(ioService,
+               never()).readAllString(any(Path.class));
+    }
+
+    @Test
+    public void testMutableObjectsAreNotShared() {
+        final ArrayList<String> fileContent = new ArrayList<String>();
+        fileContent.add("uberfire");
+        objectStorage.write("/forks/uberfire",
+                            fileContent);
+
+        List<String> first = objectStorage.read("/forks/uberfire");
+        first.add("changed");
+        List<String> second = objectStorage.read("/forks/uberfire");
+
+        assertNotSame(first,
+                      second);
+        assertEquals(1,
+                     second.size());
+    }
+
+    @Test
+    public void testVersionChangesOnWriteAndDelete() {
+        final long initial = objectStorage.getVersion();
+        objectStorage.write("/forks/uberfire",
+                            "content");
+        final long afterWrite = objectStorage.getVersion();
+        objectStorage.delete("/forks/uberfire");
+
+        assertNotEquals(initial,
+                        afterWrite);
+        assertNotEquals(afterWrite,
+                        objectStorage.getVersion());
+        assertNull(objectStorage.read("/forks/uberfire"));
+    }
+
+    @Test
+    public void testBatchWrapsWritesAndDeletes() {
+        objectStorage.batch(() -> {
+            objectStorage.write("/forks/added",
+                                "content");
+            objectStorage.delete("/forks/removed");
+        });
+
+        // the write opens a nested batch of its own
+        verify(ioService,
+               times(2)).startBatch(fileSystem);
+        verify(ioService,
+               times(2)).endBatch();
+        assertEquals("content",
+                     objectStorage.read("/forks/added"));
+        assertFalse(objectStorage.exists("/forks/removed"));
+    }
+
     private SessionInfo mockSessionInfo() {
         return new SessionInfoMock();
     }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.io.watch;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.backend.server.util.Filter;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class IOWatchServiceExecutorImplTest {
+
+    private IOWatchServiceExecutorImpl executor;
+    private ExecutorService threads;
+
+    @Before
+    public void setup() {
+        executor = new IOWatchServiceExecutorImpl();
+        threads = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    public void busyFileSystemShouldNotBlockOthers() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Filter<WatchEvent<?>> slowFilter = event -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            return true;
+        };
+        final Filter<WatchEvent<?>> filterAll = event -> true;
+
+        final Future<?> busy = threads.submit(() -> executor.execute(key("busy"),
+                                                                     slowFilter));
+        assertTrue(blocked.await(5,
+                                 TimeUnit.SECONDS));
+
+        final Future<?> other = threads.submit(() -> executor.execute(key("other"),
+                                                                      filterAll));
+        other.get(5,
+                  TimeUnit.SECONDS);
+
+        assertEquals(1,
+                     executor.getPartitionMetrics().get("busy").getQueueDepth());
+        assertEquals(1,
+                     executor.getPartitionMetrics().get("other").getProcessed());
+
+        release.countDown();
+        busy.get(5,
+                 TimeUnit.SECONDS);
+
+        final WatchPartitionMetrics metrics = executor.getPartitionMetrics().get("busy");
+        assertEquals(0,
+                     metrics.getQueueDepth());
+        assertEquals(1,
+                     metrics.getMaxQueueDepth());
+        assertEquals(1,
+                     metrics.getProcessed());
+    }
+
+    private WatchKey key(final String fsName) {
+        final FileSystem fs = mock(FileSystem.class);
+        when(fs.getName()).thenReturn(fsName);
+        final Path path = mock(Path.class);
+        when(path.getFileSystem()).thenReturn(fs);
+
+        final WatchKey wk = mock(WatchKey.class);
+        when(wk.watchable()).thenReturn(path);
+        when(wk.pollEvents()).thenReturn(Collections.singletonList(mock(WatchEvent.class)));
+        return wk;
+    }
+}
@@ -18,8 +18,20 @@ package org.uberfire.commons.cluster;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
@@ -36,13 +48,24 @@ import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * JMS backed cluster messaging. Messages are sent through a small pool of long-lived sessions, each
+ * caching its producers per destination, and messages for the same destination are collected for
+ * a short window and sent as a single JMS message. Broadcasts therefore return before the message
+ * is sent; pending batches are flushed on {@link #close()}.
+ */
 public class ClusterJMSService implements ClusterService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ClusterJMSService.class);
 
+    static final String CODEC_PROPERTY = "appformer-codec";
+
     private Connection connection;
     private ClusterParameters clusterParameters;
     private List<Session> consumerSessions = new ArrayList<>();
+    private volatile ProducerPool producerPool;
+    private volatile ScheduledExecutorService batchFlusher;
+    private final ConcurrentMap<String, PendingBatch> batches = new ConcurrentHashMap<>();
 
     public ClusterJMSService() {
         clusterParameters = loadParameters();
@@ -65,6 +88,16 @@ public class ClusterJMSService implements ClusterService {
             LOGGER.error("Error connecting on JMS " + e.getMessage());
             throw new RuntimeException(e);
         }
+
+        producerPool = new ProducerPool(clusterParameters.getProducerPoolSize());
+        if (clusterParameters.getBatchWindow() > 0) {
+            batchFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r,
+                                                 "cluster-jms-batch-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
     }
 
     ActiveMQConnectionFactory createConnectionFactory(String jmsURL,
@@ -84,6 +117,85 @@ public class ClusterJMSService implements ClusterService {
                                    String channel,
                                    Class<T> objectMessageClass,
                                    Consumer<T> listener) {
+        registerConsumer(type,
+                         channel,
+                         message -> {
+                             if (message instanceof ObjectMessage) {
+                                 accept((ObjectMessage) message,
+                                        objectMessageClass,
+                                        listener);
+                             }
+                         });
+    }
+
+    @Override
+    public <T> void createConsumer(DestinationType type,
+                                   String channel,
+                                   ClusterMessageCodec<T> codec,
+                                   Consumer<T> listener) {
+        registerConsumer(type,
+                         channel,
+                         message -> {
+                             try {
+                                 if (message instanceof BytesMessage && codec.getName().equals(message.getStringProperty(CODEC_PROPERTY))) {
+                                     final BytesMessage bytesMessage = (BytesMessage) message;
+                                     final int count = bytesMessage.readInt();
+                                     for (int i = 0; i < count; i++) {
+                                         final byte[] payload = new byte[bytesMessage.readInt()];
+                                         bytesMessage.readBytes(payload);
+                                         final T object;
+                                         try {
+                                             object = codec.decode(payload);
+                                         } catch (Exception e) {
+                                             LOGGER.error("Exception decoding JMS message with codec " + codec.getName() + ": " + e.getMessage());
+                                             continue;
+                                         }
+                                         listener.accept(object);
+                                     }
+                                 } else if (message instanceof ObjectMessage) {
+                                     // sent by a node that predates the codec
+                                     accept((ObjectMessage) message,
+                                            codec.getType(),
+                                            listener);
+                                 }
+                             } catch (JMSException e) {
+                                 LOGGER.error("Exception receiving JMS message: " + e.getMessage());
+                             }
+                         });
+    }
+
+    private <T> void accept(ObjectMessage message,
+                            Class<T> objectMessageClass,
+                            Consumer<T> listener) {
+        try {
+            Serializable object = message.getObject();
+            if (object instanceof ClusterMessageBatch) {
+                for (Serializable batched : ((ClusterMessageBatch) object).getMessages()) {
+                    accept(objectMessageClass,
+                           batched,
+                           listener);
+                }
+            } else {
+                accept(objectMessageClass,
+                       object,
+                       listener);
+            }
+        } catch (JMSException e) {
+            LOGGER.error("Exception receiving JMS message: " + e.getMessage());
+        }
+    }
+
+    private <T> void accept(Class<T> objectMessageClass,
+                            Serializable object,
+                            Consumer<T> listener) {
+        if (objectMessageClass.isInstance(object)) {
+            listener.accept((T) object);
+        }
+    }
+
+    private void registerConsumer(DestinationType type,
+                                  String channel,
+                                  MessageListener messageListener) {
         try {
             Session session = createConsumerSession();
             Destination topic = createDestination(type,
@@ -91,48 +203,132 @@ public class ClusterJMSService implements ClusterService {
                                                   session);
             MessageConsumer messageConsumer = session.createConsumer(topic);
 
-            messageConsumer.setMessageListener(message -> {
-                if (message instanceof ObjectMessage) {
-                    try {
-                        Serializable object = ((ObjectMessage) message).getObject();
-                        if (objectMessageClass.isInstance(object)) {
-                            listener.accept((T) object);
-                        }
-                    } catch (JMSException e) {
-                        LOGGER.error("Exception receiving JMS message: " + e.getMessage());
-                    }
-                }
-            });
+            messageConsumer.setMessageListener(messageListener);
         } catch (Exception e) {
             LOGGER.error("Error creating JMS Watch Service: " + e.getMessage());
         }
     }
 
     @Override
-    public synchronized void broadcast(DestinationType type,
-                                       String channel,
-                                       Serializable object) {
+    public void broadcast(DestinationType type,
+                          String channel,
+                          Serializable object) {
+        enqueue(type,
+                channel,
+                null,
+                object);
+    }
+
+    @Override
+    public <T> void broadcast(DestinationType type,
+                              String channel,
+                              T object,
+                              ClusterMessageCodec<T> codec) {
+        final byte[] payload;
+        try {
+            payload = codec.encode(object);
+        } catch (Exception e) {
+            LOGGER.error("Exception encoding JMS message with codec " + codec.getName() + ": " + e.getMessage());
+            return;
+        }
+        enqueue(type,
+                channel,
+                codec.getName(),
+                payload);
+    }
+
+    private void enqueue(DestinationType type,
+                         String channel,
+                         String codecName,
+                         Object entry) {
+        final ScheduledExecutorService flusher = batchFlusher;
+        if (flusher == null) {
+            final List<Object> entries = new ArrayList<>(1);
+            entries.add(entry);
+            send(type,
+                 channel,
+                 codecName,
+                 entries);
+            return;
+        }
+
+        final PendingBatch batch = batches.computeIfAbsent(type + ":" + codecName + ":" + channel,
+                                                           k -> new PendingBatch(type,
+                                                                                 channel,
+                                                                                 codecName));
+        final boolean full;
+        final boolean schedule;
+        synchronized (batch) {
+            batch.entries.add(entry);
+            full = batch.entries.size() >= clusterParameters.getBatchSize();
+            schedule = !full && !batch.scheduled;
+            if (schedule) {
+                batch.scheduled = true;
+            }
+        }
+
+        if (full) {
+            flush(batch);
+        } else if (schedule) {
+            try {
+                flusher.schedule(() -> flush(batch),
+                                 clusterParameters.getBatchWindow(),
+                                 TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // flusher is gone, service is closing
+                flush(batch);
+            }
+        }
+    }
+
+    private void flush(PendingBatch batch) {
+        // keeps batches of the same destination in order
+        batch.sendLock.lock();
+        try {
+            final List<Object> entries;
+            synchronized (batch) {
+                batch.scheduled = false;
+                if (batch.entries.isEmpty()) {
+                    return;
+                }
+                entries = batch.entries;
+                batch.entries = new ArrayList<>();
+            }
+            send(batch.type,
+                 batch.channel,
+                 batch.codecName,
+                 entries);
+        } finally {
+            batch.sendLock.unlock();
+        }
+    }
 
-        Session session = null;
+    private void send(DestinationType type,
+                      String channel,
+                      String codecName,
+                      List<Object> entries) {
+        final PooledSession pooledSession;
         try {
-            session = connection.createSession(false,
-                                               Session.AUTO_ACKNOWLEDGE);
-            Destination destination = createDestination(type,
-                                                        channel,
-                                                        session);
-            ObjectMessage objectMessage = session.createObjectMessage(object);
-            MessageProducer messageProducer = session.createProducer(destination);
-            messageProducer.send(objectMessage);
+            pooledSession = producerPool.borrow();
         } catch (JMSException e) {
             LOGGER.error("Exception on JMS broadcast: " + e.getMessage());
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (JMSException e) {
-                    LOGGER.error("Exception on closing JMS session (this could trigger a leak) " + e.getMessage());
-                }
+            return;
+        }
+
+        try {
+            final Message message;
+            if (codecName == null) {
+                message = pooledSession.createObjectMessage(entries);
+            } else {
+                message = pooledSession.createBytesMessage(codecName,
+                                                           entries);
             }
+            pooledSession.getProducer(type,
+                                      channel).send(message);
+            producerPool.release(pooledSession);
+        } catch (JMSException e) {
+            LOGGER.error("Exception on JMS broadcast: " + e.getMessage());
+            producerPool.discard(pooledSession);
         }
     }
 
@@ -172,6 +368,16 @@ public class ClusterJMSService implements ClusterService {
 
     @Override
     public void close() {
+        final ScheduledExecutorService flusher = batchFlusher;
+        if (flusher != null) {
+            batchFlusher = null;
+            flusher.shutdownNow();
+        }
+        batches.values().forEach(this::flush);
+        batches.clear();
+        if (producerPool != null) {
+            producerPool.close();
+        }
         try {
             for (Session s : consumerSessions) {
                 s.close();
@@ -181,4 +387,122 @@ public class ClusterJMSService implements ClusterService {
             LOGGER.error("Exception closing JMS connection and consumerSessions: " + e.getMessage());
         }
     }
+
+    private static class PendingBatch {
+
+        private final DestinationType type;
+        private final String channel;
+        private final String codecName;
+        private final ReentrantLock sendLock = new ReentrantLock();
+        private List<Object> entries = new ArrayList<>();
+        private boolean scheduled;
+
+        PendingBatch(DestinationType type,
+                     String channel,
+                     String codecName) {
+            this.type = type;
+            this.channel = channel;
+            this.codecName = codecName;
+        }
+    }
+
+    private class ProducerPool {
+
+        private final BlockingQueue<PooledSession> idle = new LinkedBlockingQueue<>();
+        private final Semaphore permits;
+
+        ProducerPool(int size) {
+            this.permits = new Semaphore(Math.max(1,
+                                                  size));
+        }
+
+        PooledSession borrow() throws JMSException {
+            permits.acquireUninterruptibly();
+            final PooledSession pooledSession = idle.poll();
+            if (pooledSession != null) {
+                return pooledSession;
+            }
+            try {
+                return new PooledSession(connection.createSession(false,
+                                                                  Session.AUTO_ACKNOWLEDGE));
+            } catch (JMSException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        void release(PooledSession pooledSession) {
+            idle.offer(pooledSession);
+            permits.release();
+        }
+
+        void discard(PooledSession pooledSession) {
+            pooledSession.close();
+            permits.release();
+        }
+
+        void close() {
+            PooledSession pooledSession;
+            while ((pooledSession = idle.poll()) != null) {
+                pooledSession.close();
+            }
+        }
+    }
+
+    private class PooledSession {
+
+        private final Session session;
+        private final Map<String, MessageProducer> producers = new HashMap<>();
+
+        PooledSession(Session session) {
+            this.session = session;
+        }
+
+        MessageProducer getProducer(DestinationType type,
+                                    String channel) throws JMSException {
+            final String key = type + ":" + channel;
+            MessageProducer producer = producers.get(key);
+            if (producer == null) {
+                producer = session.createProducer(createDestination(type,
+                                                                    channel,
+                                                                    session));
+                producers.put(key,
+                              producer);
+            }
+            return producer;
+        }
+
+        Message createObjectMessage(List<Object> entries) throws JMSException {
+            if (entries.size() == 1) {
+                return session.createObjectMessage((Serializable) entries.get(0));
+            }
+            final List<Serializable> messages = new ArrayList<>(entries.size());
+            for (Object entry : entries) {
+                messages.add((Serializable) entry);
+            }
+            return session.createObjectMessage(new ClusterMessageBatch(messages));
+        }
+
+        Message createBytesMessage(String codecName,
+                                   List<Object> entries) throws JMSException {
+            final BytesMessage message = session.createBytesMessage();
+            message.setStringProperty(CODEC_PROPERTY,
+                                      codecName);
+            message.writeInt(entries.size());
+            for (Object entry : entries) {
+                final byte[] payload = (byte[]) entry;
+                message.writeInt(payload.length);
+                message.writeBytes(payload);
+            }
+            return message;
+        }
+
+        void close() {
+            try {
+                session.close();
+            } catch (JMSException e) {
+                LOGGER.error("Exception on closing JMS session (this could trigger a leak) " + e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.commons.cluster;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializable messages broadcast to the same destination within one batch window, sent as a
+ * single JMS message.
+ */
+public class ClusterMessageBatch implements Serializable {
+
+    private final ArrayList<Serializable> messages;
+
+    public ClusterMessageBatch(List<Serializable> messages) {
+        this.messages = new ArrayList<>(messages);
+    }
+
+    public List<Serializable> getMessages() {
+        return messages;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.commons.cluster;
+
+import java.io.IOException;
+
+/**
+ * Binary encoding of a cluster message, used instead of Java serialization. The name travels with
+ * each message so consumers only decode what was written by the same codec.
+ */
+public interface ClusterMessageCodec<T> {
+
+    String getName();
+
+    /**
+     * Type of the messages handled by this codec. Consumers also accept an ObjectMessage carrying an
+     * instance of this type, the format sent by nodes that predate the codec, so their messages are
+     * still received during a rolling upgrade.
+     */
+    Class<T> getType();
+
+    byte[] encode(T object) throws IOException;
+
+    T decode(byte[] bytes) throws IOException;
+}
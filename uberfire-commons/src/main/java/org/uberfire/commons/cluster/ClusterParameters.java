@@ -17,6 +17,7 @@ package org.uberfire.commons.cluster;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.commons.config.ConfigProperties;
 
 public class ClusterParameters {
 
@@ -27,13 +28,27 @@ public class ClusterParameters {
     public static final String APPFORMER_JMS_URL = "appformer-jms-url";
     public static final String APPFORMER_JMS_USERNAME = "appformer-jms-username";
     public static final String APPFORMER_JMS_PASSWORD = "appformer-jms-password";
+    public static final String APPFORMER_JMS_PRODUCER_POOL_SIZE = "appformer-jms-producer-pool-size";
+    public static final String APPFORMER_JMS_BATCH_WINDOW = "appformer-jms-batch-window";
+    public static final String APPFORMER_JMS_BATCH_SIZE = "appformer-jms-batch-size";
     private Boolean appFormerClustered;
     private String jmsURL;
     private String jmsUserName;
     private String jmsPassword;
+    private int producerPoolSize;
+    private long batchWindow;
+    private int batchSize;
 
     public ClusterParameters() {
 
+        final ConfigProperties config = new ConfigProperties(System.getProperties());
+        this.producerPoolSize = config.get(APPFORMER_JMS_PRODUCER_POOL_SIZE,
+                                           "4").getIntValue(4);
+        this.batchWindow = config.get(APPFORMER_JMS_BATCH_WINDOW,
+                                      "5").getLongValue(5);
+        this.batchSize = config.get(APPFORMER_JMS_BATCH_SIZE,
+                                    "100").getIntValue(100);
+
         this.appFormerClustered = Boolean.valueOf(System.getProperty(APPFORMER_CLUSTER,
                                                                      "false"));
         if (appFormerClustered) {
@@ -88,4 +103,23 @@ public class ClusterParameters {
     public String getJmsPassword() {
         return jmsPassword;
     }
+
+    /**
+     * Number of long-lived sessions used to send messages.
+     */
+    public int getProducerPoolSize() {
+        return producerPoolSize;
+    }
+
+    /**
+     * Time in milliseconds messages for the same destination are collected before being sent as one
+     * message, zero or less to send each message right away.
+     */
+    public long getBatchWindow() {
+        return batchWindow;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
 }
@@ -13,10 +13,20 @@ public interface ClusterService {
                         Consumer<T> listener);
 
 
+    <T> void createConsumer(DestinationType type,
+                            String channel,
+                            ClusterMessageCodec<T> codec,
+                            Consumer<T> listener);
+
     void broadcast(DestinationType type,
                    String channel,
                    Serializable object);
 
+    <T> void broadcast(DestinationType type,
+                       String channel,
+                       T object,
+                       ClusterMessageCodec<T> codec);
+
     boolean isAppFormerClustered();
 
     void close();
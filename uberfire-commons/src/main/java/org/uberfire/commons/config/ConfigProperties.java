@@ -162,6 +162,29 @@ public class ConfigProperties {
             return Integer.parseInt(value);
         }
 
+        /**
+         * Returns the integer value of this property, or the given fallback if the value cannot be parsed as an
+         * integer.
+         */
+        public int getIntValue(int fallback) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+
+        /**
+         * Returns the long value of this property, or the given fallback if the value cannot be parsed as a long.
+         */
+        public long getLongValue(long fallback) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+
         @Override
         public String toString() {
             return name + " = \"" + value + "\"" + (isDefault ? " (Defaulted)" : "");
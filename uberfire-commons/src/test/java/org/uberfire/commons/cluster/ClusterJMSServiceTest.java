@@ -15,16 +15,29 @@
  */
 package org.uberfire.commons.cluster;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.ObjectMessage;
 import javax.jms.Session;
+import javax.jms.Topic;
 
 import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -38,6 +51,8 @@ public class ClusterJMSServiceTest {
 
     @Before
     public void setup() throws JMSException {
+        System.setProperty(ClusterParameters.APPFORMER_JMS_BATCH_WINDOW,
+                           "50");
 
         factory = mock(ActiveMQConnectionFactory.class);
         connection = mock(Connection.class);
@@ -57,6 +72,11 @@ public class ClusterJMSServiceTest {
         };
     }
 
+    @After
+    public void tearDown() {
+        System.clearProperty(ClusterParameters.APPFORMER_JMS_BATCH_WINDOW);
+    }
+
     @Test
     public void connectTest() throws JMSException {
         clusterService.connect();
@@ -84,4 +104,119 @@ public class ClusterJMSServiceTest {
         verify(session2).close();
         verify(connection).close();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void broadcastsShouldBeBatchedOnAPooledSession() throws JMSException {
+        final MessageProducer producer = mock(MessageProducer.class);
+        final ObjectMessage objectMessage = mock(ObjectMessage.class);
+        when(session1.createTopic("dora_destination")).thenReturn(mock(Topic.class));
+        when(session1.createProducer(any())).thenReturn(producer);
+        when(session1.createObjectMessage(any())).thenReturn(objectMessage);
+
+        clusterService.connect();
+        clusterService.broadcast(ClusterJMSService.DestinationType.PubSub,
+                                 "dora_destination",
+                                 "first");
+        clusterService.broadcast(ClusterJMSService.DestinationType.PubSub,
+                                 "dora_destination",
+                                 "second");
+
+        verify(producer,
+               timeout(5000)).send(objectMessage);
+        final ArgumentCaptor<ClusterMessageBatch> batch = ArgumentCaptor.forClass(ClusterMessageBatch.class);
+        verify(session1).createObjectMessage(batch.capture());
+        assertEquals(Arrays.asList("first",
+                                   "second"),
+                     batch.getValue().getMessages());
+
+        clusterService.broadcast(ClusterJMSService.DestinationType.PubSub,
+                                 "dora_destination",
+                                 "third");
+        verify(producer,
+               timeout(5000).times(2)).send(objectMessage);
+
+        // session and producer are reused
+        verify(connection,
+               times(1)).createSession(false,
+                                       Session.AUTO_ACKNOWLEDGE);
+        verify(session1,
+               times(1)).createProducer(any());
+
+        clusterService.close();
+        verify(session1).close();
+    }
+
+    @Test
+    public void codecBroadcastShouldSendBytesMessage() throws JMSException {
+        final MessageProducer producer = mock(MessageProducer.class);
+        final BytesMessage bytesMessage = mock(BytesMessage.class);
+        when(session1.createTopic("dora_destination")).thenReturn(mock(Topic.class));
+        when(session1.createProducer(any())).thenReturn(producer);
+        when(session1.createBytesMessage()).thenReturn(bytesMessage);
+
+        final ClusterMessageCodec<String> codec = new StringCodec();
+
+        clusterService.connect();
+        clusterService.broadcast(ClusterJMSService.DestinationType.PubSub,
+                                 "dora_destination",
+                                 "bento",
+                                 codec);
+
+        verify(producer,
+               timeout(5000)).send(bytesMessage);
+        verify(bytesMessage).setStringProperty(ClusterJMSService.CODEC_PROPERTY,
+                                               "string");
+        verify(bytesMessage).writeInt(1);
+        verify(bytesMessage).writeInt(5);
+        verify(bytesMessage).writeBytes("bento".getBytes());
+    }
+
+    @Test
+    public void codecConsumerShouldAcceptObjectMessagesOfOlderNodes() throws JMSException {
+        final MessageConsumer consumer = mock(MessageConsumer.class);
+        when(session1.createTopic("dora_destination")).thenReturn(mock(Topic.class));
+        when(session1.createConsumer(any())).thenReturn(consumer);
+        final List<String> received = new ArrayList<>();
+
+        clusterService.connect();
+        clusterService.createConsumer(ClusterJMSService.DestinationType.PubSub,
+                                      "dora_destination",
+                                      new StringCodec(),
+                                      received::add);
+
+        final ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(consumer).setMessageListener(listener.capture());
+        final ObjectMessage legacy = mock(ObjectMessage.class);
+        when(legacy.getObject()).thenReturn("bento");
+        final ObjectMessage other = mock(ObjectMessage.class);
+        when(other.getObject()).thenReturn(42);
+        listener.getValue().onMessage(legacy);
+        listener.getValue().onMessage(other);
+
+        assertEquals(Collections.singletonList("bento"),
+                     received);
+    }
+
+    private static class StringCodec implements ClusterMessageCodec<String> {
+
+        @Override
+        public String getName() {
+            return "string";
+        }
+
+        @Override
+        public Class<String> getType() {
+            return String.class;
+        }
+
+        @Override
+        public byte[] encode(String object) {
+            return object.getBytes();
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes);
+        }
+    }
+}
@@ -77,6 +77,17 @@ public class MockIOService
 
     }
 
+    @Override
+    public void startBatch(FileSystem... fileSystem) throws org.uberfire.java.nio.file.InterruptedException {
+
+    }
+
+    @Override
+    public void startBatch(FileSystem[] fileSystem,
+                           Option... options) throws org.uberfire.java.nio.file.InterruptedException {
+
+    }
+
     @Override
     public void endBatch() {
 
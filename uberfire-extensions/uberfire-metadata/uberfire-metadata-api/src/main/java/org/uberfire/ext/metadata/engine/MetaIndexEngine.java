@@ -44,5 +44,20 @@ public interface MetaIndexEngine extends PriorityDisposable {
 
     void commit(final KCluster cluster);
 
+    /**
+     * Ends a batch started by {@link #startBatch(KCluster)} without committing it, e.g. when the batch failed.
+     */
+    void abort(final KCluster cluster);
+
+    /**
+     * Returns the last commit id recorded for a segment (branch) of the cluster, or null when none was recorded.
+     */
+    String getIndexedCommit(final KCluster cluster,
+                            final String segmentId);
+
+    void setIndexedCommit(final KCluster cluster,
+                          final String segmentId,
+                          final String commitId);
+
     void beforeDispose(final Runnable callback);
 }
@@ -24,6 +24,7 @@ import org.apache.lucene.search.Sort;
 import org.uberfire.commons.lifecycle.Disposable;
 import org.uberfire.ext.metadata.model.KCluster;
 import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.search.SearchPage;
 
 public interface IndexProvider extends Disposable {
 
@@ -62,5 +63,27 @@ public interface IndexProvider extends Disposable {
     long findHitsByQuery(List<String> indices,
                          Query query);
 
+    /**
+     * Returns the hits from offset to offset + pageSize together with the total number of matching documents. The
+     * page carries no next page request, that is up to the caller. Providers that can page natively should override
+     * this, the default fetches everything up to the end of the page and counts in a second query.
+     */
+    default SearchPage<KObject> findPageByQuery(List<String> indices,
+                                                Query query,
+                                                Sort sort,
+                                                int offset,
+                                                int pageSize) {
+        final List<KObject> hits = findByQuery(indices,
+                                               query,
+                                               sort,
+                                               offset + pageSize);
+        return new SearchPage<>(hits.subList(Math.min(offset,
+                                                      hits.size()),
+                                             hits.size()),
+                                Math.toIntExact(findHitsByQuery(indices,
+                                                                query)),
+                                null);
+    }
+
     List<String> getIndices();
 }
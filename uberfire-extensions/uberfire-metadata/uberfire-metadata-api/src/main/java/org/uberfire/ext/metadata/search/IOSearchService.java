@@ -32,6 +32,16 @@ public interface IOSearchService {
                               final Filter filter,
                               final Path... roots);
 
+    SearchPage<Path> searchByAttrs(final Map<String, ?> attrs,
+                                   final SearchPageRequest pageRequest,
+                                   final Filter filter,
+                                   final Path... roots);
+
+    SearchPage<Path> fullTextSearch(final String term,
+                                    final SearchPageRequest pageRequest,
+                                    final Filter filter,
+                                    final Path... roots);
+
     int searchByAttrsHits(final Map<String, ?> attrs,
                           final Path... roots);
 
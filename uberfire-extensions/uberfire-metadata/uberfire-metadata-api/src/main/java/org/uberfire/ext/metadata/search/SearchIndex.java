@@ -34,6 +34,16 @@ public interface SearchIndex {
                                  final IOSearchService.Filter filter,
                                  final ClusterSegment... clusterSegments);
 
+    SearchPage<KObject> searchByAttrs(final Map<String, ?> attrs,
+                                      final SearchPageRequest pageRequest,
+                                      final IOSearchService.Filter filter,
+                                      final ClusterSegment... clusterSegments);
+
+    SearchPage<KObject> fullTextSearch(final String term,
+                                       final SearchPageRequest pageRequest,
+                                       final IOSearchService.Filter filter,
+                                       final ClusterSegment... clusterSegments);
+
     int searchByAttrsHits(final Map<String, ?> attrs,
                           final ClusterSegment... clusterSegments);
 
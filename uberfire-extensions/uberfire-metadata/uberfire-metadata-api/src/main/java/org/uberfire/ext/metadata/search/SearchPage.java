@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.search;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of search hits. The total is the number of documents matching the query, before any
+ * {@link IOSearchService.Filter} has been applied.
+ */
+public class SearchPage<T> {
+
+    private final List<T> hits;
+    private final int totalHits;
+    private final SearchPageRequest nextPage;
+
+    public SearchPage(final List<T> hits,
+                      final int totalHits,
+                      final SearchPageRequest nextPage) {
+        this.hits = hits;
+        this.totalHits = totalHits;
+        this.nextPage = nextPage;
+    }
+
+    public List<T> getHits() {
+        return hits;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    public boolean hasNextPage() {
+        return nextPage != null;
+    }
+
+    /**
+     * @return the request for the following page, or null if this is the last one.
+     */
+    public SearchPageRequest getNextPage() {
+        return nextPage;
+    }
+
+    public <R> SearchPage<R> map(final Function<T, R> mapper) {
+        return new SearchPage<>(hits.stream().map(mapper).collect(Collectors.toList()),
+                                totalHits,
+                                nextPage);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.search;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+
+import static org.kie.soup.commons.validation.PortablePreconditions.checkCondition;
+
+/**
+ * A page of a search: either an offset based one, or one that continues after the last hit of a
+ * previous page (see {@link SearchPage#getNextPage()}), which avoids collecting the skipped hits again.
+ * A null sort means relevance order.
+ */
+public class SearchPageRequest {
+
+    private final int offset;
+    private final int pageSize;
+    private final Sort sort;
+    private final ScoreDoc after;
+
+    public SearchPageRequest(final int offset,
+                             final int pageSize) {
+        this(offset,
+             pageSize,
+             null);
+    }
+
+    public SearchPageRequest(final int offset,
+                             final int pageSize,
+                             final Sort sort) {
+        this(offset,
+             pageSize,
+             sort,
+             null);
+    }
+
+    private SearchPageRequest(final int offset,
+                              final int pageSize,
+                              final Sort sort,
+                              final ScoreDoc after) {
+        checkCondition("offset must be positive",
+                       offset >= 0);
+        checkCondition("pageSize must be greater than zero",
+                       pageSize > 0);
+        this.offset = offset;
+        this.pageSize = pageSize;
+        this.sort = sort;
+        this.after = after;
+    }
+
+    /**
+     * @param after the last hit of the current page, as returned by the backend that produced it.
+     * @param consumed the number of hits of the current page.
+     * @return the request for the page that follows.
+     */
+    public SearchPageRequest next(final ScoreDoc after,
+                                  final int consumed) {
+        return new SearchPageRequest(offset + consumed,
+                                     pageSize,
+                                     sort,
+                                     after);
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public ScoreDoc getAfter() {
+        return after;
+    }
+}
@@ -60,6 +60,7 @@ import org.uberfire.ext.metadata.backend.elastic.provider.MappingFieldFactory;
 import org.uberfire.ext.metadata.engine.MetaModelStore;
 import org.uberfire.ext.metadata.model.KCluster;
 import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.search.SearchPage;
 import org.uberfire.ext.metadata.model.schema.MetaObject;
 import org.uberfire.ext.metadata.model.schema.MetaProperty;
 import org.uberfire.ext.metadata.provider.IndexProvider;
@@ -253,10 +254,43 @@ public class ElasticSearchIndexProvider implements IndexProvider {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public SearchPage<KObject> findPageByQuery(List<String> indices,
+                                               Query query,
+                                               Sort sort,
+                                               int offset,
+                                               int pageSize) {
+        // one request gives both the page (from/size) and the total number of hits
+        Optional<SearchResponse> response = this.findByQueryRaw(indices,
+                                                                query,
+                                                                sort,
+                                                                offset,
+                                                                pageSize);
+
+        return response.map(res -> new SearchPage<>(hitsToKObjects(res),
+                                                     Math.toIntExact(res.getHits().getTotalHits()),
+                                                     null))
+                .orElse(new SearchPage<>(Collections.emptyList(),
+                                         0,
+                                         null));
+    }
+
     protected Optional<SearchResponse> findByQueryRaw(List<String> indices,
                                                       Query query,
                                                       Sort sort,
                                                       int limit) {
+        return this.findByQueryRaw(indices,
+                                   query,
+                                   sort,
+                                   0,
+                                   limit);
+    }
+
+    protected Optional<SearchResponse> findByQueryRaw(List<String> indices,
+                                                      Query query,
+                                                      Sort sort,
+                                                      int from,
+                                                      int limit) {
         try {
 
             List<String> indexes = indices;
@@ -274,10 +308,14 @@ public class ElasticSearchIndexProvider implements IndexProvider {
                                     sortField);
                         });
             }
-            if (limit > 0 && limit <= ELASTICSEARCH_MAX_SIZE) {
+            if (from > 0) {
+                searchSourceBuilder.from(from);
+            }
+            if (limit > 0 && from + limit <= ELASTICSEARCH_MAX_SIZE) {
                 searchSourceBuilder.size(limit);
             } else {
-                searchSourceBuilder.size(ELASTICSEARCH_MAX_SIZE);
+                searchSourceBuilder.size(Math.max(0,
+                                                  ELASTICSEARCH_MAX_SIZE - from));
             }
             return Optional.of(this.getClient()
                                        .prepareSearch(sanitizeIndexes(indexes).toArray(new String[indexes.size()]))
@@ -16,6 +16,7 @@
 
 package org.uberfire.ext.metadata.backend.elastic.search;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,8 @@ import org.uberfire.ext.metadata.search.ClusterSegment;
 import org.uberfire.ext.metadata.search.DateRange;
 import org.uberfire.ext.metadata.search.IOSearchService;
 import org.uberfire.ext.metadata.search.SearchIndex;
+import org.uberfire.ext.metadata.search.SearchPage;
+import org.uberfire.ext.metadata.search.SearchPageRequest;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Collections.emptyList;
@@ -93,6 +96,39 @@ public class ElasticSearchSearchIndex implements SearchIndex {
                       clusterSegments);
     }
 
+    @Override
+    public SearchPage<KObject> searchByAttrs(final Map<String, ?> attrs,
+                                             final SearchPageRequest pageRequest,
+                                             final IOSearchService.Filter filter,
+                                             final ClusterSegment... clusterSegments) {
+        if (clusterSegments == null || clusterSegments.length == 0) {
+            return emptyPage();
+        }
+        if (attrs == null || attrs.size() == 0) {
+            return emptyPage();
+        }
+        return search(buildQuery(attrs,
+                                 clusterSegments),
+                      pageRequest,
+                      filter,
+                      clusterSegments);
+    }
+
+    @Override
+    public SearchPage<KObject> fullTextSearch(final String term,
+                                              final SearchPageRequest pageRequest,
+                                              final IOSearchService.Filter filter,
+                                              final ClusterSegment... clusterSegments) {
+        if (clusterSegments == null || clusterSegments.length == 0) {
+            return emptyPage();
+        }
+        return search(buildQuery(term,
+                                 clusterSegments),
+                      pageRequest,
+                      filter,
+                      clusterSegments);
+    }
+
     @Override
     public int searchByAttrsHits(final Map<String, ?> attrs,
                                  final ClusterSegment... clusterSegments) {
@@ -141,6 +177,51 @@ public class ElasticSearchSearchIndex implements SearchIndex {
         return hits.stream().filter(kObject -> filter.accept(kObject)).collect(Collectors.toList());
     }
 
+    /**
+     * Fetches page size windows from the offset on until the page is full of accepted hits or there are no
+     * hits left, so that hits rejected by the filter don't leave the page short.
+     */
+    private SearchPage<KObject> search(final Query query,
+                                       final SearchPageRequest pageRequest,
+                                       final IOSearchService.Filter filter,
+                                       final ClusterSegment... clusterSegments) {
+        final List<String> indices = this.getIndices(clusterSegments);
+        final int offset = pageRequest.getOffset();
+        final int pageSize = pageRequest.getPageSize();
+        final List<KObject> page = new ArrayList<>(pageSize);
+        int consumed = 0;
+        int totalHits = -1;
+        boolean exhausted = false;
+        while (page.size() < pageSize && !exhausted) {
+            final SearchPage<KObject> window = this.indexProvider.findPageByQuery(indices,
+                                                                                  query,
+                                                                                  pageRequest.getSort(),
+                                                                                  offset + consumed,
+                                                                                  pageSize);
+            if (totalHits < 0) {
+                totalHits = window.getTotalHits();
+            }
+            final List<KObject> hits = window.getHits();
+            for (int i = 0; i < hits.size() && page.size() < pageSize; i++) {
+                consumed++;
+                if (filter.accept(hits.get(i))) {
+                    page.add(hits.get(i));
+                }
+            }
+            exhausted = hits.size() < pageSize || offset + consumed >= totalHits;
+        }
+        return new SearchPage<>(page,
+                                totalHits,
+                                offset + consumed < totalHits ? pageRequest.next(null,
+                                                                                 consumed) : null);
+    }
+
+    private SearchPage<KObject> emptyPage() {
+        return new SearchPage<>(emptyList(),
+                                0,
+                                null);
+    }
+
     private Query buildQuery(final Map<String, ?> attrs,
                              final ClusterSegment... clusterSegments) {
         final BooleanQuery.Builder query = new BooleanQuery.Builder();
@@ -18,10 +18,13 @@ package org.uberfire.ext.metadata.backend.elastic.index;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 
 import com.google.common.collect.Sets;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
@@ -37,6 +40,7 @@ import org.uberfire.ext.metadata.backend.elastic.metamodel.ElasticMetaProperty;
 import org.uberfire.ext.metadata.backend.elastic.provider.ElasticSearchContext;
 import org.uberfire.ext.metadata.metamodel.NullMetaModelStore;
 import org.uberfire.ext.metadata.model.schema.MetaProperty;
+import org.uberfire.ext.metadata.search.SearchPage;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -161,4 +165,36 @@ public class ElasticSearchIndexProviderTest {
                times(1)).addSort(any(),
                                  eq(sortField));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindPageByQueryUsesOneRequest() {
+        final List<String> indices = Arrays.asList("index");
+        final Query query = new TermQuery(new Term("",
+                                                   ""));
+        final Sort sort = new Sort(SortField.FIELD_DOC);
+        doReturn(Optional.empty()).when(this.provider).findByQueryRaw(indices,
+                                                                      query,
+                                                                      sort,
+                                                                      20,
+                                                                      10);
+
+        final SearchPage<?> page = this.provider.findPageByQuery(indices,
+                                                                 query,
+                                                                 sort,
+                                                                 20,
+                                                                 10);
+
+        assertTrue(page.getHits().isEmpty());
+        assertEquals(0,
+                     page.getTotalHits());
+        verify(this.provider,
+               times(1)).findByQueryRaw(indices,
+                                        query,
+                                        sort,
+                                        20,
+                                        10);
+        verify(this.provider,
+               never()).findHitsByQuery(any(),
+                                        any());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.backend.elastic.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.provider.IndexProvider;
+import org.uberfire.ext.metadata.search.ClusterSegment;
+import org.uberfire.ext.metadata.search.IOSearchService;
+import org.uberfire.ext.metadata.search.SearchPage;
+import org.uberfire.ext.metadata.search.SearchPageRequest;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ElasticSearchSearchIndexTest {
+
+    @Mock
+    private IndexProvider indexProvider;
+
+    @Mock
+    private Analyzer analyzer;
+
+    @Mock
+    private ClusterSegment clusterSegment;
+
+    private final List<KObject> hits = new ArrayList<>();
+
+    private ElasticSearchSearchIndex searchIndex;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 5; i++) {
+            hits.add(mock(KObject.class));
+        }
+        when(clusterSegment.getClusterId()).thenReturn("cluster");
+        when(indexProvider.findPageByQuery(anyListOf(String.class),
+                                           any(Query.class),
+                                           any(Sort.class),
+                                           anyInt(),
+                                           anyInt())).thenAnswer(invocation -> {
+            final int offset = (Integer) invocation.getArguments()[3];
+            final int pageSize = (Integer) invocation.getArguments()[4];
+            return new SearchPage<>(hits.subList(Math.min(offset,
+                                                          hits.size()),
+                                                 Math.min(offset + pageSize,
+                                                          hits.size())),
+                                    hits.size(),
+                                    null);
+        });
+
+        searchIndex = new ElasticSearchSearchIndex(indexProvider,
+                                                   analyzer);
+    }
+
+    @Test
+    public void rejectedHitsAreReplacedFromTheFollowingWindows() {
+        final IOSearchService.Filter filter = kObject -> kObject != hits.get(1) && kObject != hits.get(2);
+
+        final SearchPage<KObject> first = searchIndex.searchByAttrs(Collections.singletonMap("name",
+                                                                                             "*"),
+                                                                    new SearchPageRequest(0,
+                                                                                          2),
+                                                                    filter,
+                                                                    clusterSegment);
+
+        assertEquals(Arrays.asList(hits.get(0),
+                                   hits.get(3)),
+                     first.getHits());
+        assertEquals(5,
+                     first.getTotalHits());
+        assertEquals(4,
+                     first.getNextPage().getOffset());
+        verify(indexProvider,
+               times(2)).findPageByQuery(anyListOf(String.class),
+                                         any(Query.class),
+                                         any(Sort.class),
+                                         anyInt(),
+                                         eq(2));
+
+        final SearchPage<KObject> second = searchIndex.searchByAttrs(Collections.singletonMap("name",
+                                                                                              "*"),
+                                                                     first.getNextPage(),
+                                                                     filter,
+                                                                     clusterSegment);
+
+        assertEquals(Collections.singletonList(hits.get(4)),
+                     second.getHits());
+        assertFalse(second.hasNextPage());
+    }
+
+    @Test
+    public void pageStopsWhenHitsRunOut() {
+        final SearchPage<KObject> page = searchIndex.searchByAttrs(Collections.singletonMap("name",
+                                                                                            "*"),
+                                                                   new SearchPageRequest(0,
+                                                                                         2),
+                                                                   kObject -> false,
+                                                                   clusterSegment);
+
+        assertTrue(page.getHits().isEmpty());
+        assertEquals(5,
+                     page.getTotalHits());
+        assertFalse(page.hasNextPage());
+        verify(indexProvider,
+               times(3)).findPageByQuery(anyListOf(String.class),
+                                         any(Query.class),
+                                         any(Sort.class),
+                                         anyInt(),
+                                         eq(2));
+    }
+}
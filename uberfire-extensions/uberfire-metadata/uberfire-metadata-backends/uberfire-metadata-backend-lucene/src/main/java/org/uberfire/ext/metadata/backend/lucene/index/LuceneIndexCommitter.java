@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.backend.lucene.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.store.AlreadyClosedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.config.ConfigProperties;
+import org.uberfire.commons.lifecycle.Disposable;
+
+import static org.kie.soup.commons.validation.PortablePreconditions.checkCondition;
+import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
+
+/**
+ * Decides when the writes made to a {@link LuceneIndex} are committed (fsync'ed). Readers don't depend on it, as
+ * they are near real time and see the written documents before they are committed.
+ * <ul>
+ * <li>{@link Durability#SYNC}: every write is committed right away (default).</li>
+ * <li>{@link Durability#PERIODIC}: writes are grouped and committed every commit interval, or as soon as a
+ * batch reaches the maximum batch size.</li>
+ * <li>{@link Durability#ON_SHUTDOWN}: writes are only committed on {@link #flush()} and when the indexes are
+ * closed.</li>
+ * </ul>
+ * Uncommitted writes are lost if the node crashes, so the last two trade durability for write throughput.
+ */
+public class LuceneIndexCommitter implements Disposable {
+
+    public static final String DURABILITY = "org.uberfire.metadata.index.commit.durability";
+    public static final String INTERVAL = "org.uberfire.metadata.index.commit.interval";
+    public static final String MAX_BATCH_SIZE = "org.uberfire.metadata.index.commit.batch";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LuceneIndexCommitter.class);
+
+    public enum Durability {
+        SYNC,
+        PERIODIC,
+        ON_SHUTDOWN
+    }
+
+    private final Durability durability;
+    private final int maxBatchSize;
+    private final long intervalMillis;
+    private final Map<LuceneIndex, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong committedWrites = new AtomicLong();
+    private final AtomicInteger maxCommittedBatch = new AtomicInteger();
+    private final AtomicLong totalCommitTime = new AtomicLong();
+    private final AtomicLong maxCommitTime = new AtomicLong();
+
+    public LuceneIndexCommitter(final Durability durability,
+                                final long intervalMillis,
+                                final int maxBatchSize) {
+        this.durability = checkNotNull("durability",
+                                       durability);
+        checkCondition("maxBatchSize must be greater than zero",
+                       maxBatchSize > 0);
+        this.maxBatchSize = maxBatchSize;
+        this.intervalMillis = intervalMillis;
+        if (durability == Durability.PERIODIC) {
+            checkCondition("intervalMillis must be greater than zero",
+                           intervalMillis > 0);
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r,
+                                                 "lucene-index-committer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::flush,
+                                                  intervalMillis,
+                                                  intervalMillis,
+                                                  TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    public static LuceneIndexCommitter fromSystemProperties() {
+        return fromConfig(new ConfigProperties(System.getProperties()));
+    }
+
+    static LuceneIndexCommitter fromConfig(final ConfigProperties config) {
+        final long intervalMillis = config.get(INTERVAL,
+                                               "1000").getLongValue(1000);
+        final int maxBatchSize = config.get(MAX_BATCH_SIZE,
+                                            "1000").getIntValue(1000);
+        return new LuceneIndexCommitter(parseDurability(config.get(DURABILITY,
+                                                                   Durability.SYNC.name()).getValue()),
+                                        intervalMillis > 0 ? intervalMillis : 1000,
+                                        maxBatchSize > 0 ? maxBatchSize : 1000);
+    }
+
+    private static Durability parseDurability(final String value) {
+        try {
+            return Durability.valueOf(value.trim().toUpperCase());
+        } catch (final IllegalArgumentException ex) {
+            LOGGER.warn("Unknown index commit durability '" + value + "', using " + Durability.SYNC);
+            return Durability.SYNC;
+        }
+    }
+
+    /**
+     * Records that the given number of writes were made to the index, committing it if the durability
+     * policy requires it.
+     */
+    public void written(final LuceneIndex index,
+                        final int writes) {
+        final int batch = pending.computeIfAbsent(index,
+                                                  i -> new AtomicInteger()).addAndGet(writes);
+        if (durability == Durability.SYNC || (durability == Durability.PERIODIC && batch >= maxBatchSize)) {
+            commit(index);
+        }
+    }
+
+    /**
+     * Drops the pending writes of an index that is about to be deleted.
+     */
+    public void forget(final LuceneIndex index) {
+        pending.remove(index);
+    }
+
+    public void flush() {
+        for (final LuceneIndex index : pending.keySet()) {
+            try {
+                commit(index);
+            } catch (final AlreadyClosedException ex) {
+                pending.remove(index);
+            } catch (final RuntimeException ex) {
+                LOGGER.error("Can't commit index " + index.getCluster().getClusterId(),
+                             ex);
+            }
+        }
+    }
+
+    private void commit(final LuceneIndex index) {
+        final AtomicInteger counter = pending.get(index);
+        if (counter == null) {
+            return;
+        }
+        final int batch = counter.getAndSet(0);
+        if (batch == 0) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            index.commit();
+        } catch (final RuntimeException ex) {
+            // keep the writes pending, so the next write or flush commits them again
+            counter.addAndGet(batch);
+            throw ex;
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        commits.incrementAndGet();
+        committedWrites.addAndGet(batch);
+        maxCommittedBatch.accumulateAndGet(batch,
+                                           Math::max);
+        totalCommitTime.addAndGet(elapsed);
+        maxCommitTime.accumulateAndGet(elapsed,
+                                       Math::max);
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    public long getCommittedWrites() {
+        return committedWrites.get();
+    }
+
+    public int getPendingWrites() {
+        return pending.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public double getAverageBatchSize() {
+        final long count = commits.get();
+        return count == 0 ? 0 : (double) committedWrites.get() / count;
+    }
+
+    public int getLargestBatchSize() {
+        return maxCommittedBatch.get();
+    }
+
+    public long getAverageCommitTimeNanos() {
+        final long count = commits.get();
+        return count == 0 ? 0 : totalCommitTime.get() / count;
+    }
+
+    public long getMaxCommitTimeNanos() {
+        return maxCommitTime.get();
+    }
+
+    @Override
+    public void dispose() {
+        if (scheduler != null) {
+            // let a running commit finish instead of interrupting its fsync
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(Math.max(intervalMillis,
+                                                         10000),
+                                                TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("Timed out waiting for the scheduled index commit to finish");
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+}
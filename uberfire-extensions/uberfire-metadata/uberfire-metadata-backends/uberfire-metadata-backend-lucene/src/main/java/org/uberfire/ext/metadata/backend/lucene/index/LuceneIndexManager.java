@@ -18,8 +18,10 @@ package org.uberfire.ext.metadata.backend.lucene.index;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,7 +31,7 @@ import java.util.stream.Collectors;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.SearcherFactory;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.ext.metadata.backend.lucene.model.KClusterImpl;
 import org.uberfire.ext.metadata.engine.Index;
 import org.uberfire.ext.metadata.engine.IndexManager;
@@ -41,8 +43,15 @@ import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull
 
 public class LuceneIndexManager implements IndexManager {
 
+    private static final int MAX_COMPOSITE_SEARCHERS = new ConfigProperties(System.getProperties()).get("org.uberfire.metadata.index.composite.searchers",
+                                                                                                        "64").getIntValue(64);
+
     private final LuceneIndexFactory factory;
     private final Map<KCluster, LuceneIndex> indexes = new ConcurrentHashMap<KCluster, LuceneIndex>();
+    private final LinkedHashMap<Set<KCluster>, CompositeSearcher> compositeSearchers = new LinkedHashMap<>(16,
+                                                                                                           0.75f,
+                                                                                                           true);
+    private final LuceneSearcherMetrics compositeMetrics = new LuceneSearcherMetrics();
 
     public LuceneIndexManager(final LuceneIndexFactory factory) {
         this.factory = checkNotNull("factory",
@@ -76,6 +85,7 @@ public class LuceneIndexManager implements IndexManager {
 
     @Override
     public void delete(KCluster cluster) {
+        evictCompositeSearchers(cluster);
         final LuceneIndex setup = indexes.remove(cluster);
         factory.remove(cluster);
         if (setup != null) {
@@ -85,6 +95,7 @@ public class LuceneIndexManager implements IndexManager {
 
     @Override
     public void dispose() {
+        evictCompositeSearchers(null);
         for (final LuceneIndex index : indexes.values()) {
             index.dispose();
         }
@@ -96,6 +107,11 @@ public class LuceneIndexManager implements IndexManager {
         return indexes.get(cluster);
     }
 
+    /**
+     * Returns a searcher over the given clusters (or all of them, if none is given) that must be handed back
+     * through {@link #release(IndexSearcher)}. Searchers spanning several clusters are cached by cluster set and
+     * only rebuilt when one of the underlying cluster readers has been refreshed.
+     */
     public IndexSearcher getIndexSearcher(final ClusterSegment... clusterSegments) {
         final Set<KCluster> clusters;
         if (clusterSegments == null || clusterSegments.length == 0) {
@@ -107,30 +123,138 @@ public class LuceneIndexManager implements IndexManager {
             }
         }
 
-        final Collection<IndexReader> readers = new ArrayList<IndexReader>(clusters.size());
-        for (final KCluster cluster : clusters) {
-            final LuceneIndex index = indexes.get(cluster);
-            readers.add(index.nrtReader());
+        if (clusters.size() == 1) {
+            return indexes.get(clusters.iterator().next()).nrtSearcher();
         }
 
+        final List<LuceneIndex> clusterIndexes = new ArrayList<LuceneIndex>(clusters.size());
+        final List<IndexSearcher> clusterSearchers = new ArrayList<IndexSearcher>(clusters.size());
         try {
-            return new SearcherFactory().newSearcher(new MultiReader(readers.toArray(new IndexReader[readers.size()])),
-                                                     null);
+            // a stable order lets the cached composite readers be matched by identity
+            for (final KCluster cluster : sortedById(clusters)) {
+                final LuceneIndex index = indexes.get(cluster);
+                clusterSearchers.add(index.nrtSearcher());
+                clusterIndexes.add(index);
+            }
+            final IndexReader[] readers = new IndexReader[clusterSearchers.size()];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = clusterSearchers.get(i).getIndexReader();
+            }
+            return compositeSearcher(clusters,
+                                     readers);
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            for (int i = 0; i < clusterSearchers.size(); i++) {
+                clusterIndexes.get(i).nrtRelease(clusterSearchers.get(i));
+            }
+        }
+    }
+
+    private synchronized IndexSearcher compositeSearcher(final Set<KCluster> clusters,
+                                                         final IndexReader[] readers) throws IOException {
+        final CompositeSearcher current = compositeSearchers.get(clusters);
+        if (current != null && current.sameReaders(readers) && current.reader.tryIncRef()) {
+            return current.searcher;
+        }
+
+        final CompositeSearcher composite = new CompositeSearcher(readers);
+        compositeMetrics.readerOpened(composite.reader);
+        composite.reader.incRef();
+        compositeSearchers.put(clusters,
+                               composite);
+        if (current != null) {
+            current.reader.decRef();
         }
+        if (compositeSearchers.size() > MAX_COMPOSITE_SEARCHERS) {
+            final Iterator<CompositeSearcher> eldest = compositeSearchers.values().iterator();
+            eldest.next().reader.decRef();
+            eldest.remove();
+        }
+        return composite.searcher;
+    }
+
+    private synchronized void evictCompositeSearchers(final KCluster cluster) {
+        final Iterator<Map.Entry<Set<KCluster>, CompositeSearcher>> iterator = compositeSearchers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Set<KCluster>, CompositeSearcher> entry = iterator.next();
+            if (cluster == null || containsCluster(entry.getKey(),
+                                                   cluster)) {
+                try {
+                    entry.getValue().reader.decRef();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private List<KCluster> sortedById(final Set<KCluster> clusters) {
+        return clusters.stream()
+                .sorted(Comparator.comparing(KCluster::getClusterId))
+                .collect(Collectors.toList());
+    }
+
+    private boolean containsCluster(final Set<KCluster> clusters,
+                                    final KCluster cluster) {
+        return clusters.stream().anyMatch(c -> c.getClusterId().equals(cluster.getClusterId()));
     }
 
     public void release(final IndexSearcher index) {
         try {
-            index.getIndexReader().close();
+            index.getIndexReader().decRef();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    public LuceneSearcherMetrics getSearcherMetrics() {
+        return compositeMetrics;
+    }
+
+    public LuceneSearcherMetrics getSearcherMetrics(final KCluster cluster) {
+        final LuceneIndex index = indexes.get(cluster);
+        return index == null ? null : index.getSearcherMetrics();
+    }
+
+    public int getOpenReaders() {
+        int openReaders = compositeMetrics.getOpenReaders();
+        for (final LuceneIndex index : indexes.values()) {
+            openReaders += index.getSearcherMetrics().getOpenReaders();
+        }
+        return openReaders;
+    }
+
     @Override
     public List<String> getIndices() {
         return indexes.keySet().stream().map(kCluster -> kCluster.getClusterId()).collect(Collectors.toList());
     }
+
+    private static class CompositeSearcher {
+
+        private final IndexReader[] subReaders;
+        private final MultiReader reader;
+        private final IndexSearcher searcher;
+
+        private CompositeSearcher(final IndexReader[] subReaders) throws IOException {
+            this.subReaders = subReaders;
+            // sub readers are incRef'ed here and decRef'ed when this reader gets closed
+            this.reader = new MultiReader(subReaders,
+                                          false);
+            this.searcher = new IndexSearcher(reader);
+        }
+
+        private boolean sameReaders(final IndexReader[] readers) {
+            if (readers.length != subReaders.length) {
+                return false;
+            }
+            for (int i = 0; i < readers.length; i++) {
+                if (readers[i] != subReaders[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
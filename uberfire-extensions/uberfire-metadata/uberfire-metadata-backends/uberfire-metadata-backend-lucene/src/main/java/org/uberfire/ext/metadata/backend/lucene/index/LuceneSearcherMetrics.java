@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.backend.lucene.index;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.index.IndexReader;
+
+/**
+ * Counters for NRT reader refreshes and the readers that are currently open.
+ */
+public class LuceneSearcherMetrics {
+
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong totalRefreshTime = new AtomicLong();
+    private final AtomicLong maxRefreshTime = new AtomicLong();
+    private final AtomicInteger openReaders = new AtomicInteger();
+
+    public void refreshed(final long nanos) {
+        refreshCount.incrementAndGet();
+        totalRefreshTime.addAndGet(nanos);
+        maxRefreshTime.accumulateAndGet(nanos,
+                                        Math::max);
+    }
+
+    public void readerOpened(final IndexReader reader) {
+        openReaders.incrementAndGet();
+        reader.addReaderClosedListener(closed -> openReaders.decrementAndGet());
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public long getTotalRefreshTimeNanos() {
+        return totalRefreshTime.get();
+    }
+
+    public long getMaxRefreshTimeNanos() {
+        return maxRefreshTime.get();
+    }
+
+    public long getAverageRefreshTimeNanos() {
+        final long count = refreshCount.get();
+        return count == 0 ? 0 : totalRefreshTime.get() / count;
+    }
+
+    public int getOpenReaders() {
+        return openReaders.get();
+    }
+}
@@ -19,13 +19,16 @@ package org.uberfire.ext.metadata.backend.lucene.index.directory;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.uberfire.ext.metadata.backend.lucene.index.BaseLuceneIndex;
+import org.uberfire.ext.metadata.backend.lucene.index.LuceneSearcherMetrics;
 import org.uberfire.ext.metadata.model.KCluster;
 
 import static org.kie.soup.commons.validation.Preconditions.checkNotNull;
@@ -38,6 +41,8 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
     private final KCluster cluster;
     private final IndexWriter writer;
     private final Directory directory;
+    private final SearcherManager searcherManager;
+    private final LuceneSearcherMetrics metrics = new LuceneSearcherMetrics();
     private AtomicBoolean freshIndex;
     private AtomicBoolean isDisposed = new AtomicBoolean(false);
 
@@ -51,12 +56,48 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
                                           directory);
             this.writer = new IndexWriter(directory.getDirectory(),
                                           config);
+            this.searcherManager = newSearcherManager(writer);
             this.freshIndex = new AtomicBoolean(directory.freshIndex());
         } catch (final Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    /**
+     * Readers are shared and reference counted by the {@link SearcherManager}; it only reopens them
+     * (reusing unchanged segments) when the writer has pending changes.
+     */
+    private SearcherManager newSearcherManager(final IndexWriter writer) throws IOException {
+        final SearcherManager manager = new SearcherManager(writer,
+                                                            true,
+                                                            true,
+                                                            new SearcherFactory() {
+                                                                @Override
+                                                                public IndexSearcher newSearcher(final IndexReader reader,
+                                                                                                 final IndexReader previousReader) throws IOException {
+                                                                    metrics.readerOpened(reader);
+                                                                    return super.newSearcher(reader,
+                                                                                             previousReader);
+                                                                }
+                                                            });
+        manager.addListener(new ReferenceManager.RefreshListener() {
+            private long start;
+
+            @Override
+            public void beforeRefresh() {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterRefresh(final boolean didRefresh) {
+                if (didRefresh) {
+                    metrics.refreshed(System.nanoTime() - start);
+                }
+            }
+        });
+        return manager;
+    }
+
     @Override
     public IndexWriter writer() {
         return writer;
@@ -69,17 +110,13 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
 
     @Override
     public IndexReader nrtReader() {
-        try {
-            return DirectoryReader.open(writer);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return nrtSearcher().getIndexReader();
     }
 
     @Override
     public void nrtRelease(final IndexReader reader) {
         try {
-            reader.close();
+            reader.decRef();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -88,8 +125,8 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
     @Override
     public IndexSearcher nrtSearcher() {
         try {
-            return new SearcherFactory().newSearcher(nrtReader(),
-                                                     null);
+            searcherManager.maybeRefreshBlocking();
+            return searcherManager.acquire();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -98,12 +135,17 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
     @Override
     public void nrtRelease(final IndexSearcher searcher) {
         try {
-            searcher.getIndexReader().close();
+            searcherManager.release(searcher);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    public LuceneSearcherMetrics getSearcherMetrics() {
+        return metrics;
+    }
+
     @Override
     public void dispose() {
         if (isDisposed.get()) {
@@ -116,6 +158,7 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
 
     private void closeWriter() {
         try {
+            searcherManager.close();
             writer.commit();
             writer.close();
         } catch (IOException e) {
@@ -123,6 +166,15 @@ public class DirectoryLuceneIndex extends BaseLuceneIndex {
         }
     }
 
+    @Override
+    public void indexDocument(final String id,
+                              final Document doc) {
+        super.indexDocument(id,
+                            doc);
+        // commits may be deferred (see LuceneIndexCommitter), the index isn't fresh once it has documents
+        freshIndex.set(false);
+    }
+
     @Override
     public boolean freshIndex() {
         return freshIndex.get();
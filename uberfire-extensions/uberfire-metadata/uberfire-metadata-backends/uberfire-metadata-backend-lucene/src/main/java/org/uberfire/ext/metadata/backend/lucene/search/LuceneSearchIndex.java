@@ -16,6 +16,7 @@
 
 package org.uberfire.ext.metadata.backend.lucene.search;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +30,9 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.WildcardQuery;
@@ -40,6 +43,8 @@ import org.uberfire.ext.metadata.search.ClusterSegment;
 import org.uberfire.ext.metadata.search.DateRange;
 import org.uberfire.ext.metadata.search.IOSearchService;
 import org.uberfire.ext.metadata.search.SearchIndex;
+import org.uberfire.ext.metadata.search.SearchPage;
+import org.uberfire.ext.metadata.search.SearchPageRequest;
 
 import static java.util.Collections.emptyList;
 import static org.apache.lucene.search.BooleanClause.Occur.MUST;
@@ -101,6 +106,39 @@ public class LuceneSearchIndex implements SearchIndex {
                       clusterSegments);
     }
 
+    @Override
+    public SearchPage<KObject> searchByAttrs(final Map<String, ?> attrs,
+                                             final SearchPageRequest pageRequest,
+                                             final IOSearchService.Filter filter,
+                                             final ClusterSegment... clusterSegments) {
+        if (clusterSegments == null || clusterSegments.length == 0) {
+            return emptyPage();
+        }
+        if (attrs == null || attrs.size() == 0) {
+            return emptyPage();
+        }
+        return search(buildQuery(attrs,
+                                 clusterSegments),
+                      pageRequest,
+                      filter,
+                      clusterSegments);
+    }
+
+    @Override
+    public SearchPage<KObject> fullTextSearch(final String term,
+                                              final SearchPageRequest pageRequest,
+                                              final IOSearchService.Filter filter,
+                                              final ClusterSegment... clusterSegments) {
+        if (clusterSegments == null || clusterSegments.length == 0) {
+            return emptyPage();
+        }
+        return search(buildQuery(term,
+                                 clusterSegments),
+                      pageRequest,
+                      filter,
+                      clusterSegments);
+    }
+
     @Override
     public int searchByAttrsHits(final Map<String, ?> attrs,
                                  final ClusterSegment... clusterSegments) {
@@ -169,6 +207,81 @@ public class LuceneSearchIndex implements SearchIndex {
         return result;
     }
 
+    /**
+     * Runs the query once per batch of page size hits: the total comes from the first batch, stored fields are
+     * only loaded for the hits that end up on the page, and further batches (continuing with searchAfter)
+     * are only needed when the filter rejects hits.
+     */
+    private SearchPage<KObject> search(final Query query,
+                                       final SearchPageRequest pageRequest,
+                                       final IOSearchService.Filter filter,
+                                       final ClusterSegment... clusterSegments) {
+        final IndexSearcher index = indexManager.getIndexSearcher(clusterSegments);
+        final int pageSize = pageRequest.getPageSize();
+        final List<KObject> result = new ArrayList<KObject>(pageSize);
+        try {
+            ScoreDoc last = pageRequest.getAfter();
+            int skip = last == null ? pageRequest.getOffset() : 0;
+            int consumed = 0;
+            int totalHits = -1;
+            boolean exhausted = false;
+            while (result.size() < pageSize && !exhausted) {
+                final int batchSize = skip + pageSize;
+                final TopDocs topDocs = searchAfter(index,
+                                                    last,
+                                                    query,
+                                                    batchSize,
+                                                    pageRequest.getSort());
+                if (totalHits < 0) {
+                    totalHits = topDocs.totalHits;
+                }
+                final ScoreDoc[] hits = topDocs.scoreDocs;
+                exhausted = hits.length < batchSize;
+                for (int i = skip; i < hits.length && result.size() < pageSize; i++) {
+                    last = hits[i];
+                    consumed++;
+                    final KObject kObject = toKObject(index.doc(hits[i].doc));
+                    if (filter.accept(kObject)) {
+                        result.add(kObject);
+                    }
+                }
+                skip = 0;
+            }
+            final boolean hasNext = pageRequest.getOffset() + consumed < totalHits;
+            return new SearchPage<KObject>(result,
+                                           totalHits,
+                                           hasNext && last != null ? pageRequest.next(last,
+                                                                                      consumed) : null);
+        } catch (final Exception ex) {
+            throw new RuntimeException("Error during Query!",
+                                       ex);
+        } finally {
+            indexManager.release(index);
+        }
+    }
+
+    private TopDocs searchAfter(final IndexSearcher index,
+                                final ScoreDoc after,
+                                final Query query,
+                                final int numHits,
+                                final Sort sort) throws IOException {
+        if (sort == null) {
+            return index.searchAfter(after,
+                                     query,
+                                     numHits);
+        }
+        return index.searchAfter(after,
+                                 query,
+                                 numHits,
+                                 sort);
+    }
+
+    private SearchPage<KObject> emptyPage() {
+        return new SearchPage<KObject>(emptyList(),
+                                       0,
+                                       null);
+    }
+
     private Query buildQuery(final Map<String, ?> attrs,
                              final ClusterSegment... clusterSegments) {
         final BooleanQuery.Builder query = new BooleanQuery.Builder();
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.backend.lucene.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.commons.config.ConfigProperties;
+import org.uberfire.ext.metadata.backend.lucene.index.LuceneIndexCommitter.Durability;
+import org.uberfire.ext.metadata.model.KCluster;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LuceneIndexCommitterTest {
+
+    @Mock
+    private LuceneIndex index;
+
+    @Mock
+    private LuceneIndex otherIndex;
+
+    @Test
+    public void testSyncCommitsEveryWrite() {
+        final LuceneIndexCommitter committer = new LuceneIndexCommitter(Durability.SYNC,
+                                                                        0,
+                                                                        100);
+        committer.written(index,
+                          1);
+        committer.written(index,
+                          1);
+
+        verify(index,
+               times(2)).commit();
+        assertEquals(2,
+                     committer.getCommitCount());
+        assertEquals(0,
+                     committer.getPendingWrites());
+    }
+
+    @Test
+    public void testPeriodicCommitsWhenBatchIsFull() {
+        final LuceneIndexCommitter committer = new LuceneIndexCommitter(Durability.PERIODIC,
+                                                                        60000,
+                                                                        3);
+        try {
+            committer.written(index,
+                              1);
+            committer.written(index,
+                              1);
+            committer.written(otherIndex,
+                              1);
+
+            verify(index,
+                   never()).commit();
+            assertEquals(3,
+                         committer.getPendingWrites());
+
+            committer.written(index,
+                              1);
+
+            verify(index).commit();
+            verify(otherIndex,
+                   never()).commit();
+            assertEquals(3,
+                         committer.getLargestBatchSize());
+        } finally {
+            committer.dispose();
+        }
+        verify(otherIndex).commit();
+        verify(index).commit();
+    }
+
+    @Test
+    public void testOnShutdownCommitsOnFlush() {
+        final LuceneIndexCommitter committer = new LuceneIndexCommitter(Durability.ON_SHUTDOWN,
+                                                                        0,
+                                                                        1);
+        committer.written(index,
+                          5);
+        committer.written(otherIndex,
+                          2);
+        committer.forget(otherIndex);
+
+        verify(index,
+               never()).commit();
+
+        committer.flush();
+
+        verify(index).commit();
+        verify(otherIndex,
+               never()).commit();
+        assertEquals(5,
+                     committer.getCommittedWrites());
+    }
+
+    @Test
+    public void testFailedCommitKeepsWritesPending() {
+        final LuceneIndexCommitter committer = new LuceneIndexCommitter(Durability.ON_SHUTDOWN,
+                                                                        0,
+                                                                        100);
+        committer.written(index,
+                          2);
+        when(index.getCluster()).thenReturn(mock(KCluster.class));
+        doThrow(new RuntimeException("disk full")).doNothing().when(index).commit();
+
+        committer.flush();
+        assertEquals(2,
+                     committer.getPendingWrites());
+        assertEquals(0,
+                     committer.getCommitCount());
+
+        committer.flush();
+        assertEquals(0,
+                     committer.getPendingWrites());
+        assertEquals(1,
+                     committer.getCommitCount());
+        verify(index,
+               times(2)).commit();
+    }
+
+    @Test
+    public void testDisposeCommitsPendingWrites() {
+        final LuceneIndexCommitter committer = new LuceneIndexCommitter(Durability.PERIODIC,
+                                                                        60000,
+                                                                        100);
+        committer.written(index,
+                          1);
+
+        committer.dispose();
+
+        verify(index).commit();
+        assertEquals(0,
+                     committer.getPendingWrites());
+    }
+
+    @Test
+    public void testInvalidSettingsFallBackToDefaults() {
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(LuceneIndexCommitter.DURABILITY,
+                     "periodical");
+        settings.put(LuceneIndexCommitter.INTERVAL,
+                     "1s");
+        settings.put(LuceneIndexCommitter.MAX_BATCH_SIZE,
+                     "many");
+        final LuceneIndexCommitter committer = LuceneIndexCommitter.fromConfig(new ConfigProperties(settings));
+
+        assertEquals(Durability.SYNC,
+                     committer.getDurability());
+        committer.written(index,
+                          1);
+        verify(index).commit();
+    }
+}
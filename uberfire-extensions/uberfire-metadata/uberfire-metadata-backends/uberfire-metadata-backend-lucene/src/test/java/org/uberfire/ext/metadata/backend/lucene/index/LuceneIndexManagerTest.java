@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.backend.lucene.index;
+
+import java.util.Collections;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.ext.metadata.backend.lucene.fields.SimpleFieldFactory;
+import org.uberfire.ext.metadata.backend.lucene.index.directory.DirectoryFactory;
+import org.uberfire.ext.metadata.backend.lucene.index.directory.DirectoryType;
+import org.uberfire.ext.metadata.backend.lucene.model.KClusterImpl;
+import org.uberfire.ext.metadata.backend.lucene.provider.LuceneIndexProvider;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.model.impl.KObjectImpl;
+import org.uberfire.ext.metadata.search.ClusterSegment;
+
+import static org.junit.Assert.*;
+
+public class LuceneIndexManagerTest {
+
+    private LuceneIndexManager indexManager;
+    private LuceneIndexProvider indexProvider;
+
+    @Before
+    public void setup() {
+        indexManager = new LuceneIndexManager(new DirectoryFactory(DirectoryType.INMEMORY,
+                                                                   new StandardAnalyzer()));
+        indexProvider = new LuceneIndexProvider(indexManager,
+                                                new SimpleFieldFactory());
+    }
+
+    @After
+    public void tearDown() {
+        indexManager.dispose();
+    }
+
+    @Test
+    public void testCompositeSearcherIsReusedUntilAClusterChanges() {
+        indexProvider.index(kObject("1",
+                                    "cluster1"));
+        indexProvider.index(kObject("2",
+                                    "cluster2"));
+
+        final IndexSearcher first = indexManager.getIndexSearcher(segment("cluster1"),
+                                                                  segment("cluster2"));
+        final IndexSearcher second = indexManager.getIndexSearcher(segment("cluster2"),
+                                                                   segment("cluster1"));
+        try {
+            assertSame(first,
+                       second);
+            assertEquals(2,
+                         first.getIndexReader().numDocs());
+        } finally {
+            indexManager.release(first);
+            indexManager.release(second);
+        }
+
+        indexProvider.index(kObject("3",
+                                    "cluster2"));
+
+        final IndexSearcher third = indexManager.getIndexSearcher(segment("cluster1"),
+                                                                  segment("cluster2"));
+        try {
+            assertNotSame(first,
+                          third);
+            assertEquals(3,
+                         third.getIndexReader().numDocs());
+        } finally {
+            indexManager.release(third);
+        }
+        assertEquals(1,
+                     indexManager.getSearcherMetrics().getOpenReaders());
+    }
+
+    @Test
+    public void testClusterReaderIsOnlyRefreshedOnChange() {
+        indexProvider.index(kObject("1",
+                                    "cluster1"));
+
+        final LuceneSearcherMetrics metrics = indexManager.getSearcherMetrics(new KClusterImpl("cluster1"));
+        final IndexSearcher first = indexManager.getIndexSearcher(segment("cluster1"));
+        indexManager.release(first);
+        final long refreshes = metrics.getRefreshCount();
+
+        final IndexSearcher second = indexManager.getIndexSearcher(segment("cluster1"));
+        indexManager.release(second);
+
+        assertSame(first,
+                   second);
+        assertEquals(refreshes,
+                     metrics.getRefreshCount());
+        assertEquals(1,
+                     metrics.getOpenReaders());
+    }
+
+    private KObject kObject(final String id,
+                            final String clusterId) {
+        return new KObjectImpl(id,
+                               "type",
+                               clusterId,
+                               "segment",
+                               id,
+                               Collections.emptyList(),
+                               false);
+    }
+
+    private ClusterSegment segment(final String clusterId) {
+        return new ClusterSegment() {
+            @Override
+            public String getClusterId() {
+                return clusterId;
+            }
+
+            @Override
+            public String[] segmentIds() {
+                return new String[0];
+            }
+        };
+    }
+}
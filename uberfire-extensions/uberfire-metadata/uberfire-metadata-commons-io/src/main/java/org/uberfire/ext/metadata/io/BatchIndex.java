@@ -16,20 +16,33 @@
 
 package org.uberfire.ext.metadata.io;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.commons.async.DescriptiveRunnable;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.ext.metadata.engine.Indexer;
 import org.uberfire.ext.metadata.engine.MetaIndexEngine;
 import org.uberfire.ext.metadata.engine.Observer;
 import org.uberfire.ext.metadata.model.KCluster;
 import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.model.KObjectKey;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.BranchChanges;
 import org.uberfire.java.nio.base.FileSystemId;
+import org.uberfire.java.nio.base.SegmentedPath;
+import org.uberfire.java.nio.base.dotfiles.DotFileUtils;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.FileVisitResult;
 import org.uberfire.java.nio.file.Path;
@@ -48,12 +61,32 @@ public final class BatchIndex {
 
     private static final Logger LOG = LoggerFactory.getLogger(BatchIndex.class);
 
+    private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final int DEFAULT_BULK_SIZE = 100;
+
+    private static final int PARALLELISM;
+    private static final int QUEUE_SIZE;
+    private static final int BULK_SIZE;
+
+    static {
+        final ConfigProperties config = new ConfigProperties(System.getProperties());
+        PARALLELISM = config.get("org.uberfire.metadata.batch.index.threads",
+                                 String.valueOf(DEFAULT_PARALLELISM)).getIntValue(DEFAULT_PARALLELISM);
+        QUEUE_SIZE = config.get("org.uberfire.metadata.batch.index.queue",
+                                String.valueOf(DEFAULT_QUEUE_SIZE)).getIntValue(DEFAULT_QUEUE_SIZE);
+        BULK_SIZE = config.get("org.uberfire.metadata.batch.index.bulk",
+                               String.valueOf(DEFAULT_BULK_SIZE)).getIntValue(DEFAULT_BULK_SIZE);
+    }
+
     private final MetaIndexEngine indexEngine;
     private final IOService ioService;
     private final Class<? extends FileAttributeView>[] views;
     private final AtomicBoolean indexDisposed = new AtomicBoolean(false);
     private final Observer observer;
     private final ExecutorService executorService;
+    private final BatchIndexPipeline pipeline;
+    private final Map<String, BatchIndexProgress> progress = new ConcurrentHashMap<>();
 
     public BatchIndex(final MetaIndexEngine indexEngine,
                       final IOService ioService,
@@ -69,9 +102,34 @@ public final class BatchIndex {
         this.views = views;
 
         this.executorService = executorService;
+        this.pipeline = new BatchIndexPipeline(PARALLELISM,
+                                               QUEUE_SIZE,
+                                               BULK_SIZE,
+                                               this::toKObjects,
+                                               objects -> indexEngine.index(objects.toArray(new KObject[objects.size()])),
+                                               (file, ex) -> logError("Index fails. [@" + file.toString() + "]",
+                                                                      ex),
+                                               indexDisposed);
     }
 
     public void runAsync(final FileSystem fs) {
+        runAsync(fs,
+                 true);
+    }
+
+    /**
+     * Brings an existing index up to date with the FileSystem. Each root is re-indexed from the commit recorded by
+     * its last completed batch index; roots without a recorded commit are fully walked. Unlike
+     * {@link #runAsync(FileSystem)} an interrupted run keeps the existing index, as the recorded commits are only
+     * moved forward once a root completes.
+     */
+    public void runIncrementalAsync(final FileSystem fs) {
+        runAsync(fs,
+                 false);
+    }
+
+    private void runAsync(final FileSystem fs,
+                          final boolean deleteIfUnfinished) {
         if (fs != null && fs.getRootDirectories().iterator().hasNext()) {
             executorService.execute(new DescriptiveRunnable() {
                 @Override
@@ -87,7 +145,7 @@ public final class BatchIndex {
                         public void run() {
                             indexDisposed.set(true);
 
-                            if (!indexFinished.get()) {
+                            if (deleteIfUnfinished && !indexFinished.get()) {
                                 indexEngine.delete(KObjectUtil.toKCluster(fs));
                             }
                         }
@@ -135,82 +193,69 @@ public final class BatchIndex {
                 return;
             }
 
-            logInformation("Starting indexing of " + root.toUri() + " ...");
-
             final KCluster cluster = KObjectUtil.toKCluster(root.getFileSystem());
-
-            walkFileTree(checkNotNull("root",
-                                      root),
-                         new SimpleFileVisitor<Path>() {
-                             @Override
-                             public FileVisitResult visitFile(final Path file,
-                                                              final BasicFileAttributes attrs) throws IOException {
-                                 if (indexDisposed.get()) {
-                                     return FileVisitResult.TERMINATE;
-                                 }
-                                 try {
-                                     checkNotNull("file",
-                                                  file);
-                                     checkNotNull("attrs",
-                                                  attrs);
-
-                                     if (!file.getFileName().toString().startsWith(".")) {
-
-                                         LOG.debug("Indexing " + file.toUri());
-
-                                         //Default indexing
-                                         for (final Class<? extends FileAttributeView> view : views) {
-                                             ioService.getFileAttributeView(file,
-                                                                            view);
-                                         }
-                                         final FileAttribute<?>[] allAttrs = ioService.convert(ioService.readAttributes(file));
-                                         if (!indexDisposed.get()) {
-                                             indexEngine.index(KObjectUtil.toKObject(file,
-                                                                                     allAttrs));
-                                         } else {
-                                             return FileVisitResult.TERMINATE;
-                                         }
-
-                                         //Additional indexing
-                                         for (Indexer indexer : IndexersFactory.getIndexers()) {
-                                             if (file.getFileSystem().isOpen()) {
-                                                 if (indexer.supportsPath(file)) {
-                                                     final KObject kObject = indexer.toKObject(file);
-                                                     if (kObject != null) {
-                                                         if (!indexDisposed.get()) {
-                                                             indexEngine.index(kObject);
-                                                         } else {
-                                                             return FileVisitResult.TERMINATE;
-                                                         }
-                                                     }
-                                                 }
+            final Map<String, Object> changes = readChanges(cluster,
+                                                            root);
+            final BatchIndexProgress clusterProgress = new BatchIndexProgress(cluster.getClusterId());
+            progress.put(cluster.getClusterId(),
+                         clusterProgress);
+            // documents stay buffered by the index engine until it is committed, and are dropped if the run fails
+            indexEngine.startBatch(cluster);
+            boolean committed = false;
+            try {
+                final BatchIndexPipeline.Job job = pipeline.open(clusterProgress);
+                try {
+                    if (changes.containsKey(BranchChanges.MODIFIED)) {
+                        logInformation("Starting incremental indexing of " + root.toUri() + " since " + changes.get(BranchChanges.HEAD) + " ...");
+                        indexChanges(root,
+                                     changes,
+                                     job);
+                    } else {
+                        logInformation("Starting indexing of " + root.toUri() + " ...");
+                        walkFileTree(checkNotNull("root",
+                                                  root),
+                                     new SimpleFileVisitor<Path>() {
+                                         @Override
+                                         public FileVisitResult visitFile(final Path file,
+                                                                          final BasicFileAttributes attrs) throws IOException {
+                                             checkNotNull("file",
+                                                          file);
+                                             checkNotNull("attrs",
+                                                          attrs);
+                                             if (!submit(job,
+                                                         file)) {
+                                                 return FileVisitResult.TERMINATE;
                                              }
+                                             return FileVisitResult.CONTINUE;
                                          }
-                                     }
-                                 } catch (final Exception ex) {
-                                     if (indexDisposed.get()) {
-                                         logWarning("Batch index couldn't finish. [@" + root.toUri().toString() + "]");
-                                         return FileVisitResult.TERMINATE;
-                                     } else {
-                                         logError("Index fails. [@" + file.toString() + "]",
-                                                  ex);
-                                     }
-                                 }
-                                 if (indexDisposed.get()) {
-                                     return FileVisitResult.TERMINATE;
-                                 }
-                                 return FileVisitResult.CONTINUE;
-                             }
-                         });
-
-            if (!indexDisposed.get()) {
-                logInformation("Completed indexing of " + root.toUri());
-                indexEngine.commit(cluster);
-                if (callback != null) {
-                    callback.run();
+                                     });
+                    }
+                    job.await();
+                } finally {
+                    job.close();
+                    clusterProgress.completed();
+                }
+
+                if (!indexDisposed.get()) {
+                    logInformation("Completed indexing of " + root.toUri());
+                    indexEngine.commit(cluster);
+                    committed = true;
+                    final Object head = changes.get(BranchChanges.HEAD);
+                    if (head != null) {
+                        indexEngine.setIndexedCommit(cluster,
+                                                     ((SegmentedPath) root).getSegmentId(),
+                                                     head.toString());
+                    }
+                    if (callback != null) {
+                        callback.run();
+                    }
+                } else {
+                    logWarning("Batch index couldn't finish. [@" + root.toUri().toString() + "]");
+                }
+            } finally {
+                if (!committed) {
+                    indexEngine.abort(cluster);
                 }
-            } else {
-                logWarning("Batch index couldn't finish. [@" + root.toUri().toString() + "]");
             }
         } catch (final IllegalStateException ex) {
             if (indexDisposed.get()) {
@@ -229,6 +274,140 @@ public final class BatchIndex {
         }
     }
 
+    /**
+     * Reads the branch changes since the commit recorded for this root. The result always carries the current head
+     * when the FileSystem is versioned, and carries the modified and deleted paths only when the recorded commit
+     * could be resolved. Anything else means a full walk.
+     */
+    private Map<String, Object> readChanges(final KCluster cluster,
+                                            final Path root) {
+        if (!(root instanceof SegmentedPath)) {
+            return Collections.emptyMap();
+        }
+        try {
+            final String indexedCommit = indexEngine.getIndexedCommit(cluster,
+                                                                      ((SegmentedPath) root).getSegmentId());
+            return ioService.readAttributes(root,
+                                            indexedCommit == null ? BranchChanges.head() : BranchChanges.since(indexedCommit));
+        } catch (final UnsupportedOperationException | IllegalArgumentException ex) {
+            LOG.debug("FileSystem of " + root.toUri() + " does not report branch changes.",
+                      ex);
+        } catch (final Exception ex) {
+            logWarning("Unable to read branch changes of " + root.toUri() + ", falling back to full indexing.");
+        }
+        return Collections.emptyMap();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void indexChanges(final Path root,
+                              final Map<String, Object> changes,
+                              final BatchIndexPipeline.Job job) throws InterruptedException {
+        for (final String deleted : (List<String>) changes.get(BranchChanges.DELETED)) {
+            if (indexDisposed.get()) {
+                return;
+            }
+            final Path file = root.resolve(deleted);
+            if (file.getFileName().toString().startsWith(".")) {
+                continue;
+            }
+            LOG.debug("Removing " + file.toUri());
+
+            //Default indexing
+            indexEngine.delete(KObjectUtil.toKObjectKey(file));
+
+            //Additional indexing
+            for (Indexer indexer : IndexersFactory.getIndexers()) {
+                if (indexer.supportsPath(file)) {
+                    final KObjectKey kObjectKey = indexer.toKObjectKey(file);
+                    if (kObjectKey != null) {
+                        indexEngine.delete(kObjectKey);
+                    }
+                }
+            }
+        }
+
+        // A change to a "dot path" only alters the attributes of its "real path", so that one is re-indexed instead.
+        final Set<Path> modified = new LinkedHashSet<>();
+        for (final String path : (List<String>) changes.get(BranchChanges.MODIFIED)) {
+            final Path file = root.resolve(path);
+            if (file.getFileName().toString().startsWith(".") && !IOServiceIndexedUtil.isBlackListed(file)) {
+                modified.add(DotFileUtils.undot(file));
+            } else {
+                modified.add(file);
+            }
+        }
+        for (final Path file : modified) {
+            if (ioService.exists(file) && !submit(job,
+                                                  file)) {
+                return;
+            }
+        }
+    }
+
+    private boolean submit(final BatchIndexPipeline.Job job,
+                           final Path file) {
+        if (indexDisposed.get()) {
+            return false;
+        }
+        if (file.getFileName().toString().startsWith(".")) {
+            return true;
+        }
+        try {
+            return job.submit(file);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<KObject> toKObjects(final Path file) {
+        if (indexDisposed.get()) {
+            return Collections.emptyList();
+        }
+
+        LOG.debug("Indexing " + file.toUri());
+
+        final List<KObject> kObjects = new ArrayList<>();
+
+        //Default indexing
+        for (final Class<? extends FileAttributeView> view : views) {
+            ioService.getFileAttributeView(file,
+                                           view);
+        }
+        final FileAttribute<?>[] allAttrs = ioService.convert(ioService.readAttributes(file));
+        kObjects.add(KObjectUtil.toKObject(file,
+                                           allAttrs));
+
+        //Additional indexing
+        for (Indexer indexer : IndexersFactory.getIndexers()) {
+            if (file.getFileSystem().isOpen()) {
+                if (indexer.supportsPath(file)) {
+                    final KObject kObject = indexer.toKObject(file);
+                    if (kObject != null) {
+                        kObjects.add(kObject);
+                    }
+                }
+            }
+        }
+        return kObjects;
+    }
+
+    /**
+     * Moves the batch index of the FileSystem ahead of the ones that were not asked for, so the repositories users
+     * open first are searchable first.
+     */
+    public void prioritize(final FileSystem fs) {
+        pipeline.prioritize(KObjectUtil.toKCluster(fs).getClusterId());
+    }
+
+    public BatchIndexProgress getProgress(final KCluster cluster) {
+        return progress.get(cluster.getClusterId());
+    }
+
+    public Collection<BatchIndexProgress> getProgress() {
+        return Collections.unmodifiableCollection(progress.values());
+    }
+
     private void logInformation(final String message) {
         observer.information(message);
         LOG.info(message);
@@ -247,6 +426,7 @@ public final class BatchIndex {
     }
 
     public void dispose() {
+        pipeline.dispose();
         indexEngine.dispose();
     }
 }
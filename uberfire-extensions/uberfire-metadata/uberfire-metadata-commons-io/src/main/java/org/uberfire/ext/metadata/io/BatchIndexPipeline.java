@@ -0,0 +1,361 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * Three stage indexing pipeline shared by all batch indexes: tree walks produce paths into a bounded queue per
+ * {@link Job}, a fixed number of transform workers turn paths into {@link KObject}s, and a single consumer hands them
+ * to the index in bulk. Transform workers always serve the job with the highest priority first, so a file system
+ * that was requested recently is indexed ahead of the ones nobody asked for yet.
+ */
+final class BatchIndexPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchIndexPipeline.class);
+
+    private static final long POLL_MILLIS = 50;
+
+    /**
+     * Turns one file into the objects to index, or an empty list when the file is skipped.
+     */
+    interface Transformer {
+
+        List<KObject> transform(final Path file) throws Exception;
+    }
+
+    private final int parallelism;
+    private final int queueSize;
+    private final int bulkSize;
+    private final Transformer transformer;
+    private final Consumer<List<KObject>> sink;
+    private final BiConsumer<Path, Exception> errorHandler;
+    private final AtomicBoolean disposed;
+
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+    private final Semaphore queued = new Semaphore(0);
+    private final BlockingQueue<Transformed> transformed;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong priority = new AtomicLong();
+    private final Map<String, Long> priorities = new ConcurrentHashMap<>();
+    private ExecutorService workers;
+
+    BatchIndexPipeline(final int parallelism,
+                       final int queueSize,
+                       final int bulkSize,
+                       final Transformer transformer,
+                       final Consumer<List<KObject>> sink,
+                       final BiConsumer<Path, Exception> errorHandler,
+                       final AtomicBoolean disposed) {
+        this.parallelism = Math.max(1,
+                                    parallelism);
+        this.queueSize = Math.max(1,
+                                  queueSize);
+        this.bulkSize = Math.max(1,
+                                 bulkSize);
+        this.transformer = transformer;
+        this.sink = sink;
+        this.errorHandler = errorHandler;
+        this.disposed = disposed;
+        this.transformed = new ArrayBlockingQueue<>(this.queueSize);
+    }
+
+    Job open(final BatchIndexProgress progress) {
+        start();
+        final Job job = new Job(progress,
+                                sequence.incrementAndGet());
+        jobs.add(job);
+        return job;
+    }
+
+    /**
+     * Moves the cluster ahead of all clusters prioritized before, for the jobs already open as well as later ones.
+     */
+    void prioritize(final String clusterId) {
+        priorities.put(clusterId,
+                       priority.incrementAndGet());
+    }
+
+    synchronized void dispose() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the workers to stop once the pipeline is disposed.
+     */
+    boolean awaitTermination(final long timeout,
+                             final TimeUnit unit) throws InterruptedException {
+        final ExecutorService current;
+        synchronized (this) {
+            current = workers;
+        }
+        return current == null || current.awaitTermination(timeout,
+                                                           unit);
+    }
+
+    private synchronized void start() {
+        if (workers != null) {
+            return;
+        }
+        final AtomicInteger threads = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism + 1,
+                                               runnable -> {
+                                                   final Thread thread = new Thread(runnable,
+                                                                                    "BatchIndex pipeline [" + threads.incrementAndGet() + "]");
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               });
+        for (int i = 0; i < parallelism; i++) {
+            workers.execute(this::transformLoop);
+        }
+        workers.execute(this::consumeLoop);
+    }
+
+    private void transformLoop() {
+        try {
+            while (!disposed.get()) {
+                queued.acquire();
+
+                Job job;
+                Path file = null;
+                while ((job = nextJob()) != null) {
+                    file = job.paths.poll();
+                    if (file != null) {
+                        break;
+                    }
+                }
+                if (file == null) {
+                    // the path this permit stood for was dropped along with its job
+                    continue;
+                }
+
+                List<KObject> objects;
+                boolean failed = false;
+                try {
+                    objects = transformer.transform(file);
+                } catch (final Exception ex) {
+                    objects = Collections.emptyList();
+                    failed = true;
+                    if (!disposed.get()) {
+                        errorHandler.accept(file,
+                                            ex);
+                    }
+                }
+                transformed.put(new Transformed(job,
+                                                objects,
+                                                failed));
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Job nextJob() {
+        Job next = null;
+        long nextPriority = 0;
+        for (final Job job : jobs) {
+            if (job.paths.isEmpty()) {
+                continue;
+            }
+            final long jobPriority = priorities.getOrDefault(job.progress.getClusterId(),
+                                                             0L);
+            if (next == null || jobPriority > nextPriority || (jobPriority == nextPriority && job.sequence < next.sequence)) {
+                next = job;
+                nextPriority = jobPriority;
+            }
+        }
+        return next;
+    }
+
+    private void consumeLoop() {
+        final Map<Job, Bulk> bulks = new HashMap<>();
+        try {
+            while (!disposed.get()) {
+                final Transformed item = transformed.poll(POLL_MILLIS,
+                                                          TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    for (final Map.Entry<Job, Bulk> entry : bulks.entrySet()) {
+                        flush(entry.getKey(),
+                              entry.getValue());
+                    }
+                    bulks.clear();
+                    continue;
+                }
+
+                // the objects of a file are never split, the bulk is flushed before it would grow past its size
+                final Bulk pending = bulks.get(item.job);
+                if (pending != null && !pending.objects.isEmpty() && pending.objects.size() + item.objects.size() > bulkSize) {
+                    flush(item.job,
+                          bulks.remove(item.job));
+                }
+                final Bulk bulk = bulks.computeIfAbsent(item.job,
+                                                        job -> new Bulk());
+                if (item.failed) {
+                    bulk.failed++;
+                } else {
+                    bulk.files++;
+                    bulk.objects.addAll(item.objects);
+                }
+                if (bulk.objects.size() >= bulkSize) {
+                    flush(item.job,
+                          bulks.remove(item.job));
+                }
+
+                // a busy pipeline never goes idle, so bulks that are not filling up are flushed by age
+                final long now = System.currentTimeMillis();
+                final Iterator<Map.Entry<Job, Bulk>> iterator = bulks.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<Job, Bulk> entry = iterator.next();
+                    if (now - entry.getValue().created >= POLL_MILLIS) {
+                        flush(entry.getKey(),
+                              entry.getValue());
+                        iterator.remove();
+                    }
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(final Job job,
+                       final Bulk bulk) {
+        int indexed = bulk.files;
+        int failed = bulk.failed;
+        if (!bulk.objects.isEmpty() && !disposed.get()) {
+            try {
+                sink.accept(bulk.objects);
+            } catch (final Exception ex) {
+                LOG.error("Bulk index of " + bulk.objects.size() + " objects failed. [@" + job.progress.getClusterId() + "]",
+                          ex);
+                failed += indexed;
+                indexed = 0;
+            }
+        }
+        job.progress.indexed(indexed);
+        job.progress.failed(failed);
+        job.done(bulk.files + bulk.failed);
+    }
+
+    /**
+     * A batch index run over one root. The producer submits paths, blocking while the job queue is full, and then
+     * awaits until every submitted path went through the consumer.
+     */
+    final class Job {
+
+        private final BatchIndexProgress progress;
+        private final long sequence;
+        private final BlockingQueue<Path> paths = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicLong pending = new AtomicLong();
+
+        private Job(final BatchIndexProgress progress,
+                    final long sequence) {
+            this.progress = progress;
+            this.sequence = sequence;
+        }
+
+        boolean submit(final Path file) throws InterruptedException {
+            pending.incrementAndGet();
+            progress.discovered();
+            while (!paths.offer(file,
+                                POLL_MILLIS,
+                                TimeUnit.MILLISECONDS)) {
+                if (disposed.get()) {
+                    done(1);
+                    return false;
+                }
+            }
+            queued.release();
+            return true;
+        }
+
+        boolean await() throws InterruptedException {
+            synchronized (this) {
+                while (pending.get() > 0 && !disposed.get()) {
+                    wait(POLL_MILLIS);
+                }
+            }
+            return !disposed.get();
+        }
+
+        /**
+         * Detaches the job from the pipeline, dropping the paths no worker picked up yet.
+         */
+        void close() {
+            jobs.remove(this);
+            final List<Path> dropped = new ArrayList<>();
+            paths.drainTo(dropped);
+            done(dropped.size());
+        }
+
+        private void done(final int files) {
+            if (files > 0 && pending.addAndGet(-files) <= 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private static final class Transformed {
+
+        private final Job job;
+        private final List<KObject> objects;
+        private final boolean failed;
+
+        private Transformed(final Job job,
+                            final List<KObject> objects,
+                            final boolean failed) {
+            this.job = job;
+            this.objects = objects;
+            this.failed = failed;
+        }
+    }
+
+    private static final class Bulk {
+
+        private final List<KObject> objects = new ArrayList<>();
+        private final long created = System.currentTimeMillis();
+        private int files;
+        private int failed;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.io;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the batch index of a single cluster. Files are discovered by the tree walk, and counted as indexed or
+ * failed once their objects have been handed to the index.
+ */
+public class BatchIndexProgress {
+
+    private final String clusterId;
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicLong discoveredFiles = new AtomicLong();
+    private final AtomicLong indexedFiles = new AtomicLong();
+    private final AtomicLong failedFiles = new AtomicLong();
+    private volatile long endTime = -1;
+
+    public BatchIndexProgress(final String clusterId) {
+        this.clusterId = clusterId;
+    }
+
+    void discovered() {
+        discoveredFiles.incrementAndGet();
+    }
+
+    void indexed(final long files) {
+        indexedFiles.addAndGet(files);
+    }
+
+    void failed(final long files) {
+        failedFiles.addAndGet(files);
+    }
+
+    void completed() {
+        endTime = System.currentTimeMillis();
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    public long getDiscoveredFiles() {
+        return discoveredFiles.get();
+    }
+
+    public long getIndexedFiles() {
+        return indexedFiles.get();
+    }
+
+    public long getFailedFiles() {
+        return failedFiles.get();
+    }
+
+    public long getPendingFiles() {
+        return discoveredFiles.get() - indexedFiles.get() - failedFiles.get();
+    }
+
+    public boolean isCompleted() {
+        return endTime != -1;
+    }
+
+    public long getElapsedMillis() {
+        return (isCompleted() ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchIndexProgress{" +
+                "clusterId='" + clusterId + '\'' +
+                ", discovered=" + getDiscoveredFiles() +
+                ", indexed=" + getIndexedFiles() +
+                ", failed=" + getFailedFiles() +
+                ", elapsed=" + getElapsedMillis() + "ms" +
+                ", completed=" + isCompleted() +
+                '}';
+    }
+}
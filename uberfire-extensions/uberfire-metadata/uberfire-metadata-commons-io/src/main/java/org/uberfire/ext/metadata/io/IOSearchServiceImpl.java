@@ -26,6 +26,8 @@ import org.uberfire.ext.metadata.model.KObject;
 import org.uberfire.ext.metadata.search.ClusterSegment;
 import org.uberfire.ext.metadata.search.IOSearchService;
 import org.uberfire.ext.metadata.search.SearchIndex;
+import org.uberfire.ext.metadata.search.SearchPage;
+import org.uberfire.ext.metadata.search.SearchPageRequest;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.base.FileSystemId;
 import org.uberfire.java.nio.base.SegmentedPath;
@@ -82,6 +84,39 @@ public class IOSearchServiceImpl implements IOSearchService {
         }};
     }
 
+    @Override
+    public SearchPage<Path> searchByAttrs(final Map<String, ?> attrs,
+                                          final SearchPageRequest pageRequest,
+                                          final Filter filter,
+                                          final Path... roots) {
+        return searchIndex.searchByAttrs(attrs,
+                                         checkNotNull("pageRequest",
+                                                      pageRequest),
+                                         filter,
+                                         buildClusterSegments(roots))
+                .map(kObject -> ioService.get(URI.create(kObject.getKey())));
+    }
+
+    @Override
+    public SearchPage<Path> fullTextSearch(final String _term,
+                                           final SearchPageRequest pageRequest,
+                                           final Filter filter,
+                                           final Path... roots) {
+        final String term = checkNotNull("term",
+                                         _term).trim();
+        if (term.isEmpty()) {
+            return new SearchPage<Path>(Collections.emptyList(),
+                                        0,
+                                        null);
+        }
+        return searchIndex.fullTextSearch(term,
+                                          checkNotNull("pageRequest",
+                                                       pageRequest),
+                                          filter,
+                                          buildClusterSegments(roots))
+                .map(kObject -> ioService.get(URI.create(kObject.getKey())));
+    }
+
     @Override
     public int searchByAttrsHits(final Map<String, ?> attrs,
                                  final Path... roots) {
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
@@ -37,6 +38,7 @@ import org.uberfire.io.IOWatchService;
 import org.uberfire.io.impl.IOServiceDotFileImpl;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.FSPath;
+import org.uberfire.java.nio.base.FileSystemId;
 import org.uberfire.java.nio.base.WatchContext;
 import org.uberfire.java.nio.base.dotfiles.DotFileUtils;
 import org.uberfire.java.nio.file.DeleteOption;
@@ -67,6 +69,7 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
 
     private final Class<? extends FileAttributeView>[] views;
     private final List<String> watchedList = new ArrayList<>();
+    private final Set<String> batchIndexedFileSystems = ConcurrentHashMap.newKeySet();
     private final List<WatchService> watchServices = new ArrayList<WatchService>();
 
     private final Observer observer;
@@ -213,6 +216,7 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
             ProviderNotFoundException, IOException, SecurityException {
         final FileSystem fs = super.newFileSystem(uri,
                                                   env);
+        batchIndexedFileSystems.add(((FileSystemId) fs).id());
         index(fs);
         setupWatchService(fs);
         return fs;
@@ -387,12 +391,18 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
 
     private synchronized void indexIfFresh(final FileSystem fs) {
         final KCluster cluster = KObjectUtil.toKCluster(fs);
-        if (indexEngine.freshIndex(cluster)) {
-            // See https://bugzilla.redhat.com/show_bug.cgi?id=1288132
-            // Record batch index as being started before the async indexing actually runs to
-            // prevent multiple batch indexes for the same FileSystem being scheduled.
-            indexEngine.startBatch(cluster);
+        final boolean freshIndex = indexEngine.freshIndex(cluster);
+        // See https://bugzilla.redhat.com/show_bug.cgi?id=1288132
+        // Record batch index as being started before the async indexing actually runs to
+        // prevent multiple batch indexes for the same FileSystem being scheduled.
+        if (!batchIndexedFileSystems.add(cluster.getClusterId())) {
+            // Asked for again while its batch index may still be running, so someone is waiting on it.
+            batchIndex.prioritize(fs);
+        } else if (freshIndex) {
             index(fs);
+        } else {
+            // An index that survived a restart only needs the commits made since its last batch index.
+            batchIndex.runIncrementalAsync(fs);
         }
     }
 
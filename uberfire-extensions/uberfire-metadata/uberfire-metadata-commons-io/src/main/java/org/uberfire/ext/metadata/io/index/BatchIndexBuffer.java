@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.io.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.model.KProperty;
+
+/**
+ * Objects indexed for a cluster in batch mode, waiting to be handed to the provider. The buffer is bounded both by
+ * object count and by an estimate of their size on the heap; once either bound is reached the buffered objects are
+ * returned as a chunk to be flushed.
+ */
+public class BatchIndexBuffer {
+
+    private static final long OBJECT_OVERHEAD = 64;
+    private static final long PROPERTY_OVERHEAD = 32;
+
+    private final int maxObjects;
+    private final long maxBytes;
+
+    private List<KObject> objects = new ArrayList<>();
+    private long bytes;
+    private long flushedChunks;
+    private long flushedObjects;
+
+    BatchIndexBuffer(final int maxObjects,
+                     final long maxBytes) {
+        this.maxObjects = Math.max(1,
+                                   maxObjects);
+        this.maxBytes = Math.max(1,
+                                 maxBytes);
+    }
+
+    /**
+     * Buffers the object and returns the chunk to flush when a bound was reached, or an empty list otherwise.
+     */
+    synchronized List<KObject> add(final KObject kObject) {
+        objects.add(kObject);
+        bytes += estimateSize(kObject);
+        if (objects.size() >= maxObjects || bytes >= maxBytes) {
+            return drain();
+        }
+        return Collections.emptyList();
+    }
+
+    synchronized List<KObject> drain() {
+        final List<KObject> chunk = objects;
+        if (!chunk.isEmpty()) {
+            flushedChunks++;
+            flushedObjects += chunk.size();
+        }
+        objects = new ArrayList<>();
+        bytes = 0;
+        return chunk;
+    }
+
+    public synchronized int getBufferedObjects() {
+        return objects.size();
+    }
+
+    public synchronized long getBufferedBytes() {
+        return bytes;
+    }
+
+    /**
+     * How close the buffer is to its next flush, from 0 (empty) to 1 (full), by whichever bound is nearer.
+     */
+    public synchronized double getFillLevel() {
+        return Math.min(1d,
+                        Math.max((double) objects.size() / maxObjects,
+                                 (double) bytes / maxBytes));
+    }
+
+    public synchronized long getFlushedChunks() {
+        return flushedChunks;
+    }
+
+    public synchronized long getFlushedObjects() {
+        return flushedObjects;
+    }
+
+    public int getMaxObjects() {
+        return maxObjects;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    static long estimateSize(final KObject kObject) {
+        long size = OBJECT_OVERHEAD + chars(kObject.getId()) + chars(kObject.getKey()) + chars(kObject.getClusterId()) + chars(kObject.getSegmentId());
+        final Iterable<KProperty<?>> properties = kObject.getProperties();
+        if (properties != null) {
+            for (final KProperty<?> property : properties) {
+                size += PROPERTY_OVERHEAD + chars(property.getName());
+                final Object value = property.getValue();
+                if (value instanceof CharSequence) {
+                    size += chars((CharSequence) value);
+                } else if (value != null) {
+                    size += 16;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long chars(final CharSequence value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+}
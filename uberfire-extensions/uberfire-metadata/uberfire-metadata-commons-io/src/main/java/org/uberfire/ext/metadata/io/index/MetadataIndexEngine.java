@@ -19,14 +19,17 @@ package org.uberfire.ext.metadata.io.index;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import com.google.common.collect.Lists;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.commons.lifecycle.PriorityDisposableRegistry;
 import org.uberfire.ext.metadata.backend.lucene.model.KClusterImpl;
 import org.uberfire.ext.metadata.engine.MetaIndexEngine;
@@ -35,6 +38,9 @@ import org.uberfire.ext.metadata.metamodel.MetaModelBuilder;
 import org.uberfire.ext.metadata.model.KCluster;
 import org.uberfire.ext.metadata.model.KObject;
 import org.uberfire.ext.metadata.model.KObjectKey;
+import org.uberfire.ext.metadata.model.KProperty;
+import org.uberfire.ext.metadata.model.impl.KObjectImpl;
+import org.uberfire.ext.metadata.model.impl.KPropertyImpl;
 import org.uberfire.ext.metadata.provider.IndexProvider;
 
 import static org.kie.soup.commons.validation.PortablePreconditions.checkCondition;
@@ -42,11 +48,33 @@ import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull
 
 public class MetadataIndexEngine implements MetaIndexEngine {
 
+    private static final int DEFAULT_BATCH_BUFFER_SIZE = 1000;
+    private static final long DEFAULT_BATCH_BUFFER_BYTES = 16 * 1024 * 1024;
+
+    private static final int BATCH_BUFFER_SIZE;
+    private static final long BATCH_BUFFER_BYTES;
+
+    static {
+        final ConfigProperties config = new ConfigProperties(System.getProperties());
+        BATCH_BUFFER_SIZE = config.get("org.uberfire.metadata.batch.buffer.size",
+                                       String.valueOf(DEFAULT_BATCH_BUFFER_SIZE)).getIntValue(DEFAULT_BATCH_BUFFER_SIZE);
+        BATCH_BUFFER_BYTES = config.get("org.uberfire.metadata.batch.buffer.bytes",
+                                        String.valueOf(DEFAULT_BATCH_BUFFER_BYTES)).getLongValue(DEFAULT_BATCH_BUFFER_BYTES);
+    }
+
+    /**
+     * Commits recorded by batch indexing are kept apart from the clusters they describe, so they never show up in
+     * searches over those clusters.
+     */
+    static final KCluster INDEXED_COMMITS_CLUSTER = new KClusterImpl("batch-index-commits");
+    static final String INDEXED_CLUSTER_PROPERTY = "indexedCluster";
+    static final String INDEXED_COMMIT_PROPERTY = "indexedCommit";
+
     private final MetaModelBuilder metaModelBuilder;
     private Logger logger = LoggerFactory.getLogger(MetadataIndexEngine.class);
     private final IndexProvider provider;
     private final Map<KCluster, AtomicInteger> batchMode = new ConcurrentHashMap<>();
-    private final Map<KCluster, List<KObject>> batchSet = new ConcurrentHashMap<>();
+    private final Map<KCluster, BatchIndexBuffer> batchSet = new ConcurrentHashMap<>();
     private final Collection<Runnable> beforeDispose = new ArrayList<>();
 
     public MetadataIndexEngine(IndexProvider provider,
@@ -65,38 +93,46 @@ public class MetadataIndexEngine implements MetaIndexEngine {
         return isFreshIndex;
     }
 
+    /**
+     * Opens a batch level for the cluster. While at least one level is open, the objects indexed for the cluster are
+     * buffered and handed to the provider in bulk: on {@link #commit(KCluster)} of the last level, or earlier in
+     * chunks if the buffer fills up.
+     */
     @Override
     public void startBatch(KCluster cluster) {
-        final AtomicInteger batchStack = batchMode.get(cluster);
-        if (batchStack == null) {
-            batchMode.put(cluster,
-                          new AtomicInteger());
-        } else {
-            if (batchStack.get() < 0) {
-                batchStack.set(1);
-            } else {
-                batchStack.incrementAndGet();
-            }
-        }
+        batchMode.computeIfAbsent(cluster,
+                                  c -> new AtomicInteger()).incrementAndGet();
     }
 
     @Override
     public void index(KObject kObject) {
-
+        this.metaModelBuilder.updateMetaModel(kObject);
         if (this.isBatch(kObject)) {
-            KClusterImpl index = new KClusterImpl(kObject.getClusterId());
-            this.batchSet.putIfAbsent(index,
-                                      new ArrayList<>());
-            List<KObject> store = this.batchSet.get(index);
-            store.add(kObject);
-            this.batchSet.put(index,
-                              store);
+            buffer(kObject);
         } else {
-            this.metaModelBuilder.updateMetaModel(kObject);
             this.provider.index(kObject);
         }
     }
 
+    private void buffer(KObject kObject) {
+        final KCluster cluster = new KClusterImpl(kObject.getClusterId());
+        final BatchIndexBuffer buffer = this.batchSet.computeIfAbsent(cluster,
+                                                                      c -> new BatchIndexBuffer(BATCH_BUFFER_SIZE,
+                                                                                                BATCH_BUFFER_BYTES));
+        final List<KObject> chunk = buffer.add(kObject);
+        if (!chunk.isEmpty()) {
+            // spilled chunks become searchable before the commit; the cluster still reports batch mode until then
+            this.provider.index(chunk);
+        }
+        if (!this.isBatch(kObject)) {
+            // the batch was committed while the object was being buffered, and its buffer may be drained already
+            final List<KObject> late = buffer.drain();
+            if (!late.isEmpty()) {
+                this.provider.index(late);
+            }
+        }
+    }
+
     private boolean isBatch(KObject object) {
         final AtomicInteger batchStack = batchMode.get(new KClusterImpl(object.getClusterId()));
         return batchStack != null && batchStack.get() > 0;
@@ -104,9 +140,18 @@ public class MetadataIndexEngine implements MetaIndexEngine {
 
     @Override
     public void index(KObject... objects) {
-        List<KObject> kObjects = Lists.newArrayList(objects);
-        kObjects.forEach(kObject -> this.metaModelBuilder.updateMetaModel(kObject));
-        this.provider.index(kObjects);
+        final List<KObject> direct = new ArrayList<>(objects.length);
+        for (KObject kObject : objects) {
+            this.metaModelBuilder.updateMetaModel(kObject);
+            if (this.isBatch(kObject)) {
+                buffer(kObject);
+            } else {
+                direct.add(kObject);
+            }
+        }
+        if (!direct.isEmpty()) {
+            this.provider.index(direct);
+        }
     }
 
     @Override
@@ -133,6 +178,7 @@ public class MetadataIndexEngine implements MetaIndexEngine {
     @Override
     public void delete(KCluster cluster) {
         this.provider.delete(cluster.getClusterId());
+        deleteIndexedCommits(cluster);
     }
 
     @Override
@@ -146,19 +192,127 @@ public class MetadataIndexEngine implements MetaIndexEngine {
         Arrays.stream(objectsKey).forEach(kObjectKey -> this.delete(kObjectKey));
     }
 
+    /**
+     * Closes a batch level of the cluster. Closing the last one leaves batch mode and hands the buffered objects to
+     * the provider; the cluster is still recorded as batch indexed, so it is not reported as a fresh index.
+     */
     @Override
     public void commit(KCluster cluster) {
+        final BatchIndexBuffer buffer = endBatch(cluster);
+        if (buffer != null) {
+            final List<KObject> chunk = buffer.drain();
+            if (!chunk.isEmpty()) {
+                this.provider.index(chunk);
+            }
+        }
+    }
+
+    /**
+     * Closes a batch level of the cluster like {@link #commit(KCluster)}, but when it was the last one the buffered
+     * objects are dropped. Chunks spilled to the provider before are not taken back.
+     */
+    @Override
+    public void abort(KCluster cluster) {
+        final BatchIndexBuffer buffer = endBatch(cluster);
+        if (buffer != null) {
+            final int dropped = buffer.drain().size();
+            if (dropped > 0) {
+                logger.warn("Batch of cluster '" + cluster.getClusterId() + "' aborted, " + dropped + " buffered objects were not indexed.");
+            }
+        }
+    }
+
+    /**
+     * Returns the buffer of the cluster once its last batch level is closed, or null while levels remain open.
+     * Batch mode is left before the buffer is taken, so from then on new objects go straight to the provider.
+     */
+    private BatchIndexBuffer endBatch(KCluster cluster) {
         final AtomicInteger batchStack = batchMode.get(cluster);
-        if (batchStack != null) {
-            int value = batchStack.decrementAndGet();
-            if (value > 0) {
-                this.provider.index(this.batchSet.get(cluster));
-                batchMode.remove(cluster);
-                batchSet.remove(cluster);
+        if (batchStack == null || batchStack.updateAndGet(value -> Math.max(0,
+                                                                            value - 1)) > 0) {
+            return null;
+        }
+        return batchSet.remove(cluster);
+    }
+
+    /**
+     * Returns the buffer of objects indexed for the cluster while in batch mode, or null when nothing is buffered.
+     */
+    public BatchIndexBuffer getBatchBuffer(KCluster cluster) {
+        return batchSet.get(cluster);
+    }
+
+    @Override
+    public String getIndexedCommit(KCluster cluster,
+                                   String segmentId) {
+        if (this.provider.isFreshIndex(INDEXED_COMMITS_CLUSTER)) {
+            return null;
+        }
+        try {
+            final List<KObject> markers = this.provider.findById(INDEXED_COMMITS_CLUSTER.getClusterId(),
+                                                                 indexedCommitId(cluster,
+                                                                                 segmentId));
+            for (KObject marker : markers) {
+                for (KProperty<?> property : marker.getProperties()) {
+                    if (INDEXED_COMMIT_PROPERTY.equals(property.getName()) && property.getValue() != null) {
+                        return property.getValue().toString();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to read indexed commit of cluster '" + cluster.getClusterId() + "'.",
+                        e);
+        }
+        return null;
+    }
+
+    @Override
+    public void setIndexedCommit(KCluster cluster,
+                                 String segmentId,
+                                 String commitId) {
+        checkNotNull("commitId",
+                     commitId);
+        final List<KProperty<?>> properties = Arrays.asList(new KPropertyImpl<>(INDEXED_CLUSTER_PROPERTY,
+                                                                                cluster.getClusterId(),
+                                                                                false),
+                                                            new KPropertyImpl<>(INDEXED_COMMIT_PROPERTY,
+                                                                                commitId,
+                                                                                false));
+        final String id = indexedCommitId(cluster,
+                                          segmentId);
+        this.provider.index(new KObjectImpl(id,
+                                            INDEXED_COMMITS_CLUSTER.getClusterId(),
+                                            INDEXED_COMMITS_CLUSTER.getClusterId(),
+                                            segmentId,
+                                            id,
+                                            properties,
+                                            false));
+    }
+
+    private void deleteIndexedCommits(KCluster cluster) {
+        if (this.provider.isFreshIndex(INDEXED_COMMITS_CLUSTER)) {
+            return;
+        }
+        try {
+            final List<KObject> markers = this.provider.findByQuery(Collections.singletonList(INDEXED_COMMITS_CLUSTER.getClusterId()),
+                                                                    new TermQuery(new Term(INDEXED_CLUSTER_PROPERTY,
+                                                                                           cluster.getClusterId())),
+                                                                    0);
+            for (KObject marker : markers) {
+                this.provider.delete(INDEXED_COMMITS_CLUSTER.getClusterId(),
+                                     marker.getId());
             }
+        } catch (Exception e) {
+            logger.warn("Unable to remove indexed commits of cluster '" + cluster.getClusterId() + "'.",
+                        e);
         }
     }
 
+    private String indexedCommitId(KCluster cluster,
+                                   String segmentId) {
+        return cluster.getClusterId() + "|" + segmentId;
+    }
+
     @Override
     public void beforeDispose(Runnable callback) {
         this.beforeDispose.add(checkNotNull("callback",
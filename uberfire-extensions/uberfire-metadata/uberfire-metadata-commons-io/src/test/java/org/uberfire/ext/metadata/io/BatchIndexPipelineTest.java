@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BatchIndexPipelineTest {
+
+    private final AtomicBoolean disposed = new AtomicBoolean(false);
+    private final List<Path> transformedFiles = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> bulkSizes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger errors = new AtomicInteger();
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BatchIndexPipeline pipeline;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        disposed.set(true);
+        if (pipeline != null) {
+            pipeline.dispose();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void prioritizedClusterOvertakesEarlierJobs() throws Exception {
+        pipeline = pipeline(1,
+                            10,
+                            100,
+                            blockingFirstFile(1));
+        final Path a1 = mock(Path.class);
+        final Path a2 = mock(Path.class);
+        final Path b1 = mock(Path.class);
+
+        final BatchIndexPipeline.Job a = pipeline.open(new BatchIndexProgress("a"));
+        a.submit(a1);
+        started.await();
+        a.submit(a2);
+        final BatchIndexPipeline.Job b = pipeline.open(new BatchIndexProgress("b"));
+        b.submit(b1);
+        pipeline.prioritize("b");
+
+        release.countDown();
+        assertTrue(a.await());
+        assertTrue(b.await());
+
+        assertEquals(Arrays.asList(a1,
+                                   b1,
+                                   a2),
+                     transformedFiles);
+    }
+
+    @Test(timeout = 10000)
+    public void producerBlocksWhileTheQueueIsFull() throws Exception {
+        pipeline = pipeline(1,
+                            1,
+                            100,
+                            blockingFirstFile(1));
+        final BatchIndexPipeline.Job job = pipeline.open(new BatchIndexProgress("a"));
+        job.submit(mock(Path.class));
+        started.await();
+        // the only worker is busy, this one fills the queue
+        job.submit(mock(Path.class));
+
+        final CountDownLatch submitted = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            try {
+                job.submit(mock(Path.class));
+                submitted.countDown();
+            } catch (final InterruptedException ignored) {
+            }
+        });
+        producer.start();
+
+        assertFalse(submitted.await(300,
+                                    TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(submitted.await(5,
+                                   TimeUnit.SECONDS));
+        assertTrue(job.await());
+        assertEquals(3,
+                     transformedFiles.size());
+    }
+
+    @Test(timeout = 10000)
+    public void bulksAreCappedAtBulkSize() throws Exception {
+        release.countDown();
+        pipeline = pipeline(2,
+                            10,
+                            3,
+                            objectsPerFile(2));
+        final BatchIndexPipeline.Job job = pipeline.open(new BatchIndexProgress("a"));
+        for (int i = 0; i < 20; i++) {
+            job.submit(mock(Path.class));
+        }
+        assertTrue(job.await());
+
+        int total = 0;
+        for (final int size : bulkSizes) {
+            assertTrue("bulk of " + size + " objects",
+                       size <= 3);
+            total += size;
+        }
+        assertEquals(40,
+                     total);
+    }
+
+    @Test(timeout = 10000)
+    public void progressCountsEveryFileOnce() throws Exception {
+        release.countDown();
+        final Path broken = mock(Path.class);
+        pipeline = pipeline(2,
+                            4,
+                            5,
+                            file -> {
+                                if (file == broken) {
+                                    throw new IllegalStateException("broken");
+                                }
+                                return Collections.singletonList(mock(KObject.class));
+                            });
+        final BatchIndexProgress progress = new BatchIndexProgress("a");
+        final BatchIndexPipeline.Job job = pipeline.open(progress);
+        for (int i = 0; i < 9; i++) {
+            job.submit(mock(Path.class));
+        }
+        job.submit(broken);
+        assertTrue(job.await());
+
+        assertEquals(10,
+                     progress.getDiscoveredFiles());
+        assertEquals(9,
+                     progress.getIndexedFiles());
+        assertEquals(1,
+                     progress.getFailedFiles());
+        assertEquals(0,
+                     progress.getPendingFiles());
+        assertEquals(1,
+                     errors.get());
+    }
+
+    @Test(timeout = 10000)
+    public void disposeStopsTheWorkers() throws Exception {
+        pipeline = pipeline(2,
+                            4,
+                            5,
+                            objectsPerFile(1));
+        final BatchIndexPipeline.Job job = pipeline.open(new BatchIndexProgress("a"));
+        job.submit(mock(Path.class));
+        assertTrue(job.await());
+
+        pipeline.dispose();
+
+        assertTrue(pipeline.awaitTermination(5,
+                                             TimeUnit.SECONDS));
+    }
+
+    private BatchIndexPipeline pipeline(final int parallelism,
+                                        final int queueSize,
+                                        final int bulkSize,
+                                        final BatchIndexPipeline.Transformer transformer) {
+        return new BatchIndexPipeline(parallelism,
+                                      queueSize,
+                                      bulkSize,
+                                      file -> {
+                                          transformedFiles.add(file);
+                                          return transformer.transform(file);
+                                      },
+                                      objects -> bulkSizes.add(objects.size()),
+                                      (file, ex) -> errors.incrementAndGet(),
+                                      disposed);
+    }
+
+    /**
+     * Holds the worker on the first file until the test releases it.
+     */
+    private BatchIndexPipeline.Transformer blockingFirstFile(final int objects) {
+        final AtomicBoolean first = new AtomicBoolean(true);
+        return file -> {
+            if (first.compareAndSet(true,
+                                    false)) {
+                started.countDown();
+                release.await();
+            }
+            return objectsPerFile(objects).transform(file);
+        };
+    }
+
+    private BatchIndexPipeline.Transformer objectsPerFile(final int count) {
+        return file -> {
+            final List<KObject> objects = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                objects.add(mock(KObject.class));
+            }
+            return objects;
+        };
+    }
+}
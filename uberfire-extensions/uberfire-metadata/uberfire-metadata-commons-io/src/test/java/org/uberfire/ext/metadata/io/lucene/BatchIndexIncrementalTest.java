@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.io.lucene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.junit.Test;
+import org.uberfire.commons.async.DescriptiveThreadFactory;
+import org.uberfire.ext.metadata.engine.Observer;
+import org.uberfire.ext.metadata.io.BatchIndex;
+import org.uberfire.ext.metadata.io.BatchIndexProgress;
+import org.uberfire.ext.metadata.io.MetadataConfigBuilder;
+import org.uberfire.ext.metadata.model.KCluster;
+import org.uberfire.io.IOService;
+import org.uberfire.io.attribute.DublinCoreView;
+import org.uberfire.io.impl.IOServiceDotFileImpl;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.uberfire.ext.metadata.io.KObjectUtil.toKCluster;
+
+public class BatchIndexIncrementalTest extends BaseIndexTest {
+
+    private final List<String> messages = new ArrayList<>();
+
+    @Override
+    protected IOService ioService() {
+        if (ioService == null) {
+            config = new MetadataConfigBuilder()
+                    .withInMemoryMetaModelStore()
+                    .useDirectoryBasedIndex()
+                    .useInMemoryDirectory()
+                    .build();
+            ioService = new IOServiceDotFileImpl();
+        }
+        return ioService;
+    }
+
+    @Override
+    protected String[] getRepositoryNames() {
+        return new String[]{"incremental-repo-test"};
+    }
+
+    @Test
+    public void testOnlyChangesSinceTheLastRunAreIndexed() {
+        final Path root = ioService().get("git://incremental-repo-test/");
+        final KCluster cluster = toKCluster(root.getFileSystem());
+
+        ioService().write(root.resolve("keep.txt"),
+                          "keep");
+        ioService().write(root.resolve("remove.txt"),
+                          "remove");
+
+        final BatchIndex batchIndex = batchIndex();
+        batchIndex.run(root);
+
+        final BatchIndexProgress progress = batchIndex.getProgress(cluster);
+        assertTrue(progress.isCompleted());
+        assertEquals(2,
+                     progress.getIndexedFiles());
+        assertEquals(0,
+                     progress.getFailedFiles());
+
+        final String firstCommit = config.getIndexEngine().getIndexedCommit(cluster,
+                                                                           "master");
+        assertNotNull(firstCommit);
+        assertEquals(2,
+                     hits(cluster));
+
+        ioService().write(root.resolve("added.txt"),
+                          "added");
+        ioService().delete(root.resolve("remove.txt"));
+        messages.clear();
+
+        batchIndex().run(root);
+
+        assertTrue(messages.stream().anyMatch(message -> message.startsWith("Starting incremental indexing")));
+        assertNotEquals(firstCommit,
+                        config.getIndexEngine().getIndexedCommit(cluster,
+                                                                 "master"));
+        assertEquals(2,
+                     hits(cluster));
+    }
+
+    private long hits(final KCluster cluster) {
+        return config.getIndexProvider().findHitsByQuery(Arrays.asList(cluster.getClusterId()),
+                                                         new MatchAllDocsQuery());
+    }
+
+    private BatchIndex batchIndex() {
+        return new BatchIndex(config.getIndexEngine(),
+                              ioService(),
+                              new Observer() {
+                                  @Override
+                                  public void information(final String message) {
+                                      messages.add(message);
+                                  }
+
+                                  @Override
+                                  public void warning(final String message) {
+                                      messages.add(message);
+                                  }
+
+                                  @Override
+                                  public void error(final String message) {
+                                      messages.add(message);
+                                  }
+                              },
+                              Executors.newCachedThreadPool(new DescriptiveThreadFactory()),
+                              DublinCoreView.class);
+    }
+}
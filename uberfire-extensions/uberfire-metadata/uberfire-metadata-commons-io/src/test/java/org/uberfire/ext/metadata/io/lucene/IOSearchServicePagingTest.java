@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.io.lucene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.jboss.byteman.contrib.bmunit.BMScript;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.uberfire.ext.metadata.backend.lucene.fields.FieldFactory;
+import org.uberfire.ext.metadata.io.IOSearchServiceImpl;
+import org.uberfire.ext.metadata.search.IOSearchService;
+import org.uberfire.ext.metadata.search.SearchPage;
+import org.uberfire.ext.metadata.search.SearchPageRequest;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+@RunWith(org.jboss.byteman.contrib.bmunit.BMUnitRunner.class)
+@BMScript(dir = "byteman", value = "lucene.btm")
+public class IOSearchServicePagingTest extends BaseIndexTest {
+
+    @Override
+    protected String[] getRepositoryNames() {
+        return new String[]{this.getClass().getSimpleName()};
+    }
+
+    @Test
+    public void testPagedSearchByAttrs() throws IOException, InterruptedException {
+        setupCountDown(5);
+
+        final IOSearchServiceImpl searchService = new IOSearchServiceImpl(config.getSearchIndex(),
+                                                                          ioService());
+
+        final List<Path> written = new ArrayList<>();
+        for (final String fileName : new String[]{"e.txt", "d.txt", "c.txt", "b.txt", "a.txt"}) {
+            final Path path = getBasePath(this.getClass().getSimpleName()).resolve(fileName);
+            ioService().write(path,
+                              "content");
+            written.add(path);
+        }
+
+        final Path root = written.get(0).getRoot();
+        final Map<String, String> attrs = Collections.singletonMap("filename",
+                                                                   "*.txt");
+
+        waitForCountDown(5000);
+
+        final Sort sort = new Sort(new SortField(FieldFactory.FILE_NAME_FIELD_SORTED,
+                                                 SortField.Type.STRING));
+        {
+            final SearchPage<Path> page = searchService.searchByAttrs(attrs,
+                                                                      new SearchPageRequest(2,
+                                                                                            2,
+                                                                                            sort),
+                                                                      new IOSearchService.NoOpFilter(),
+                                                                      root);
+            assertEquals(5,
+                         page.getTotalHits());
+            assertEquals(2,
+                         page.getHits().size());
+            assertEquals("c.txt",
+                         page.getHits().get(0).getFileName().toString());
+            assertEquals("d.txt",
+                         page.getHits().get(1).getFileName().toString());
+            assertTrue(page.hasNextPage());
+        }
+
+        {
+            final List<Path> hits = new ArrayList<>();
+            SearchPageRequest request = new SearchPageRequest(0,
+                                                              2);
+            SearchPage<Path> page;
+            do {
+                page = searchService.searchByAttrs(attrs,
+                                                   request,
+                                                   new IOSearchService.NoOpFilter(),
+                                                   root);
+                assertEquals(5,
+                             page.getTotalHits());
+                hits.addAll(page.getHits());
+                request = page.getNextPage();
+            } while (page.hasNextPage());
+
+            assertEquals(5,
+                         hits.size());
+            assertEquals(new HashSet<>(written),
+                         new HashSet<>(hits));
+        }
+
+        {
+            final SearchPage<Path> page = searchService.searchByAttrs(attrs,
+                                                                      new SearchPageRequest(0,
+                                                                                            2,
+                                                                                            sort),
+                                                                      kObject -> !kObject.getKey().endsWith("a.txt"),
+                                                                      root);
+            assertEquals(2,
+                         page.getHits().size());
+            assertEquals("b.txt",
+                         page.getHits().get(0).getFileName().toString());
+            assertEquals("c.txt",
+                         page.getHits().get(1).getFileName().toString());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.metadata.io.lucene;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.ext.metadata.backend.lucene.model.KClusterImpl;
+import org.uberfire.ext.metadata.engine.MetaModelStore;
+import org.uberfire.ext.metadata.io.index.BatchIndexBuffer;
+import org.uberfire.ext.metadata.io.index.MetadataIndexEngine;
+import org.uberfire.ext.metadata.model.KCluster;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.model.impl.KObjectImpl;
+import org.uberfire.ext.metadata.provider.IndexProvider;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MetadataIndexEngineBatchTest {
+
+    private static final KCluster CLUSTER = new KClusterImpl("cluster");
+
+    @Mock
+    private IndexProvider provider;
+
+    @Mock
+    private MetaModelStore metaModelStore;
+
+    private MetadataIndexEngine indexEngine;
+
+    @Before
+    public void setup() {
+        indexEngine = new MetadataIndexEngine(provider,
+                                              metaModelStore);
+        indexEngine.startBatch(CLUSTER);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchBufferSpillsToProviderWhenFull() {
+        indexEngine.index(kObject(0));
+        final BatchIndexBuffer buffer = indexEngine.getBatchBuffer(CLUSTER);
+        for (int i = 1; i < buffer.getMaxObjects(); i++) {
+            indexEngine.index(kObject(i));
+        }
+
+        final ArgumentCaptor<List> chunk = ArgumentCaptor.forClass(List.class);
+        verify(provider).index(chunk.capture());
+        assertEquals(buffer.getMaxObjects(),
+                     chunk.getValue().size());
+        assertEquals(0,
+                     buffer.getBufferedObjects());
+        assertEquals(0d,
+                     buffer.getFillLevel(),
+                     0d);
+
+        indexEngine.index(kObject(buffer.getMaxObjects()));
+
+        assertEquals(1,
+                     buffer.getBufferedObjects());
+        assertTrue(buffer.getFillLevel() > 0);
+        assertFalse(indexEngine.freshIndex(CLUSTER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBulkIsBufferedUntilCommit() {
+        indexEngine.index(kObject(0),
+                          kObject(1));
+
+        verify(provider,
+               never()).index(any(List.class));
+        assertEquals(2,
+                     indexEngine.getBatchBuffer(CLUSTER).getBufferedObjects());
+
+        indexEngine.commit(CLUSTER);
+
+        final ArgumentCaptor<List> chunk = ArgumentCaptor.forClass(List.class);
+        verify(provider).index(chunk.capture());
+        assertEquals(2,
+                     chunk.getValue().size());
+        assertNull(indexEngine.getBatchBuffer(CLUSTER));
+        assertFalse(indexEngine.freshIndex(CLUSTER));
+
+        indexEngine.index(kObject(2));
+        verify(provider).index(any(KObject.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNestedBatchIsCommittedByLastLevel() {
+        indexEngine.startBatch(CLUSTER);
+        indexEngine.index(kObject(0));
+
+        indexEngine.commit(CLUSTER);
+        verify(provider,
+               never()).index(any(List.class));
+
+        indexEngine.commit(CLUSTER);
+        verify(provider).index(any(List.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAbortDropsBufferedObjects() {
+        indexEngine.index(kObject(0));
+
+        indexEngine.abort(CLUSTER);
+
+        verify(provider,
+               never()).index(any(List.class));
+        verify(provider,
+               never()).index(any(KObject.class));
+        assertNull(indexEngine.getBatchBuffer(CLUSTER));
+
+        indexEngine.index(kObject(1));
+        verify(provider).index(any(KObject.class));
+    }
+
+    private KObject kObject(final int i) {
+        return new KObjectImpl(String.valueOf(i),
+                               "type",
+                               CLUSTER.getClusterId(),
+                               "segment",
+                               String.valueOf(i),
+                               Collections.emptyList(),
+                               false);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.security.server.io;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.jboss.errai.security.shared.api.identity.User;
+import org.uberfire.security.Resource;
+
+/**
+ * Authorization decisions keyed by (user, resource), either for the lifetime of one request or for a short time to
+ * live shared by all requests.
+ */
+public class AuthorizationDecisionCache {
+
+    private static final int MAX_SIZE = 10000;
+
+    private final long timeToLive;
+    private final Map<String, Decision> decisions = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param timeToLive how long a decision is kept, in milliseconds, or 0 to keep it as long as the cache
+     */
+    public AuthorizationDecisionCache(final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the decision cached for the user and resource, or asks the given supplier and caches its answer.
+     */
+    public boolean authorize(final User user,
+                             final Resource resource,
+                             final BooleanSupplier decide) {
+        final String key = user.getIdentifier() + '\u0000' + resource.getIdentifier();
+        final long now = timeToLive > 0 ? System.currentTimeMillis() : 0;
+
+        final Decision cached = decisions.get(key);
+        if (cached != null && (timeToLive <= 0 || now - cached.decidedAt < timeToLive)) {
+            hits.incrementAndGet();
+            return cached.granted;
+        }
+
+        misses.incrementAndGet();
+        final boolean granted = decide.getAsBoolean();
+        if (decisions.size() >= MAX_SIZE) {
+            decisions.clear();
+        }
+        decisions.put(key,
+                      new Decision(granted,
+                                   now));
+        return granted;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public void clear() {
+        decisions.clear();
+    }
+
+    private static class Decision {
+
+        private final boolean granted;
+        private final long decidedAt;
+
+        Decision(final boolean granted,
+                 final long decidedAt) {
+            this.granted = granted;
+            this.decidedAt = decidedAt;
+        }
+    }
+}
@@ -22,17 +22,24 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
 
 import org.jboss.errai.security.shared.api.RoleImpl;
 import org.jboss.errai.security.shared.api.identity.User;
 import org.jboss.errai.security.shared.api.identity.UserImpl;
 import org.jboss.errai.security.shared.service.AuthenticationService;
 import org.uberfire.backend.server.security.FileSystemResourceAdaptor;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.commons.lifecycle.PriorityDisposableRegistry;
+import org.uberfire.ext.security.server.SecurityIntegrationFilter;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.channels.SeekableByteChannel;
@@ -67,6 +74,14 @@ public class IOSecurityService implements IOService {
     private final AuthenticationService authenticationService;
     private final AuthorizationManager authManager;
 
+    private static final String DECISION_CACHE_ATTRIBUTE = AuthorizationDecisionCache.class.getName();
+
+    // decisions shared across requests for a short time, null unless a time to live is configured
+    private final AuthorizationDecisionCache sharedDecisions;
+    private final Map<FileSystem, Resource> fileSystemResources = Collections.synchronizedMap(new WeakHashMap<>());
+    private final AtomicLong decisionChecks = new AtomicLong();
+    private final AtomicLong decisionMisses = new AtomicLong();
+
     public IOSecurityService(final IOService service,
                              final AuthenticationService authenticationService,
                              final AuthorizationManager authManager) {
@@ -76,6 +91,9 @@ public class IOSecurityService implements IOService {
                                     service);
         this.authenticationService = checkNotNull("provider",
                                                   authenticationService);
+        final long decisionTimeToLive = new ConfigProperties(System.getProperties()).get("org.uberfire.io.security.decision.ttl",
+                                                                                         "0").getLongValue(0);
+        this.sharedDecisions = decisionTimeToLive > 0 ? new AuthorizationDecisionCache(decisionTimeToLive) : null;
         PriorityDisposableRegistry.register(this);
     }
 
@@ -90,8 +108,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public void startBatch(FileSystem fs) {
-        if (!authManager.authorize(toResource(fs),
-                                   getUser())) {
+        if (!authorize(toResource(fs))) {
             throw new SecurityException();
         }
         service.startBatch(fs);
@@ -100,14 +117,35 @@ public class IOSecurityService implements IOService {
     @Override
     public void startBatch(FileSystem fs,
                            Option... options) {
-        if (!authManager.authorize(toResource(fs),
-                                   getUser())) {
+        if (!authorize(toResource(fs))) {
             throw new SecurityException();
         }
         service.startBatch(fs,
                            options);
     }
 
+    @Override
+    public void startBatch(FileSystem... fs) {
+        for (final FileSystem f : fs) {
+            if (!authorize(toResource(f))) {
+                throw new SecurityException();
+            }
+        }
+        service.startBatch(fs);
+    }
+
+    @Override
+    public void startBatch(FileSystem[] fs,
+                           Option... options) {
+        for (final FileSystem f : fs) {
+            if (!authorize(toResource(f))) {
+                throw new SecurityException();
+            }
+        }
+        service.startBatch(fs,
+                           options);
+    }
+
     @Override
     public void endBatch() {
         service.endBatch();
@@ -123,8 +161,7 @@ public class IOSecurityService implements IOService {
                     String... more) throws IllegalArgumentException {
         final Path result = service.get(first,
                                         more);
-        if (!authManager.authorize(toResource(result),
-                                   getUser())) {
+        if (!authorize(toResource(result))) {
             throw new SecurityException();
         }
         return result;
@@ -133,8 +170,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Path get(URI uri) throws IllegalArgumentException, FileSystemNotFoundException, SecurityException {
         final Path result = service.get(uri);
-        if (!authManager.authorize(toResource(result),
-                                   getUser())) {
+        if (!authorize(toResource(result))) {
             throw new SecurityException();
         }
         return result;
@@ -145,8 +181,7 @@ public class IOSecurityService implements IOService {
         final Iterable<FileSystemMetadata> _result = service.getFileSystemMetadata();
         final Set<FileSystemMetadata> result = new HashSet<>();
         for (final FileSystemMetadata fs : _result) {
-            if (authManager.authorize(toResource(fs),
-                                      getUser())) {
+            if (authorize(toResource(fs))) {
                 result.add(fs);
             }
         }
@@ -157,8 +192,7 @@ public class IOSecurityService implements IOService {
     @Override
     public FileSystem getFileSystem(URI uri) throws IllegalArgumentException, FileSystemNotFoundException, ProviderNotFoundException, SecurityException {
         final FileSystem result = service.getFileSystem(uri);
-        if (!authManager.authorize(toResource(new FileSystemMetadata(result)),
-                                   getUser())) {
+        if (!authorize(toResource(result))) {
             throw new SecurityException();
         }
         return result;
@@ -169,8 +203,7 @@ public class IOSecurityService implements IOService {
                                     Map<String, ?> env) throws IllegalArgumentException, FileSystemAlreadyExistsException, ProviderNotFoundException, IOException, SecurityException {
         final FileSystem fs = service.newFileSystem(uri,
                                                     env);
-        if (!authManager.authorize(toResource(fs),
-                                   getUser())) {
+        if (!authorize(toResource(fs))) {
             service.delete(fs.getPath(null));
             throw new SecurityException();
         }
@@ -185,8 +218,7 @@ public class IOSecurityService implements IOService {
     @Override
     public InputStream newInputStream(Path path,
                                       OpenOption... options) throws IllegalArgumentException, NoSuchFileException, UnsupportedOperationException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.newInputStream(path,
@@ -196,8 +228,7 @@ public class IOSecurityService implements IOService {
     @Override
     public OutputStream newOutputStream(Path path,
                                         OpenOption... options) throws IllegalArgumentException, UnsupportedOperationException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.newOutputStream(path,
@@ -207,8 +238,7 @@ public class IOSecurityService implements IOService {
     @Override
     public SeekableByteChannel newByteChannel(Path path,
                                               OpenOption... options) throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.newByteChannel(path,
@@ -219,8 +249,7 @@ public class IOSecurityService implements IOService {
     public SeekableByteChannel newByteChannel(Path path,
                                               Set<? extends OpenOption> options,
                                               FileAttribute<?>... attrs) throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.newByteChannel(path,
@@ -230,8 +259,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public DirectoryStream<Path> newDirectoryStream(Path dir) throws IllegalArgumentException, NotDirectoryException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(dir),
-                                   getUser())) {
+        if (!authorize(toResource(dir))) {
             throw new SecurityException();
         }
         return service.newDirectoryStream(dir);
@@ -240,8 +268,7 @@ public class IOSecurityService implements IOService {
     @Override
     public DirectoryStream<Path> newDirectoryStream(Path dir,
                                                     DirectoryStream.Filter<Path> filter) throws IllegalArgumentException, NotDirectoryException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(dir),
-                                   getUser())) {
+        if (!authorize(toResource(dir))) {
             throw new SecurityException();
         }
         return service.newDirectoryStream(dir,
@@ -251,8 +278,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Path createFile(Path path,
                            FileAttribute<?>... attrs) throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.createFile(path,
@@ -262,8 +288,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Path createDirectory(Path dir,
                                 FileAttribute<?>... attrs) throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(dir),
-                                   getUser())) {
+        if (!authorize(toResource(dir))) {
             throw new SecurityException();
         }
         return service.createFile(dir,
@@ -273,8 +298,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Path createDirectories(Path dir,
                                   FileAttribute<?>... attrs) throws UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(dir),
-                                   getUser())) {
+        if (!authorize(toResource(dir))) {
             throw new SecurityException();
         }
         return service.createDirectories(dir,
@@ -284,8 +308,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Path createDirectory(Path dir,
                                 Map<String, ?> attrs) throws IllegalArgumentException, UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(dir),
-                                   getUser())) {
+        if (!authorize(toResource(dir))) {
             throw new SecurityException();
         }
         return service.createDirectory(dir,
@@ -295,8 +318,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Path createDirectories(Path dir,
                                   Map<String, ?> attrs) throws UnsupportedOperationException, FileAlreadyExistsException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(dir),
-                                   getUser())) {
+        if (!authorize(toResource(dir))) {
             throw new SecurityException();
         }
         return service.createDirectories(dir,
@@ -306,8 +328,7 @@ public class IOSecurityService implements IOService {
     @Override
     public void delete(Path path,
                        DeleteOption... options) throws IllegalArgumentException, NoSuchFileException, DirectoryNotEmptyException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         service.delete(path,
@@ -317,8 +338,7 @@ public class IOSecurityService implements IOService {
     @Override
     public boolean deleteIfExists(Path path,
                                   DeleteOption... options) throws IllegalArgumentException, DirectoryNotEmptyException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.deleteIfExists(path,
@@ -339,8 +359,7 @@ public class IOSecurityService implements IOService {
                                String prefix,
                                String suffix,
                                FileAttribute<?>... attrs) throws IllegalArgumentException, UnsupportedOperationException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(dir),
-                                   getUser())) {
+        if (!authorize(toResource(dir))) {
             throw new SecurityException();
         }
         return service.createTempFile(dir,
@@ -360,8 +379,7 @@ public class IOSecurityService implements IOService {
     public Path createTempDirectory(Path dir,
                                     String prefix,
                                     FileAttribute<?>... attrs) throws IllegalArgumentException, UnsupportedOperationException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(dir),
-                                   getUser())) {
+        if (!authorize(toResource(dir))) {
             throw new SecurityException();
         }
         return service.createTempDirectory(dir,
@@ -373,12 +391,10 @@ public class IOSecurityService implements IOService {
     public Path copy(Path source,
                      Path target,
                      CopyOption... options) throws UnsupportedOperationException, FileAlreadyExistsException, DirectoryNotEmptyException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(source),
-                                   getUser())) {
+        if (!authorize(toResource(source))) {
             throw new SecurityException();
         }
-        if (!authManager.authorize(toResource(target),
-                                   getUser())) {
+        if (!authorize(toResource(target))) {
             throw new SecurityException();
         }
         return service.copy(source,
@@ -390,12 +406,10 @@ public class IOSecurityService implements IOService {
     public Path move(Path source,
                      Path target,
                      CopyOption... options) throws UnsupportedOperationException, FileAlreadyExistsException, DirectoryNotEmptyException, AtomicMoveNotSupportedException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(source),
-                                   getUser())) {
+        if (!authorize(toResource(source))) {
             throw new SecurityException();
         }
-        if (!authManager.authorize(toResource(target),
-                                   getUser())) {
+        if (!authorize(toResource(target))) {
             throw new SecurityException();
         }
         return service.move(source,
@@ -406,8 +420,7 @@ public class IOSecurityService implements IOService {
     @Override
     public <V extends FileAttributeView> V getFileAttributeView(Path path,
                                                                 Class<V> type) throws IllegalArgumentException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.getFileAttributeView(path,
@@ -416,8 +429,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public Map<String, Object> readAttributes(Path path) throws UnsupportedOperationException, NoSuchFileException, IllegalArgumentException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.readAttributes(path);
@@ -426,8 +438,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Map<String, Object> readAttributes(Path path,
                                               String attributes) throws UnsupportedOperationException, NoSuchFileException, IllegalArgumentException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.readAttributes(path,
@@ -437,8 +448,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Path setAttributes(Path path,
                               FileAttribute<?>... attrs) throws UnsupportedOperationException, IllegalArgumentException, ClassCastException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.setAttributes(path,
@@ -448,8 +458,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Path setAttributes(Path path,
                               Map<String, Object> attrs) throws UnsupportedOperationException, IllegalArgumentException, ClassCastException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.setAttributes(path,
@@ -460,8 +469,7 @@ public class IOSecurityService implements IOService {
     public Path setAttribute(Path path,
                              String attribute,
                              Object value) throws UnsupportedOperationException, IllegalArgumentException, ClassCastException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.setAttribute(path,
@@ -472,8 +480,7 @@ public class IOSecurityService implements IOService {
     @Override
     public Object getAttribute(Path path,
                                String attribute) throws UnsupportedOperationException, IllegalArgumentException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.getAttribute(path,
@@ -482,8 +489,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public FileTime getLastModifiedTime(Path path) throws IllegalArgumentException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.getLastModifiedTime(path);
@@ -491,8 +497,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public long size(Path path) throws IllegalArgumentException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.size(path);
@@ -500,8 +505,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public boolean exists(Path path) throws IllegalArgumentException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.exists(path);
@@ -509,8 +513,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public boolean notExists(Path path) throws IllegalArgumentException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.notExists(path);
@@ -519,12 +522,10 @@ public class IOSecurityService implements IOService {
     @Override
     public boolean isSameFile(Path path,
                               Path path2) throws IllegalArgumentException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
-        if (!authManager.authorize(toResource(path2),
-                                   getUser())) {
+        if (!authorize(toResource(path2))) {
             throw new SecurityException();
         }
         return service.isSameFile(path,
@@ -534,8 +535,7 @@ public class IOSecurityService implements IOService {
     @Override
     public BufferedReader newBufferedReader(Path path,
                                             Charset cs) throws IllegalArgumentException, NoSuchFileException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.newBufferedReader(path,
@@ -546,8 +546,7 @@ public class IOSecurityService implements IOService {
     public BufferedWriter newBufferedWriter(Path path,
                                             Charset cs,
                                             OpenOption... options) throws IllegalArgumentException, IOException, UnsupportedOperationException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.newBufferedWriter(path,
@@ -559,8 +558,7 @@ public class IOSecurityService implements IOService {
     public long copy(InputStream in,
                      Path target,
                      CopyOption... options) throws IOException, FileAlreadyExistsException, DirectoryNotEmptyException, UnsupportedOperationException, SecurityException {
-        if (!authManager.authorize(toResource(target),
-                                   getUser())) {
+        if (!authorize(toResource(target))) {
             throw new SecurityException();
         }
         return service.copy(in,
@@ -571,8 +569,7 @@ public class IOSecurityService implements IOService {
     @Override
     public long copy(Path source,
                      OutputStream out) throws IOException, SecurityException {
-        if (!authManager.authorize(toResource(source),
-                                   getUser())) {
+        if (!authorize(toResource(source))) {
             throw new SecurityException();
         }
         return service.copy(source,
@@ -581,8 +578,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public byte[] readAllBytes(Path path) throws IOException, OutOfMemoryError, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.readAllBytes(path);
@@ -590,8 +586,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public List<String> readAllLines(Path path) throws IllegalArgumentException, NoSuchFileException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.readAllLines(path);
@@ -600,8 +595,7 @@ public class IOSecurityService implements IOService {
     @Override
     public List<String> readAllLines(Path path,
                                      Charset cs) throws IllegalArgumentException, NoSuchFileException, IOException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.readAllLines(path,
@@ -611,8 +605,7 @@ public class IOSecurityService implements IOService {
     @Override
     public String readAllString(Path path,
                                 Charset cs) throws IllegalArgumentException, NoSuchFileException, IOException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.readAllString(path,
@@ -621,8 +614,7 @@ public class IOSecurityService implements IOService {
 
     @Override
     public String readAllString(Path path) throws IllegalArgumentException, NoSuchFileException, IOException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.readAllString(path);
@@ -632,8 +624,7 @@ public class IOSecurityService implements IOService {
     public Path write(Path path,
                       byte[] bytes,
                       OpenOption... options) throws IOException, UnsupportedOperationException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -645,8 +636,7 @@ public class IOSecurityService implements IOService {
                       byte[] bytes,
                       Map<String, ?> attrs,
                       OpenOption... options) throws IOException, UnsupportedOperationException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -660,8 +650,7 @@ public class IOSecurityService implements IOService {
                       byte[] bytes,
                       Set<? extends OpenOption> options,
                       FileAttribute<?>... attrs) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -675,8 +664,7 @@ public class IOSecurityService implements IOService {
                       Iterable<? extends CharSequence> lines,
                       Charset cs,
                       OpenOption... options) throws IllegalArgumentException, IOException, UnsupportedOperationException, SecurityException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -689,8 +677,7 @@ public class IOSecurityService implements IOService {
     public Path write(Path path,
                       String content,
                       OpenOption... options) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -703,8 +690,7 @@ public class IOSecurityService implements IOService {
                       String content,
                       Charset cs,
                       OpenOption... options) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -718,8 +704,7 @@ public class IOSecurityService implements IOService {
                       String content,
                       Set<? extends OpenOption> options,
                       FileAttribute<?>... attrs) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -734,8 +719,7 @@ public class IOSecurityService implements IOService {
                       Charset cs,
                       Set<? extends OpenOption> options,
                       FileAttribute<?>... attrs) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -750,8 +734,7 @@ public class IOSecurityService implements IOService {
                       String content,
                       Map<String, ?> attrs,
                       OpenOption... options) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -766,8 +749,7 @@ public class IOSecurityService implements IOService {
                       Charset cs,
                       Map<String, ?> attrs,
                       OpenOption... options) throws IllegalArgumentException, IOException, UnsupportedOperationException {
-        if (!authManager.authorize(toResource(path),
-                                   getUser())) {
+        if (!authorize(toResource(path))) {
             throw new SecurityException();
         }
         return service.write(path,
@@ -778,7 +760,8 @@ public class IOSecurityService implements IOService {
     }
 
     private Resource toResource(final FileSystem fs) {
-        return new FileSystemResourceAdaptor(new FileSystemMetadata(fs));
+        return fileSystemResources.computeIfAbsent(fs,
+                                                   f -> new FileSystemResourceAdaptor(new FileSystemMetadata(f)));
     }
 
     private Resource toResource(final FileSystemMetadata fs) {
@@ -786,7 +769,81 @@ public class IOSecurityService implements IOService {
     }
 
     private Resource toResource(final Path path) {
-        return new FileSystemResourceAdaptor(new FileSystemMetadata(path.getFileSystem()));
+        return toResource(path.getFileSystem());
+    }
+
+    /**
+     * Authorizes the current user on the resource. Decisions are remembered for the rest of the current request,
+     * and for org.uberfire.io.security.decision.ttl milliseconds across requests when that is set.
+     */
+    private boolean authorize(final Resource resource) {
+        decisionChecks.incrementAndGet();
+        final User user = getUser();
+        final AuthorizationDecisionCache requestDecisions = getRequestDecisions();
+        if (requestDecisions != null) {
+            return requestDecisions.authorize(user,
+                                              resource,
+                                              () -> authorizeShared(user,
+                                                                    resource));
+        }
+        return authorizeShared(user,
+                               resource);
+    }
+
+    private boolean authorizeShared(final User user,
+                                    final Resource resource) {
+        if (sharedDecisions != null) {
+            return sharedDecisions.authorize(user,
+                                             resource,
+                                             () -> decide(user,
+                                                          resource));
+        }
+        return decide(user,
+                      resource);
+    }
+
+    private boolean decide(final User user,
+                           final Resource resource) {
+        decisionMisses.incrementAndGet();
+        return authManager.authorize(resource,
+                                     user);
+    }
+
+    private AuthorizationDecisionCache getRequestDecisions() {
+        final HttpServletRequest request = SecurityIntegrationFilter.getRequest();
+        if (request == null) {
+            return null;
+        }
+        AuthorizationDecisionCache decisions = (AuthorizationDecisionCache) request.getAttribute(DECISION_CACHE_ATTRIBUTE);
+        if (decisions == null) {
+            decisions = new AuthorizationDecisionCache(0);
+            request.setAttribute(DECISION_CACHE_ATTRIBUTE,
+                                 decisions);
+        }
+        return decisions;
+    }
+
+    /**
+     * @return the decisions cached for the request being handled by this thread, with its own hit and miss counts,
+     * or null outside of a request
+     */
+    public static AuthorizationDecisionCache getCurrentRequestDecisions() {
+        final HttpServletRequest request = SecurityIntegrationFilter.getRequest();
+        return request == null ? null : (AuthorizationDecisionCache) request.getAttribute(DECISION_CACHE_ATTRIBUTE);
+    }
+
+    /**
+     * @return the number of authorization checks answered from a cached decision
+     */
+    public long getDecisionHits() {
+        return decisionChecks.get() - decisionMisses.get();
+    }
+
+    /**
+     * @return the number of authorization checks that had to ask the authorization manager
+     */
+    public long getDecisionMisses() {
+        return decisionMisses.get();
     }
 
     private User getUser() {
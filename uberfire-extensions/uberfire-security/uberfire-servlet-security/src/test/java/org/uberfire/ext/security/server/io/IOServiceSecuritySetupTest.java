@@ -18,10 +18,16 @@ package org.uberfire.ext.security.server.io;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.jboss.errai.security.shared.api.identity.User;
 import org.junit.Test;
 import org.uberfire.commons.lifecycle.PriorityDisposableRegistry;
+import org.uberfire.ext.security.server.SecurityIntegrationFilter;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.security.Resource;
@@ -83,6 +89,79 @@ public class IOServiceSecuritySetupTest {
         }
     }
 
+    @Test
+    public void decisionsMemoizedWithinRequest() throws Exception {
+        final FileSystem fs = mockFileSystem();
+        final CountingAuthorizationManager authManager = new CountingAuthorizationManager();
+        final IOSecurityService service = new IOSecurityService(new MockIOService(),
+                                                                new MockAuthenticationService(),
+                                                                authManager);
+
+        final Map<String, Object> attributes = new HashMap<>();
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0],
+                                              invocation.getArguments()[1]))
+                .when(request).setAttribute(anyString(),
+                                            any());
+
+        new SecurityIntegrationFilter().doFilter(request,
+                                                 mock(HttpServletResponse.class),
+                                                 (req, resp) -> {
+                                                     service.startBatch(fs);
+                                                     service.endBatch();
+                                                     service.startBatch(fs);
+
+                                                     final AuthorizationDecisionCache decisions = IOSecurityService.getCurrentRequestDecisions();
+                                                     assertNotNull(decisions);
+                                                     assertEquals(1,
+                                                                  decisions.getMisses());
+                                                     assertEquals(1,
+                                                                  decisions.getHits());
+                                                 });
+
+        assertEquals(1,
+                     authManager.calls);
+        assertEquals(1,
+                     service.getDecisionHits());
+        assertEquals(1,
+                     service.getDecisionMisses());
+        assertNull(IOSecurityService.getCurrentRequestDecisions());
+
+        // outside of a request nothing is remembered
+        service.startBatch(fs);
+        assertEquals(2,
+                     authManager.calls);
+        assertEquals(2,
+                     service.getDecisionMisses());
+    }
+
+    private FileSystem mockFileSystem() {
+        final FileSystem fs = mock(FileSystem.class);
+        final Path rootPath = mock(Path.class);
+        when(rootPath.toUri()).thenReturn(URI.create("/"));
+        when(fs.getRootDirectories()).thenReturn(Arrays.asList(rootPath));
+        when(rootPath.getFileSystem()).thenReturn(fs);
+        return fs;
+    }
+
+    class CountingAuthorizationManager extends DummyAuthorizationManager {
+
+        int calls;
+
+        CountingAuthorizationManager() {
+            super(true);
+        }
+
+        @Override
+        public boolean authorize(Resource resource,
+                                 User user) {
+            calls++;
+            return super.authorize(resource,
+                                   user);
+        }
+    }
+
     class DummyAuthorizationManager implements AuthorizationManager {
 
         private boolean grant;
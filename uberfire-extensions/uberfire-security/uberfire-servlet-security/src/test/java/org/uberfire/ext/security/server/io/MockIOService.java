@@ -67,6 +67,17 @@ public class MockIOService implements IOService {
 
     }
 
+    @Override
+    public void startBatch(FileSystem... fs) {
+
+    }
+
+    @Override
+    public void startBatch(FileSystem[] fs,
+                           Option... options) {
+
+    }
+
     @Override
     public void endBatch() {
 
@@ -18,6 +18,7 @@ package org.ext.uberfire.social.activities.persistence;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.gson.Gson;
@@ -57,41 +58,40 @@ public class SocialFile {
     }
 
     public void write(List<SocialActivitiesEvent> events) throws IOException {
+        final List<String> records = new ArrayList<String>(events.size());
+        for (SocialActivitiesEvent event : events) {
+            records.add(gson.toJson(event));
+        }
         try {
             ioService.startBatch(path.getFileSystem());
-
-            SeekableByteChannel sbc = ioService.newByteChannel(path);
-            for (SocialActivitiesEvent event : events) {
-                String json = gson.toJson(event);
-                writeJson(json,
-                          sbc);
-                writeSeparator(sbc);
-                writeJsonSize(sbc,
-                              json);
-                writeSeparator(sbc);
-            }
-            sbc.close();
+            ioService.write(path,
+                            SocialTimelineSegment.encode(records));
         } finally {
             ioService.endBatch();
         }
     }
 
-    private void writeJsonSize(SeekableByteChannel sbc,
-                               String json) throws IOException {
-        String jsonLenght = String.valueOf(json.getBytes().length);
-        ByteBuffer bfSrc = ByteBuffer.wrap(jsonLenght.getBytes());
-        sbc.write(bfSrc);
-    }
-
-    private void writeSeparator(SeekableByteChannel sbc) throws IOException {
-        ByteBuffer bfSrc = ByteBuffer.wrap(JSON_SEPARATOR_BYTES);
-        sbc.write(bfSrc);
+    /**
+     * Rewrites a file in the legacy separator based layout as a {@link SocialTimelineSegment}.
+     * @param numberOfEvents number of events in the file, as recorded in its metadata
+     * @return false if there was nothing to migrate
+     */
+    public boolean migrate(Integer numberOfEvents) throws IOException {
+        if (!ioService.exists(path) || isSegment()) {
+            return false;
+        }
+        final List<SocialActivitiesEvent> events = readLegacySocialEvents(numberOfEvents);
+        // legacy reads come most recent first
+        Collections.reverse(events);
+        write(events);
+        return true;
     }
 
-    private void writeJson(String json,
-                           SeekableByteChannel sbc) throws IOException {
-        ByteBuffer bfSrc = ByteBuffer.wrap(json.getBytes());
-        sbc.write(bfSrc);
+    public boolean isSegment() throws IOException {
+        try (SeekableByteChannel channel = ioService.newByteChannel(path,
+                                                                    StandardOpenOption.READ)) {
+            return SocialTimelineSegment.isSegment(channel);
+        }
     }
 
     public void prepareForReading() throws IOException {
@@ -102,51 +102,93 @@ public class SocialFile {
 
     private void reverseSearchForSeparatorPosition() throws IOException {
         if (reader.size() > 0) {
-            reader.position(currentCursorReadPosition);
-            reader.read(byteBufferSize);
-            byteBufferSize.flip();
-            String s = new String(byteBufferSize.array());
-            if (!lookforSeparator(byteBufferSize.array())) {
+            while (true) {
+                reader.position(currentCursorReadPosition);
+                byteBufferSize.clear();
+                reader.read(byteBufferSize);
+                byteBufferSize.flip();
+                if (byteBufferSize.array()[0] == JSON_SEPARATOR_BYTES[0] || currentCursorReadPosition <= 0) {
+                    return;
+                }
                 currentCursorReadPosition--;
-                reverseSearchForSeparatorPosition();
             }
         }
     }
 
+    /**
+     * Reads the last events of the file, most recent first.
+     */
     public List<SocialActivitiesEvent> readSocialEvents(Integer numberOfEvents) {
-        List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
+        if (!ioService.exists(path)) {
+            return new ArrayList<SocialActivitiesEvent>();
+        }
 
-        if (ioService.exists(path)) {
-            for (int i = 0; i < numberOfEvents; i++) {
-                try {
-                    String json = readNextSocialEventJSON();
-                    SocialActivitiesEvent event = gson.fromJson(json,
-                                                                SocialActivitiesEvent.class);
-                    events.add(event);
-                } catch (Exception e) {
-                    //ignore json error, try read next
+        try (SeekableByteChannel channel = ioService.newByteChannel(path,
+                                                                    StandardOpenOption.READ)) {
+            if (SocialTimelineSegment.isSegment(channel)) {
+                final List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
+                for (String json : SocialTimelineSegment.open(channel).readLast(numberOfEvents)) {
+                    try {
+                        events.add(gson.fromJson(json,
+                                                 SocialActivitiesEvent.class));
+                    } catch (Exception e) {
+                        //ignore json error, try read next
+                    }
                 }
+                return events;
             }
+        } catch (IOException e) {
+            throw new ErrorReadingFile(e);
         }
-        return events;
+
+        return readLegacySocialEvents(numberOfEvents);
     }
 
-    private String readNextSocialEventJSON() throws IOException {
-        if (startReading()) {
-            prepareForReading();
+    private List<SocialActivitiesEvent> readLegacySocialEvents(Integer numberOfEvents) {
+        List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
+
+        for (int i = 0; i < numberOfEvents; i++) {
+            try {
+                String json = readNextSocialEventJSON();
+                SocialActivitiesEvent event = gson.fromJson(json,
+                                                            SocialActivitiesEvent.class);
+                events.add(event);
+            } catch (Exception e) {
+                //ignore json error, try read next
+            }
         }
-        if (reader.size() <= 0) {
-            throw new EmptySocialFile();
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            }
+            reader = null;
         }
+        return events;
+    }
+
+    private String readNextSocialEventJSON() throws IOException {
+        boolean restarted = false;
+        while (true) {
+            if (startReading()) {
+                // reached the start of the file without finding a record
+                if (restarted) {
+                    throw new EmptySocialFile();
+                }
+                prepareForReading();
+                restarted = true;
+            }
+            if (reader.size() <= 0) {
+                throw new EmptySocialFile();
+            }
 
-        reverseSearchForSeparatorPosition();
+            reverseSearchForSeparatorPosition();
 
-        StringBuilder numberOfBytesNextJSON = getNumberOfBytesOfJSON();
+            StringBuilder numberOfBytesNextJSON = getNumberOfBytesOfJSON();
 
-        if (StringUtils.isNumeric(numberOfBytesNextJSON.toString())) {
-            return extractJSON(numberOfBytesNextJSON);
-        } else {
-            return readNextSocialEventJSON();
+            if (StringUtils.isNumeric(numberOfBytesNextJSON.toString())) {
+                return extractJSON(numberOfBytesNextJSON);
+            }
         }
     }
 
@@ -231,5 +273,11 @@ public class SocialFile {
 
     private class ErrorReadingFile extends RuntimeException {
 
+        ErrorReadingFile() {
+        }
+
+        ErrorReadingFile(Throwable cause) {
+            super(cause);
+        }
     }
 }
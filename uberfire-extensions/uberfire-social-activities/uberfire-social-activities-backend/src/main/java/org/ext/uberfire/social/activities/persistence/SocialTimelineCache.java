@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+
+/**
+ * Bounded, thread safe cache of timelines keyed by user name or event type.
+ * <p>
+ * Each entry holds the timeline read from the last timeline file, loaded on first read, and the fresh
+ * events not yet written to disk. Readers get immutable snapshots rebuilt on every change, so a read never
+ * copies the timeline. Least recently used entries are evicted past the maximum size, skipping entries busy
+ * loading; fresh events of an evicted entry are handed to the eviction listener to be persisted.
+ */
+public class SocialTimelineCache<K> {
+
+    private final int maxSize;
+    private final Function<K, List<SocialActivitiesEvent>> loader;
+    private final BiConsumer<K, List<SocialActivitiesEvent>> evictionListener;
+    private final LinkedHashMap<K, Entry> entries = new LinkedHashMap<>(16,
+                                                                        0.75f,
+                                                                        true);
+
+    public SocialTimelineCache(final int maxSize,
+                               final Function<K, List<SocialActivitiesEvent>> loader,
+                               final BiConsumer<K, List<SocialActivitiesEvent>> evictionListener) {
+        this.maxSize = Math.max(1,
+                                maxSize);
+        this.loader = loader;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Timeline followed by the fresh events, loading the timeline on first access.
+     */
+    public List<SocialActivitiesEvent> getLastEvents(final K key) {
+        final Entry cached = entry(key);
+        if (cached.timeline != null && !cached.evicted) {
+            return cached.last;
+        }
+        return withEntry(key,
+                         entry -> {
+                             if (entry.timeline == null) {
+                                 entry.update(Collections.unmodifiableList(new ArrayList<>(loader.apply(key))),
+                                              entry.fresh);
+                             }
+                             return entry.last;
+                         });
+    }
+
+    public List<SocialActivitiesEvent> getFreshEvents(final K key) {
+        final Entry entry = peek(key);
+        return entry == null ? Collections.<SocialActivitiesEvent>emptyList() : entry.fresh;
+    }
+
+    /**
+     * @return number of fresh events after the append
+     */
+    public int addFreshEvents(final K key,
+                              final Collection<SocialActivitiesEvent> events) {
+        return withEntry(key,
+                         entry -> {
+                             final List<SocialActivitiesEvent> fresh = new ArrayList<>(entry.fresh);
+                             fresh.addAll(events);
+                             entry.update(entry.timeline,
+                                          fresh);
+                             return fresh.size();
+                         });
+    }
+
+    public int addFreshEvent(final K key,
+                             final SocialActivitiesEvent event) {
+        return addFreshEvents(key,
+                              Collections.singletonList(event));
+    }
+
+    /**
+     * Replaces the timeline and drops the fresh events.
+     * @return the fresh events dropped
+     */
+    public List<SocialActivitiesEvent> refresh(final K key,
+                                               final List<SocialActivitiesEvent> timeline) {
+        return withEntry(key,
+                         entry -> {
+                             final List<SocialActivitiesEvent> fresh = entry.fresh;
+                             entry.update(Collections.unmodifiableList(new ArrayList<>(timeline)),
+                                          Collections.<SocialActivitiesEvent>emptyList());
+                             return fresh;
+                         });
+    }
+
+    /**
+     * Makes the fresh events the new timeline, as happens when they are written to a new timeline file.
+     * @return the fresh events, now the timeline
+     */
+    public List<SocialActivitiesEvent> flush(final K key) {
+        return withEntry(key,
+                         entry -> {
+                             final List<SocialActivitiesEvent> fresh = entry.fresh;
+                             entry.update(fresh,
+                                          Collections.<SocialActivitiesEvent>emptyList());
+                             return fresh;
+                         });
+    }
+
+    public synchronized List<K> keysWithFreshEvents() {
+        final List<K> keys = new ArrayList<>();
+        for (final Map.Entry<K, Entry> entry : entries.entrySet()) {
+            if (!entry.getValue().fresh.isEmpty()) {
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized boolean isLoaded(final K key) {
+        final Entry entry = entries.get(key);
+        return entry != null && entry.timeline != null;
+    }
+
+    private <R> R withEntry(final K key,
+                            final Function<Entry, R> op) {
+        while (true) {
+            final Entry entry = entry(key);
+            entry.lock.lock();
+            try {
+                if (!entry.evicted) {
+                    return op.apply(entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private synchronized Entry peek(final K key) {
+        return entries.get(key);
+    }
+
+    private synchronized Entry entry(final K key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key,
+                        entry);
+            evict(key);
+        }
+        return entry;
+    }
+
+    private void evict(final K keep) {
+        final Iterator<Map.Entry<K, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            final Map.Entry<K, Entry> eldest = iterator.next();
+            final Entry entry = eldest.getValue();
+            if (eldest.getKey().equals(keep) || !entry.lock.tryLock()) {
+                continue;
+            }
+            try {
+                entry.evicted = true;
+                iterator.remove();
+                if (!entry.fresh.isEmpty()) {
+                    evictionListener.accept(eldest.getKey(),
+                                            entry.fresh);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean evicted;
+        private volatile List<SocialActivitiesEvent> timeline;
+        private volatile List<SocialActivitiesEvent> fresh = Collections.emptyList();
+        private volatile List<SocialActivitiesEvent> last = Collections.emptyList();
+
+        private void update(final List<SocialActivitiesEvent> timeline,
+                            final List<SocialActivitiesEvent> fresh) {
+            final List<SocialActivitiesEvent> last = new ArrayList<>();
+            if (timeline != null) {
+                last.addAll(timeline);
+            }
+            last.addAll(fresh);
+            this.timeline = timeline;
+            this.fresh = Collections.unmodifiableList(fresh);
+            this.last = Collections.unmodifiableList(last);
+        }
+    }
+}
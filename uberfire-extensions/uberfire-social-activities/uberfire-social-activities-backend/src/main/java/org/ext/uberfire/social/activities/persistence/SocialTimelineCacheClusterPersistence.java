@@ -79,9 +79,9 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
 
     @Override
     public void saveAllEvents() {
-        if (!typeEventsTimelineCache.keySet().isEmpty()) {
+        if (!typeEventsCacheControl.keySet().isEmpty()) {
             try {
-                final SocialEventType sampleType = typeEventsTimelineCache.keySet().iterator().next();
+                final SocialEventType sampleType = typeEventsCacheControl.keySet().iterator().next();
                 Path timeLineDir = userServicesBackend.buildPath(SOCIAL_FILES,
                                                                  sampleType.name());
                 ioService.startBatch(timeLineDir.getFileSystem());
@@ -98,35 +98,30 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
 
     private void registerNewEvent(SocialUser user,
                                   SocialActivitiesEvent event) {
-        List<SocialActivitiesEvent> userEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        if (userEvents == null) {
-            userEvents = new ArrayList<SocialActivitiesEvent>();
-        }
-        userEvents.add(event);
-        userEventsTimelineFreshEvents.put(user.getUserName(),
-                                          userEvents);
+        userTimelines.addFreshEvent(user.getUserName(),
+                                    event);
         cacheControl(user);
     }
 
     private void syncCluster(SocialUser user) {
-        List<SocialActivitiesEvent> myFreshEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        SocialCacheControl socialCacheControl = userEventsCacheControl.get(user.getUserName());
+        SocialCacheControl socialCacheControl = userEventsCacheControl.computeIfAbsent(user.getUserName(),
+                                                                                       userName -> new SocialCacheControl());
         socialCacheControl.reset();
         List<SocialActivitiesEvent> actualTypeTimeline = createOrGetUserTimeline(user.getUserName());
-        refreshCache(user.getUserName(),
-                     actualTypeTimeline);
+        List<SocialActivitiesEvent> myFreshEvents = refreshCache(user.getUserName(),
+                                                                 actualTypeTimeline);
         syncMyStaleItems(myFreshEvents,
                          actualTypeTimeline,
                          user);
     }
 
     private void syncCluster(SocialEventType eventType) {
-        List<SocialActivitiesEvent> myFreshEvents = typeEventsFreshEvents.get(eventType);
-        SocialCacheControl socialCacheControl = typeEventsCacheControl.get(eventType);
+        SocialCacheControl socialCacheControl = typeEventsCacheControl.computeIfAbsent(eventType,
+                                                                                       type -> new SocialCacheControl());
         socialCacheControl.reset();
         List<SocialActivitiesEvent> actualTypeTimeline = createOrGetTypeTimeline(eventType);
-        refreshCache(eventType,
-                     actualTypeTimeline);
+        List<SocialActivitiesEvent> myFreshEvents = refreshCache(eventType,
+                                                                 actualTypeTimeline);
         syncMyStaleItems(myFreshEvents,
                          actualTypeTimeline,
                          eventType);
@@ -155,10 +150,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
     private void registerNewEvent(SocialActivitiesEvent event,
                                   SocialEventType eventType,
                                   boolean sendClusterMsg) {
-        List<SocialActivitiesEvent> typeEvents = typeEventsFreshEvents.get(eventType);
-        typeEvents.add(event);
-        typeEventsFreshEvents.put(eventType,
-                                  typeEvents);
+        typeTimelines.addFreshEvent(eventType,
+                                    event);
         cacheControl(event,
                      eventType);
 
@@ -178,10 +171,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
                                                                     storedTimeline);
 
         if (!unsavedEvents.isEmpty()) {
-            List<SocialActivitiesEvent> cacheEvents = typeEventsFreshEvents.get(eventType);
-            cacheEvents.addAll(unsavedEvents);
-            typeEventsFreshEvents.put(eventType,
-                                      cacheEvents);
+            typeTimelines.addFreshEvents(eventType,
+                                         unsavedEvents);
         }
     }
 
@@ -191,10 +182,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
         List<SocialActivitiesEvent> unsavedEvents = findStaleEvents(myFreshEvents,
                                                                     storedTimeline);
         if (!unsavedEvents.isEmpty()) {
-            List<SocialActivitiesEvent> cacheEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-            cacheEvents.addAll(unsavedEvents);
-            userEventsTimelineFreshEvents.put(user.getUserName(),
-                                              cacheEvents);
+            userTimelines.addFreshEvents(user.getUserName(),
+                                         unsavedEvents);
         }
     }
 
@@ -218,12 +207,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
     }
 
     private void cacheControl(SocialUser user) {
-        SocialCacheControl socialCacheControl = userEventsCacheControl.get(user.getUserName());
-        if (socialCacheControl == null) {
-            socialCacheControl = new SocialCacheControl();
-            userEventsCacheControl.put(user.getUserName(),
-                                       socialCacheControl);
-        }
+        SocialCacheControl socialCacheControl = userEventsCacheControl.computeIfAbsent(user.getUserName(),
+                                                                                       userName -> new SocialCacheControl());
         socialCacheControl.registerNewEvent();
         if (socialCacheControl.needToPersist()) {
             Path userDir = getUserDirectory(user.getUserName());
@@ -242,7 +227,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
     private void cacheControl(SocialActivitiesEvent event,
                               SocialEventType eventType) {
         SocialEventType type = socialEventTypeRepository.findType(event.getType());
-        SocialCacheControl socialCacheControl = typeEventsCacheControl.get(type);
+        SocialCacheControl socialCacheControl = typeEventsCacheControl.computeIfAbsent(type,
+                                                                                       t -> new SocialCacheControl());
         socialCacheControl.registerNewEvent();
         if (socialCacheControl.needToPersist()) {
             Path timeLineDir = userServicesBackend.buildPath(SOCIAL_FILES,
@@ -259,15 +245,51 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
     }
 
     public void someNodeShutdownAndPersistEvents() {
-        for (SocialEventType socialEventType : typeEventsFreshEvents.keySet()) {
-            final List<SocialActivitiesEvent> freshEvents = typeEventsFreshEvents.get(socialEventType);
-            refreshCache(socialEventType,
-                         freshEvents);
+        for (SocialEventType socialEventType : typeTimelines.keysWithFreshEvents()) {
+            typeTimelines.flush(socialEventType);
         }
-        for (String user : userEventsTimelineFreshEvents.keySet()) {
-            final List<SocialActivitiesEvent> userEvents = userEventsTimelineFreshEvents.get(user);
-            refreshCache(user,
-                         userEvents);
+        for (String user : userTimelines.keysWithFreshEvents()) {
+            userTimelines.flush(user);
         }
     }
+
+    /**
+     * Evicted events are written like a full timeline: inside a batch, telling the other nodes to reload it.
+     */
+    @Override
+    void persistEvictedEvents(SocialEventType type,
+                              List<SocialActivitiesEvent> events) {
+        Path timeLineDir = getTypeDirectory(type);
+        try {
+            ioService.startBatch(timeLineDir.getFileSystem());
+            super.persistEvictedEvents(type,
+                                       events);
+            socialClusterMessaging.notifyTimeLineUpdate(events.get(events.size() - 1));
+        } finally {
+            ioService.endBatch();
+        }
+    }
+
+    @Override
+    void persistEvictedEvents(String userName,
+                              List<SocialActivitiesEvent> events) {
+        Path userDir = getUserDirectory(userName);
+        try {
+            ioService.startBatch(userDir.getFileSystem());
+            super.persistEvictedEvents(userName,
+                                       events);
+            socialClusterMessaging.notifyTimeLineUpdate(socialUserPersistenceAPI.getSocialUser(userName),
+                                                        events);
+        } finally {
+            ioService.endBatch();
+        }
+    }
+
+    /**
+     * Timeline files are written by the caller, inside the batch that notifies the other nodes.
+     */
+    @Override
+    boolean isWriteBehind() {
+        return false;
+    }
 }
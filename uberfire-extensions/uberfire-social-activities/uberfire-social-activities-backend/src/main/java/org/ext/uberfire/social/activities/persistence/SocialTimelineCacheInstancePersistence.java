@@ -16,8 +16,6 @@
 package org.ext.uberfire.social.activities.persistence;
 
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.List;
 
 import com.google.gson.Gson;
 import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
@@ -55,13 +53,8 @@ public class SocialTimelineCacheInstancePersistence extends SocialTimelineCacheP
     @Override
     public void persist(SocialActivitiesEvent event) {
         SocialEventType type = findType(event);
-        List<SocialActivitiesEvent> typeEvents = typeEventsFreshEvents.get(type);
-        if (typeEvents == null) {
-            typeEvents = new ArrayList<SocialActivitiesEvent>();
-        }
-        typeEvents.add(event);
-        typeEventsFreshEvents.put(type,
-                                  typeEvents);
+        typeTimelines.addFreshEvent(type,
+                                    event);
         cacheControl(event);
     }
 
@@ -72,13 +65,8 @@ public class SocialTimelineCacheInstancePersistence extends SocialTimelineCacheP
     @Override
     public void persist(SocialUser user,
                         SocialActivitiesEvent event) {
-        List<SocialActivitiesEvent> userEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        if (userEvents == null) {
-            userEvents = new ArrayList<SocialActivitiesEvent>();
-        }
-        userEvents.add(event);
-        userEventsTimelineFreshEvents.put(user.getUserName(),
-                                          userEvents);
+        userTimelines.addFreshEvent(user.getUserName(),
+                                    event);
         cacheControl(user);
     }
 
@@ -89,12 +77,8 @@ public class SocialTimelineCacheInstancePersistence extends SocialTimelineCacheP
     }
 
     void cacheControl(SocialUser user) {
-        SocialCacheControl socialCacheControl = userEventsCacheControl.get(user.getUserName());
-        if (socialCacheControl == null) {
-            socialCacheControl = new SocialCacheControl();
-            userEventsCacheControl.put(user.getUserName(),
-                                       socialCacheControl);
-        }
+        SocialCacheControl socialCacheControl = userEventsCacheControl.computeIfAbsent(user.getUserName(),
+                                                                                       userName -> new SocialCacheControl());
         socialCacheControl.registerNewEvent();
         if (socialCacheControl.needToPersist()) {
             storeTimeLineInFile(user);
@@ -105,7 +89,8 @@ public class SocialTimelineCacheInstancePersistence extends SocialTimelineCacheP
 
     void cacheControl(SocialActivitiesEvent event) {
         SocialEventType type = findType(event);
-        SocialCacheControl socialCacheControl = typeEventsCacheControl.get(type);
+        SocialCacheControl socialCacheControl = typeEventsCacheControl.computeIfAbsent(type,
+                                                                                       t -> new SocialCacheControl());
         socialCacheControl.registerNewEvent();
         if (socialCacheControl.needToPersist()) {
             storeTimeLineInFile(type);
@@ -17,10 +17,13 @@ package org.ext.uberfire.social.activities.persistence;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import com.google.gson.Gson;
 import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
@@ -31,6 +34,8 @@ import org.ext.uberfire.social.activities.server.SocialUserServicesExtendedBackE
 import org.ext.uberfire.social.activities.service.SocialEventTypeRepositoryAPI;
 import org.ext.uberfire.social.activities.service.SocialTimelinePersistenceAPI;
 import org.ext.uberfire.social.activities.service.SocialUserPersistenceAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.Path;
@@ -39,10 +44,15 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     public static final String SOCIAL_FILES = "social-files";
     public static final String THRESHOLD_PROPERTY = "org.uberfire.social.threshold";
+    public static final String MIGRATE_SEGMENTS_PROPERTY = "org.uberfire.social.segments.migrate";
+    public static final String CACHE_SIZE_PROPERTY = "org.uberfire.social.cache.size";
     private static final int DEFAULT_THRESHOLD = 100;
-    Map<SocialEventType, List<SocialActivitiesEvent>> typeEventsTimelineCache = new HashMap<SocialEventType, List<SocialActivitiesEvent>>();
-    Map<SocialEventType, List<SocialActivitiesEvent>> typeEventsFreshEvents = new HashMap<SocialEventType, List<SocialActivitiesEvent>>();
-    Map<SocialEventType, SocialCacheControl> typeEventsCacheControl = new HashMap<SocialEventType, SocialCacheControl>();
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(SocialTimelineCachePersistence.class);
+    final SocialTimelineCache<SocialEventType> typeTimelines = new SocialTimelineCache<>(getCacheSize(),
+                                                                                          this::createOrGetTypeTimeline,
+                                                                                          this::persistEvictedEvents);
+    Map<SocialEventType, SocialCacheControl> typeEventsCacheControl = new ConcurrentHashMap<SocialEventType, SocialCacheControl>();
     int threshold;
     IOService ioService;
 
@@ -59,13 +69,23 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
     SocialUserServicesExtendedBackEndImpl userServicesBackend;
 
     SocialSecurityConstraintsManager socialSecurityConstraintsManager;
-    Map<String, List<SocialActivitiesEvent>> userEventsTimelineCache = new HashMap<String, List<SocialActivitiesEvent>>();
-    Map<String, List<SocialActivitiesEvent>> userEventsTimelineFreshEvents = new HashMap<String, List<SocialActivitiesEvent>>();
-    Map<String, SocialCacheControl> userEventsCacheControl = new HashMap<String, SocialCacheControl>();
-
+    final SocialTimelineCache<String> userTimelines = new SocialTimelineCache<>(getCacheSize(),
+                                                                                this::createOrGetUserTimeline,
+                                                                                this::persistEvictedEvents);
+    Map<String, SocialCacheControl> userEventsCacheControl = new ConcurrentHashMap<String, SocialCacheControl>();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r,
+                                         "social-timeline-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Timelines are loaded lazily on first read, only the cache controls are created upfront.
+     */
     @Override
     public void setup() {
-        createCacheStructure();
         createCacheControl();
     }
 
@@ -80,29 +100,16 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
         }
     }
 
-    private void createCacheStructure() {
-        for (SocialEventType type : socialEventTypeRepository.findAll()) {
-            List<SocialActivitiesEvent> events = createOrGetTypeTimeline(type);
-            typeEventsTimelineCache.put(type,
-                                        events);
-            typeEventsFreshEvents.put(type,
-                                      new ArrayList<SocialActivitiesEvent>());
-        }
-        for (String username : socialUserPersistenceAPI.getSocialUsersName()) {
-            List<SocialActivitiesEvent> events = createOrGetUserTimeline(username);
-            userEventsTimelineCache.put(username,
-                                        events);
-            userEventsTimelineFreshEvents.put(username,
-                                              new ArrayList<SocialActivitiesEvent>());
-        }
-    }
-
     List<SocialActivitiesEvent> createOrGetTimeline(Path timelineDir) {
-        List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
+        List<SocialActivitiesEvent> events = Collections.emptyList();
         try {
             if (getIoService().exists(timelineDir)) {
                 Integer lastFileIndex = getLastFileIndex(timelineDir);
                 if (thereIsSomethingToRead(lastFileIndex)) {
+                    if (Boolean.getBoolean(MIGRATE_SEGMENTS_PROPERTY)) {
+                        migrateTimeline(timelineDir,
+                                        lastFileIndex);
+                    }
                     events = getTimeline(timelineDir,
                                          lastFileIndex.toString());
                 }
@@ -126,6 +133,21 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
         return applySocialSecurityConstraints(events);
     }
 
+    /**
+     * Rewrites the legacy files of a timeline as indexed segments, files already migrated are skipped.
+     */
+    void migrateTimeline(Path timelineDir,
+                         Integer lastFileIndex) throws IOException {
+        for (int i = 0; i <= lastFileIndex; i++) {
+            final String fileIndex = String.valueOf(i);
+            final Integer numberOfEvents = Integer.valueOf(getItemsMetadata(timelineDir,
+                                                                            fileIndex));
+            if (numberOfEvents > 0) {
+                createSocialFile(timelineDir.resolve(fileIndex)).migrate(numberOfEvents);
+            }
+        }
+    }
+
     SocialFile createSocialFile(Path fileTimeline) {
         return new SocialFile(fileTimeline,
                               ioService,
@@ -167,11 +189,13 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     private String persistEvents(List<SocialActivitiesEvent> newEvents,
                                  Path timeLineDir) {
-        Integer lastFileIndex = getLastFileIndex(timeLineDir);
-        lastFileIndex = lastFileIndex + 1;
-        Path timelineFile = timeLineDir.resolve(lastFileIndex.toString());
         try {
             getIoService().startBatch(timeLineDir.getFileSystem());
+            if (!getIoService().exists(timeLineDir)) {
+                createPersistenceStructure(timeLineDir);
+            }
+            Integer lastFileIndex = getLastFileIndex(timeLineDir) + 1;
+            Path timelineFile = timeLineDir.resolve(lastFileIndex.toString());
             writeItems(timelineFile,
                        newEvents);
             writeItemsMetadata(timeLineDir,
@@ -241,45 +265,107 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
         }
         return threshold;
     }
+
+    int getCacheSize() {
+        String property = System.getProperty(CACHE_SIZE_PROPERTY);
+        if (property != null && !property.isEmpty()) {
+            return Integer.valueOf(property);
+        }
+        return DEFAULT_CACHE_SIZE;
+    }
+
+    /**
+     * Whether timeline files are written by the background writer, or right away by the caller when other
+     * nodes must see the file as soon as the store returns.
+     */
+    boolean isWriteBehind() {
+        return true;
+    }
+
+    private void write(List<SocialActivitiesEvent> events,
+                       Path timeLineDir) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!isWriteBehind()) {
+            persistEvents(events,
+                          timeLineDir);
+            return;
+        }
+        writeInBackground(events,
+                          timeLineDir);
+    }
+
+    private void writeInBackground(List<SocialActivitiesEvent> events,
+                                   Path timeLineDir) {
+        writer.execute(() -> {
+            try {
+                persistEvents(events,
+                              timeLineDir);
+            } catch (Exception e) {
+                LOGGER.error("Error writing social timeline " + timeLineDir,
+                             e);
+            }
+        });
+    }
+
+    /**
+     * Writes the fresh events of a type timeline evicted from the cache. Like any other store, the write is
+     * left to the background writer only when {@link #isWriteBehind()}, otherwise it runs in the evicting
+     * thread.
+     */
+    void persistEvictedEvents(SocialEventType type,
+                              List<SocialActivitiesEvent> events) {
+        typeEventsCacheControl.put(type,
+                                   new SocialCacheControl());
+        write(events,
+              getTypeDirectory(type));
+    }
+
+    /**
+     * Writes the fresh events of a user timeline evicted from the cache, see
+     * {@link #persistEvictedEvents(SocialEventType, List)}.
+     */
+    void persistEvictedEvents(String userName,
+                              List<SocialActivitiesEvent> events) {
+        userEventsCacheControl.put(userName,
+                                   new SocialCacheControl());
+        write(events,
+              getUserDirectory(userName));
+    }
     //TYPE STUFF
 
     List<SocialActivitiesEvent> createOrGetTypeTimeline(SocialEventType type) {
-        Path timelineDir = userServicesBackend.buildPath(SOCIAL_FILES,
-                                                         type.name());
-        return createOrGetTimeline(timelineDir);
+        return createOrGetTimeline(getTypeDirectory(type));
+    }
+
+    Path getTypeDirectory(SocialEventType type) {
+        return userServicesBackend.buildPath(SOCIAL_FILES,
+                                             type.name());
     }
 
     @Override
     public List<SocialActivitiesEvent> getLastEvents(SocialEventType key) {
-        List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
-        events.addAll(typeEventsTimelineCache.get(key));
-        events.addAll(typeEventsFreshEvents.get(key));
-        return applySocialSecurityConstraints(events);
+        return applySocialSecurityConstraints(typeTimelines.getLastEvents(key));
     }
 
+    /**
+     * Turns the fresh events into the cached timeline and writes them as a new timeline file.
+     */
     List<SocialActivitiesEvent> storeTimeLineInFile(SocialEventType type) {
-        List<SocialActivitiesEvent> socialActivitiesEvents = typeEventsFreshEvents.get(type);
-        persistEvents(type,
-                      socialActivitiesEvents);
-        refreshCache(type,
-                     socialActivitiesEvents);
+        List<SocialActivitiesEvent> socialActivitiesEvents = typeTimelines.flush(type);
+        write(socialActivitiesEvents,
+              getTypeDirectory(type));
         return socialActivitiesEvents;
     }
 
-    void refreshCache(SocialEventType type,
-                      List<SocialActivitiesEvent> socialActivitiesEvents) {
-        typeEventsFreshEvents.put(type,
-                                  new ArrayList<SocialActivitiesEvent>());
-        typeEventsTimelineCache.put(type,
-                                    socialActivitiesEvents);
-    }
-
-    private void persistEvents(SocialEventType type,
-                               List<SocialActivitiesEvent> newEvents) {
-        Path timeLineDir = userServicesBackend.buildPath(SOCIAL_FILES,
-                                                         type.name());
-        persistEvents(newEvents,
-                      timeLineDir);
+    /**
+     * @return the fresh events dropped from the cache
+     */
+    List<SocialActivitiesEvent> refreshCache(SocialEventType type,
+                                             List<SocialActivitiesEvent> socialActivitiesEvents) {
+        return typeTimelines.refresh(type,
+                                     socialActivitiesEvents);
     }
 
     @Override
@@ -292,12 +378,7 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     @Override
     public List<SocialActivitiesEvent> getRecentEvents(SocialEventType type) {
-        List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
-        List<SocialActivitiesEvent> typeEvents = typeEventsFreshEvents.get(type);
-        if (typeEvents != null) {
-            events.addAll(typeEvents);
-        }
-        return applySocialSecurityConstraints(events);
+        return applySocialSecurityConstraints(typeTimelines.getFreshEvents(type));
     }
 
     @Override
@@ -324,16 +405,6 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
         return createOrGetTimeline(getRootUserTimelineDirectory().resolve(userName));
     }
 
-    private String persistEvents(SocialUser user,
-                                 List<SocialActivitiesEvent> newEvents) {
-        Path userDir = getUserDirectory(user.getUserName());
-        if (!ioService.exists(userDir)) {
-            createPersistenceStructure(userDir);
-        }
-        return persistEvents(newEvents,
-                             userDir);
-    }
-
     Path getUserDirectory(String userName) {
         Path directory = getRootUserTimelineDirectory();
         return directory.resolve(userName);
@@ -341,50 +412,28 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     @Override
     public List<SocialActivitiesEvent> getLastEvents(SocialUser user) {
-
-        List<SocialActivitiesEvent> socialActivitiesEvents = new ArrayList<SocialActivitiesEvent>();
-        List<SocialActivitiesEvent> userEvents = userEventsTimelineCache.get(user.getUserName());
-        if (userEvents == null) {
-            createCacheStructureForNewUsers(user);
-        }
-        socialActivitiesEvents.addAll(userEventsTimelineCache.get(user.getUserName()));
-        socialActivitiesEvents.addAll(userEventsTimelineFreshEvents.get(user.getUserName()));
-        return applySocialSecurityConstraints(socialActivitiesEvents);
+        return applySocialSecurityConstraints(userTimelines.getLastEvents(user.getUserName()));
     }
 
     @Override
     public List<SocialActivitiesEvent> getRecentEvents(SocialUser user) {
-        List<SocialActivitiesEvent> socialActivitiesEvents = new ArrayList<SocialActivitiesEvent>();
-        List<SocialActivitiesEvent> userEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        if (userEvents == null) {
-            createCacheStructureForNewUsers(user);
-        }
-        socialActivitiesEvents.addAll(userEventsTimelineFreshEvents.get(user.getUserName()));
-        return applySocialSecurityConstraints(socialActivitiesEvents);
-    }
-
-    private void createCacheStructureForNewUsers(SocialUser user) {
-        userEventsTimelineCache.put(user.getUserName(),
-                                    new ArrayList<SocialActivitiesEvent>());
-        userEventsTimelineFreshEvents.put(user.getUserName(),
-                                          new ArrayList<SocialActivitiesEvent>());
+        return applySocialSecurityConstraints(userTimelines.getFreshEvents(user.getUserName()));
     }
 
     List<SocialActivitiesEvent> storeTimeLineInFile(SocialUser user) {
-        List<SocialActivitiesEvent> socialActivitiesEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        persistEvents(user,
-                      socialActivitiesEvents);
-        refreshCache(user.getUserName(),
-                     socialActivitiesEvents);
+        List<SocialActivitiesEvent> socialActivitiesEvents = userTimelines.flush(user.getUserName());
+        write(socialActivitiesEvents,
+              getUserDirectory(user.getUserName()));
         return socialActivitiesEvents;
     }
 
-    void refreshCache(String userName,
-                      List<SocialActivitiesEvent> socialActivitiesEvents) {
-        userEventsTimelineFreshEvents.put(userName,
-                                          new ArrayList<SocialActivitiesEvent>());
-        userEventsTimelineCache.put(userName,
-                                    socialActivitiesEvents);
+    /**
+     * @return the fresh events dropped from the cache
+     */
+    List<SocialActivitiesEvent> refreshCache(String userName,
+                                             List<SocialActivitiesEvent> socialActivitiesEvents) {
+        return userTimelines.refresh(userName,
+                                     socialActivitiesEvents);
     }
 
     Path getRootUserTimelineDirectory() {
@@ -409,21 +458,15 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
     }
 
     void saveAllUserTimelines() {
-        for (String userName : userEventsTimelineFreshEvents.keySet()) {
-            List<SocialActivitiesEvent> socialActivitiesEvents = userEventsTimelineFreshEvents.get(userName);
-            if (!socialActivitiesEvents.isEmpty()) {
-                SocialUser socialUser = socialUserPersistenceAPI.getSocialUser(userName);
-                storeTimeLineInFile(socialUser);
-            }
+        for (String userName : userTimelines.keysWithFreshEvents()) {
+            SocialUser socialUser = socialUserPersistenceAPI.getSocialUser(userName);
+            storeTimeLineInFile(socialUser);
         }
     }
 
     void saveAllTypeEvents() {
-        for (SocialEventType socialEventType : typeEventsFreshEvents.keySet()) {
-            List<SocialActivitiesEvent> socialActivitiesEvents = typeEventsFreshEvents.get(socialEventType);
-            if (!socialActivitiesEvents.isEmpty()) {
-                storeTimeLineInFile(socialEventType);
-            }
+        for (SocialEventType socialEventType : typeTimelines.keysWithFreshEvents()) {
+            storeTimeLineInFile(socialEventType);
         }
     }
 
@@ -463,6 +506,15 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
     @Override
     public void dispose() {
         saveAllEvents();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30,
+                                         TimeUnit.SECONDS)) {
+                LOGGER.warn("Social timeline writer did not finish in time, some events may not be persisted.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private List<SocialActivitiesEvent> applySocialSecurityConstraints(List<SocialActivitiesEvent> events) {
@@ -483,15 +535,15 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
             reset();
         }
 
-        public void registerNewEvent() {
+        public synchronized void registerNewEvent() {
             sizeOfcache = sizeOfcache + 1;
         }
 
-        public boolean needToPersist() {
+        public synchronized boolean needToPersist() {
             return sizeOfcache > getThreshold();
         }
 
-        public void reset() {
+        public synchronized void reset() {
             sizeOfcache = 0;
         }
     }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.uberfire.java.nio.channels.SeekableByteChannel;
+
+/**
+ * On-disk layout of a timeline file:
+ * <pre>
+ * header   "UFTS" version(1 byte)
+ * records  [length(int) json(UTF-8)]*
+ * index    [offset(long)]*      offset of each record, in write order
+ * trailer  count(int) indexOffset(long) "UFTI"
+ * </pre>
+ * The fixed size trailer locates the index, and the index locates any run of records, so the last
+ * N events or any page is a single positioned read of the records involved.
+ */
+public class SocialTimelineSegment {
+
+    static final byte[] HEADER_MAGIC = {'U', 'F', 'T', 'S'};
+    static final byte[] TRAILER_MAGIC = {'U', 'F', 'T', 'I'};
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = HEADER_MAGIC.length + 1;
+    static final int TRAILER_SIZE = 4 + 8 + TRAILER_MAGIC.length;
+
+    private final SeekableByteChannel channel;
+    private final long[] offsets;
+    private final long indexOffset;
+
+    private SocialTimelineSegment(final SeekableByteChannel channel,
+                                  final long[] offsets,
+                                  final long indexOffset) {
+        this.channel = channel;
+        this.offsets = offsets;
+        this.indexOffset = indexOffset;
+    }
+
+    public static byte[] encode(final List<String> records) {
+        final List<byte[]> encoded = new ArrayList<>(records.size());
+        int recordsSize = 0;
+        for (final String record : records) {
+            final byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            recordsSize += 4 + bytes.length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + recordsSize + 8 * encoded.size() + TRAILER_SIZE);
+        buffer.put(HEADER_MAGIC);
+        buffer.put(VERSION);
+        final long[] offsets = new long[encoded.size()];
+        for (int i = 0; i < encoded.size(); i++) {
+            offsets[i] = buffer.position();
+            buffer.putInt(encoded.get(i).length);
+            buffer.put(encoded.get(i));
+        }
+        final long indexOffset = buffer.position();
+        for (final long offset : offsets) {
+            buffer.putLong(offset);
+        }
+        buffer.putInt(offsets.length);
+        buffer.putLong(indexOffset);
+        buffer.put(TRAILER_MAGIC);
+        return buffer.array();
+    }
+
+    /**
+     * Checks the header, telling segment files apart from the legacy separator based layout.
+     */
+    public static boolean isSegment(final SeekableByteChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE + TRAILER_SIZE) {
+            return false;
+        }
+        final ByteBuffer header = read(channel,
+                                       0,
+                                       HEADER_SIZE);
+        for (final byte b : HEADER_MAGIC) {
+            if (header.get() != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static SocialTimelineSegment open(final SeekableByteChannel channel) throws IOException {
+        final long size = channel.size();
+        final ByteBuffer header = read(channel,
+                                       0,
+                                       HEADER_SIZE);
+        header.position(HEADER_MAGIC.length);
+        final byte version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported timeline segment version: " + version);
+        }
+
+        final ByteBuffer trailer = read(channel,
+                                        size - TRAILER_SIZE,
+                                        TRAILER_SIZE);
+        final int count = trailer.getInt();
+        final long indexOffset = trailer.getLong();
+        for (final byte b : TRAILER_MAGIC) {
+            if (trailer.get() != b) {
+                throw new IOException("Truncated timeline segment");
+            }
+        }
+        if (count < 0 || indexOffset < HEADER_SIZE || indexOffset + 8L * count != size - TRAILER_SIZE) {
+            throw new IOException("Corrupted timeline segment index");
+        }
+
+        final ByteBuffer index = read(channel,
+                                      indexOffset,
+                                      8 * count);
+        final long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = index.getLong();
+        }
+        return new SocialTimelineSegment(channel,
+                                         offsets,
+                                         indexOffset);
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Reads records <code>[fromIndex, toIndex)</code>, in write order.
+     */
+    public List<String> read(final int fromIndex,
+                             final int toIndex) throws IOException {
+        final int from = Math.max(0,
+                                  fromIndex);
+        final int to = Math.min(offsets.length,
+                                toIndex);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+
+        final long start = offsets[from];
+        final long end = to < offsets.length ? offsets[to] : indexOffset;
+        final ByteBuffer records = read(channel,
+                                        start,
+                                        (int) (end - start));
+        final List<String> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            final byte[] bytes = new byte[records.getInt()];
+            records.get(bytes);
+            result.add(new String(bytes,
+                                  StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    /**
+     * Reads the last <code>n</code> records, most recent first.
+     */
+    public List<String> readLast(final int n) throws IOException {
+        final List<String> result = new ArrayList<>(read(offsets.length - n,
+                                                         offsets.length));
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static ByteBuffer read(final SeekableByteChannel channel,
+                                   final long position,
+                                   final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of timeline segment");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
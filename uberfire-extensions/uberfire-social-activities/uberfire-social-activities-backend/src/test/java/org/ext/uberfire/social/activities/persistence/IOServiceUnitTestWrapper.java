@@ -71,6 +71,17 @@ public class IOServiceUnitTestWrapper implements IOService {
 
     }
 
+    @Override
+    public void startBatch(FileSystem... fs) {
+
+    }
+
+    @Override
+    public void startBatch(FileSystem[] fs,
+                           Option... options) {
+
+    }
+
     @Override
     public void endBatch() {
 
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+import org.ext.uberfire.social.activities.model.SocialUser;
+import org.ext.uberfire.social.activities.security.SocialSecurityConstraintsManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.SeekableByteChannelFileBasedImpl;
+import org.uberfire.java.nio.file.OpenOption;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Writes timeline files in the legacy separator based layout, migrates them to segments and reads
+ * them back.
+ */
+public class SocialFileMigrationTest {
+
+    private static final byte SEPARATOR = 0x01;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Gson gson = new Gson();
+    private final Map<Path, File> files = new HashMap<>();
+
+    private IOService ioService;
+
+    @Before
+    public void setUp() throws Exception {
+        ioService = mock(IOService.class);
+        when(ioService.exists(any(Path.class))).thenAnswer(invocation -> file((Path) invocation.getArguments()[0]).length() > 0);
+        when(ioService.newByteChannel(any(Path.class),
+                                      any(OpenOption.class))).thenAnswer(invocation -> new SeekableByteChannelFileBasedImpl(FileChannel.open(file((Path) invocation.getArguments()[0]).toPath(),
+                                                                                                                                            java.nio.file.StandardOpenOption.READ)));
+        when(ioService.write(any(Path.class),
+                             any(byte[].class))).thenAnswer(invocation -> {
+            Files.write(file((Path) invocation.getArguments()[0]).toPath(),
+                        (byte[]) invocation.getArguments()[1]);
+            return invocation.getArguments()[0];
+        });
+    }
+
+    @Test
+    public void legacyFileIsReadBackAfterMigration() throws Exception {
+        final Path path = path("0");
+        writeLegacy(path,
+                    events(0,
+                           5));
+        final SocialFile socialFile = new SocialFile(path,
+                                                     ioService,
+                                                     gson);
+
+        assertFalse(socialFile.isSegment());
+        assertEquals(types(4,
+                           3,
+                           2,
+                           1,
+                           0),
+                     types(socialFile.readSocialEvents(5)));
+
+        assertTrue(socialFile.migrate(5));
+        assertTrue(socialFile.isSegment());
+        assertEquals(types(4,
+                           3,
+                           2,
+                           1,
+                           0),
+                     types(socialFile.readSocialEvents(5)));
+        assertEquals(types(4,
+                           3),
+                     types(socialFile.readSocialEvents(2)));
+
+        assertFalse(socialFile.migrate(5));
+    }
+
+    @Test
+    public void largeLegacyFileIsReadIteratively() throws Exception {
+        final Path path = path("0");
+        writeLegacy(path,
+                    events(0,
+                           2000));
+        final SocialFile socialFile = new SocialFile(path,
+                                                     ioService,
+                                                     gson);
+
+        assertTrue(socialFile.migrate(2000));
+
+        final List<SocialActivitiesEvent> events = socialFile.readSocialEvents(2000);
+        assertEquals(2000,
+                     events.size());
+        assertEquals("type-1999",
+                     events.get(0).getType());
+        assertEquals("type-0",
+                     events.get(1999).getType());
+    }
+
+    @Test
+    public void migrateTimelineRewritesEveryFile() throws Exception {
+        final Path timelineDir = mock(Path.class);
+        final Path file0 = path("0");
+        final Path file1 = path("1");
+        when(timelineDir.resolve("0")).thenReturn(file0);
+        when(timelineDir.resolve("1")).thenReturn(file1);
+        writeLegacy(file0,
+                    events(0,
+                           3));
+        writeLegacy(file1,
+                    events(3,
+                           2));
+
+        final SocialTimelineCachePersistence persistence = persistence();
+        persistence.migrateTimeline(timelineDir,
+                                    1);
+
+        assertTrue(new SocialFile(file0,
+                                  ioService,
+                                  gson).isSegment());
+        assertTrue(new SocialFile(file1,
+                                  ioService,
+                                  gson).isSegment());
+        assertEquals(types(2,
+                           1,
+                           0),
+                     types(persistence.getTimeline(timelineDir,
+                                                   "0")));
+        assertEquals(types(4,
+                           3),
+                     types(persistence.getTimeline(timelineDir,
+                                                   "1")));
+    }
+
+    private SocialTimelineCachePersistence persistence() {
+        final SocialTimelineCachePersistence persistence = new SocialTimelineCachePersistence() {
+
+            @Override
+            public void persist(SocialActivitiesEvent event) {
+            }
+
+            @Override
+            public void persist(SocialUser user,
+                                SocialActivitiesEvent event) {
+            }
+
+            @Override
+            public void saveAllEvents() {
+            }
+
+            @Override
+            String getItemsMetadata(Path timeLineDir,
+                                    String originalFilename) {
+                return "0".equals(originalFilename) ? "3" : "2";
+            }
+        };
+        persistence.ioService = ioService;
+        persistence.gson = gson;
+        persistence.socialSecurityConstraintsManager = mock(SocialSecurityConstraintsManager.class);
+        when(persistence.socialSecurityConstraintsManager.applyConstraints(any(List.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+        return persistence;
+    }
+
+    /**
+     * Writes the layout used before segments: each record is the JSON, a separator, the JSON size in
+     * bytes and another separator.
+     */
+    private void writeLegacy(final Path path,
+                             final List<SocialActivitiesEvent> events) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (SocialActivitiesEvent event : events) {
+            final byte[] json = gson.toJson(event).getBytes();
+            out.write(json);
+            out.write(SEPARATOR);
+            out.write(String.valueOf(json.length).getBytes());
+            out.write(SEPARATOR);
+        }
+        Files.write(file(path).toPath(),
+                    out.toByteArray());
+    }
+
+    private Path path(final String name) {
+        final Path path = mock(Path.class);
+        when(path.toString()).thenReturn(name);
+        return path;
+    }
+
+    private File file(final Path path) throws Exception {
+        File file = files.get(path);
+        if (file == null) {
+            file = temporaryFolder.newFile();
+            files.put(path,
+                      file);
+        }
+        return file;
+    }
+
+    private List<SocialActivitiesEvent> events(final int first,
+                                               final int count) {
+        final List<SocialActivitiesEvent> events = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            events.add(new SocialActivitiesEvent(new SocialUser("dora"),
+                                                 "type-" + i,
+                                                 new Date(i)));
+        }
+        return events;
+    }
+
+    private List<String> types(final List<SocialActivitiesEvent> events) {
+        final List<String> types = new ArrayList<>();
+        for (SocialActivitiesEvent event : events) {
+            types.add(event.getType());
+        }
+        return types;
+    }
+
+    private List<String> types(final int... ids) {
+        final List<String> types = new ArrayList<>();
+        for (int id : ids) {
+            types.add("type-" + id);
+        }
+        return types;
+    }
+}
@@ -1,9 +1,25 @@
 package org.ext.uberfire.social.activities.persistence;
 
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.google.gson.Gson;
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+import org.ext.uberfire.social.activities.model.SocialEventType;
+import org.ext.uberfire.social.activities.model.SocialUser;
+import org.ext.uberfire.social.activities.server.SocialUserServicesExtendedBackEndImpl;
+import org.ext.uberfire.social.activities.service.SocialUserPersistenceAPI;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.uberfire.commons.lifecycle.PriorityDisposableRegistry;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.Path;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
 
 public class SocialTimelineCacheClusterPersistenceTest {
 
@@ -20,4 +36,53 @@ public class SocialTimelineCacheClusterPersistenceTest {
                                                                                                        null);
         assertTrue(PriorityDisposableRegistry.getDisposables().contains(object));
     }
+
+    @Test
+    public void evictedEventsAreWrittenInBatchAndNotified() {
+        final IOService ioService = mock(IOService.class);
+        final SocialUserServicesExtendedBackEndImpl userServicesBackend = mock(SocialUserServicesExtendedBackEndImpl.class);
+        final SocialUserPersistenceAPI socialUserPersistenceAPI = mock(SocialUserPersistenceAPI.class);
+        final SocialClusterMessaging socialClusterMessaging = mock(SocialClusterMessaging.class);
+        final Path timelineDir = mock(Path.class);
+        when(timelineDir.resolve(anyString())).thenReturn(mock(Path.class));
+        when(userServicesBackend.buildPath(anyString(),
+                                           anyString())).thenReturn(timelineDir);
+        final SocialUser dora = new SocialUser("dora");
+        when(socialUserPersistenceAPI.getSocialUser("dora")).thenReturn(dora);
+        final SocialEventType type = mock(SocialEventType.class);
+        when(type.name()).thenReturn("TYPE");
+        final SocialActivitiesEvent event = new SocialActivitiesEvent(dora,
+                                                                      "TYPE",
+                                                                      new Date());
+        final List<SocialActivitiesEvent> events = Collections.singletonList(event);
+
+        final SocialTimelineCacheClusterPersistence persistence = new SocialTimelineCacheClusterPersistence(new Gson(),
+                                                                                                            null,
+                                                                                                            ioService,
+                                                                                                            null,
+                                                                                                            socialUserPersistenceAPI,
+                                                                                                            socialClusterMessaging,
+                                                                                                            userServicesBackend,
+                                                                                                            null,
+                                                                                                            null);
+        persistence.persistEvictedEvents(type,
+                                         events);
+        persistence.persistEvictedEvents("dora",
+                                         events);
+
+        // written by the evicting thread, before the other nodes are told to reload
+        final InOrder inOrder = inOrder(ioService,
+                                        socialClusterMessaging);
+        inOrder.verify(ioService).startBatch(any());
+        inOrder.verify(ioService).write(any(Path.class),
+                                        any(byte[].class));
+        inOrder.verify(socialClusterMessaging).notifyTimeLineUpdate(event);
+        inOrder.verify(ioService).write(any(Path.class),
+                                        any(byte[].class));
+        inOrder.verify(socialClusterMessaging).notifyTimeLineUpdate(dora,
+                                                                    events);
+        assertTrue(persistence.typeEventsCacheControl.containsKey(type));
+        assertTrue(persistence.userEventsCacheControl.containsKey("dora"));
+        PriorityDisposableRegistry.getDisposables().remove(persistence);
+    }
 }
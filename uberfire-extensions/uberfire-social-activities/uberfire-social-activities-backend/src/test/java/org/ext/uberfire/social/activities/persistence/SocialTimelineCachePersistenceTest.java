@@ -47,10 +47,10 @@ public class SocialTimelineCachePersistenceTest {
     @Test
     public void getLastEventsShouldCallSocialConstraintsManagerTest() throws Exception {
         final SocialEventType type = mock(SocialEventType.class);
-        socialTimelineCachePersistence.typeEventsTimelineCache.put(type,
-                                                                   oneEventList);
-        socialTimelineCachePersistence.typeEventsFreshEvents.put(type,
-                                                                 oneEventList);
+        socialTimelineCachePersistence.typeTimelines.refresh(type,
+                                                             oneEventList);
+        socialTimelineCachePersistence.typeTimelines.addFreshEvents(type,
+                                                                    oneEventList);
         socialTimelineCachePersistence.getLastEvents(type);
 
         verify(socialSecurityConstraintsManager).applyConstraints(any(List.class));
@@ -66,10 +66,10 @@ public class SocialTimelineCachePersistenceTest {
     @Test
     public void getLastUserEventsShouldCallSocialConstraintsManagerTest() throws Exception {
         final SocialUser user = new SocialUser("dora");
-        socialTimelineCachePersistence.userEventsTimelineCache.put(user.getUserName(),
-                                                                   oneEventList);
-        socialTimelineCachePersistence.userEventsTimelineFreshEvents.put(user.getUserName(),
-                                                                         oneEventList);
+        socialTimelineCachePersistence.userTimelines.refresh(user.getUserName(),
+                                                             oneEventList);
+        socialTimelineCachePersistence.userTimelines.addFreshEvents(user.getUserName(),
+                                                                    oneEventList);
         socialTimelineCachePersistence.getLastEvents(user);
 
         verify(socialSecurityConstraintsManager).applyConstraints(any(List.class));
@@ -78,10 +78,8 @@ public class SocialTimelineCachePersistenceTest {
     @Test
     public void getUserRecentEventsShouldCallSocialConstraintsManagerTest() throws Exception {
         final SocialUser user = new SocialUser("dora");
-        socialTimelineCachePersistence.userEventsTimelineCache.put(user.getUserName(),
-                                                                   oneEventList);
-        socialTimelineCachePersistence.userEventsTimelineFreshEvents.put(user.getUserName(),
-                                                                         oneEventList);
+        socialTimelineCachePersistence.userTimelines.addFreshEvents(user.getUserName(),
+                                                                    oneEventList);
         socialTimelineCachePersistence.getRecentEvents(user);
 
         verify(socialSecurityConstraintsManager).applyConstraints(any(List.class));
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ext.uberfire.social.activities.model.DefaultTypes;
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+import org.ext.uberfire.social.activities.model.SocialUser;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SocialTimelineCacheTest {
+
+    private List<String> loaded;
+    private Map<String, List<SocialActivitiesEvent>> evicted;
+    private SocialTimelineCache<String> cache;
+
+    @Before
+    public void setup() {
+        loaded = new ArrayList<>();
+        evicted = new HashMap<>();
+        cache = new SocialTimelineCache<>(2,
+                                          key -> {
+                                              loaded.add(key);
+                                              return Collections.singletonList(event(key + "-stored"));
+                                          },
+                                          evicted::put);
+    }
+
+    @Test
+    public void timelineIsLoadedOnFirstReadOnly() {
+        assertTrue(cache.getFreshEvents("dora").isEmpty());
+        cache.addFreshEvent("dora",
+                            event("fresh"));
+        assertTrue(loaded.isEmpty());
+        assertFalse(cache.isLoaded("dora"));
+
+        assertEquals(Arrays.asList("dora-stored",
+                                   "fresh"),
+                     infos(cache.getLastEvents("dora")));
+        cache.getLastEvents("dora");
+        assertEquals(Collections.singletonList("dora"),
+                     loaded);
+    }
+
+    @Test
+    public void snapshotsAreImmutable() {
+        final List<SocialActivitiesEvent> snapshot = cache.getLastEvents("dora");
+        cache.addFreshEvent("dora",
+                            event("fresh"));
+
+        assertEquals(1,
+                     snapshot.size());
+        assertEquals(2,
+                     cache.getLastEvents("dora").size());
+        try {
+            snapshot.add(event("other"));
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void flushMakesFreshEventsTheTimeline() {
+        cache.getLastEvents("dora");
+        cache.addFreshEvent("dora",
+                            event("a"));
+        cache.addFreshEvent("dora",
+                            event("b"));
+
+        assertEquals(Arrays.asList("a",
+                                   "b"),
+                     infos(cache.flush("dora")));
+        assertTrue(cache.getFreshEvents("dora").isEmpty());
+        assertEquals(Arrays.asList("a",
+                                   "b"),
+                     infos(cache.getLastEvents("dora")));
+        assertTrue(cache.keysWithFreshEvents().isEmpty());
+    }
+
+    @Test
+    public void refreshReturnsDroppedFreshEvents() {
+        cache.addFreshEvent("dora",
+                            event("a"));
+
+        assertEquals(Collections.singletonList("a"),
+                     infos(cache.refresh("dora",
+                                         Collections.singletonList(event("disk")))));
+        assertEquals(Collections.singletonList("disk"),
+                     infos(cache.getLastEvents("dora")));
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        cache.getLastEvents("a");
+        cache.addFreshEvent("b",
+                            event("b-fresh"));
+        cache.getLastEvents("a");
+        cache.getLastEvents("c");
+
+        assertEquals(2,
+                     cache.size());
+        assertTrue(cache.isLoaded("a"));
+        assertTrue(cache.isLoaded("c"));
+        assertEquals(Collections.singletonList("b-fresh"),
+                     infos(evicted.get("b")));
+        assertTrue(cache.getFreshEvents("b").isEmpty());
+    }
+
+    private SocialActivitiesEvent event(final String info) {
+        return new SocialActivitiesEvent(new SocialUser("dora"),
+                                         DefaultTypes.DUMMY_EVENT,
+                                         new Date()).withAdicionalInfo(info);
+    }
+
+    private List<String> infos(final List<SocialActivitiesEvent> events) {
+        final List<String> infos = new ArrayList<>();
+        for (SocialActivitiesEvent event : events) {
+            infos.add(event.getAdditionalInfo()[0]);
+        }
+        return infos;
+    }
+}
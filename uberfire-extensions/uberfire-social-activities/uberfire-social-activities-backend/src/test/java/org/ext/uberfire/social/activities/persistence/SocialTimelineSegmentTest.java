@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.uberfire.java.nio.base.SeekableByteChannelFileBasedImpl;
+import org.uberfire.java.nio.channels.SeekableByteChannel;
+
+import static org.junit.Assert.*;
+
+public class SocialTimelineSegmentTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void readLastReturnsMostRecentFirst() throws Exception {
+        try (SeekableByteChannel channel = channel(SocialTimelineSegment.encode(records(10)))) {
+            assertTrue(SocialTimelineSegment.isSegment(channel));
+
+            final SocialTimelineSegment segment = SocialTimelineSegment.open(channel);
+            assertEquals(10,
+                         segment.size());
+            assertEquals(Arrays.asList("{\"id\":9}",
+                                       "{\"id\":8}",
+                                       "{\"id\":7}"),
+                         segment.readLast(3));
+            assertEquals(10,
+                         segment.readLast(50).size());
+        }
+    }
+
+    @Test
+    public void readPage() throws Exception {
+        try (SeekableByteChannel channel = channel(SocialTimelineSegment.encode(records(10)))) {
+            final SocialTimelineSegment segment = SocialTimelineSegment.open(channel);
+
+            assertEquals(records(10).subList(4,
+                                             7),
+                         segment.read(4,
+                                      7));
+            assertEquals(records(10).subList(8,
+                                             10),
+                         segment.read(8,
+                                      20));
+            assertTrue(segment.read(7,
+                                    7).isEmpty());
+        }
+    }
+
+    @Test
+    public void multiByteRecords() throws Exception {
+        final List<String> records = Collections.singletonList("{\"user\":\"Jo\u00e3o \u00d1and\u00fa\"}");
+        try (SeekableByteChannel channel = channel(SocialTimelineSegment.encode(records))) {
+            assertEquals(records,
+                         SocialTimelineSegment.open(channel).readLast(1));
+        }
+    }
+
+    @Test
+    public void emptySegment() throws Exception {
+        try (SeekableByteChannel channel = channel(SocialTimelineSegment.encode(Collections.<String>emptyList()))) {
+            assertTrue(SocialTimelineSegment.isSegment(channel));
+            assertTrue(SocialTimelineSegment.open(channel).readLast(5).isEmpty());
+        }
+    }
+
+    @Test
+    public void legacyFileIsNotASegment() throws Exception {
+        try (SeekableByteChannel channel = channel("{\"id\":1}\u00017\u0001".getBytes("UTF-8"))) {
+            assertFalse(SocialTimelineSegment.isSegment(channel));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedSegmentIsDetected() throws Exception {
+        final byte[] encoded = SocialTimelineSegment.encode(records(3));
+        try (SeekableByteChannel channel = channel(Arrays.copyOf(encoded,
+                                                                 encoded.length - 2))) {
+            SocialTimelineSegment.open(channel);
+        }
+    }
+
+    private List<String> records(final int size) {
+        final List<String> records = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            records.add("{\"id\":" + i + "}");
+        }
+        return records;
+    }
+
+    private SeekableByteChannel channel(final byte[] content) throws IOException {
+        final File file = temporaryFolder.newFile();
+        Files.write(file.toPath(),
+                    content);
+        return new SeekableByteChannelFileBasedImpl(FileChannel.open(file.toPath(),
+                                                                     StandardOpenOption.READ));
+    }
+}
@@ -62,6 +62,11 @@ public interface IOService extends PriorityDisposable {
     void startBatch(final FileSystem fs,
                     final Option... options);
 
+    void startBatch(final FileSystem... fs);
+
+    void startBatch(final FileSystem[] fs,
+                    final Option... options);
+
     void endBatch();
 
     FileAttribute<?>[] convert(final Map<String, ?> attrs);
@@ -111,26 +111,42 @@ public abstract class AbstractIOService implements IOServiceIdentifiable,
 
     @Override
     public void startBatch(FileSystem fs) {
-        batchProcess(fs);
+        batchProcess(new FileSystem[]{fs});
     }
 
     @Override
     public void startBatch(FileSystem fs,
                            final Option... options) {
+        batchProcess(new FileSystem[]{fs},
+                     options);
+    }
+
+    @Override
+    public void startBatch(final FileSystem... fs) {
+        batchProcess(fs);
+    }
+
+    @Override
+    public void startBatch(final FileSystem[] fs,
+                           final Option... options) {
         batchProcess(fs,
                      options);
     }
 
-    private void batchProcess(final FileSystem fs,
+    private void batchProcess(final FileSystem[] fs,
                               final Option... options) {
         startBatchProcess(fs);
-        setOptionsOnFileSystem(fs,
-                               options);
+        for (final FileSystem fileSystem : fs) {
+            setOptionsOnFileSystem(fileSystem,
+                                   options);
+        }
     }
 
-    private void startBatchProcess(final FileSystem fileSystem) {
-        batchLockControl.lock(fileSystem);
-        setBatchModeOn(fileSystem);
+    private void startBatchProcess(final FileSystem[] fileSystems) {
+        batchLockControl.lock(fileSystems);
+        for (final FileSystem fileSystem : fileSystems) {
+            setBatchModeOn(fileSystem);
+        }
     }
 
     private void setOptionsOnFileSystem(FileSystem fs,
@@ -148,20 +164,24 @@ public abstract class AbstractIOService implements IOServiceIdentifiable,
             throw new RuntimeException("There is no batch process.");
         }
 
-        if (batchLockControl.getHoldCount() > 1) {
-            batchLockControl.unlock();
-            return;
-        }
-
+        RuntimeException cleanUpError = null;
         try {
-            FileSystem fsOnBatch = batchLockControl.getFileSystemOnBatch();
-            cleanUpAndUnsetBatchModeOnFileSystems(fsOnBatch);
-        } catch (Exception e) {
-            throw new RuntimeException("Exception cleaning and unsetting batch mode on FS.",
-                                       e);
+            for (final FileSystem fsOnBatch : batchLockControl.getFileSystemsReleasedOnUnlock()) {
+                try {
+                    cleanUpAndUnsetBatchModeOnFileSystems(fsOnBatch);
+                } catch (Exception e) {
+                    if (cleanUpError == null) {
+                        cleanUpError = new RuntimeException("Exception cleaning and unsetting batch mode on FS.",
+                                                            e);
+                    }
+                }
+            }
         } finally {
             batchLockControl.unlock();
         }
+        if (cleanUpError != null) {
+            throw cleanUpError;
+        }
     }
 
     private void cleanUpAndUnsetBatchModeOnFileSystems(FileSystem fileSystemOnBatch) {
@@ -591,6 +611,7 @@ public abstract class AbstractIOService implements IOServiceIdentifiable,
             } catch (final Exception ignored) {
             }
         }
+        batchLockControl.removeClosed();
     }
 
     @Override
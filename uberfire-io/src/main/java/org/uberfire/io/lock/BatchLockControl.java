@@ -16,76 +16,281 @@
 
 package org.uberfire.io.lock;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.uberfire.java.nio.base.FileSystemId;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.LockableFileSystem;
 
+import static org.uberfire.commons.validation.PortablePreconditions.checkNotNull;
+
+/**
+ * Batch locks striped per {@link FileSystem}: batches on unrelated file systems run in parallel,
+ * while batches on the same file system are serialized by a fair reentrant lock.
+ * <p>
+ * A batch may span several file systems. Their locks are always taken in a canonical order (by file
+ * system id), so two multi file system batches can't deadlock. A nested batch that would need a lock
+ * out of that order only gets it if it's free right away; otherwise a {@link BatchRuntimeException}
+ * is thrown instead of risking a deadlock.
+ * <p>
+ * All the state queried here (hold count, file systems on batch) refers to the calling thread.
+ */
 public class BatchLockControl {
 
-    private ReentrantLock lock = new ReentrantLock(true);
-    private FileSystem fileSystemOnBatch;
+    private static final Comparator<FileSystem> CANONICAL_ORDER = Comparator.comparing(BatchLockControl::keyOf);
+
+    private final ConcurrentMap<String, FileSystemLock> locks = new ConcurrentHashMap<>();
+    private final ThreadLocal<Deque<List<FileSystemLock>>> batches = ThreadLocal.withInitial(ArrayDeque::new);
 
     public void lock(final FileSystem fs) {
-        lock.lock();
-        try{
-            makeSureThatIsOnlyOneFSOnCurrentBatch(fs);
-        }
-        catch (BatchRuntimeException e){
-            lock.unlock();
+        lock(new FileSystem[]{fs});
+    }
+
+    public void lock(final FileSystem... fileSystems) {
+        checkNotNull("fileSystems",
+                     fileSystems);
+        final List<FileSystem> ordered = canonicalOrder(fileSystems);
+
+        final List<FileSystemLock> acquired = new ArrayList<>(ordered.size());
+        try {
+            for (final FileSystem fs : ordered) {
+                acquired.add(acquire(fs));
+            }
+        } catch (RuntimeException e) {
+            release(acquired);
             throw e;
         }
 
-        if (!isAlreadyOnBatch(fs)) {
-            if (isLockable(fs)) {
-                fileSystemOnBatch = fs;
-                ((LockableFileSystem) fs).lock();
-            } else {
-                throw new BatchRuntimeException("Not a LockableFileSystem : "
-                                                        + fileSystemOnBatch.toString());
+        batches.get().push(acquired);
+    }
+
+    private List<FileSystem> canonicalOrder(final FileSystem[] fileSystems) {
+        final List<FileSystem> ordered = new ArrayList<>(fileSystems.length);
+        for (final FileSystem fs : fileSystems) {
+            checkNotNull("fs",
+                         fs);
+            if (!isLockable(fs)) {
+                throw new BatchRuntimeException("Not a LockableFileSystem : " + fs.toString());
+            }
+            if (ordered.stream().noneMatch(o -> keyOf(o).equals(keyOf(fs)))) {
+                ordered.add(fs);
             }
         }
+        Collections.sort(ordered,
+                         CANONICAL_ORDER);
+        return ordered;
     }
 
-    private void makeSureThatIsOnlyOneFSOnCurrentBatch(FileSystem fs) {
-        if (fileSystemOnBatch != null && !fileSystemOnBatch.equals(fs)) {
-            throw new BatchRuntimeException("We already have a batch process running on another FS : "
-                                                    + fileSystemOnBatch.toString());
+    private FileSystemLock acquire(final FileSystem fs) {
+        final String key = keyOf(fs);
+        while (true) {
+            final FileSystemLock lock = lockOf(fs);
+            acquire(lock);
+            if (locks.get(key) == lock) {
+                return lock;
+            }
+            // the lock was dropped along with its closed file system while we waited for it
+            release(Collections.singletonList(lock));
         }
     }
 
-    private boolean isAlreadyOnBatch(FileSystem fileSystem) {
-        return fileSystemOnBatch != null && fileSystemOnBatch.equals(fileSystem);
+    private FileSystemLock lockOf(final FileSystem fs) {
+        final String key = keyOf(fs);
+        final FileSystemLock existing = locks.get(key);
+        if (existing != null && (existing.fileSystem == fs || !isDisposable(existing))) {
+            return existing;
+        }
+        if (existing == null) {
+            // a new file system: take the chance to drop the locks of the ones closed or deleted since
+            removeClosed();
+        }
+        return locks.compute(key,
+                             (k, current) -> current == null || (current.fileSystem != fs && isDisposable(current)) ? new FileSystemLock(fs) : current);
+    }
+
+    private void acquire(final FileSystemLock lock) {
+        if (lock.lock.isHeldByCurrentThread()) {
+            lock.lock.lock();
+            return;
+        }
+
+        final long start = System.nanoTime();
+        if (holdsLockAfter(lock.key)) {
+            if (!lock.lock.tryLock()) {
+                throw new BatchRuntimeException("We already have a batch process running on another FS and "
+                                                        + lock.fileSystem.toString() + " is busy; acquiring it out of order could deadlock");
+            }
+        } else {
+            lock.lock.lock();
+        }
+        lock.metrics.acquired(System.nanoTime() - start);
+
+        try {
+            ((LockableFileSystem) lock.fileSystem).lock();
+        } catch (RuntimeException e) {
+            lock.lock.unlock();
+            throw e;
+        }
+        lock.heldSince = System.nanoTime();
+    }
+
+    private boolean holdsLockAfter(final String key) {
+        for (final List<FileSystemLock> batch : batches.get()) {
+            for (final FileSystemLock held : batch) {
+                if (held.key.compareTo(key) > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public void unlock() {
-        if (lock.isLocked()) {
-            if (shouldUnlockLockedFileSystems()) {
-                ((LockableFileSystem) fileSystemOnBatch).unlock();
-                fileSystemOnBatch = null;
+        final Deque<List<FileSystemLock>> current = batches.get();
+        if (current.isEmpty()) {
+            return;
+        }
+        release(current.pop());
+    }
+
+    private void release(final List<FileSystemLock> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            final FileSystemLock lock = batch.get(i);
+            if (lock.lock.getHoldCount() == 1) {
+                try {
+                    ((LockableFileSystem) lock.fileSystem).unlock();
+                } finally {
+                    lock.metrics.released(System.nanoTime() - lock.heldSince);
+                    lock.lock.unlock();
+                }
+            } else {
+                lock.lock.unlock();
+            }
+            if (isDisposable(lock)) {
+                locks.remove(lock.key,
+                             lock);
             }
-            lock.unlock();
         }
     }
 
-    private boolean shouldUnlockLockedFileSystems() {
-        return lock.getHoldCount() == 1 && fileSystemOnBatch != null && isLockable(fileSystemOnBatch);
+    /**
+     * Drops the locks of closed (or deleted) file systems no batch holds or waits for, so they don't keep the file
+     * systems reachable. The lock of a closed file system is also dropped when its last batch ends, and the others
+     * whenever a lock for a new file system is created.
+     */
+    public void removeClosed() {
+        locks.values().removeIf(this::isDisposable);
+    }
+
+    private boolean isDisposable(final FileSystemLock lock) {
+        return !lock.fileSystem.isOpen() && isIdle(lock);
+    }
+
+    private boolean isIdle(final FileSystemLock lock) {
+        return !lock.lock.isLocked() && !lock.lock.hasQueuedThreads();
+    }
+
+    private static String keyOf(final FileSystem fs) {
+        if (fs instanceof FileSystemId) {
+            return ((FileSystemId) fs).id();
+        }
+        return fs.getName() != null ? fs.getName() : fs.toString();
     }
 
     private boolean isLockable(FileSystem fileSystem) {
         return fileSystem instanceof LockableFileSystem;
     }
 
+    /**
+     * @return true if the calling thread is running a batch.
+     */
     public boolean isLocked() {
-        return lock.isLocked();
+        return !batches.get().isEmpty();
     }
 
+    /**
+     * @return true if any thread is running a batch on the given file system.
+     */
+    public boolean isLocked(final FileSystem fs) {
+        final FileSystemLock lock = locks.get(keyOf(fs));
+        return lock != null && lock.lock.isLocked();
+    }
+
+    /**
+     * @return how deep the calling thread's batches are nested.
+     */
     public int getHoldCount() {
-        return lock.getHoldCount();
+        return batches.get().size();
     }
 
+    /**
+     * @return the first file system (in canonical order) of the calling thread's innermost batch.
+     */
     public FileSystem getFileSystemOnBatch() {
-        return fileSystemOnBatch;
+        final List<FileSystem> fileSystems = getFileSystemsOnBatch();
+        return fileSystems.isEmpty() ? null : fileSystems.get(0);
+    }
+
+    /**
+     * @return the file systems of the calling thread's innermost batch.
+     */
+    public List<FileSystem> getFileSystemsOnBatch() {
+        final List<FileSystemLock> batch = batches.get().peek();
+        if (batch == null) {
+            return Collections.emptyList();
+        }
+        final List<FileSystem> result = new ArrayList<>(batch.size());
+        batch.forEach(lock -> result.add(lock.fileSystem));
+        return result;
+    }
+
+    /**
+     * @return the file systems of the calling thread's innermost batch that are released (no outer
+     * batch of this thread holds them) once that batch ends.
+     */
+    public List<FileSystem> getFileSystemsReleasedOnUnlock() {
+        final List<FileSystemLock> batch = batches.get().peek();
+        if (batch == null) {
+            return Collections.emptyList();
+        }
+        final List<FileSystem> result = new ArrayList<>(batch.size());
+        batch.stream()
+                .filter(lock -> lock.lock.getHoldCount() == 1)
+                .forEach(lock -> result.add(lock.fileSystem));
+        return result;
+    }
+
+    public BatchLockMetrics getMetrics(final FileSystem fs) {
+        final FileSystemLock lock = locks.get(keyOf(fs));
+        return lock != null ? lock.metrics : new BatchLockMetrics();
+    }
+
+    public List<String> getFileSystemIds() {
+        final List<String> ids = new ArrayList<>(locks.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static class FileSystemLock {
+
+        private final String key;
+        private final FileSystem fileSystem;
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final BatchLockMetrics metrics = new BatchLockMetrics();
+        private long heldSince;
+
+        FileSystemLock(final FileSystem fileSystem) {
+            this.key = keyOf(fileSystem);
+            this.fileSystem = fileSystem;
+        }
     }
 
     public class BatchRuntimeException extends RuntimeException {
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.io.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Wait and hold times of the batch lock of a single file system.
+ */
+public class BatchLockMetrics {
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong releases = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong totalHoldNanos = new AtomicLong();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max,
+                                                                     0);
+    private final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max,
+                                                                     0);
+
+    void acquired(final long waitNanos) {
+        acquisitions.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+    }
+
+    void released(final long holdNanos) {
+        releases.incrementAndGet();
+        totalHoldNanos.addAndGet(holdNanos);
+        maxHoldNanos.accumulate(holdNanos);
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    public long getTotalWaitTime(final TimeUnit unit) {
+        return unit.convert(totalWaitNanos.get(),
+                            TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxWaitTime(final TimeUnit unit) {
+        return unit.convert(maxWaitNanos.get(),
+                            TimeUnit.NANOSECONDS);
+    }
+
+    public long getTotalHoldTime(final TimeUnit unit) {
+        return unit.convert(totalHoldNanos.get(),
+                            TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxHoldTime(final TimeUnit unit) {
+        return unit.convert(maxHoldNanos.get(),
+                            TimeUnit.NANOSECONDS);
+    }
+
+    public long getAverageWaitTime(final TimeUnit unit) {
+        final long count = acquisitions.get();
+        return count == 0 ? 0 : unit.convert(totalWaitNanos.get() / count,
+                                             TimeUnit.NANOSECONDS);
+    }
+
+    public long getAverageHoldTime(final TimeUnit unit) {
+        final long count = releases.get();
+        return count == 0 ? 0 : unit.convert(totalHoldNanos.get() / count,
+                                             TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchLockMetrics{" +
+                "acquisitions=" + acquisitions +
+                ", avgWaitMs=" + getAverageWaitTime(TimeUnit.MILLISECONDS) +
+                ", maxWaitMs=" + getMaxWaitTime(TimeUnit.MILLISECONDS) +
+                ", avgHoldMs=" + getAverageHoldTime(TimeUnit.MILLISECONDS) +
+                ", maxHoldMs=" + getMaxHoldTime(TimeUnit.MILLISECONDS) +
+                '}';
+    }
+}
@@ -23,6 +23,8 @@ import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.AfterClass;
@@ -351,7 +353,7 @@ public class BatchTest {
     }
 
     @Test
-    public void innerBatchShouldOnlyBeCalledOnTheSameFS() throws IOException, InterruptedException {
+    public void innerBatchOnAnotherFSShouldJoinTheCurrentBatch() throws IOException, InterruptedException {
         Path repo1 = ioService.get(URI.create("git://amend-repo-test/readme.txt"));
         ioService.write(repo1,
                         "init!",
@@ -366,14 +368,118 @@ public class BatchTest {
 
         ioService.startBatch(fs1);
         assertTrue(fs1Batch.isOnBatch());
-        try {
+        ioService.startBatch(fs2);
+        assertTrue(fs1Batch.isOnBatch());
+        assertTrue(fs2Batch.isOnBatch());
+
+        ioService.endBatch();
+        assertTrue(fs1Batch.isOnBatch());
+        assertFalse(fs2Batch.isOnBatch());
+        assertFalse(fs2Batch.isLocked());
+
+        ioService.endBatch();
+        assertProperBatchCleanup();
+    }
+
+    @Test
+    public void batchOnSeveralFSShouldLockAndReleaseAllOfThem() throws IOException, InterruptedException {
+        ioService.startBatch(fs3,
+                             fs1,
+                             fs2);
+        assertTrue(fs1Batch.isOnBatch());
+        assertTrue(fs2Batch.isOnBatch());
+        assertTrue(fs3Batch.isOnBatch());
+        assertTrue(fs1Batch.isLocked());
+        assertTrue(fs2Batch.isLocked());
+        assertTrue(fs3Batch.isLocked());
+
+        final List<FileSystem> onBatch = ((IOServiceLockable) ioService).getLockControl().getFileSystemsOnBatch();
+        assertEquals(3,
+                     onBatch.size());
+        assertEquals(fs1,
+                     onBatch.get(0));
+
+        ioService.endBatch();
+        assertProperBatchCleanup();
+    }
+
+    @Test
+    public void batchesOnDifferentFSShouldNotWaitForEachOther() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final Thread other = new Thread(() -> {
             ioService.startBatch(fs2);
+            started.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException ignored) {
+            } finally {
+                ioService.endBatch();
+            }
+        });
+        other.start();
+        assertTrue(started.await(10,
+                                 TimeUnit.SECONDS));
+
+        final BatchLockControl lockControl = ((IOServiceLockable) ioService).getLockControl();
+        assertTrue(lockControl.isLocked(fs2));
+        assertFalse(lockControl.isLocked());
+
+        ioService.startBatch(fs1);
+        assertTrue(fs1Batch.isOnBatch());
+        ioService.endBatch();
+
+        finish.countDown();
+        other.join();
+        assertProperBatchCleanup();
+    }
+
+    @Test
+    public void innerBatchOutOfCanonicalOrderShouldFailInsteadOfDeadlocking() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final Thread other = new Thread(() -> {
+            ioService.startBatch(fs1);
+            started.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException ignored) {
+            } finally {
+                ioService.endBatch();
+            }
+        });
+        other.start();
+        assertTrue(started.await(10,
+                                 TimeUnit.SECONDS));
+
+        ioService.startBatch(fs2);
+        try {
+            ioService.startBatch(fs1);
             fail();
         } catch (BatchLockControl.BatchRuntimeException e) {
-            //We already have a batch process running on another FS : git://amend-repo-test
+            //fs1 sorts before fs2 and is busy, waiting for it could deadlock
         }
-        assertTrue(fs1Batch.isOnBatch());
+        assertTrue(fs2Batch.isOnBatch());
+        ioService.endBatch();
+
+        finish.countDown();
+        other.join();
+        assertProperBatchCleanup();
+    }
+
+    @Test
+    public void lockWaitAndHoldTimeShouldBeMeasuredPerFS() throws Exception {
+        final BatchLockControl lockControl = ((IOServiceLockable) ioService).getLockControl();
+        final long fs3Acquisitions = lockControl.getMetrics(fs3).getAcquisitions();
+        final long fs3HoldTime = lockControl.getMetrics(fs3).getTotalHoldTime(TimeUnit.MILLISECONDS);
+
+        ioService.startBatch(fs3);
+        Thread.sleep(50);
         ioService.endBatch();
+
+        assertEquals(fs3Acquisitions + 1,
+                     lockControl.getMetrics(fs3).getAcquisitions());
+        assertTrue(lockControl.getMetrics(fs3).getTotalHoldTime(TimeUnit.MILLISECONDS) >= fs3HoldTime + 50);
         assertProperBatchCleanup();
     }
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.io.lock;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.base.FileSystemId;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.LockableFileSystem;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BatchLockControlTest {
+
+    private BatchLockControl lockControl;
+
+    @Before
+    public void setUp() {
+        lockControl = new BatchLockControl();
+    }
+
+    @Test
+    public void lockOfClosedFileSystemIsDroppedWhenItsBatchEnds() {
+        final FileSystem fs = fileSystem("repo");
+
+        lockControl.lock(fs);
+        when(fs.isOpen()).thenReturn(false);
+        assertEquals(Collections.singletonList("repo"),
+                     lockControl.getFileSystemIds());
+
+        lockControl.unlock();
+        assertTrue(lockControl.getFileSystemIds().isEmpty());
+    }
+
+    @Test
+    public void locksOfClosedFileSystemsAreDroppedOnRemoveClosed() {
+        final FileSystem open = fileSystem("open");
+        final FileSystem closed = fileSystem("closed");
+        lockControl.lock(open,
+                         closed);
+        lockControl.unlock();
+        when(closed.isOpen()).thenReturn(false);
+
+        lockControl.removeClosed();
+
+        assertEquals(Collections.singletonList("open"),
+                     lockControl.getFileSystemIds());
+    }
+
+    @Test
+    public void fileSystemRecreatedWithSameIdGetsNewLock() {
+        final FileSystem deleted = fileSystem("repo");
+        lockControl.lock(deleted);
+        lockControl.unlock();
+        when(deleted.isOpen()).thenReturn(false);
+
+        final FileSystem recreated = fileSystem("repo");
+        lockControl.lock(recreated);
+
+        assertEquals(Collections.singletonList(recreated),
+                     lockControl.getFileSystemsOnBatch());
+        verify((LockableFileSystem) recreated).lock();
+        lockControl.unlock();
+    }
+
+    private FileSystem fileSystem(final String id) {
+        final FileSystem fs = mock(FileSystem.class,
+                                   withSettings().extraInterfaces(LockableFileSystem.class,
+                                                                  FileSystemId.class));
+        when(((FileSystemId) fs).id()).thenReturn(id);
+        when(fs.isOpen()).thenReturn(true);
+        return fs;
+    }
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.guvnor.m2repo.backend.server;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.eclipse.aether.artifact.Artifact;
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.repositories.ArtifactRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.config.ConfigProperties;
+
+/**
+ * In-memory catalog of the artifacts held by the listable repositories, so browsing the repositories does not
+ * walk the disk on every request.
+ * <p>
+ * The catalog is built in the background once started, kept current by {@link #refresh(GAV)} on every deployment
+ * and re-synchronized with the disk periodically, to pick up artifacts installed by other means. Until the first
+ * build finishes {@link #find(List)} returns null and callers list the repositories directly.
+ * <p>
+ * Every artifact is kept with its file name and last modification time, read once when catalogued, and the catalog
+ * is kept sorted by path, by name and by last modification time, so a page of any of these orders is read straight
+ * from the catalog by {@link #page(List, SortOrder, boolean, int, Integer)}.
+ */
+public class ArtifactCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactCatalog.class);
+
+    public static final String REFRESH_INTERVAL_PROPERTY = "org.guvnor.m2repo.catalog.refresh.interval";
+
+    public static final String SCAN_THREADS_PROPERTY = "org.guvnor.m2repo.catalog.scan.threads";
+
+    static final List<String> CATALOG_FILE_FORMATS = Arrays.asList("jar",
+                                                                   "kjar",
+                                                                   "pom");
+
+    private static final List<String> CATALOG_WILDCARDS = Arrays.asList("*.jar",
+                                                                        "*.kjar",
+                                                                        "*.pom");
+
+    private final Collection<ArtifactRepository> repositories;
+
+    private volatile Index index = new Index();
+    private volatile boolean built = false;
+
+    // directories refreshed while a rebuild is running, re-applied on top of the rebuilt catalog
+    private final Set<String> refreshedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService executor;
+
+    // reads the top level directories of a rebuild; its threads time out between rebuilds
+    private final ThreadPoolExecutor scanExecutor;
+
+    /**
+     * The orders the catalog can be paged in.
+     */
+    public enum SortOrder {
+        PATH,
+        NAME,
+        LAST_MODIFIED
+    }
+
+    public ArtifactCatalog(final Collection<ArtifactRepository> repositories) {
+        this.repositories = repositories;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable,
+                                             "m2repo-catalog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final int defaultScanThreads = Math.min(4,
+                                                Runtime.getRuntime().availableProcessors());
+        final int scanThreads = Math.max(1,
+                                         new ConfigProperties(System.getProperties()).get(SCAN_THREADS_PROPERTY,
+                                                                                          String.valueOf(defaultScanThreads)).getIntValue(defaultScanThreads));
+        this.scanExecutor = new ThreadPoolExecutor(scanThreads,
+                                                   scanThreads,
+                                                   60L,
+                                                   TimeUnit.SECONDS,
+                                                   new LinkedBlockingQueue<>(),
+                                                   runnable -> {
+                                                       final Thread thread = new Thread(runnable,
+                                                                                        "m2repo-catalog-scan");
+                                                       thread.setDaemon(true);
+                                                       return thread;
+                                                   });
+        this.scanExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Builds the catalog in the background and schedules the periodic re-synchronization.
+     */
+    public void start() {
+        executor.execute(this::rebuild);
+
+        final long refreshInterval = new ConfigProperties(System.getProperties()).get(REFRESH_INTERVAL_PROPERTY,
+                                                                                      "60").getLongValue(60);
+        if (refreshInterval > 0) {
+            executor.scheduleWithFixedDelay(this::rebuild,
+                                            refreshInterval,
+                                            refreshInterval,
+                                            TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Finds the catalogued artifacts whose file name matches any of the wildcards.
+     * @return the artifacts, ordered by path, or null when the catalog can not answer (not built yet, or a file
+     * format outside of the catalog was requested)
+     */
+    public List<Artifact> find(final List<String> wildcards) {
+        if (!built || !isCatalogued(wildcards)) {
+            return null;
+        }
+
+        final List<Artifact> result = new ArrayList<>();
+        for (Entry entry : index.byPath.values()) {
+            if (matches(entry,
+                        wildcards)) {
+                result.add(entry.getArtifact());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads one page of the catalogued artifacts whose file name matches any of the wildcards, in the given order.
+     * Ties are broken by path, in the same direction. When the wildcards match every catalogued file only the
+     * entries up to the end of the page are visited, otherwise all of them are, to count the matching ones.
+     * @param pageSize the size of the page, or null for every entry from the start row on
+     * @return the page, or null when the catalog can not answer (not built yet, or a file format outside of the
+     * catalog was requested)
+     */
+    public Page page(final List<String> wildcards,
+                     final SortOrder sortOrder,
+                     final boolean isAscending,
+                     final int startRowIndex,
+                     final Integer pageSize) {
+        if (!built || !isCatalogued(wildcards)) {
+            return null;
+        }
+
+        final Index index = this.index;
+        final boolean everything = isEverything(wildcards);
+        final long endRowIndex = pageSize == null ? Long.MAX_VALUE : (long) startRowIndex + pageSize;
+        final List<Entry> entries = new ArrayList<>();
+        int totalRowSize = 0;
+        for (Entry entry : index.view(sortOrder,
+                                      isAscending)) {
+            if (!everything && !matches(entry,
+                                        wildcards)) {
+                continue;
+            }
+            if (totalRowSize >= startRowIndex && totalRowSize < endRowIndex) {
+                entries.add(entry);
+            }
+            totalRowSize++;
+            if (everything && totalRowSize >= endRowIndex) {
+                totalRowSize = Math.max(totalRowSize,
+                                        index.size());
+                break;
+            }
+        }
+        return new Page(entries,
+                        totalRowSize);
+    }
+
+    /**
+     * Re-reads the directory holding the given artifact version in every repository.
+     */
+    public void refresh(final GAV gav) {
+        refresh(gav.getGroupId().replace('.',
+                                         File.separatorChar)
+                        + File.separator + gav.getArtifactId()
+                        + File.separator + gav.getVersion());
+    }
+
+    void refresh(final String directory) {
+        refreshedDuringRebuild.add(directory);
+        refresh(index,
+                directory);
+    }
+
+    private void refresh(final Index target,
+                         final String directory) {
+        for (ArtifactRepository repository : repositories) {
+            if (repository.getRootDir() == null) {
+                continue;
+            }
+            final String prefix = new File(repository.getRootDir(),
+                                           directory).getPath() + File.separator;
+            final List<Entry> entries = new ArrayList<>();
+            for (Artifact artifact : repository.listArtifacts(directory,
+                                                              CATALOG_WILDCARDS)) {
+                entries.add(new Entry(artifact));
+            }
+            target.replace(prefix,
+                           entries);
+        }
+    }
+
+    /**
+     * Re-reads every listable repository from disk, one top level directory per task on the scan executor. Runs on
+     * the catalog thread, never on the common fork join pool, so a slow disk does not hold up unrelated work.
+     */
+    void rebuild() {
+        try {
+            refreshedDuringRebuild.clear();
+
+            final List<String> topLevelDirectories = new ArrayList<>();
+            for (ArtifactRepository repository : repositories) {
+                if (repository.getRootDir() == null) {
+                    continue;
+                }
+                final String[] children = new File(repository.getRootDir()).list();
+                if (children != null) {
+                    Collections.addAll(topLevelDirectories,
+                                       children);
+                }
+            }
+
+            final Index rebuilt = new Index();
+            final List<Future<?>> scans = new ArrayList<>();
+            topLevelDirectories.stream()
+                    .distinct()
+                    .forEach(directory -> scans.add(scanExecutor.submit(() -> refresh(rebuilt,
+                                                                                      directory))));
+            for (Future<?> scan : scans) {
+                scan.get();
+            }
+
+            index = rebuilt;
+            built = true;
+
+            for (String directory : refreshedDuringRebuild) {
+                refresh(rebuilt,
+                        directory);
+            }
+        } catch (InterruptedException e) {
+            // disposed while rebuilding
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            // disposed before the scans were submitted
+        } catch (ExecutionException | RuntimeException e) {
+            logger.error("Unable to build the artifact catalog.",
+                         e);
+        }
+    }
+
+    boolean isBuilt() {
+        return built;
+    }
+
+    public void dispose() {
+        executor.shutdownNow();
+        scanExecutor.shutdownNow();
+    }
+
+    private static boolean matches(final Entry entry,
+                                   final List<String> wildcards) {
+        for (String wildcard : wildcards) {
+            if (FilenameUtils.wildcardMatch(entry.getName(),
+                                            wildcard,
+                                            IOCase.INSENSITIVE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the wildcards match every catalogued file, so paging needs not look at the file names.
+     */
+    private static boolean isEverything(final List<String> wildcards) {
+        for (String wildcard : CATALOG_WILDCARDS) {
+            if (wildcards.stream().noneMatch(wildcard::equalsIgnoreCase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCatalogued(final List<String> wildcards) {
+        for (String wildcard : wildcards) {
+            if (!CATALOG_FILE_FORMATS.contains(FilenameUtils.getExtension(wildcard).toLowerCase())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A catalogued artifact, with the columns it is sorted on read once when it was catalogued.
+     */
+    public static class Entry {
+
+        private final Artifact artifact;
+        private final String path;
+        private final String name;
+        private final long lastModified;
+
+        Entry(final Artifact artifact) {
+            final File file = artifact.getFile();
+            this.artifact = artifact;
+            this.path = file.getPath();
+            this.name = file.getName();
+            this.lastModified = file.lastModified();
+        }
+
+        public Artifact getArtifact() {
+            return artifact;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /**
+     * One page of the catalog, with the number of entries of all the pages.
+     */
+    public static class Page {
+
+        private final List<Entry> entries;
+        private final int totalRowSize;
+
+        Page(final List<Entry> entries,
+             final int totalRowSize) {
+            this.entries = entries;
+            this.totalRowSize = totalRowSize;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        public int getTotalRowSize() {
+            return totalRowSize;
+        }
+    }
+
+    /**
+     * The catalog entries in every order they can be paged in. Updates are serialized so that the orders always
+     * hold the same entries; reads are not locked.
+     */
+    private static class Index {
+
+        // file path -> entry, sorted so that the entries below a directory form one contiguous range
+        private final ConcurrentNavigableMap<String, Entry> byPath = new ConcurrentSkipListMap<>();
+
+        private final NavigableSet<Entry> byName = new ConcurrentSkipListSet<>(Comparator.comparing(Entry::getName)
+                                                                                       .thenComparing(Entry::getPath));
+
+        private final NavigableSet<Entry> byLastModified = new ConcurrentSkipListSet<>(Comparator.comparingLong(Entry::getLastModified)
+                                                                                               .thenComparing(Entry::getPath));
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * Replaces the entries below the directory with the given prefix.
+         */
+        synchronized void replace(final String prefix,
+                                  final List<Entry> entries) {
+            final ConcurrentNavigableMap<String, Entry> directory = byPath.subMap(prefix,
+                                                                                  prefix + Character.MAX_VALUE);
+            for (Entry entry : directory.values()) {
+                byName.remove(entry);
+                byLastModified.remove(entry);
+            }
+            size.addAndGet(-directory.size());
+            directory.clear();
+            for (Entry entry : entries) {
+                final Entry previous = byPath.put(entry.getPath(),
+                                                  entry);
+                if (previous != null) {
+                    byName.remove(previous);
+                    byLastModified.remove(previous);
+                } else {
+                    size.incrementAndGet();
+                }
+                byName.add(entry);
+                byLastModified.add(entry);
+            }
+        }
+
+        Iterable<Entry> view(final SortOrder sortOrder,
+                             final boolean isAscending) {
+            switch (sortOrder) {
+                case NAME:
+                    return isAscending ? byName : byName.descendingSet();
+                case LAST_MODIFIED:
+                    return isAscending ? byLastModified : byLastModified.descendingSet();
+                default:
+                    return isAscending ? byPath.values() : byPath.descendingMap().values();
+            }
+        }
+
+        int size() {
+            return size.get();
+        }
+    }
+}
@@ -38,6 +38,7 @@ import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -69,6 +70,7 @@ public class GuvnorM2Repository {
     private final List<ArtifactRepository> repositories = new ArrayList<>();
     private final List<ArtifactRepository> pomRepositories = new ArrayList<>();
     private ArtifactRepositoryService artifactRepositoryFactory;
+    private ArtifactCatalog catalog;
 
     public GuvnorM2Repository() {
     }
@@ -81,6 +83,15 @@ public class GuvnorM2Repository {
     @PostConstruct
     public void init() {
         setM2Repos();
+        catalog = new ArtifactCatalog(repositories);
+        catalog.start();
+    }
+
+    @PreDestroy
+    public void dispose() {
+        if (catalog != null) {
+            catalog.dispose();
+        }
     }
 
     private void setM2Repos() {
@@ -249,6 +260,7 @@ public class GuvnorM2Repository {
                 artifactRepository.deploy(pomXML,
                                           finalPomXMLArtifact);
             });
+            refreshCatalog(gav);
         } finally {
             try {
                 pomXMLFile.delete();
@@ -290,6 +302,7 @@ public class GuvnorM2Repository {
             this.repositories.forEach((repository) -> repository.deploy(pomXML,
                                                                         finalJarArtifact,
                                                                         finalPomXMLArtifact));
+            refreshCatalog(gav);
 
             //Only deploy to additional repositories if required. This flag is principally for Unit Tests
             if (!includeAdditionalRepositories) {
@@ -345,6 +358,13 @@ public class GuvnorM2Repository {
             artifactRepository.deploy(null,
                                       finalPomArtifact);
         });
+        refreshCatalog(gav);
+    }
+
+    private void refreshCatalog(final GAV gav) {
+        if (catalog != null) {
+            catalog.refresh(gav);
+        }
     }
 
     /**
@@ -399,7 +419,37 @@ public class GuvnorM2Repository {
     }
 
     public List<Artifact> listArtifacts(final String filters,
-                                        List<String> fileFormats) {
+                                        final List<String> fileFormats) {
+        final List<Artifact> files = new ArrayList<>(getArtifacts(toWildcards(filters,
+                                                                              fileFormats)));
+
+        return files;
+    }
+
+    /**
+     * Reads one page of the artifacts matching the filters from the artifact catalog, in the given order.
+     * @return the page, or null when the catalog can not answer and {@link #listArtifacts(String, List)} has to be
+     * used instead
+     */
+    public ArtifactCatalog.Page pageArtifacts(final String filters,
+                                              final List<String> fileFormats,
+                                              final ArtifactCatalog.SortOrder sortOrder,
+                                              final boolean isAscending,
+                                              final int startRowIndex,
+                                              final Integer pageSize) {
+        if (catalog == null) {
+            return null;
+        }
+        return catalog.page(toWildcards(filters,
+                                        fileFormats),
+                            sortOrder,
+                            isAscending,
+                            startRowIndex,
+                            pageSize);
+    }
+
+    private List<String> toWildcards(final String filters,
+                                     List<String> fileFormats) {
         final List<String> wildcards = new ArrayList<String>();
         String wildcardPrefix = "";
 
@@ -417,10 +467,7 @@ public class GuvnorM2Repository {
         for (String fileFormat : fileFormats) {
             wildcards.add(wildcardPrefix + "*." + fileFormat);
         }
-
-        final List<Artifact> files = new ArrayList<>(getArtifacts(wildcards));
-
-        return files;
+        return wildcards;
     }
 
     protected Collection<File> getFiles(final List<String> wildcards) {
@@ -430,6 +477,10 @@ public class GuvnorM2Repository {
     }
 
     protected Collection<Artifact> getArtifacts(final List<String> wildcards) {
+        final List<Artifact> catalogued = catalog == null ? null : catalog.find(wildcards);
+        if (catalogued != null) {
+            return catalogued;
+        }
         return this.repositories.stream()
                 .flatMap(artifactRepository -> artifactRepository.listArtifacts(wildcards).stream())
                 .collect(Collectors.toList());
@@ -22,11 +22,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -39,6 +42,7 @@ import org.guvnor.m2repo.model.JarListPageRequest;
 import org.guvnor.m2repo.model.JarListPageRow;
 import org.guvnor.m2repo.service.M2RepoService;
 import org.jboss.errai.bus.server.annotations.Service;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.paging.PageResponse;
 
 @Service
@@ -48,8 +52,20 @@ import org.uberfire.paging.PageResponse;
 public class M2RepoServiceImpl implements M2RepoService,
                                           ExtendedM2RepoService {
 
+    private static final int GAV_CACHE_SIZE = new ConfigProperties(System.getProperties()).get("org.guvnor.m2repo.gav.cache.size",
+                                                                                               "50000").getIntValue(50000);
+
     private GuvnorM2Repository repository;
 
+    private final Map<String, CachedGAV> gavCache = Collections.synchronizedMap(new LinkedHashMap<String, CachedGAV>(16,
+                                                                                                                   0.75f,
+                                                                                                                   true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CachedGAV> eldest) {
+            return size() > GAV_CACHE_SIZE;
+        }
+    });
+
     public M2RepoServiceImpl() {
     }
 
@@ -98,98 +114,168 @@ public class M2RepoServiceImpl implements M2RepoService,
 
     @Override
     public PageResponse<JarListPageRow> listArtifacts(final JarListPageRequest pageRequest) {
-        //Get unsorted files matching filter
         final String filters = pageRequest.getFilters();
         final List<String> fileFormats = pageRequest.getFileFormats();
         final String dataSourceName = pageRequest.getDataSourceName();
         final boolean isAscending = pageRequest.isAscending();
-        final Collection<Artifact> files = repository.listArtifacts(filters,
-                                                                    fileFormats);
-
-        //Convert files to JarListPageRow
-        final List<JarListPageRow> jarPageRowList = new ArrayList<JarListPageRow>();
-        for (Artifact artifact : files) {
-            final File file = artifact.getFile();
-            JarListPageRow jarListPageRow = new JarListPageRow();
-            jarListPageRow.setName(file.getName());
-            jarListPageRow.setPath(getJarPath(file.getPath(),
-                                              File.separator));
-            jarListPageRow.setGav(getGAV(jarListPageRow.getPath()));
-            jarListPageRow.setLastModified(new Date(file.lastModified()));
-            jarListPageRow.setRepositoryName(artifact.getProperty("repository",
-                                                                  "undefined"));
-            jarPageRowList.add(jarListPageRow);
+        final Integer pageSize = pageRequest.getPageSize();
+        final int startRowIndex = pageRequest.getStartRowIndex();
+
+        //Read the page straight from the artifact catalog, when it is kept in the requested order
+        final ArtifactCatalog.SortOrder sortOrder = toSortOrder(dataSourceName);
+        if (sortOrder != null) {
+            final ArtifactCatalog.Page page = repository.pageArtifacts(filters,
+                                                                       fileFormats,
+                                                                       sortOrder,
+                                                                       dataSourceName == null || isAscending,
+                                                                       startRowIndex,
+                                                                       pageSize);
+            if (page != null) {
+                final List<JarListPageRow> responsePageRowList = new ArrayList<JarListPageRow>();
+                for (ArtifactCatalog.Entry entry : page.getEntries()) {
+                    responsePageRowList.add(toJarListPageRow(entry.getArtifact(),
+                                                             entry.getLastModified()));
+                }
+                return toPageResponse(pageRequest,
+                                      responsePageRowList,
+                                      page.getTotalRowSize());
+            }
         }
 
-        //Sort JarListPageRow entries, if required
+        //Otherwise get unsorted files matching filter
+        final List<Artifact> files = new ArrayList<>(repository.listArtifacts(filters,
+                                                                              fileFormats));
+
+        //Sort entries, if required. Only the sort column is computed for every entry, the remaining
+        //columns are computed for the requested page only.
         if (dataSourceName != null) {
-            final int order = (isAscending ? 1 : -1);
             if (dataSourceName.equals(JarListPageRequest.COLUMN_NAME)) {
-                Collections.sort(jarPageRowList,
-                                 new Comparator<JarListPageRow>() {
-                                     @Override
-                                     public int compare(final JarListPageRow o1,
-                                                        final JarListPageRow o2) {
-                                         return o1.getName().compareTo(o2.getName()) * order;
-                                     }
-                                 });
+                sort(files,
+                     artifact -> artifact.getFile().getName(),
+                     Comparator.<String>naturalOrder(),
+                     isAscending);
             } else if (dataSourceName.equals(JarListPageRequest.COLUMN_PATH)) {
-                Collections.sort(jarPageRowList,
-                                 new Comparator<JarListPageRow>() {
-                                     @Override
-                                     public int compare(final JarListPageRow o1,
-                                                        final JarListPageRow o2) {
-                                         return o1.getPath().compareTo(o2.getPath()) * order;
-                                     }
-                                 });
+                sort(files,
+                     artifact -> getJarPath(artifact.getFile().getPath(),
+                                            File.separator),
+                     Comparator.<String>naturalOrder(),
+                     isAscending);
             } else if (dataSourceName.equals(JarListPageRequest.COLUMN_GAV)) {
-                Collections.sort(jarPageRowList,
-                                 new Comparator<JarListPageRow>() {
-                                     @Override
-                                     public int compare(final JarListPageRow o1,
-                                                        final JarListPageRow o2) {
-                                         final GAV gav1 = o1.getGav();
-                                         final GAV gav2 = o2.getGav();
-                                         return gav1.toString().compareToIgnoreCase(gav2.toString()) * order;
-                                     }
-                                 });
+                sort(files,
+                     artifact -> getCachedGAV(artifact.getFile()).toString(),
+                     String.CASE_INSENSITIVE_ORDER,
+                     isAscending);
             } else if (dataSourceName.equals(JarListPageRequest.COLUMN_LAST_MODIFIED)) {
-                Collections.sort(jarPageRowList,
-                                 new Comparator<JarListPageRow>() {
-                                     @Override
-                                     public int compare(final JarListPageRow o1,
-                                                        final JarListPageRow o2) {
-                                         final Long ft1 = o1.getLastModified().getTime();
-                                         final Long ft2 = o2.getLastModified().getTime();
-                                         return ft1.compareTo(ft2) * order;
-                                     }
-                                 });
+                sort(files,
+                     artifact -> artifact.getFile().lastModified(),
+                     Comparator.<Long>naturalOrder(),
+                     isAscending);
             }
         }
 
         //Copy request "page" of entries to response
-        final Integer pageSize = pageRequest.getPageSize();
-        final int startRowIndex = pageRequest.getStartRowIndex();
-        final int endRowIndex = Math.min(jarPageRowList.size(),
-                                         (pageSize == null ? jarPageRowList.size() : startRowIndex + pageSize));
+        final int endRowIndex = Math.min(files.size(),
+                                         (pageSize == null ? files.size() : startRowIndex + pageSize));
         final List<JarListPageRow> responsePageRowList = new ArrayList<JarListPageRow>();
-        if (startRowIndex < jarPageRowList.size()) {
+        if (startRowIndex < files.size()) {
             int i = startRowIndex;
-            while (i < endRowIndex && i < jarPageRowList.size()) {
-                responsePageRowList.add(jarPageRowList.get(i));
+            while (i < endRowIndex && i < files.size()) {
+                final Artifact artifact = files.get(i);
+                responsePageRowList.add(toJarListPageRow(artifact,
+                                                         artifact.getFile().lastModified()));
                 i++;
             }
         }
 
+        return toPageResponse(pageRequest,
+                              responsePageRowList,
+                              files.size());
+    }
+
+    /**
+     * The catalog order matching the sort column, or null when the catalog is not kept in that order. Unsorted
+     * requests are served in path order.
+     */
+    private static ArtifactCatalog.SortOrder toSortOrder(final String dataSourceName) {
+        if (dataSourceName == null || dataSourceName.equals(JarListPageRequest.COLUMN_PATH)) {
+            return ArtifactCatalog.SortOrder.PATH;
+        } else if (dataSourceName.equals(JarListPageRequest.COLUMN_NAME)) {
+            return ArtifactCatalog.SortOrder.NAME;
+        } else if (dataSourceName.equals(JarListPageRequest.COLUMN_LAST_MODIFIED)) {
+            return ArtifactCatalog.SortOrder.LAST_MODIFIED;
+        }
+        return null;
+    }
+
+    private PageResponse<JarListPageRow> toPageResponse(final JarListPageRequest pageRequest,
+                                                        final List<JarListPageRow> responsePageRowList,
+                                                        final int totalRowSize) {
         final PageResponse<JarListPageRow> response = new PageResponse<JarListPageRow>();
         response.setPageRowList(responsePageRowList);
         response.setStartRowIndex(pageRequest.getStartRowIndex());
-        response.setTotalRowSize(files.size());
+        response.setTotalRowSize(totalRowSize);
         response.setTotalRowSizeExact(true);
 
         return response;
     }
 
+    private JarListPageRow toJarListPageRow(final Artifact artifact,
+                                            final long lastModified) {
+        final File file = artifact.getFile();
+        final JarListPageRow jarListPageRow = new JarListPageRow();
+        jarListPageRow.setName(file.getName());
+        jarListPageRow.setPath(getJarPath(file.getPath(),
+                                          File.separator));
+        jarListPageRow.setGav(getCachedGAV(file,
+                                           lastModified));
+        jarListPageRow.setLastModified(new Date(lastModified));
+        jarListPageRow.setRepositoryName(artifact.getProperty("repository",
+                                                              "undefined"));
+        return jarListPageRow;
+    }
+
+    /**
+     * Sorts the artifacts computing the sort key once per artifact. Ties are broken by file path, so the
+     * same request always pages through the same order.
+     */
+    private <K> void sort(final List<Artifact> artifacts,
+                          final Function<Artifact, K> key,
+                          final Comparator<K> comparator,
+                          final boolean isAscending) {
+        final Map<Artifact, K> keys = new IdentityHashMap<>(artifacts.size());
+        for (Artifact artifact : artifacts) {
+            keys.put(artifact,
+                     key.apply(artifact));
+        }
+        final Comparator<Artifact> byKey = (o1, o2) -> comparator.compare(keys.get(o1),
+                                                                          keys.get(o2));
+        artifacts.sort((isAscending ? byKey : byKey.reversed())
+                               .thenComparing(artifact -> artifact.getFile().getPath()));
+    }
+
+    /**
+     * Reads the GAV of an artifact, reusing the last one read while the file is unchanged.
+     */
+    GAV getCachedGAV(final File file) {
+        return getCachedGAV(file,
+                            file.lastModified());
+    }
+
+    private GAV getCachedGAV(final File file,
+                             final long lastModified) {
+        final String path = getJarPath(file.getPath(),
+                                       File.separator);
+        final CachedGAV cached = gavCache.get(path);
+        if (cached != null && cached.lastModified == lastModified) {
+            return cached.gav;
+        }
+        final GAV gav = getGAV(path);
+        gavCache.put(path,
+                     new CachedGAV(lastModified,
+                                   gav));
+        return gav;
+    }
+
     // The file separator is provided as a parameter so that we can test for correct JAR path creation on both
     // Windows and Linux based Operating Systems in Unit tests running on either platform. See JarPathTest.
     String getJarPath(final String path,
@@ -261,4 +347,16 @@ public class M2RepoServiceImpl implements M2RepoService,
             throw new RuntimeException("Invalid path provided!");
         }
     }
+
+    private static class CachedGAV {
+
+        private final long lastModified;
+        private final GAV gav;
+
+        CachedGAV(final long lastModified,
+                  final GAV gav) {
+            this.lastModified = lastModified;
+            this.gav = gav;
+        }
+    }
 }
@@ -19,6 +19,7 @@ package org.guvnor.m2repo.backend.server.repositories;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.aether.artifact.Artifact;
@@ -55,6 +56,18 @@ public interface ArtifactRepository {
      */
     Collection<Artifact> listArtifacts(final List<String> wildcards);
 
+    /**
+     * List repository artifacts below one directory, filtered by wildcards. Repositories that can not be listed
+     * return no artifacts.
+     * @param directory the directory, relative to the root dir of the repository
+     * @param wildcards the filtering wildcards
+     * @return the artifacts
+     */
+    default Collection<Artifact> listArtifacts(final String directory,
+                                               final List<String> wildcards) {
+        return Collections.emptyList();
+    }
+
     /**
      * Deploy a list of artifact into a repository
      * @param pom the artifact pom
@@ -20,6 +20,7 @@ package org.guvnor.m2repo.backend.server.repositories;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -84,7 +85,16 @@ public class FileSystemArtifactRepository implements ArtifactRepository {
 
     @Override
     public Collection<File> listFiles(final List<String> wildcards) {
-        return FileUtils.listFiles(new File(this.getRepositoryDirectory()),
+        return listFiles(new File(this.getRepositoryDirectory()),
+                         wildcards);
+    }
+
+    private Collection<File> listFiles(final File directory,
+                                       final List<String> wildcards) {
+        if (!directory.isDirectory()) {
+            return Collections.emptyList();
+        }
+        return FileUtils.listFiles(directory,
                                    new WildcardFileFilter(wildcards,
                                                           IOCase.INSENSITIVE),
                                    DirectoryFileFilter.DIRECTORY);
@@ -92,8 +102,18 @@ public class FileSystemArtifactRepository implements ArtifactRepository {
 
     @Override
     public Collection<Artifact> listArtifacts(final List<String> wildcards) {
-        final Collection<File> files = this.listFiles(wildcards);
+        return toArtifacts(this.listFiles(wildcards));
+    }
+
+    @Override
+    public Collection<Artifact> listArtifacts(final String directory,
+                                              final List<String> wildcards) {
+        return toArtifacts(this.listFiles(new File(this.getRepositoryDirectory(),
+                                                   directory),
+                                          wildcards));
+    }
 
+    private Collection<Artifact> toArtifacts(final Collection<File> files) {
         return files.stream().map(file -> {
             final HashMap<String, String> map = new HashMap<String, String>();
             map.put("repository",
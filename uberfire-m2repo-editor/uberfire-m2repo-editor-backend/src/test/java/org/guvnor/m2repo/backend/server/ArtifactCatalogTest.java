@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.guvnor.m2repo.backend.server;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.repositories.ArtifactRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ArtifactCatalogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ArtifactRepository repository;
+
+    private File root;
+
+    private ArtifactCatalog catalog;
+
+    @Before
+    public void setup() throws Exception {
+        root = temporaryFolder.getRoot();
+        new File(root,
+                 "org").mkdirs();
+
+        repository = mock(ArtifactRepository.class);
+        when(repository.getRootDir()).thenReturn(root.getPath());
+        when(repository.listArtifacts(eq("org"),
+                                      anyListOf(String.class))).thenReturn(Arrays.asList(artifact("org/foo/foo/1.0/foo-1.0.jar"),
+                                                                                         artifact("org/foo/foo/1.0/foo-1.0.pom"),
+                                                                                         artifact("org/bar/bar/1.0/bar-1.0.jar")));
+
+        catalog = new ArtifactCatalog(Collections.singletonList(repository));
+        catalog.rebuild();
+    }
+
+    @After
+    public void tearDown() {
+        catalog.dispose();
+    }
+
+    @Test
+    public void testFindByWildcard() {
+        assertTrue(catalog.isBuilt());
+
+        final List<Artifact> all = catalog.find(Arrays.asList("*.jar",
+                                                              "*.pom"));
+        assertEquals(3,
+                     all.size());
+        // ordered by path
+        assertEquals("bar-1.0.jar",
+                     all.get(0).getFile().getName());
+
+        final List<Artifact> foo = catalog.find(Collections.singletonList("*FOO*.jar"));
+        assertEquals(1,
+                     foo.size());
+        assertEquals("foo-1.0.jar",
+                     foo.get(0).getFile().getName());
+    }
+
+    @Test
+    public void testFindOutsideOfCatalogFormats() {
+        assertNull(catalog.find(Collections.singletonList("*.war")));
+    }
+
+    @Test
+    public void testRefreshReplacesArtifactVersionDirectory() {
+        final String directory = "org" + File.separator + "foo" + File.separator + "foo" + File.separator + "1.0";
+        when(repository.listArtifacts(eq(directory),
+                                      anyListOf(String.class))).thenReturn(Collections.singletonList(artifact("org/foo/foo/1.0/foo-1.0.kjar")));
+
+        catalog.refresh(new GAV("org.foo",
+                                "foo",
+                                "1.0"));
+
+        final List<Artifact> foo = catalog.find(Arrays.asList("*foo*.jar",
+                                                              "*foo*.kjar",
+                                                              "*foo*.pom"));
+        assertEquals(1,
+                     foo.size());
+        assertEquals("foo-1.0.kjar",
+                     foo.get(0).getFile().getName());
+    }
+
+    @Test
+    public void testRebuildScansOnCatalogThreads() {
+        final AtomicReference<String> scanThread = new AtomicReference<>();
+        when(repository.listArtifacts(eq("org"),
+                                      anyListOf(String.class))).thenAnswer(invocation -> {
+            scanThread.set(Thread.currentThread().getName());
+            return Collections.singletonList(artifact("org/foo/foo/1.0/foo-1.0.jar"));
+        });
+
+        catalog.rebuild();
+
+        assertEquals("m2repo-catalog-scan",
+                     scanThread.get());
+        assertEquals(1,
+                     catalog.find(Collections.singletonList("*.jar")).size());
+    }
+
+    @Test
+    public void testPageInSortOrder() throws Exception {
+        final String directory = "org" + File.separator + "foo" + File.separator + "foo" + File.separator + "1.0";
+        when(repository.listArtifacts(eq(directory),
+                                      anyListOf(String.class))).thenReturn(Arrays.asList(modified("org/foo/foo/1.0/c-1.0.jar",
+                                                                                                  1000L),
+                                                                                         modified("org/foo/foo/1.0/a-1.0.jar",
+                                                                                                  3000L),
+                                                                                         modified("org/foo/foo/1.0/b-1.0.pom",
+                                                                                                  2000L)));
+        catalog.refresh(new GAV("org.foo",
+                                "foo",
+                                "1.0"));
+        final List<String> everything = Arrays.asList("*.jar",
+                                                      "*.kjar",
+                                                      "*.pom");
+
+        final ArtifactCatalog.Page byName = catalog.page(everything,
+                                                         ArtifactCatalog.SortOrder.NAME,
+                                                         true,
+                                                         0,
+                                                         2);
+        assertEquals(4,
+                     byName.getTotalRowSize());
+        assertEquals(Arrays.asList("a-1.0.jar",
+                                   "b-1.0.pom"),
+                     names(byName));
+
+        final ArtifactCatalog.Page newest = catalog.page(everything,
+                                                         ArtifactCatalog.SortOrder.LAST_MODIFIED,
+                                                         false,
+                                                         1,
+                                                         2);
+        assertEquals(4,
+                     newest.getTotalRowSize());
+        assertEquals(Arrays.asList("b-1.0.pom",
+                                   "c-1.0.jar"),
+                     names(newest));
+        assertEquals(2000L,
+                     newest.getEntries().get(0).getLastModified());
+
+        final ArtifactCatalog.Page jars = catalog.page(Collections.singletonList("*.jar"),
+                                                       ArtifactCatalog.SortOrder.PATH,
+                                                       false,
+                                                       0,
+                                                       null);
+        assertEquals(3,
+                     jars.getTotalRowSize());
+        assertEquals(Arrays.asList("c-1.0.jar",
+                                   "a-1.0.jar",
+                                   "bar-1.0.jar"),
+                     names(jars));
+    }
+
+    @Test
+    public void testRefreshKeepsEveryOrderInStep() {
+        final String directory = "org" + File.separator + "foo" + File.separator + "foo" + File.separator + "1.0";
+        when(repository.listArtifacts(eq(directory),
+                                      anyListOf(String.class))).thenReturn(Collections.emptyList());
+
+        catalog.refresh(new GAV("org.foo",
+                                "foo",
+                                "1.0"));
+
+        for (ArtifactCatalog.SortOrder sortOrder : ArtifactCatalog.SortOrder.values()) {
+            final ArtifactCatalog.Page page = catalog.page(Collections.singletonList("*.jar"),
+                                                           sortOrder,
+                                                           true,
+                                                           0,
+                                                           10);
+            assertEquals(Collections.singletonList("bar-1.0.jar"),
+                         names(page));
+        }
+    }
+
+    private List<String> names(final ArtifactCatalog.Page page) {
+        final List<String> names = new ArrayList<>();
+        for (ArtifactCatalog.Entry entry : page.getEntries()) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    private Artifact modified(final String path,
+                              final long lastModified) throws Exception {
+        final Artifact artifact = artifact(path);
+        artifact.getFile().getParentFile().mkdirs();
+        artifact.getFile().createNewFile();
+        artifact.getFile().setLastModified(lastModified);
+        return artifact;
+    }
+
+    private Artifact artifact(final String path) {
+        final ArtifactImpl artifact = new ArtifactImpl(new File(root,
+                                                                path.replace('/',
+                                                                             File.separatorChar)));
+        artifact.setProperties(new HashMap<>());
+        return artifact;
+    }
+}
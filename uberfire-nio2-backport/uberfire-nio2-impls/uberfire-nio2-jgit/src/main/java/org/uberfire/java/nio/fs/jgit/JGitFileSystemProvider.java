@@ -19,7 +19,6 @@ package org.uberfire.java.nio.fs.jgit;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FilterOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
@@ -88,6 +87,7 @@ import org.uberfire.java.nio.EncodingUtil;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.AbstractPath;
 import org.uberfire.java.nio.base.BasicFileAttributesImpl;
+import org.uberfire.java.nio.base.BranchChanges;
 import org.uberfire.java.nio.base.ExtendedAttributeView;
 import org.uberfire.java.nio.base.FileDiff;
 import org.uberfire.java.nio.base.FileSystemState;
@@ -134,7 +134,10 @@ import org.uberfire.java.nio.fs.jgit.daemon.git.Daemon;
 import org.uberfire.java.nio.fs.jgit.daemon.ssh.BaseGitCommand;
 import org.uberfire.java.nio.fs.jgit.daemon.ssh.GitSSHService;
 import org.uberfire.java.nio.fs.jgit.manager.JGitFileSystemsManager;
+import org.uberfire.java.nio.fs.jgit.manager.JGitGarbageCollector;
+import org.uberfire.java.nio.fs.jgit.util.BlobOutputStream;
 import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.PathInfoCache;
 import org.uberfire.java.nio.fs.jgit.util.ProxyAuthenticator;
 import org.uberfire.java.nio.fs.jgit.util.commands.PathUtil;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitContent;
@@ -202,6 +205,10 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
     JGitFileSystemsEventsManager fsEventsManager;
 
+    JGitGarbageCollector garbageCollector;
+
+    PathInfoCache pathInfoCache;
+
     /**
      * Creates a JGit filesystem provider which takes its configuration from system properties. In a normal production
      * deployment of UberFire, this is the constructor that will be invoked by the ServiceLoader mechanism.
@@ -234,6 +241,10 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
         setupConfigs(gitPrefs);
 
+        setupGarbageCollector();
+
+        setupPathInfoCache(gitPrefs);
+
         setupFileSystemsManager();
 
         setupFSEvents();
@@ -253,6 +264,14 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         fsEventsManager = new JGitFileSystemsEventsManager();
     }
 
+    private void setupGarbageCollector() {
+        garbageCollector = new JGitGarbageCollector(config);
+    }
+
+    private void setupPathInfoCache(final ConfigProperties gitPrefs) {
+        pathInfoCache = new PathInfoCache(gitPrefs);
+    }
+
     private void setupFileSystemsManager() {
         fsManager = new JGitFileSystemsManager(this,
                                                config);
@@ -498,6 +517,17 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         shutdownSSH();
         forceStopDaemon();
         fsManager.clear();
+        garbageCollector.clear();
+        if (fsEventsManager != null) {
+            fsEventsManager.shutdown();
+        }
+    }
+
+    /**
+     * Returns the scheduler that runs git garbage collection for the repositories of this provider.
+     */
+    public JGitGarbageCollector getGarbageCollector() {
+        return garbageCollector;
     }
 
     /**
@@ -662,13 +692,15 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                                    origin,
                                    fsName,
                                    credential,
-                                   config.isEnableKetch() ? leaders : null);
+                                   config.isEnableKetch() ? leaders : null,
+                                   pathInfoCache);
                 } else {
                     git = Git.clone(repoDest,
                                     origin,
                                     isMirror,
                                     credential,
-                                    config.isEnableKetch() ? leaders : null);
+                                    config.isEnableKetch() ? leaders : null,
+                                    pathInfoCache);
                 }
             } catch (InvalidRemoteException e) {
                 throw new RuntimeException(e);
@@ -676,7 +708,8 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         } else {
             git = Git.createRepository(repoDest,
                                        config.getHookDir(),
-                                       config.isEnableKetch() ? leaders : null);
+                                       config.isEnableKetch() ? leaders : null,
+                                       pathInfoCache);
         }
         return git;
     }
@@ -902,27 +935,13 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
             throw new NotDirectoryException(path.toString());
         }
 
-        try {
-            final File file = File.createTempFile("gitz",
-                                                  "woot");
-            return new FilterOutputStream(new FileOutputStream(file)) {
-                @Override
-                public void close() throws java.io.IOException {
-                    super.close();
-
-                    commit(gPath,
-                           buildCommitInfo("{" + toPathImpl(path).getPath() + "}",
-                                           Arrays.asList(options)),
-                           new DefaultCommitContent(new HashMap<String, File>() {{
-                               put(gPath.getPath(),
-                                   file);
-                           }}));
-                }
-            };
-        } catch (java.io.IOException e) {
-            throw new IOException("Could not create file or output stream.",
-                                  e);
-        }
+        return new BlobOutputStream(gPath.getFileSystem().getGit().getRepository(),
+                                    config.getWriteSpillThreshold(),
+                                    blob -> commit(gPath,
+                                                   buildCommitInfo("{" + toPathImpl(path).getPath() + "}",
+                                                                   Arrays.asList(options)),
+                                                   DefaultCommitContent.ofBlob(gPath.getPath(),
+                                                                               blob)));
     }
 
     private CommitInfo buildCommitInfo(final String defaultMessage,
@@ -2041,6 +2060,9 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
             map.put("diff",
                     diffs);
             return map;
+        } else if (s[0].equals(BranchChanges.VIEW)) {
+            return branchChanges(toPathImpl(path),
+                                 s[1]);
         } else {
             final ExtendedAttributeView view = getFileAttributeView(toPathImpl(path),
                                                                     s[0],
@@ -2225,6 +2247,58 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         throw new IllegalArgumentException("Path not supported by current provider.");
     }
 
+    private Map<String, Object> branchChanges(final JGitPathImpl path,
+                                              final String since) {
+        final Git git = path.getFileSystem().getGit();
+        final RevCommit head = git.getLastCommit(path.getRefTree());
+        final Map<String, Object> result = new HashMap<>();
+        if (head == null) {
+            return result;
+        }
+        result.put(BranchChanges.HEAD,
+                   head.name());
+        if (since.isEmpty() || since.equals(BranchChanges.HEAD)) {
+            return result;
+        }
+
+        final List<ObjectId> resolved = git.resolveObjectIds(since);
+        if (resolved.isEmpty()) {
+            return result;
+        }
+
+        final List<String> modified = new ArrayList<>();
+        final List<String> deleted = new ArrayList<>();
+        if (!resolved.get(0).equals(head.getId())) {
+            final ObjectId sinceTree;
+            try {
+                sinceTree = git.resolveRevCommit(resolved.get(0)).getTree().getId();
+            } catch (final java.io.IOException | RuntimeException e) {
+                LOG.warn("Unable to resolve commit '" + since + "' on branch '" + path.getRefTree() + "'.",
+                         e);
+                return result;
+            }
+            for (final DiffEntry entry : git.listDiffs(sinceTree,
+                                                       head.getTree().getId())) {
+                switch (entry.getChangeType()) {
+                    case DELETE:
+                        deleted.add(entry.getOldPath());
+                        break;
+                    case RENAME:
+                        deleted.add(entry.getOldPath());
+                        modified.add(entry.getNewPath());
+                        break;
+                    default:
+                        modified.add(entry.getNewPath());
+                }
+            }
+        }
+        result.put(BranchChanges.MODIFIED,
+                   modified);
+        result.put(BranchChanges.DELETED,
+                   deleted);
+        return result;
+    }
+
     private String[] split(final String attribute) {
         final String[] s = new String[2];
         final int pos = attribute.indexOf(':');
@@ -2285,11 +2359,15 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                                        commitContent);
             }
 
+            if (hasCommit) {
+                garbageCollector.recordWrite(fileSystem);
+            }
+
             if (!batchState) {
                 if (hasCommit) {
                     int value = fileSystem.incrementAndGetCommitCount();
                     if (value >= config.getCommitLimit()) {
-                        git.gc();
+                        garbageCollector.schedule(fileSystem);
                         fileSystem.resetCommitCount();
                     }
                 }
@@ -2298,6 +2376,10 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
                 postCommitHook(git.getRepository());
 
+                if (hasCommit) {
+                    git.updatePathTimes(branchName);
+                }
+
                 notifyDiffs(path.getFileSystem(),
                             branchName,
                             commitInfo.getSessionId(),
@@ -2352,6 +2434,7 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
             for (Map.Entry<String, NotificationModel> branchNameNotificationModelEntry : fileSystem.getOldHeadsOfPendingDiffs().entrySet()) {
                 final ObjectId newHead = fileSystem.getGit().getTreeFromRef(branchNameNotificationModelEntry.getKey());
+                fileSystem.getGit().updatePathTimes(branchNameNotificationModelEntry.getKey());
                 try {
                     notifyDiffs(fileSystem,
                                 branchNameNotificationModelEntry.getKey(),
@@ -2370,7 +2453,7 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
             int value = fileSystem.incrementAndGetCommitCount();
             if (value >= config.getCommitLimit()) {
-                fileSystem.getGit().gc();
+                garbageCollector.schedule(fileSystem);
                 fileSystem.resetCommitCount();
             }
         }
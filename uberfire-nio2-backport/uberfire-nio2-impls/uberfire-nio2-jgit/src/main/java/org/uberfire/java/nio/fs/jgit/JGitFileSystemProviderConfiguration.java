@@ -47,6 +47,12 @@ public class JGitFileSystemProviderConfiguration {
     public static final String GIT_SSH_ALGORITHM = "org.uberfire.nio.git.ssh.algorithm";
     public static final String GIT_SSH_PASSPHRASE = "org.uberfire.nio.git.ssh.passphrase";
     public static final String GIT_GC_LIMIT = "org.uberfire.nio.git.gc.limit";
+    public static final String GIT_GC_THREADS = "org.uberfire.nio.git.gc.threads";
+    public static final String GIT_GC_INTERVAL = "org.uberfire.nio.git.gc.interval";
+    public static final String GIT_GC_QUIET_PERIOD = "org.uberfire.nio.git.gc.quiet.period";
+    public static final String GIT_GC_LOOSE_OBJECTS = "org.uberfire.nio.git.gc.loose.objects";
+    public static final String GIT_GC_PACK_FILES = "org.uberfire.nio.git.gc.pack.files";
+    public static final String GIT_WRITE_SPILL_THRESHOLD = "org.uberfire.nio.git.write.spill.threshold";
     public static final String HTTP_PROXY_USER = "http.proxyUser";
     public static final String HTTP_PROXY_PASSWORD = "http.proxyPassword";
     public static final String HTTPS_PROXY_USER = "https.proxyUser";
@@ -74,11 +80,23 @@ public class JGitFileSystemProviderConfiguration {
     public static final String DEFAULT_SSH_ALGORITHM = "DSA";
     public static final String DEFAULT_SSH_CERT_PASSPHRASE = "";
     public static final String DEFAULT_COMMIT_LIMIT_TO_GC = "20";
+    public static final String DEFAULT_GC_THREADS = "1";
+    public static final String DEFAULT_GC_INTERVAL = "60000";
+    public static final String DEFAULT_GC_QUIET_PERIOD = "2000";
+    public static final String DEFAULT_GC_LOOSE_OBJECTS = "50";
+    public static final String DEFAULT_GC_PACK_FILES = "20";
+    public static final String DEFAULT_WRITE_SPILL_THRESHOLD = "1048576";
     public static final String DEFAULT_JGIT_FILE_SYSTEM_INSTANCES_CACHE = "20";
     public static final String DEFAULT_GIT_ENV_KEY_MIGRATE_FROM = "migrate-from";
     public static final String DEFAULT_ENABLE_GIT_KETCH = "false";
 
     private int commitLimit;
+    private int gcThreads;
+    private long gcInterval;
+    private long gcQuietPeriod;
+    private int gcLooseObjects;
+    private int gcPackFiles;
+    private int writeSpillThreshold;
     private boolean daemonEnabled;
     private int daemonPort;
     private String daemonHostAddr;
@@ -142,6 +160,18 @@ public class JGitFileSystemProviderConfiguration {
                                                                                    DEFAULT_SSH_CERT_PASSPHRASE);
         final ConfigProperties.ConfigProperty commitLimitProp = systemConfig.get(GIT_GC_LIMIT,
                                                                                  DEFAULT_COMMIT_LIMIT_TO_GC);
+        final ConfigProperties.ConfigProperty gcThreadsProp = systemConfig.get(GIT_GC_THREADS,
+                                                                               DEFAULT_GC_THREADS);
+        final ConfigProperties.ConfigProperty gcIntervalProp = systemConfig.get(GIT_GC_INTERVAL,
+                                                                                DEFAULT_GC_INTERVAL);
+        final ConfigProperties.ConfigProperty gcQuietPeriodProp = systemConfig.get(GIT_GC_QUIET_PERIOD,
+                                                                                   DEFAULT_GC_QUIET_PERIOD);
+        final ConfigProperties.ConfigProperty gcLooseObjectsProp = systemConfig.get(GIT_GC_LOOSE_OBJECTS,
+                                                                                    DEFAULT_GC_LOOSE_OBJECTS);
+        final ConfigProperties.ConfigProperty gcPackFilesProp = systemConfig.get(GIT_GC_PACK_FILES,
+                                                                                 DEFAULT_GC_PACK_FILES);
+        final ConfigProperties.ConfigProperty writeSpillThresholdProp = systemConfig.get(GIT_WRITE_SPILL_THRESHOLD,
+                                                                                         DEFAULT_WRITE_SPILL_THRESHOLD);
 
         final ConfigProperties.ConfigProperty httpProxyUserProp = systemConfig.get(HTTP_PROXY_USER,
                                                                                    null);
@@ -178,6 +208,14 @@ public class JGitFileSystemProviderConfiguration {
         gitReposParentDir = new File(bareReposDirProp.getValue(),
                                      reposDirNameProp.getValue());
         commitLimit = commitLimitProp.getIntValue();
+        gcThreads = Math.max(1,
+                             gcThreadsProp.getIntValue());
+        gcInterval = Long.parseLong(gcIntervalProp.getValue());
+        gcQuietPeriod = Long.parseLong(gcQuietPeriodProp.getValue());
+        gcLooseObjects = gcLooseObjectsProp.getIntValue();
+        gcPackFiles = gcPackFilesProp.getIntValue();
+        writeSpillThreshold = Math.max(0,
+                                       writeSpillThresholdProp.getIntValue());
 
         jgitFileSystemsInstancesCache = jgitFileSystemsInstancesCacheProp.getIntValue();
 
@@ -222,6 +260,30 @@ public class JGitFileSystemProviderConfiguration {
         return commitLimit;
     }
 
+    public int getGcThreads() {
+        return gcThreads;
+    }
+
+    public long getGcInterval() {
+        return gcInterval;
+    }
+
+    public long getGcQuietPeriod() {
+        return gcQuietPeriod;
+    }
+
+    public int getGcLooseObjects() {
+        return gcLooseObjects;
+    }
+
+    public int getGcPackFiles() {
+        return gcPackFiles;
+    }
+
+    public int getWriteSpillThreshold() {
+        return writeSpillThreshold;
+    }
+
     public boolean isDaemonEnabled() {
         return daemonEnabled;
     }
@@ -16,13 +16,10 @@
 
 package org.uberfire.java.nio.fs.jgit;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
 import java.util.List;
 
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.FileTimeImpl;
 import org.uberfire.java.nio.base.version.VersionAttributeView;
@@ -32,6 +29,7 @@ import org.uberfire.java.nio.base.version.VersionRecord;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
 import org.uberfire.java.nio.file.attribute.FileTime;
+import org.uberfire.java.nio.fs.jgit.util.PathTimesIndex;
 import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
 import org.uberfire.java.nio.fs.jgit.util.model.PathType;
 
@@ -72,62 +70,28 @@ public class JGitVersionAttributeView extends VersionAttributeView<JGitPathImpl>
         }
 
         final Ref refId = fs.getGit().getRef(branchName);
-        final List<VersionRecord> records = new ArrayList<>();
-
-        if (refId != null) {
-            try {
-                for (final RevCommit commit : fs.getGit().listCommits(refId,
-                                                                      pathInfo.getPath())) {
-                    records.add(new VersionRecord() {
-                        @Override
-                        public String id() {
-                            return commit.name();
-                        }
-
-                        @Override
-                        public String author() {
-                            return commit.getAuthorIdent().getName();
-                        }
-
-                        @Override
-                        public String email() {
-                            return commit.getAuthorIdent().getEmailAddress();
-                        }
-
-                        @Override
-                        public String comment() {
-                            return commit.getFullMessage();
-                        }
-
-                        @Override
-                        public Date date() {
-                            return commit.getAuthorIdent().getWhen();
-                        }
-
-                        @Override
-                        public String uri() {
-                            return fs.getPath(commit.name(),
-                                              path).toUri().toString();
-                        }
-                    });
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
-
-        Collections.reverse(records);
+        final JGitVersionHistory history = new JGitVersionHistory(fs,
+                                                                  refId,
+                                                                  pathInfo.getPath());
 
         return new VersionAttributes() {
+
+            private PathTimesIndex.PathTimes times = null;
+
             @Override
             public VersionHistory history() {
-                return () -> records;
+                return history;
             }
 
             @Override
             public FileTime lastModifiedTime() {
-                if (records.size() > 0) {
-                    return new FileTimeImpl(records.get(records.size() - 1).date().getTime());
+                final PathTimesIndex.PathTimes times = times();
+                if (times != null) {
+                    return new FileTimeImpl(times.getLastModifiedTime());
+                }
+                final VersionRecord latest = history.latest();
+                if (latest != null) {
+                    return new FileTimeImpl(latest.date().getTime());
                 }
                 return null;
             }
@@ -139,12 +103,28 @@ public class JGitVersionAttributeView extends VersionAttributeView<JGitPathImpl>
 
             @Override
             public FileTime creationTime() {
+                final PathTimesIndex.PathTimes times = times();
+                if (times != null) {
+                    return new FileTimeImpl(times.getCreationTime());
+                }
+                final List<VersionRecord> records = history.records();
                 if (records.size() > 0) {
                     return new FileTimeImpl(records.get(0).date().getTime());
                 }
                 return null;
             }
 
+            /**
+             * Only branches are indexed: a path viewed at a given commit would need an index of its own.
+             */
+            private PathTimesIndex.PathTimes times() {
+                if (times == null && refId != null && refId.getName().startsWith(Constants.R_HEADS)) {
+                    times = fs.getGit().getPathTimes(branchName,
+                                                     pathInfo.getPath());
+                }
+                return times;
+            }
+
             @Override
             public boolean isRegularFile() {
                 return pathInfo.getPathType().equals(PathType.FILE);
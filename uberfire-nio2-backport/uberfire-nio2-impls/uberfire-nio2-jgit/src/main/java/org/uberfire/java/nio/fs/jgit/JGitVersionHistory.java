@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.uberfire.java.nio.base.version.VersionHistory;
+import org.uberfire.java.nio.base.version.VersionRecord;
+
+/**
+ * History of a path that walks the log lazily: pages only read the commits they return, and the full list of
+ * records is only built (once) when {@link #records()} is called.
+ */
+public class JGitVersionHistory implements VersionHistory {
+
+    private final JGitFileSystem fs;
+    private final Ref ref;
+    private final String path;
+
+    private List<VersionRecord> records = null;
+    private Integer size = null;
+
+    public JGitVersionHistory(final JGitFileSystem fs,
+                              final Ref ref,
+                              final String path) {
+        this.fs = fs;
+        this.ref = ref;
+        this.path = path;
+    }
+
+    @Override
+    public synchronized List<VersionRecord> records() {
+        if (records == null) {
+            final List<VersionRecord> result = page(0,
+                                                    -1);
+            Collections.reverse(result);
+            records = result;
+        }
+        return records;
+    }
+
+    @Override
+    public List<VersionRecord> page(final int startIndex,
+                                    final int endIndex) {
+        if (ref == null) {
+            return new ArrayList<>();
+        }
+        final int start = Math.max(0,
+                                   startIndex);
+        if (endIndex >= 0 && start >= endIndex) {
+            return new ArrayList<>();
+        }
+        try {
+            final List<RevCommit> commits = fs.getGit().listCommits(ref,
+                                                                    path,
+                                                                    start,
+                                                                    endIndex < 0 ? -1 : endIndex - start);
+            final List<VersionRecord> result = new ArrayList<>(commits.size());
+            for (final RevCommit commit : commits) {
+                result.add(toRecord(commit));
+            }
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        if (records != null) {
+            return records.size();
+        }
+        if (size == null) {
+            if (ref == null) {
+                size = 0;
+            } else {
+                try {
+                    size = fs.getGit().countCommits(ref,
+                                                    path);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        return size;
+    }
+
+    private VersionRecord toRecord(final RevCommit commit) {
+        return new VersionRecord() {
+            @Override
+            public String id() {
+                return commit.name();
+            }
+
+            @Override
+            public String author() {
+                return commit.getAuthorIdent().getName();
+            }
+
+            @Override
+            public String email() {
+                return commit.getAuthorIdent().getEmailAddress();
+            }
+
+            @Override
+            public String comment() {
+                return commit.getFullMessage();
+            }
+
+            @Override
+            public Date date() {
+                return commit.getAuthorIdent().getWhen();
+            }
+
+            @Override
+            public String uri() {
+                return fs.getPath(commit.name(),
+                                  path).toUri().toString();
+            }
+        };
+    }
+}
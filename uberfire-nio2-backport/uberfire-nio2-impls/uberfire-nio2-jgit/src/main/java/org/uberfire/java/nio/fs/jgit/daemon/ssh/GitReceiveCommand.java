@@ -63,7 +63,7 @@ public class GitReceiveCommand extends BaseGitCommand {
                        out,
                        err);
             rp.setPostReceiveHook((rp1, commands) -> {
-                fileSystem.getGit().gc();
+                ((JGitFileSystemProvider) fileSystem.provider()).getGarbageCollector().schedule(fileSystem);
                 fileSystem.resetCommitCount();
             });
         } catch (final Exception ignored) {
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystemProviderConfiguration;
+
+/**
+ * Runs git garbage collection off the committing threads.
+ * <p>
+ * Repositories are queued (at most once each) and packed by a small dedicated pool, no more often than
+ * {@link JGitFileSystemProviderConfiguration#GIT_GC_INTERVAL} per repository. A repository that was written to
+ * within the quiet period, or is on batch, is deferred so packing doesn't compete with active writers; and a
+ * repository whose loose object and pack file counts are below the configured thresholds is skipped.
+ */
+public class JGitGarbageCollector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JGitGarbageCollector.class);
+
+    private static final int MAX_DEFERRALS = 30;
+    private static final int HISTORY_SIZE = 10;
+
+    private final int threads;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private ScheduledThreadPoolExecutor executor;
+    private final long interval;
+    private final long quietPeriod;
+    private final int looseObjectsThreshold;
+    private final int packFilesThreshold;
+
+    private final ConcurrentMap<String, RepositoryState> repositories = new ConcurrentHashMap<>();
+
+    public JGitGarbageCollector(final JGitFileSystemProviderConfiguration config) {
+        this(config.getGcThreads(),
+             config.getGcInterval(),
+             config.getGcQuietPeriod(),
+             config.getGcLooseObjects(),
+             config.getGcPackFiles());
+    }
+
+    public JGitGarbageCollector(final int threads,
+                                final long interval,
+                                final long quietPeriod,
+                                final int looseObjectsThreshold,
+                                final int packFilesThreshold) {
+        this.threads = threads;
+        this.interval = interval;
+        this.quietPeriod = quietPeriod;
+        this.looseObjectsThreshold = looseObjectsThreshold;
+        this.packFilesThreshold = packFilesThreshold;
+    }
+
+    /**
+     * Records a write on the file system, so that a pending collection waits for it to go quiet.
+     */
+    public void recordWrite(final JGitFileSystem fs) {
+        stateOf(fs).lastWrite = System.currentTimeMillis();
+    }
+
+    /**
+     * Queues the file system for garbage collection.
+     * @return false if it was already queued.
+     */
+    public boolean schedule(final JGitFileSystem fs) {
+        final RepositoryState state = stateOf(fs);
+        if (!state.queued.compareAndSet(false,
+                                        true)) {
+            return false;
+        }
+        final long delay = Math.max(0,
+                                    state.lastRun + interval - System.currentTimeMillis());
+        if (!schedule(executor(),
+                      fs,
+                      state,
+                      delay)) {
+            state.queued.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean schedule(final ScheduledThreadPoolExecutor executor,
+                             final JGitFileSystem fs,
+                             final RepositoryState state,
+                             final long delay) {
+        try {
+            executor.schedule(() -> collect(executor,
+                                            fs,
+                                            state),
+                              delay,
+                              TimeUnit.MILLISECONDS);
+            return true;
+        } catch (final RejectedExecutionException e) {
+            // cleared meanwhile
+            return false;
+        }
+    }
+
+    private synchronized ScheduledThreadPoolExecutor executor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(threads,
+                                                       r -> {
+                                                           final Thread t = new Thread(r,
+                                                                                       "jgit-gc-" + threadCount.incrementAndGet());
+                                                           t.setDaemon(true);
+                                                           t.setPriority(Thread.MIN_PRIORITY);
+                                                           return t;
+                                                       });
+            executor.setKeepAliveTime(30,
+                                      TimeUnit.SECONDS);
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    void collect(final ScheduledThreadPoolExecutor executor,
+                 final JGitFileSystem fs,
+                 final RepositoryState state) {
+        if (!fs.isOpen()) {
+            state.queued.set(false);
+            return;
+        }
+
+        final long idle = System.currentTimeMillis() - state.lastWrite;
+        if ((idle < quietPeriod || fs.isOnBatch()) && state.deferrals < MAX_DEFERRALS) {
+            state.deferrals++;
+            if (!schedule(executor,
+                          fs,
+                          state,
+                          Math.max(quietPeriod - idle,
+                                   quietPeriod / 2 + 1))) {
+                state.queued.set(false);
+            }
+            return;
+        }
+
+        final int deferrals = state.deferrals;
+        state.deferrals = 0;
+        final long start = System.currentTimeMillis();
+        try {
+            final Statistics before = statisticsOf(fs);
+            if (before != null && before.looseObjects < looseObjectsThreshold && before.packFiles < packFilesThreshold) {
+                state.record(new Run(start,
+                                     0,
+                                     deferrals,
+                                     before,
+                                     before,
+                                     Outcome.SKIPPED));
+                return;
+            }
+
+            fs.getGit().gc();
+
+            state.record(new Run(start,
+                                 System.currentTimeMillis() - start,
+                                 deferrals,
+                                 before,
+                                 statisticsOf(fs),
+                                 Outcome.COLLECTED));
+        } catch (final Exception e) {
+            LOG.error("Garbage collection of repository '" + fs.getName() + "' failed.",
+                      e);
+            state.record(new Run(start,
+                                 System.currentTimeMillis() - start,
+                                 deferrals,
+                                 null,
+                                 null,
+                                 Outcome.FAILED));
+        } finally {
+            state.lastRun = System.currentTimeMillis();
+            state.queued.set(false);
+        }
+    }
+
+    private Statistics statisticsOf(final JGitFileSystem fs) throws IOException {
+        final Repository repository = fs.getGit().getRepository();
+        if (!(repository instanceof FileRepository)) {
+            return null;
+        }
+        final GC.RepoStatistics statistics = new GC((FileRepository) repository).getStatistics();
+        return new Statistics(statistics.numberOfLooseObjects,
+                              statistics.numberOfPackFiles,
+                              statistics.sizeOfLooseObjects,
+                              statistics.sizeOfPackedObjects);
+    }
+
+    private RepositoryState stateOf(final JGitFileSystem fs) {
+        return repositories.computeIfAbsent(fs.getName(),
+                                            k -> new RepositoryState());
+    }
+
+    public boolean isQueued(final String fsName) {
+        final RepositoryState state = repositories.get(fsName);
+        return state != null && state.queued.get();
+    }
+
+    /**
+     * @return the most recent runs for the repository, oldest first.
+     */
+    public List<Run> getHistory(final String fsName) {
+        final RepositoryState state = repositories.get(fsName);
+        if (state == null) {
+            return Collections.emptyList();
+        }
+        synchronized (state.history) {
+            return new ArrayList<>(state.history);
+        }
+    }
+
+    /**
+     * Drops every pending collection and stops the collector threads once a running collection, if any, is done.
+     * File systems can be queued again afterwards, on new threads.
+     */
+    public void clear() {
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdown();
+                executor.getQueue().clear();
+                executor = null;
+            }
+        }
+        repositories.clear();
+    }
+
+    static class RepositoryState {
+
+        final AtomicBoolean queued = new AtomicBoolean(false);
+        final Deque<Run> history = new ArrayDeque<>();
+        volatile long lastWrite;
+        volatile long lastRun;
+        int deferrals;
+
+        void record(final Run run) {
+            synchronized (history) {
+                if (history.size() == HISTORY_SIZE) {
+                    history.removeFirst();
+                }
+                history.addLast(run);
+            }
+        }
+    }
+
+    public enum Outcome {
+        COLLECTED,
+        SKIPPED,
+        FAILED
+    }
+
+    public static class Statistics {
+
+        private final long looseObjects;
+        private final long packFiles;
+        private final long sizeOfLooseObjects;
+        private final long sizeOfPackedObjects;
+
+        Statistics(final long looseObjects,
+                   final long packFiles,
+                   final long sizeOfLooseObjects,
+                   final long sizeOfPackedObjects) {
+            this.looseObjects = looseObjects;
+            this.packFiles = packFiles;
+            this.sizeOfLooseObjects = sizeOfLooseObjects;
+            this.sizeOfPackedObjects = sizeOfPackedObjects;
+        }
+
+        public long getLooseObjects() {
+            return looseObjects;
+        }
+
+        public long getPackFiles() {
+            return packFiles;
+        }
+
+        public long getSizeOfLooseObjects() {
+            return sizeOfLooseObjects;
+        }
+
+        public long getSizeOfPackedObjects() {
+            return sizeOfPackedObjects;
+        }
+    }
+
+    public static class Run {
+
+        private final long startedAt;
+        private final long duration;
+        private final int deferrals;
+        private final Statistics before;
+        private final Statistics after;
+        private final Outcome outcome;
+
+        Run(final long startedAt,
+            final long duration,
+            final int deferrals,
+            final Statistics before,
+            final Statistics after,
+            final Outcome outcome) {
+            this.startedAt = startedAt;
+            this.duration = duration;
+            this.deferrals = deferrals;
+            this.before = before;
+            this.after = after;
+            this.outcome = outcome;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        public int getDeferrals() {
+            return deferrals;
+        }
+
+        public Statistics getBefore() {
+            return before;
+        }
+
+        public Statistics getAfter() {
+            return after;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+    }
+}
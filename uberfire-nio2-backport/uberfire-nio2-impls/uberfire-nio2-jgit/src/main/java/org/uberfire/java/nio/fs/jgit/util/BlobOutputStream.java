@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.uberfire.java.nio.fs.jgit.util.model.InsertedBlob;
+
+/**
+ * Output stream that writes its content as a blob into the repository object database when closed, and hands
+ * the inserted blob to a callback (usually the commit).
+ * <p>
+ * A loose object header needs the content length up front, so bytes are kept in memory until they exceed the
+ * spill threshold; only bigger contents go through a temporary file, which is deleted as soon as the blob is
+ * inserted.
+ */
+public class BlobOutputStream extends OutputStream {
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    private final Repository repository;
+    private final int spillThreshold;
+    private final Consumer<InsertedBlob> onClose;
+
+    private byte[] buffer;
+    private int count;
+    private File spillFile;
+    private OutputStream spillStream;
+    private long length;
+    private boolean closed;
+
+    public BlobOutputStream(final Repository repository,
+                            final int spillThreshold,
+                            final Consumer<InsertedBlob> onClose) {
+        this.repository = repository;
+        this.spillThreshold = spillThreshold;
+        this.onClose = onClose;
+        this.buffer = new byte[Math.max(1,
+                                        Math.min(INITIAL_BUFFER_SIZE,
+                                                 spillThreshold))];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[]{(byte) b},
+              0,
+              1);
+    }
+
+    @Override
+    public void write(final byte[] b,
+                      final int off,
+                      final int len) throws IOException {
+        ensureOpen();
+        if (spillStream == null && count + len > spillThreshold) {
+            spill();
+        }
+        if (spillStream != null) {
+            spillStream.write(b,
+                              off,
+                              len);
+        } else {
+            if (count + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer,
+                                       Math.min(spillThreshold,
+                                                Math.max(buffer.length << 1,
+                                                         count + len)));
+            }
+            System.arraycopy(b,
+                             off,
+                             buffer,
+                             count,
+                             len);
+            count += len;
+        }
+        length += len;
+    }
+
+    private void spill() throws IOException {
+        spillFile = File.createTempFile("gitz",
+                                        "woot");
+        spillStream = new BufferedOutputStream(new FileOutputStream(spillFile));
+        spillStream.write(buffer,
+                          0,
+                          count);
+        buffer = null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (spillStream != null) {
+            spillStream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        final ObjectId blobId;
+        try (final ObjectInserter inserter = repository.newObjectInserter()) {
+            if (spillStream != null) {
+                spillStream.close();
+                try (final InputStream in = new FileInputStream(spillFile)) {
+                    blobId = inserter.insert(Constants.OBJ_BLOB,
+                                             length,
+                                             in);
+                }
+            } else {
+                blobId = inserter.insert(Constants.OBJ_BLOB,
+                                         buffer,
+                                         0,
+                                         count);
+            }
+            inserter.flush();
+        } finally {
+            buffer = null;
+            if (spillFile != null) {
+                spillFile.delete();
+            }
+        }
+
+        onClose.accept(new InsertedBlob(blobId,
+                                        length,
+                                        System.currentTimeMillis()));
+    }
+
+    /**
+     * @return true if the content went over the spill threshold and is being written to a temporary file.
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+    }
+}
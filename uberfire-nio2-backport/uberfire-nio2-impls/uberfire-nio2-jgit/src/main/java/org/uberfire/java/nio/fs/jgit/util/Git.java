@@ -62,9 +62,20 @@ public interface Git {
     static Git createRepository(final File repoDir,
                                 final File hookDir,
                                 final KetchLeaderCache leaders) {
+        return createRepository(repoDir,
+                                hookDir,
+                                leaders,
+                                null);
+    }
+
+    static Git createRepository(final File repoDir,
+                                final File hookDir,
+                                final KetchLeaderCache leaders,
+                                final PathInfoCache pathInfoCache) {
         return new CreateRepository(repoDir,
                                     hookDir,
-                                    leaders).execute().get();
+                                    leaders,
+                                    pathInfoCache).execute().get();
     }
 
     static Git fork(final File gitRepoContainerDir,
@@ -72,11 +83,26 @@ public interface Git {
                     final String name,
                     final CredentialsProvider credential,
                     final KetchLeaderCache leaders) throws InvalidRemoteException {
+        return fork(gitRepoContainerDir,
+                    origin,
+                    name,
+                    credential,
+                    leaders,
+                    null);
+    }
+
+    static Git fork(final File gitRepoContainerDir,
+                    final String origin,
+                    final String name,
+                    final CredentialsProvider credential,
+                    final KetchLeaderCache leaders,
+                    final PathInfoCache pathInfoCache) throws InvalidRemoteException {
         return new Fork(gitRepoContainerDir,
                         origin,
                         name,
                         credential,
-                        leaders).execute();
+                        leaders,
+                        pathInfoCache).execute();
     }
 
     static Git clone(final File repoDest,
@@ -84,11 +110,26 @@ public interface Git {
                      final boolean isMirror,
                      final CredentialsProvider credential,
                      final KetchLeaderCache leaders) throws InvalidRemoteException {
+        return clone(repoDest,
+                     origin,
+                     isMirror,
+                     credential,
+                     leaders,
+                     null);
+    }
+
+    static Git clone(final File repoDest,
+                     final String origin,
+                     final boolean isMirror,
+                     final CredentialsProvider credential,
+                     final KetchLeaderCache leaders,
+                     final PathInfoCache pathInfoCache) throws InvalidRemoteException {
         return new Clone(repoDest,
                          origin,
                          isMirror,
                          credential,
-                         leaders).execute().get();
+                         leaders,
+                         pathInfoCache).execute().get();
     }
 
     void convertRefTree();
@@ -114,6 +155,19 @@ public interface Git {
     List<RevCommit> listCommits(final ObjectId startRange,
                                 final ObjectId endRange);
 
+    List<RevCommit> listCommits(final Ref ref,
+                                final String path,
+                                final int skip,
+                                final int maxCount) throws IOException, GitAPIException;
+
+    int countCommits(final Ref ref,
+                     final String path) throws IOException, GitAPIException;
+
+    PathTimesIndex.PathTimes getPathTimes(final String branchName,
+                                          final String path);
+
+    void updatePathTimes(final String branchName);
+
     Repository getRepository();
 
     ObjectId getTreeFromRef(final String treeRef);
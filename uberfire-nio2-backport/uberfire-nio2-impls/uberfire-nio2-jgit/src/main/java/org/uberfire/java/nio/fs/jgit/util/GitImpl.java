@@ -21,6 +21,8 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jgit.api.AddCommand;
@@ -121,7 +123,9 @@ public class GitImpl implements Git {
 
     private org.eclipse.jgit.api.Git git;
     private KetchLeaderCache leaders;
+    private final PathInfoCache pathInfoCache;
     private final AtomicBoolean isHeadInitialized = new AtomicBoolean(false);
+    private final ConcurrentMap<String, PathTimesIndex> pathTimes = new ConcurrentHashMap<>();
 
     public GitImpl(final org.eclipse.jgit.api.Git git) {
         this(git,
@@ -130,8 +134,20 @@ public class GitImpl implements Git {
 
     public GitImpl(final org.eclipse.jgit.api.Git git,
                    final KetchLeaderCache leaders) {
+        this(git,
+             leaders,
+             null);
+    }
+
+    /**
+     * @param pathInfoCache cache shared by path lookups and listings, or null to always walk the tree
+     */
+    public GitImpl(final org.eclipse.jgit.api.Git git,
+                   final KetchLeaderCache leaders,
+                   final PathInfoCache pathInfoCache) {
         this.git = git;
         this.leaders = leaders;
+        this.pathInfoCache = pathInfoCache;
     }
 
     @Override
@@ -203,6 +219,42 @@ public class GitImpl implements Git {
                                                    endRange).execute());
     }
 
+    @Override
+    public List<RevCommit> listCommits(final Ref ref,
+                                       final String path,
+                                       final int skip,
+                                       final int maxCount) throws IOException, GitAPIException {
+        return new ListCommits(this,
+                               ref,
+                               path,
+                               skip,
+                               maxCount).execute();
+    }
+
+    @Override
+    public int countCommits(final Ref ref,
+                            final String path) throws IOException, GitAPIException {
+        return new ListCommits(this,
+                               ref,
+                               path).count();
+    }
+
+    @Override
+    public PathTimesIndex.PathTimes getPathTimes(final String branchName,
+                                                 final String path) {
+        return pathTimes.computeIfAbsent(branchName,
+                                         b -> new PathTimesIndex(getRepository(),
+                                                                 b)).get(path);
+    }
+
+    @Override
+    public void updatePathTimes(final String branchName) {
+        final PathTimesIndex index = pathTimes.get(branchName);
+        if (index != null) {
+            index.update();
+        }
+    }
+
     @Override
     public Repository getRepository() {
         return git.getRepository();
@@ -235,7 +287,8 @@ public class GitImpl implements Git {
     @Override
     public ObjectId getTreeFromRef(final String treeRef) {
         return new GetTreeFromRef(this,
-                                  treeRef).execute();
+                                  treeRef,
+                                  pathInfoCache).execute();
     }
 
     @Override
@@ -392,7 +445,8 @@ public class GitImpl implements Git {
         return retryIfNeeded(RuntimeException.class,
                              () -> new GetPathInfo(this,
                                                    branchName,
-                                                   path).execute());
+                                                   path,
+                                                   pathInfoCache).execute());
     }
 
     @Override
@@ -401,7 +455,8 @@ public class GitImpl implements Git {
         return retryIfNeeded(RuntimeException.class,
                              () -> new ListPathContent(this,
                                                        branchName,
-                                                       path).execute());
+                                                       path,
+                                                       pathInfoCache).execute());
     }
 
     @Override
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.uberfire.commons.config.ConfigProperties;
+import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
+
+/**
+ * Path lookups and directory listings keyed by the id of the root tree they were resolved against. Git trees are
+ * immutable, so entries never go stale and are only evicted, least recently used first. Equal tree ids have equal
+ * content in every repository, which lets a single instance be shared by all file systems of a provider.
+ */
+public class PathInfoCache {
+
+    public static final String PATH_INFO_CACHE_SIZE = "org.uberfire.nio.git.pathinfo.cache.size";
+    public static final String PATH_CONTENT_CACHE_SIZE = "org.uberfire.nio.git.pathcontent.cache.size";
+
+    private final Map<ObjectId, ObjectId> commitTrees;
+    private final Map<Key, PathInfo> pathInfos;
+    private final Map<Key, List<PathInfo>> pathContents;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public PathInfoCache(final ConfigProperties config) {
+        this(config.get(PATH_INFO_CACHE_SIZE,
+                        "10000").getIntValue(10000),
+             config.get(PATH_CONTENT_CACHE_SIZE,
+                        "1000").getIntValue(1000));
+    }
+
+    public PathInfoCache(final int maxPathInfos,
+                         final int maxPathContents) {
+        this.commitTrees = lru(maxPathContents);
+        this.pathInfos = lru(maxPathInfos);
+        this.pathContents = lru(maxPathContents);
+    }
+
+    public ObjectId getTree(final ObjectId commitId) {
+        return commitTrees.get(commitId);
+    }
+
+    public void putTree(final ObjectId commitId,
+                        final ObjectId treeId) {
+        commitTrees.put(commitId.copy(),
+                        treeId.copy());
+    }
+
+    public PathInfo getPathInfo(final ObjectId treeId,
+                                final String path) {
+        return count(pathInfos.get(new Key(treeId,
+                                           path)));
+    }
+
+    public void putPathInfo(final ObjectId treeId,
+                            final PathInfo pathInfo) {
+        pathInfos.put(new Key(treeId.copy(),
+                              pathInfo.getPath()),
+                      pathInfo);
+    }
+
+    /**
+     * Returns a copy of the cached listing, or null when the listing is not cached.
+     */
+    public List<PathInfo> getPathContent(final ObjectId treeId,
+                                         final String path) {
+        final List<PathInfo> content = count(pathContents.get(new Key(treeId,
+                                                                      path)));
+        return content == null ? null : new ArrayList<>(content);
+    }
+
+    public void putPathContent(final ObjectId treeId,
+                               final String path,
+                               final List<PathInfo> content) {
+        pathContents.put(new Key(treeId.copy(),
+                                 path),
+                         Collections.unmodifiableList(new ArrayList<>(content)));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+        return total == 0 ? 0d : (double) hitCount / total;
+    }
+
+    public int size() {
+        return pathInfos.size() + pathContents.size();
+    }
+
+    public void clear() {
+        commitTrees.clear();
+        pathInfos.clear();
+        pathContents.clear();
+    }
+
+    private <T> T count(final T value) {
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    private static <K, V> Map<K, V> lru(final int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16,
+                                                                   0.75f,
+                                                                   true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private static final class Key {
+
+        private final ObjectId treeId;
+        private final String path;
+
+        private Key(final ObjectId treeId,
+                    final String path) {
+            this.treeId = treeId;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return treeId.equals(key.treeId) && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * treeId.hashCode() + path.hashCode();
+        }
+    }
+}
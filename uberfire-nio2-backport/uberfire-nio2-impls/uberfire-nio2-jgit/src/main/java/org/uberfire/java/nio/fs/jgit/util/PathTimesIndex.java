@@ -0,0 +1,420 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.uberfire.java.nio.fs.jgit.util.commands.PathUtil.normalize;
+
+/**
+ * Creation and last modification time of every path of a branch, so that they don't need a walk over the
+ * path log.
+ * <p>
+ * The times are those of the oldest and newest commit touching the path (or anything below it, for
+ * directories). The index remembers the head it was built for and catches up by diffing only the commits made
+ * since then. It is persisted under the repository directory as an append-only log that is compacted when it
+ * grows, so a restart doesn't need a full rebuild. A full build runs on a background thread; lookups made meanwhile
+ * return null, so callers fall back to the path log.
+ */
+public class PathTimesIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PathTimesIndex.class);
+
+    private static final String INDEX_DIR = "uf-path-times";
+    private static final String HEAD_PREFIX = "@";
+
+    private static final ThreadPoolExecutor BUILDER = new ThreadPoolExecutor(1,
+                                                                             1,
+                                                                             30,
+                                                                             TimeUnit.SECONDS,
+                                                                             new LinkedBlockingQueue<>(),
+                                                                             r -> {
+                                                                                 final Thread t = new Thread(r,
+                                                                                                             "path-times-index");
+                                                                                 t.setDaemon(true);
+                                                                                 return t;
+                                                                             });
+
+    static {
+        BUILDER.allowCoreThreadTimeOut(true);
+    }
+
+    private final Repository repository;
+    private final String branchName;
+    private final File file;
+
+    private final Map<String, PathTimes> times = new HashMap<>();
+    private ObjectId indexedHead;
+    private boolean loaded = false;
+    private volatile boolean building = false;
+    private int logEntries = 0;
+
+    public PathTimesIndex(final Repository repository,
+                          final String branchName) {
+        this.repository = repository;
+        this.branchName = branchName;
+        this.file = repository.getDirectory() == null ? null : new File(new File(repository.getDirectory(),
+                                                                                  INDEX_DIR),
+                                                                         encode(branchName));
+    }
+
+    /**
+     * @return the times of the path on the current head of the branch, or null if the path was never committed or
+     * the index is still being built.
+     */
+    public PathTimes get(final String path) {
+        if (building) {
+            return null;
+        }
+        synchronized (this) {
+            if (!catchUp(false)) {
+                build();
+                return null;
+            }
+            return times.get(normalize(path));
+        }
+    }
+
+    /**
+     * Brings the index up to date with the head of the branch, catching up in place when possible; a full build
+     * (first use, or rewritten history) runs in the background.
+     */
+    public void update() {
+        if (building) {
+            return;
+        }
+        synchronized (this) {
+            if (!catchUp(false)) {
+                build();
+            }
+        }
+    }
+
+    /**
+     * Brings the index up to date with the head of the branch, building it in the calling thread if needed.
+     */
+    public synchronized void refresh() {
+        catchUp(true);
+    }
+
+    private void build() {
+        building = true;
+        try {
+            BUILDER.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    building = false;
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            building = false;
+        }
+    }
+
+    /**
+     * @return false if the index needs a full build that wasn't allowed.
+     */
+    private boolean catchUp(final boolean rebuildAllowed) {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+
+        try {
+            final ObjectId head = repository.resolve(branchName + "^{commit}");
+            if (head == null || head.equals(indexedHead)) {
+                return true;
+            }
+
+            final Map<String, PathTimes> changed = new HashMap<>();
+            final boolean rebuild;
+            try (final RevWalk rw = new RevWalk(repository)) {
+                final RevCommit headCommit = rw.parseCommit(head);
+                final ObjectId base = catchUpBase(rw,
+                                                  headCommit);
+                rebuild = base == null;
+                if (rebuild) {
+                    if (!rebuildAllowed) {
+                        return false;
+                    }
+                    times.clear();
+                }
+
+                rw.reset();
+                rw.sort(RevSort.TOPO);
+                rw.sort(RevSort.REVERSE,
+                        true);
+                rw.markStart(rw.parseCommit(head));
+                if (base != null) {
+                    rw.markUninteresting(rw.parseCommit(base));
+                }
+                for (final RevCommit commit : rw) {
+                    final long when = commit.getAuthorIdent().getWhen().getTime();
+                    for (final String path : changedPaths(rw,
+                                                          commit)) {
+                        touch(path,
+                              when,
+                              changed);
+                    }
+                }
+            }
+
+            indexedHead = head.copy();
+            persist(changed,
+                    rebuild);
+        } catch (final Exception e) {
+            LOG.error("Unable to update path times index of branch '" + branchName + "' on " + repository.getDirectory(),
+                      e);
+        }
+        return true;
+    }
+
+    /**
+     * @return the commit to catch up from: the indexed head if it's still an ancestor of the head, its parent if it
+     * was amended, or null if the history was rewritten and the index needs to be rebuilt.
+     */
+    private ObjectId catchUpBase(final RevWalk rw,
+                                 final RevCommit headCommit) throws IOException {
+        if (indexedHead == null) {
+            return null;
+        }
+        try {
+            final RevCommit indexed = rw.parseCommit(indexedHead);
+            if (rw.isMergedInto(indexed,
+                                headCommit)) {
+                return indexed;
+            }
+            rw.reset();
+            if (indexed.getParentCount() > 0) {
+                final RevCommit parent = rw.parseCommit(indexed.getParent(0));
+                if (rw.isMergedInto(parent,
+                                    headCommit)) {
+                    return parent;
+                }
+            }
+        } catch (final org.eclipse.jgit.errors.MissingObjectException e) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * @return the paths the commit changed: for a merge, like git log, only those that differ from every parent.
+     */
+    private Set<String> changedPaths(final RevWalk rw,
+                                     final RevCommit commit) throws IOException {
+        final Set<String> paths = new HashSet<>();
+        try (final TreeWalk tw = new TreeWalk(repository)) {
+            tw.setRecursive(true);
+            final int parents = commit.getParentCount();
+            if (parents > 0) {
+                for (final RevCommit parent : commit.getParents()) {
+                    tw.addTree(rw.parseCommit(parent).getTree());
+                }
+                tw.setFilter(TreeFilter.ANY_DIFF);
+            } else {
+                tw.addTree(new EmptyTreeIterator());
+            }
+            final int tree = tw.addTree(commit.getTree());
+            while (tw.next()) {
+                if (differsFromAll(tw,
+                                   tree)) {
+                    paths.add(tw.getPathString());
+                }
+            }
+        }
+        return paths;
+    }
+
+    private boolean differsFromAll(final TreeWalk tw,
+                                   final int tree) {
+        for (int i = 0; i < tree; i++) {
+            if (tw.getRawMode(i) == tw.getRawMode(tree) && tw.idEqual(i,
+                                                                    tree)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void touch(final String path,
+                       final long when,
+                       final Map<String, PathTimes> changed) {
+        String current = path;
+        while (true) {
+            final PathTimes previous = times.get(current);
+            // commits of merged branches are not walked in date order
+            final PathTimes updated = previous == null ? new PathTimes(when,
+                                                                       when) : new PathTimes(Math.min(previous.getCreationTime(),
+                                                                                                      when),
+                                                                                             Math.max(previous.getLastModifiedTime(),
+                                                                                                      when));
+            times.put(current,
+                      updated);
+            changed.put(current,
+                        updated);
+            if (current.isEmpty()) {
+                return;
+            }
+            final int lastSlash = current.lastIndexOf('/');
+            current = lastSlash < 0 ? "" : current.substring(0,
+                                                             lastSlash);
+        }
+    }
+
+    private void load() {
+        if (file == null || !file.exists()) {
+            return;
+        }
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                                                                                    StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(HEAD_PREFIX)) {
+                    indexedHead = ObjectId.fromString(line.substring(HEAD_PREFIX.length()));
+                    continue;
+                }
+                final String[] fields = line.split("\t",
+                                                   3);
+                if (fields.length == 3) {
+                    times.put(fields[2],
+                              new PathTimes(Long.parseLong(fields[0]),
+                                            Long.parseLong(fields[1])));
+                    logEntries++;
+                }
+            }
+        } catch (final Exception e) {
+            LOG.warn("Discarding unreadable path times index " + file,
+                     e);
+            times.clear();
+            indexedHead = null;
+            logEntries = 0;
+        }
+    }
+
+    private void persist(final Map<String, PathTimes> changed,
+                         final boolean rebuild) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.getParentFile().mkdirs();
+            if (rebuild || logEntries + changed.size() > 2 * times.size() + 1024) {
+                final File tmp = new File(file.getParentFile(),
+                                          file.getName() + ".tmp");
+                try (final Writer writer = newWriter(tmp,
+                                                     false)) {
+                    write(writer,
+                          times);
+                }
+                Files.move(tmp.toPath(),
+                           file.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING);
+                logEntries = times.size();
+            } else {
+                try (final Writer writer = newWriter(file,
+                                                     true)) {
+                    write(writer,
+                          changed);
+                }
+                logEntries += changed.size();
+            }
+        } catch (final IOException e) {
+            LOG.warn("Unable to persist path times index " + file,
+                     e);
+        }
+    }
+
+    private void write(final Writer writer,
+                       final Map<String, PathTimes> entries) throws IOException {
+        for (final Map.Entry<String, PathTimes> entry : entries.entrySet()) {
+            if (entry.getKey().indexOf('\n') >= 0) {
+                continue;
+            }
+            writer.write(entry.getValue().getCreationTime() + "\t" + entry.getValue().getLastModifiedTime() + "\t" + entry.getKey() + "\n");
+        }
+        writer.write(HEAD_PREFIX + indexedHead.name() + "\n");
+    }
+
+    private Writer newWriter(final File target,
+                             final boolean append) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target,
+                                                                              append),
+                                                         StandardCharsets.UTF_8));
+    }
+
+    private static String encode(final String branchName) {
+        try {
+            return URLEncoder.encode(branchName,
+                                     "UTF-8");
+        } catch (final java.io.UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class PathTimes {
+
+        private final long creationTime;
+        private final long lastModifiedTime;
+
+        public PathTimes(final long creationTime,
+                         final long lastModifiedTime) {
+            this.creationTime = creationTime;
+            this.lastModifiedTime = lastModifiedTime;
+        }
+
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+        public long getLastModifiedTime() {
+            return lastModifiedTime;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.RefSpec;
 import org.uberfire.commons.data.Pair;
 import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.PathInfoCache;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
@@ -41,12 +42,27 @@ public class Clone {
     private final CredentialsProvider credentialsProvider;
     private final boolean isMirror;
     private final KetchLeaderCache leaders;
+    private final PathInfoCache pathInfoCache;
 
     public Clone(final File directory,
                  final String origin,
                  final boolean isMirror,
                  final CredentialsProvider credentialsProvider,
                  final KetchLeaderCache leaders) {
+        this(directory,
+             origin,
+             isMirror,
+             credentialsProvider,
+             leaders,
+             null);
+    }
+
+    public Clone(final File directory,
+                 final String origin,
+                 final boolean isMirror,
+                 final CredentialsProvider credentialsProvider,
+                 final KetchLeaderCache leaders,
+                 final PathInfoCache pathInfoCache) {
         this.repoDir = checkNotNull("directory",
                                     directory);
         this.origin = checkNotEmpty("origin",
@@ -54,11 +70,14 @@ public class Clone {
         this.isMirror = isMirror;
         this.credentialsProvider = credentialsProvider;
         this.leaders = leaders;
+        this.pathInfoCache = pathInfoCache;
     }
 
     public Optional<Git> execute() throws InvalidRemoteException {
         final Git git = Git.createRepository(repoDir,
-                                             null);
+                                             null,
+                                             null,
+                                             pathInfoCache);
 
         if (git != null) {
             final Collection<RefSpec> refSpecList;
@@ -34,9 +34,9 @@ import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
-import org.uberfire.commons.data.Pair;
 import org.uberfire.java.nio.fs.jgit.util.Git;
 import org.uberfire.java.nio.fs.jgit.util.model.DefaultCommitContent;
+import org.uberfire.java.nio.fs.jgit.util.model.InsertedBlob;
 
 import static org.eclipse.jgit.lib.FileMode.REGULAR_FILE;
 
@@ -54,7 +54,7 @@ public class CreateDefaultCommitTree extends BaseCreateCommitTree<DefaultCommitC
 
     public Optional<ObjectId> execute() {
         final Map<String, File> content = commitContent.getContent();
-        final Map<String, Pair<File, ObjectId>> paths = new HashMap<>(content.size());
+        final Map<String, InsertedBlob> paths = new HashMap<>(content.size() + commitContent.getBlobs().size());
         final Set<String> path2delete = new HashSet<>();
 
         final DirCacheEditor editor = DirCache.newInCore().editor();
@@ -72,11 +72,15 @@ public class CreateDefaultCommitTree extends BaseCreateCommitTree<DefaultCommitC
                                                        gPath));
                 }
             }
+            for (final Map.Entry<String, InsertedBlob> pathAndBlob : commitContent.getBlobs().entrySet()) {
+                paths.put(PathUtil.normalize(pathAndBlob.getKey()),
+                          pathAndBlob.getValue());
+            }
 
             iterateOverTreeWalk(git,
                                 headId,
                                 (walkPath, hTree) -> {
-                                    if (paths.containsKey(walkPath) && paths.get(walkPath).getK2().equals(hTree.getEntryObjectId())) {
+                                    if (paths.containsKey(walkPath) && paths.get(walkPath).getObjectId().equals(hTree.getEntryObjectId())) {
                                         paths.remove(walkPath);
                                     }
 
@@ -88,19 +92,15 @@ public class CreateDefaultCommitTree extends BaseCreateCommitTree<DefaultCommitC
                                     }
                                 });
 
-            paths.forEach((key, value) -> {
-                if (value.getK1() != null) {
-                    editor.add(new DirCacheEditor.PathEdit(new DirCacheEntry(key)) {
-                        @Override
-                        public void apply(final DirCacheEntry ent) {
-                            ent.setLength(value.getK1().length());
-                            ent.setLastModified(value.getK1().lastModified());
-                            ent.setFileMode(REGULAR_FILE);
-                            ent.setObjectId(value.getK2());
-                        }
-                    });
+            paths.forEach((key, value) -> editor.add(new DirCacheEditor.PathEdit(new DirCacheEntry(key)) {
+                @Override
+                public void apply(final DirCacheEntry ent) {
+                    ent.setLength(value.getLength());
+                    ent.setLastModified(value.getLastModified());
+                    ent.setFileMode(REGULAR_FILE);
+                    ent.setObjectId(value.getObjectId());
                 }
-            });
+            }));
 
             editor.finish();
         } catch (Exception e) {
@@ -115,17 +115,18 @@ public class CreateDefaultCommitTree extends BaseCreateCommitTree<DefaultCommitC
         return buildTree(editor);
     }
 
-    private static Map<String, Pair<File, ObjectId>> storePathsIntoHashMap(final ObjectInserter inserter,
-                                                                           final Map.Entry<String, File> pathAndContent,
-                                                                           final String gPath) {
+    private static Map<String, InsertedBlob> storePathsIntoHashMap(final ObjectInserter inserter,
+                                                                   final Map.Entry<String, File> pathAndContent,
+                                                                   final String gPath) {
         try (final InputStream inputStream = new FileInputStream(pathAndContent.getValue())) {
-            final Map<String, Pair<File, ObjectId>> paths = new HashMap<>();
+            final Map<String, InsertedBlob> paths = new HashMap<>();
             final ObjectId objectId = inserter.insert(Constants.OBJ_BLOB,
                                                       pathAndContent.getValue().length(),
                                                       inputStream);
             paths.put(gPath,
-                      Pair.newPair(pathAndContent.getValue(),
-                                   objectId));
+                      new InsertedBlob(objectId,
+                                       pathAndContent.getValue().length(),
+                                       pathAndContent.getValue().lastModified()));
             return paths;
         } catch (final Exception ex) {
             throw new RuntimeException(ex);
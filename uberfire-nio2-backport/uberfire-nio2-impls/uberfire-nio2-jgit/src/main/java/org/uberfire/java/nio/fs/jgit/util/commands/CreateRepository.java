@@ -26,12 +26,14 @@ import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.fs.jgit.util.Git;
 import org.uberfire.java.nio.fs.jgit.util.GitImpl;
+import org.uberfire.java.nio.fs.jgit.util.PathInfoCache;
 
 public class CreateRepository {
 
     private final File repoDir;
     private final File hookDir;
     private final KetchLeaderCache leaders;
+    private final PathInfoCache pathInfoCache;
 
     public CreateRepository(final File repoDir) {
         this(repoDir,
@@ -49,9 +51,20 @@ public class CreateRepository {
     public CreateRepository(final File repoDir,
                             final File hookDir,
                             final KetchLeaderCache leaders) {
+        this(repoDir,
+             hookDir,
+             leaders,
+             null);
+    }
+
+    public CreateRepository(final File repoDir,
+                            final File hookDir,
+                            final KetchLeaderCache leaders,
+                            final PathInfoCache pathInfoCache) {
         this.repoDir = repoDir;
         this.hookDir = hookDir;
         this.leaders = leaders;
+        this.pathInfoCache = pathInfoCache;
     }
 
     public Optional<Git> execute() {
@@ -97,7 +110,8 @@ public class CreateRepository {
             }
 
             return Optional.of(new GitImpl(git,
-                                           leaders));
+                                           leaders,
+                                           pathInfoCache));
         } catch (final Exception ex) {
             throw new IOException(ex);
         }
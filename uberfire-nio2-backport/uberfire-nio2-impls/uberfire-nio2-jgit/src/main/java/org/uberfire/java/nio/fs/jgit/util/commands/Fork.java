@@ -24,6 +24,7 @@ import org.eclipse.jgit.transport.CredentialsProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.PathInfoCache;
 import org.uberfire.java.nio.fs.jgit.util.exceptions.GitException;
 
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotEmpty;
@@ -33,6 +34,7 @@ public class Fork {
 
     private static final String DOT_GIT_EXT = ".git";
     private final KetchLeaderCache leaders;
+    private final PathInfoCache pathInfoCache;
     private Logger logger = LoggerFactory.getLogger(Fork.class);
 
     private File parentFolder;
@@ -45,6 +47,20 @@ public class Fork {
                 final String target,
                 final CredentialsProvider credentialsProvider,
                 final KetchLeaderCache leaders) {
+        this(parentFolder,
+             source,
+             target,
+             credentialsProvider,
+             leaders,
+             null);
+    }
+
+    public Fork(final File parentFolder,
+                final String source,
+                final String target,
+                final CredentialsProvider credentialsProvider,
+                final KetchLeaderCache leaders,
+                final PathInfoCache pathInfoCache) {
         this.parentFolder = checkNotNull("parentFolder",
                                          parentFolder);
         this.source = checkNotEmpty("source",
@@ -54,6 +70,7 @@ public class Fork {
         this.credentialsProvider = checkNotNull("credentialsProvider",
                                                 credentialsProvider);
         this.leaders = leaders;
+        this.pathInfoCache = pathInfoCache;
     }
 
     public Git execute() throws InvalidRemoteException {
@@ -80,6 +97,7 @@ public class Fork {
                          origin.toPath().toUri().toString(),
                          false,
                          credentialsProvider,
-                         leaders);
+                         leaders,
+                         pathInfoCache);
     }
 }
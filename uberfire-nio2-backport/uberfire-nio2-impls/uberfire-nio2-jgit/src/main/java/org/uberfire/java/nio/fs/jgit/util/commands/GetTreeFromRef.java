@@ -16,26 +16,61 @@
 
 package org.uberfire.java.nio.fs.jgit.util.commands;
 
+import java.io.IOException;
+
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.GitImpl;
+import org.uberfire.java.nio.fs.jgit.util.PathInfoCache;
 
 public class GetTreeFromRef {
 
     private final Git git;
     private final String treeRefName;
+    private final PathInfoCache cache;
 
     public GetTreeFromRef(final Git git,
                           final String treeRefName) {
+        this(git,
+             treeRefName,
+             null);
+    }
+
+    public GetTreeFromRef(final Git git,
+                          final String treeRefName,
+                          final PathInfoCache cache) {
         this.git = git;
         this.treeRefName = treeRefName;
+        this.cache = cache;
     }
 
     public ObjectId execute() {
-        final RevCommit commit = git.getLastCommit(treeRefName);
+        return GitImpl.retryIfNeeded(RuntimeException.class,
+                                     this::resolveTree);
+    }
+
+    private ObjectId resolveTree() throws IOException {
+        final Ref ref = git.getRef(treeRefName);
+        if (ref == null || ref.getTarget().getObjectId() == null) {
+            return null;
+        }
+        // a commit always points to the same tree, so only the ref itself needs to be resolved every time
+        final ObjectId commitId = ref.getTarget().getObjectId();
+        final ObjectId cached = cache == null ? null : cache.getTree(commitId);
+        if (cached != null) {
+            return cached;
+        }
+        final RevCommit commit = git.resolveRevCommit(commitId);
         if (commit == null) {
             return null;
         }
-        return commit.getTree().getId();
+        final ObjectId tree = commit.getTree().getId();
+        if (cache != null) {
+            cache.putTree(commitId,
+                          tree);
+        }
+        return tree;
     }
 }
@@ -37,13 +37,34 @@ public class ListCommits {
     private final ObjectId endRange;
     private final Ref ref;
     private final String path;
+    private final int skip;
+    private final int maxCount;
 
     public ListCommits(final GitImpl git,
                        final Ref ref,
                        final String path) {
+        this(git,
+             ref,
+             path,
+             0,
+             -1);
+    }
+
+    /**
+     * Lists a page of the log of the given path, newest first.
+     * @param skip number of (newest) commits to skip.
+     * @param maxCount maximum number of commits to return, or -1 for all of them.
+     */
+    public ListCommits(final GitImpl git,
+                       final Ref ref,
+                       final String path,
+                       final int skip,
+                       final int maxCount) {
         this.git = git;
         this.ref = ref;
         this.path = path;
+        this.skip = skip;
+        this.maxCount = maxCount;
         this.startRange = null;
         this.endRange = null;
     }
@@ -56,6 +77,8 @@ public class ListCommits {
         this.endRange = endRange;
         this.ref = null;
         this.path = null;
+        this.skip = 0;
+        this.maxCount = -1;
     }
 
     public List<RevCommit> execute() throws IOException, GitAPIException {
@@ -74,12 +97,38 @@ public class ListCommits {
         }
     }
 
+    /**
+     * Counts the commits of the log without keeping them.
+     */
+    public int count() throws IOException, GitAPIException {
+        int count = 0;
+        try (final RevWalk rw = buildWalk()) {
+            if (ref == null) {
+                rw.markStart(rw.parseCommit(endRange));
+                if (startRange != null) {
+                    rw.markUninteresting(rw.parseCommit(startRange));
+                }
+            }
+            for (final RevCommit rev : rw) {
+                count++;
+                rev.disposeBody();
+            }
+            return count;
+        }
+    }
+
     private RevWalk buildWalk() throws GitAPIException, IncorrectObjectTypeException, MissingObjectException {
         if (ref != null) {
             final LogCommand logCommand = git._log().add(ref.getObjectId());
             if (path != null && !path.isEmpty()) {
                 logCommand.addPath(path);
             }
+            if (skip > 0) {
+                logCommand.setSkip(skip);
+            }
+            if (maxCount >= 0) {
+                logCommand.setMaxCount(maxCount);
+            }
             return (RevWalk) logCommand.call();
         }
 
@@ -24,6 +24,7 @@ import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
 import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.PathInfoCache;
 import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
 
 public class ListPathContent {
@@ -31,23 +32,54 @@ public class ListPathContent {
     private final Git git;
     private final String branchName;
     private final String path;
+    private final PathInfoCache cache;
 
     public ListPathContent(final Git git,
                            final String branchName,
                            final String path) {
+        this(git,
+             branchName,
+             path,
+             null);
+    }
+
+    public ListPathContent(final Git git,
+                           final String branchName,
+                           final String path,
+                           final PathInfoCache cache) {
         this.git = git;
         this.branchName = branchName;
         this.path = path;
+        this.cache = cache;
     }
 
     public List<PathInfo> execute() throws IOException {
 
         final String gitPath = PathUtil.normalize(path);
-        final List<PathInfo> result = new ArrayList<>();
         final ObjectId tree = git.getTreeFromRef(branchName);
         if (tree == null) {
-            return result;
+            return new ArrayList<>();
         }
+        if (cache == null) {
+            return walk(tree,
+                        gitPath);
+        }
+        final List<PathInfo> cached = cache.getPathContent(tree,
+                                                           gitPath);
+        if (cached != null) {
+            return cached;
+        }
+        final List<PathInfo> result = walk(tree,
+                                           gitPath);
+        cache.putPathContent(tree,
+                             gitPath,
+                             result);
+        return result;
+    }
+
+    private List<PathInfo> walk(final ObjectId tree,
+                                final String gitPath) throws IOException {
+        final List<PathInfo> result = new ArrayList<>();
         try (final TreeWalk tw = new TreeWalk(git.getRepository())) {
             boolean found = false;
             if (gitPath.isEmpty()) {
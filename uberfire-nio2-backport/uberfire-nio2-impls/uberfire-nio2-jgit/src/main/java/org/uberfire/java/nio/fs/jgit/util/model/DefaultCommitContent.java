@@ -17,17 +17,40 @@
 package org.uberfire.java.nio.fs.jgit.util.model;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Map;
 
 public class DefaultCommitContent implements CommitContent {
 
     private final Map<String, File> content;
+    private final Map<String, InsertedBlob> blobs;
 
     public DefaultCommitContent(final Map<String, File> content) {
+        this(content,
+             Collections.emptyMap());
+    }
+
+    public DefaultCommitContent(final Map<String, File> content,
+                                final Map<String, InsertedBlob> blobs) {
         this.content = content;
+        this.blobs = blobs;
+    }
+
+    public static DefaultCommitContent ofBlob(final String path,
+                                              final InsertedBlob blob) {
+        return new DefaultCommitContent(Collections.emptyMap(),
+                                        Collections.singletonMap(path,
+                                                                 blob));
     }
 
     public Map<String, File> getContent() {
         return content;
     }
+
+    /**
+     * @return blobs already written to the object database, by path.
+     */
+    public Map<String, InsertedBlob> getBlobs() {
+        return blobs;
+    }
 }
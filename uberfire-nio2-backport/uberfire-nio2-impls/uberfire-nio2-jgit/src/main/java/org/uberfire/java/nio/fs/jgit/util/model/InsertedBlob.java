@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.model;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * A blob that is already in the object database, ready to be referenced by a commit tree.
+ */
+public class InsertedBlob {
+
+    private final ObjectId objectId;
+    private final long length;
+    private final long lastModified;
+
+    public InsertedBlob(final ObjectId objectId,
+                        final long length,
+                        final long lastModified) {
+        this.objectId = objectId;
+        this.length = length;
+        this.lastModified = lastModified;
+    }
+
+    public ObjectId getObjectId() {
+        return objectId;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
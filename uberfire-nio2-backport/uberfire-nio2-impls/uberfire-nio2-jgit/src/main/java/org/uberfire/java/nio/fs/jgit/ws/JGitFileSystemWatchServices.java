@@ -22,19 +22,20 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.WatchEvent;
-import org.uberfire.java.nio.file.WatchKey;
 import org.uberfire.java.nio.file.WatchService;
-import org.uberfire.java.nio.file.Watchable;
 
 public class JGitFileSystemWatchServices implements Serializable {
 
     private final Collection<JGitWatchService> watchServices = new CopyOnWriteArrayList<>();
+    private final transient JGitWatchEventDispatcher dispatcher;
 
-    public JGitFileSystemWatchServices() {
+    public JGitFileSystemWatchServices(JGitWatchEventDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
     }
 
     public WatchService newWatchService(String fsName) {
         final JGitWatchService ws = new JGitWatchService(fsName,
+                                                         dispatcher,
                                                          p -> watchServices.remove(p));
         watchServices.add(ws);
         return ws;
@@ -47,35 +48,9 @@ public class JGitFileSystemWatchServices implements Serializable {
         }
 
         for (JGitWatchService ws : watchServices) {
-            ws.publish(new WatchKey() {
-
-                @Override
-                public boolean isValid() {
-                    return true;
-                }
-
-                @Override
-                public List<WatchEvent<?>> pollEvents() {
-                    return new CopyOnWriteArrayList<>(elist);
-                }
-
-                @Override
-                public boolean reset() {
-                    return !watchServices.isEmpty();
-                }
-
-                @Override
-                public void cancel() {
-                }
-
-                @Override
-                public Watchable watchable() {
-                    return watchable;
-                }
-            });
-            synchronized (ws) {
-                ws.notifyAll();
-            }
+            ws.publish(new JGitWatchKey(watchable,
+                                        elist,
+                                        () -> !watchServices.isEmpty()));
         }
     }
 
@@ -37,6 +37,8 @@ public class JGitFileSystemsEventsManager {
 
     private final ClusterService clusterService;
 
+    private final JGitWatchEventDispatcher dispatcher = new JGitWatchEventDispatcher();
+
     JGitEventsBroadcast jGitEventsBroadcast;
 
     public JGitFileSystemsEventsManager() {
@@ -72,7 +74,7 @@ public class JGitFileSystemsEventsManager {
     }
 
     JGitFileSystemWatchServices createFSWatchServicesManager() {
-        return new JGitFileSystemWatchServices();
+        return new JGitFileSystemWatchServices(dispatcher);
     }
 
     public void publishEvents(String fsName,
@@ -127,6 +129,13 @@ public class JGitFileSystemsEventsManager {
         }
     }
 
+    /**
+     * Stops the threads delivering watch events. They are started again by the next published event.
+     */
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
     JGitEventsBroadcast getjGitEventsBroadcast() {
         return jGitEventsBroadcast;
     }
@@ -43,12 +43,68 @@ public class JGitWatchEvent implements WatchEvent {
                           Path oldPath,
                           Path newPath) {
 
+        this(sessionId,
+             userName,
+             message,
+             changeType,
+             oldPath != null ? oldPath.toUri() : null,
+             newPath != null ? newPath.toUri() : null);
+    }
+
+    private JGitWatchEvent(String sessionId,
+                           String userName,
+                           String message,
+                           String changeType,
+                           URI oldPath,
+                           URI newPath) {
+
         this.sessionId = sessionId;
         this.userName = userName;
         this.message = message;
         this.changeType = changeType;
-        this.oldPath = oldPath != null ? oldPath.toUri() : null;
-        this.newPath = newPath != null ? newPath.toUri() : null;
+        this.oldPath = oldPath;
+        this.newPath = newPath;
+    }
+
+    /**
+     * Rebuilds an event from its transport form, without resolving the paths.
+     */
+    public static JGitWatchEvent fromUris(String sessionId,
+                                          String userName,
+                                          String message,
+                                          String changeType,
+                                          URI oldPath,
+                                          URI newPath) {
+        return new JGitWatchEvent(sessionId,
+                                  userName,
+                                  message,
+                                  changeType,
+                                  oldPath,
+                                  newPath);
+    }
+
+    public URI getOldUri() {
+        return oldPath;
+    }
+
+    public URI getNewUri() {
+        return newPath;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getChangeType() {
+        return changeType;
     }
 
     @Override
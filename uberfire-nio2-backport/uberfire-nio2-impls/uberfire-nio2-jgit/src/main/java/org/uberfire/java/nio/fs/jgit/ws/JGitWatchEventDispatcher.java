@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.ws;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.config.ConfigProperties;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.Watchable;
+
+/**
+ * Delivers watch keys to subscribed listeners from a shared pool of threads, so that watching a
+ * file system doesn't cost a parked thread. Each subscription owns a bounded queue; once it is
+ * full, further keys are coalesced per watchable until the listener catches up.
+ * <p>
+ * A subscription is drained by at most one thread at a time, keeping delivery ordered. The pool
+ * never exceeds {@link #DISPATCHER_THREADS} threads: subscriptions waiting for a thread keep
+ * queueing and coalescing their own keys, and each drain hands the thread back after a batch so
+ * that a slow listener can't starve the others. The pool is created on demand and
+ * {@link #shutdown()} stops it until the next key is offered.
+ */
+public class JGitWatchEventDispatcher {
+
+    public static final String DISPATCHER_THREADS = "org.uberfire.nio.git.watch.dispatchers";
+    public static final String SUBSCRIBER_QUEUE_SIZE = "org.uberfire.nio.git.watch.queue";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JGitWatchEventDispatcher.class);
+
+    private static final int DRAIN_BATCH = 64;
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final int threads;
+    private final int queueSize;
+    private ExecutorService executor;
+
+    public JGitWatchEventDispatcher() {
+        this(new ConfigProperties(System.getProperties()));
+    }
+
+    JGitWatchEventDispatcher(final ConfigProperties config) {
+        this(config.get(DISPATCHER_THREADS,
+                        "2").getIntValue(2),
+             config.get(SUBSCRIBER_QUEUE_SIZE,
+                        "1000").getIntValue(1000));
+    }
+
+    public JGitWatchEventDispatcher(final int threads,
+                                    final int queueSize) {
+        this.threads = Math.max(1,
+                                threads);
+        this.queueSize = Math.max(1,
+                                  queueSize);
+    }
+
+    public Subscription subscribe(final String name,
+                                  final Consumer<WatchKey> listener) {
+        return new Subscription(name,
+                                listener);
+    }
+
+    /**
+     * Stops the dispatcher threads once the keys already handed to them are delivered. Keys offered
+     * afterwards start a new pool.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads,
+                                                                   threads,
+                                                                   KEEP_ALIVE_SECONDS,
+                                                                   TimeUnit.SECONDS,
+                                                                   new LinkedBlockingQueue<>(),
+                                                                   new DispatcherThreadFactory());
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    public class Subscription {
+
+        private final String name;
+        private final Consumer<WatchKey> listener;
+        private final Deque<WatchKey> queue = new ArrayDeque<>();
+        private final Map<Watchable, WatchKey> overflow = new LinkedHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+        private volatile boolean active = true;
+
+        Subscription(final String name,
+                     final Consumer<WatchKey> listener) {
+            this.name = name;
+            this.listener = listener;
+        }
+
+        public void offer(final WatchKey key) {
+            if (!active) {
+                return;
+            }
+            synchronized (this) {
+                // once overflowing, everything goes through the coalesced map so that
+                // keys for the same watchable are still delivered in order
+                if (overflow.isEmpty() && queue.size() < queueSize) {
+                    queue.add(key);
+                } else {
+                    final WatchKey pending = overflow.remove(key.watchable());
+                    if (pending != null) {
+                        overflow.put(key.watchable(),
+                                     JGitWatchKey.merge(pending,
+                                                        key));
+                        coalesced.incrementAndGet();
+                    } else {
+                        overflow.put(key.watchable(),
+                                     key);
+                    }
+                }
+            }
+            schedule();
+        }
+
+        public void cancel() {
+            active = false;
+            synchronized (this) {
+                queue.clear();
+                overflow.clear();
+            }
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public synchronized int getPending() {
+            return queue.size() + overflow.size();
+        }
+
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        public long getCoalesced() {
+            return coalesced.get();
+        }
+
+        private synchronized WatchKey next() {
+            final WatchKey key = queue.poll();
+            if (key != null || overflow.isEmpty()) {
+                return key;
+            }
+            final Iterator<WatchKey> it = overflow.values().iterator();
+            final WatchKey oldest = it.next();
+            it.remove();
+            return oldest;
+        }
+
+        private void schedule() {
+            if (active && scheduled.compareAndSet(false,
+                                                  true)) {
+                try {
+                    executor().execute(this::drain);
+                } catch (final RejectedExecutionException ex) {
+                    scheduled.set(false);
+                    LOGGER.debug("Watch event dispatcher is shut down, dropping events for [" + name + "]");
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                for (int i = 0; i < DRAIN_BATCH && active; i++) {
+                    final WatchKey key = next();
+                    if (key == null) {
+                        break;
+                    }
+                    try {
+                        listener.accept(key);
+                    } catch (final Exception ex) {
+                        LOGGER.error("Unexpected error dispatching watch events for [" + name + "]",
+                                     ex);
+                    }
+                    delivered.incrementAndGet();
+                }
+            } finally {
+                scheduled.set(false);
+                // yield the thread to other subscriptions and come back for the rest
+                if (getPending() > 0) {
+                    schedule();
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Subscription{" +
+                    "name=" + name +
+                    '}';
+        }
+    }
+
+    private static class DispatcherThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r,
+                                             "jgit-watch-dispatcher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
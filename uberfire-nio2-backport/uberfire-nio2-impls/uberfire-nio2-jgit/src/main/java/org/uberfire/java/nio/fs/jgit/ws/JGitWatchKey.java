@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.ws;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.Watchable;
+
+class JGitWatchKey implements WatchKey {
+
+    private final Watchable watchable;
+    private final List<WatchEvent<?>> events;
+    private final BooleanSupplier reset;
+
+    JGitWatchKey(final Watchable watchable,
+                 final List<WatchEvent<?>> events,
+                 final BooleanSupplier reset) {
+        this.watchable = watchable;
+        this.events = events;
+        this.reset = reset;
+    }
+
+    /**
+     * Folds the events of both keys into a single key for the same watchable, keeping the
+     * reset behaviour of the most recent one.
+     */
+    static JGitWatchKey merge(final WatchKey older,
+                              final WatchKey newer) {
+        final List<WatchEvent<?>> events = new ArrayList<>(older.pollEvents());
+        events.addAll(newer.pollEvents());
+        return new JGitWatchKey(newer.watchable(),
+                                events,
+                                newer::reset);
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+    @Override
+    public List<WatchEvent<?>> pollEvents() {
+        return new CopyOnWriteArrayList<>(events);
+    }
+
+    @Override
+    public boolean reset() {
+        return reset.getAsBoolean();
+    }
+
+    @Override
+    public void cancel() {
+    }
+
+    @Override
+    public Watchable watchable() {
+        return watchable;
+    }
+}
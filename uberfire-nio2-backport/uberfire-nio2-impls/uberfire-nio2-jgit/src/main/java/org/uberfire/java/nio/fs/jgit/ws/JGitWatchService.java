@@ -21,23 +21,27 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.SubscribableWatchService;
 import org.uberfire.java.nio.file.ClosedWatchServiceException;
 import org.uberfire.java.nio.file.InterruptedException;
 import org.uberfire.java.nio.file.WatchKey;
-import org.uberfire.java.nio.file.WatchService;
 
-public class JGitWatchService implements WatchService {
+public class JGitWatchService implements SubscribableWatchService {
 
-    private boolean wsClose = false;
+    private volatile boolean wsClose = false;
 
     private final Queue<WatchKey> events = new ConcurrentLinkedQueue<>();
     private final String fsName;
+    private final JGitWatchEventDispatcher dispatcher;
     private Consumer<JGitWatchService> notifyClose;
+    private volatile JGitWatchEventDispatcher.Subscription subscription;
 
     public JGitWatchService(String fsName,
+                            JGitWatchEventDispatcher dispatcher,
                             Consumer<JGitWatchService> notifyClose) {
 
         this.fsName = fsName;
+        this.dispatcher = dispatcher;
         this.notifyClose = notifyClose;
     }
 
@@ -47,9 +51,29 @@ public class JGitWatchService implements WatchService {
     }
 
     @Override
-    public WatchKey poll(long timeout,
-                         TimeUnit unit) throws ClosedWatchServiceException, org.uberfire.java.nio.file.InterruptedException {
-        return events.poll();
+    public synchronized WatchKey poll(long timeout,
+                                      TimeUnit unit) throws ClosedWatchServiceException, InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            if (wsClose) {
+                throw new ClosedWatchServiceException("This service is closed.");
+            }
+            final WatchKey wk = events.poll();
+            if (wk != null) {
+                return wk;
+            }
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this,
+                                               remaining);
+            } catch (final java.lang.InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedException();
+            }
+        }
     }
 
     @Override
@@ -68,6 +92,32 @@ public class JGitWatchService implements WatchService {
         }
     }
 
+    @Override
+    public synchronized void subscribe(final Consumer<WatchKey> listener) {
+        if (wsClose) {
+            throw new ClosedWatchServiceException("This service is closed.");
+        }
+        if (subscription != null) {
+            throw new IllegalStateException("WatchService for [" + fsName + "] already has a subscriber.");
+        }
+        subscription = dispatcher.subscribe(fsName,
+                                            listener);
+        // hand over whatever was published before the subscriber showed up
+        WatchKey pending;
+        while ((pending = events.poll()) != null) {
+            subscription.offer(pending);
+        }
+    }
+
+    @Override
+    public boolean isSubscribed() {
+        return subscription != null;
+    }
+
+    JGitWatchEventDispatcher.Subscription getSubscription() {
+        return subscription;
+    }
+
     @Override
     public boolean isClose() {
         return wsClose;
@@ -76,15 +126,23 @@ public class JGitWatchService implements WatchService {
     @Override
     public synchronized void close() throws IOException {
         wsClose = true;
+        cancelSubscription();
         notifyAll();
         notifyClose.accept(this);
     }
 
     synchronized void closeWithoutNotifyParent() {
         wsClose = true;
+        cancelSubscription();
         notifyAll();
     }
 
+    private void cancelSubscription() {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
     @Override
     public String toString() {
         return "WatchService{" +
@@ -93,6 +151,18 @@ public class JGitWatchService implements WatchService {
     }
 
     public void publish(WatchKey wk) {
-        events.add(wk);
+        final JGitWatchEventDispatcher.Subscription current = subscription;
+        if (current != null) {
+            current.offer(wk);
+            return;
+        }
+        synchronized (this) {
+            if (subscription != null) {
+                subscription.offer(wk);
+            } else {
+                events.add(wk);
+                notifyAll();
+            }
+        }
     }
-}
\ No newline at end of file
+}
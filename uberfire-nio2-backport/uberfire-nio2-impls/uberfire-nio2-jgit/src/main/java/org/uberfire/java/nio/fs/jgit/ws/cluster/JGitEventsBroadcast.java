@@ -33,6 +33,7 @@ public class JGitEventsBroadcast {
     private String nodeId = UUID.randomUUID().toString();
     private Consumer<WatchEventsWrapper> eventsPublisher;
     private final ClusterService clusterService;
+    private final WatchEventsWrapperCodec codec = new WatchEventsWrapperCodec();
 
     public JGitEventsBroadcast(ClusterService clusterService,
                                Consumer<WatchEventsWrapper> eventsPublisher) {
@@ -49,7 +50,7 @@ public class JGitEventsBroadcast {
         clusterService.createConsumer(
                 ClusterService.DestinationType.PubSub,
                 getChannelName(topicName),
-                WatchEventsWrapper.class,
+                codec,
                 (we) -> {
                     if (!we.getNodeId().equals(nodeId)) {
                         eventsPublisher.accept(we);
@@ -57,15 +58,16 @@ public class JGitEventsBroadcast {
                 });
     }
 
-    public synchronized void broadcast(String fsName,
-                                       Path watchable,
-                                       List<WatchEvent<?>> events) {
+    public void broadcast(String fsName,
+                          Path watchable,
+                          List<WatchEvent<?>> events) {
         clusterService.broadcast(ClusterService.DestinationType.PubSub,
                                  getChannelName(fsName),
                                  new WatchEventsWrapper(nodeId,
                                                         fsName,
                                                         watchable,
-                                                        events));
+                                                        events),
+                                 codec);
     }
 
     private String getChannelName(String fsName) {
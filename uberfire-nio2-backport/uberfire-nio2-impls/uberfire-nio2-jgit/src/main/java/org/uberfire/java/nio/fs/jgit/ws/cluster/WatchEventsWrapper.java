@@ -41,6 +41,27 @@ public class WatchEventsWrapper implements Serializable {
         this.watchable = watchable != null ? watchable.toUri() : null;
     }
 
+    private WatchEventsWrapper(String nodeId,
+                               String fsName,
+                               URI watchable,
+                               List<WatchEvent<?>> events) {
+
+        this.nodeId = nodeId;
+        this.fsName = fsName;
+        this.events = events;
+        this.watchable = watchable;
+    }
+
+    static WatchEventsWrapper fromUri(String nodeId,
+                                      String fsName,
+                                      URI watchable,
+                                      List<WatchEvent<?>> events) {
+        return new WatchEventsWrapper(nodeId,
+                                      fsName,
+                                      watchable,
+                                      events);
+    }
+
     public String getFsName() {
         return fsName;
     }
@@ -53,6 +74,10 @@ public class WatchEventsWrapper implements Serializable {
         return events;
     }
 
+    URI getWatchableUri() {
+        return watchable;
+    }
+
     public Path getWatchable() {
         if (watchable == null) {
             return null;
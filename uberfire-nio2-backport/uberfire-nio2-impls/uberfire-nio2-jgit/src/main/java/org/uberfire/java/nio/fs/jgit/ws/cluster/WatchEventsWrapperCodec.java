@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.ws.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.uberfire.commons.cluster.ClusterMessageCodec;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.fs.jgit.ws.JGitWatchEvent;
+
+/**
+ * Compact binary form of {@link WatchEventsWrapper}: a version byte followed by the node, file
+ * system and watchable, then each event as its change type, session, user, message and paths.
+ * Strings are length-prefixed UTF-8, -1 standing for null.
+ */
+public class WatchEventsWrapperCodec implements ClusterMessageCodec<WatchEventsWrapper> {
+
+    public static final String NAME = "jgit-watch-events";
+
+    static final byte VERSION = 1;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Class<WatchEventsWrapper> getType() {
+        return WatchEventsWrapper.class;
+    }
+
+    @Override
+    public byte[] encode(final WatchEventsWrapper wrapper) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeString(out,
+                        wrapper.getNodeId());
+            writeString(out,
+                        wrapper.getFsName());
+            writeUri(out,
+                     wrapper.getWatchableUri());
+
+            final List<WatchEvent<?>> events = wrapper.getEvents();
+            out.writeInt(events != null ? events.size() : 0);
+            if (events != null) {
+                for (final WatchEvent<?> event : events) {
+                    if (!(event instanceof JGitWatchEvent)) {
+                        throw new IOException("Unsupported watch event type: " + event.getClass().getName());
+                    }
+                    final JGitWatchEvent jgitEvent = (JGitWatchEvent) event;
+                    writeString(out,
+                                jgitEvent.getChangeType());
+                    writeString(out,
+                                jgitEvent.getSessionId());
+                    writeString(out,
+                                jgitEvent.getUserName());
+                    writeString(out,
+                                jgitEvent.getMessage());
+                    writeUri(out,
+                             jgitEvent.getOldUri());
+                    writeUri(out,
+                             jgitEvent.getNewUri());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public WatchEventsWrapper decode(final byte[] payload) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            final byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported watch events encoding version: " + version);
+            }
+            final String nodeId = readString(in);
+            final String fsName = readString(in);
+            final URI watchable = readUri(in);
+
+            final int count = in.readInt();
+            final List<WatchEvent<?>> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final String changeType = readString(in);
+                final String sessionId = readString(in);
+                final String userName = readString(in);
+                final String message = readString(in);
+                final URI oldPath = readUri(in);
+                final URI newPath = readUri(in);
+                events.add(JGitWatchEvent.fromUris(sessionId,
+                                                   userName,
+                                                   message,
+                                                   changeType,
+                                                   oldPath,
+                                                   newPath));
+            }
+            return WatchEventsWrapper.fromUri(nodeId,
+                                              fsName,
+                                              watchable,
+                                              events);
+        }
+    }
+
+    private void writeUri(final DataOutputStream out,
+                          final URI uri) throws IOException {
+        writeString(out,
+                    uri != null ? uri.toString() : null);
+    }
+
+    private URI readUri(final DataInputStream in) throws IOException {
+        final String value = readString(in);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return URI.create(value);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Invalid URI: " + value,
+                                  e);
+        }
+    }
+
+    private void writeString(final DataOutputStream out,
+                             final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes,
+                          StandardCharsets.UTF_8);
+    }
+}
@@ -20,10 +20,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 
+import java.util.List;
+
 import org.junit.Test;
 import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.fs.jgit.manager.JGitGarbageCollector;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
@@ -75,4 +78,107 @@ public class JGitFileSystemImplProviderGCTest extends AbstractTestInfra {
         outStream2.close();
         assertThat(fs.getNumberOfCommitsSinceLastGC()).isEqualTo(1);
     }
+
+    @Test
+    public void testGCRunsInBackground() throws Exception {
+        final URI newRepo = URI.create("git://gc-background-repo");
+        final JGitFileSystem fs = (JGitFileSystem) provider.newFileSystem(newRepo,
+                                                                          EMPTY_ENV);
+
+        for (int i = 0; i < 20; i++) {
+            write(URI.create("git://gc-background-repo/path/to/myfile" + i + ".txt"),
+                  "my cool" + i + " content");
+        }
+        assertThat(fs.getNumberOfCommitsSinceLastGC()).isEqualTo(0);
+
+        final List<JGitGarbageCollector.Run> history = awaitHistory(provider.getGarbageCollector(),
+                                                                    fs.getName());
+        assertThat(history).hasSize(1);
+        assertThat(history.get(0).getOutcome()).isEqualTo(JGitGarbageCollector.Outcome.COLLECTED);
+        assertThat(history.get(0).getBefore().getLooseObjects()).isGreaterThan(0);
+        assertThat(history.get(0).getAfter().getLooseObjects()).isEqualTo(0);
+        assertThat(provider.getGarbageCollector().isQueued(fs.getName())).isFalse();
+    }
+
+    @Test
+    public void testGCSkipsRepositoriesBelowThresholds() throws Exception {
+        final URI newRepo = URI.create("git://gc-skip-repo");
+        final JGitFileSystem fs = (JGitFileSystem) provider.newFileSystem(newRepo,
+                                                                          EMPTY_ENV);
+        write(URI.create("git://gc-skip-repo/myfile.txt"),
+              "content");
+
+        final JGitGarbageCollector collector = new JGitGarbageCollector(1,
+                                                                        0,
+                                                                        0,
+                                                                        1000,
+                                                                        1000);
+        assertThat(collector.schedule(fs)).isTrue();
+
+        final List<JGitGarbageCollector.Run> history = awaitHistory(collector,
+                                                                    fs.getName());
+        assertThat(history).hasSize(1);
+        assertThat(history.get(0).getOutcome()).isEqualTo(JGitGarbageCollector.Outcome.SKIPPED);
+        assertThat(history.get(0).getBefore().getLooseObjects()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testGCYieldsToActiveWriters() throws Exception {
+        final URI newRepo = URI.create("git://gc-busy-repo");
+        final JGitFileSystem fs = (JGitFileSystem) provider.newFileSystem(newRepo,
+                                                                          EMPTY_ENV);
+
+        final JGitGarbageCollector collector = new JGitGarbageCollector(1,
+                                                                        0,
+                                                                        300,
+                                                                        0,
+                                                                        0);
+        collector.recordWrite(fs);
+        assertThat(collector.schedule(fs)).isTrue();
+        assertThat(collector.schedule(fs)).isFalse();
+
+        final List<JGitGarbageCollector.Run> history = awaitHistory(collector,
+                                                                    fs.getName());
+        assertThat(history).hasSize(1);
+        assertThat(history.get(0).getDeferrals()).isGreaterThan(0);
+        assertThat(history.get(0).getOutcome()).isEqualTo(JGitGarbageCollector.Outcome.COLLECTED);
+    }
+
+    @Test
+    public void testClearDropsPendingCollections() throws Exception {
+        final URI newRepo = URI.create("git://gc-clear-repo");
+        final JGitFileSystem fs = (JGitFileSystem) provider.newFileSystem(newRepo,
+                                                                          EMPTY_ENV);
+
+        // writes keep the collection deferred for the whole test
+        final JGitGarbageCollector collector = new JGitGarbageCollector(1,
+                                                                        0,
+                                                                        60000,
+                                                                        0,
+                                                                        0);
+        collector.recordWrite(fs);
+        assertThat(collector.schedule(fs)).isTrue();
+        collector.clear();
+        assertThat(collector.isQueued(fs.getName())).isFalse();
+
+        collector.recordWrite(fs);
+        assertThat(collector.schedule(fs)).isTrue();
+        assertThat(collector.getHistory(fs.getName())).isEmpty();
+        collector.clear();
+    }
+
+    private void write(final URI uri,
+                       final String content) throws IOException {
+        final OutputStream outStream = provider.newOutputStream(provider.getPath(uri));
+        outStream.write(content.getBytes());
+        outStream.close();
+    }
+
+    private List<JGitGarbageCollector.Run> awaitHistory(final JGitGarbageCollector collector,
+                                                        final String fsName) throws InterruptedException {
+        for (int i = 0; i < 200 && collector.getHistory(fsName).isEmpty(); i++) {
+            Thread.sleep(50);
+        }
+        return collector.getHistory(fsName);
+    }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.Test;
+import org.uberfire.java.nio.base.version.VersionAttributeView;
+import org.uberfire.java.nio.base.version.VersionAttributes;
+import org.uberfire.java.nio.base.version.VersionHistory;
+import org.uberfire.java.nio.base.version.VersionRecord;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.fs.jgit.util.PathTimesIndex;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class JGitVersionHistoryTest extends AbstractTestInfra {
+
+    @Test
+    public void historyIsPagedNewestFirst() throws IOException {
+        provider.newFileSystem(URI.create("git://history-repo"),
+                               EMPTY_ENV);
+        for (int i = 0; i < 5; i++) {
+            write("git://history-repo/dir/file.txt",
+                  "content " + i);
+            write("git://history-repo/other.txt",
+                  "other " + i);
+        }
+
+        final VersionHistory history = readAttributes("git://history-repo/dir/file.txt").history();
+        assertThat(history.size()).isEqualTo(5);
+
+        final List<VersionRecord> page = history.page(1,
+                                                      3);
+        assertThat(page).hasSize(2);
+
+        final List<VersionRecord> records = history.records();
+        assertThat(records).hasSize(5);
+        assertThat(page.get(0).id()).isEqualTo(records.get(3).id());
+        assertThat(page.get(1).id()).isEqualTo(records.get(2).id());
+        assertThat(history.latest().id()).isEqualTo(records.get(4).id());
+        assertThat(history.page(4,
+                                -1)).hasSize(1);
+        assertThat(history.page(5,
+                                10)).isEmpty();
+    }
+
+    @Test
+    public void timesComeFromThePathTimesIndex() throws IOException {
+        final JGitFileSystem fs = (JGitFileSystem) provider.newFileSystem(URI.create("git://times-repo"),
+                                                                          EMPTY_ENV);
+        write("git://times-repo/dir/file.txt",
+              "first");
+        write("git://times-repo/dir/another.txt",
+              "first");
+        write("git://times-repo/dir/file.txt",
+              "second");
+
+        final VersionAttributes attrs = readAttributes("git://times-repo/dir/file.txt");
+        final List<VersionRecord> records = attrs.history().records();
+        assertThat(attrs.creationTime().toMillis()).isEqualTo(records.get(0).date().getTime());
+        assertThat(attrs.lastModifiedTime().toMillis()).isEqualTo(records.get(records.size() - 1).date().getTime());
+
+        final PathTimesIndex.PathTimes dirTimes = awaitPathTimes(fs,
+                                                                 "/dir");
+        assertThat(dirTimes.getLastModifiedTime()).isEqualTo(attrs.lastModifiedTime().toMillis());
+
+        write("git://times-repo/dir/another.txt",
+              "second");
+        final List<VersionRecord> anotherRecords = readAttributes("git://times-repo/dir/another.txt").history().records();
+        final PathTimesIndex reloaded = new PathTimesIndex(fs.getGit().getRepository(),
+                                                           "master");
+        assertThat(reloaded.get("dir/another.txt").getLastModifiedTime()).isEqualTo(anotherRecords.get(anotherRecords.size() - 1).date().getTime());
+        assertThat(reloaded.get("dir/another.txt").getCreationTime()).isEqualTo(anotherRecords.get(0).date().getTime());
+        assertThat(reloaded.get("missing.txt")).isNull();
+    }
+
+    @Test
+    public void mergedPathsKeepTheTimesOfTheirBranch() throws Exception {
+        final File dir = createTempDirectory();
+        try (final Git git = Git.init().setDirectory(dir).call()) {
+            commit(git,
+                   "a.txt",
+                   1000000000000L);
+            git.checkout().setCreateBranch(true).setName("feature").call();
+            commit(git,
+                   "b.txt",
+                   1100000000000L);
+            git.checkout().setName("master").call();
+            commit(git,
+                   "c.txt",
+                   1200000000000L);
+            git.merge().include(git.getRepository().resolve("feature")).setFastForward(MergeCommand.FastForwardMode.NO_FF).call();
+
+            final PathTimesIndex index = new PathTimesIndex(git.getRepository(),
+                                                            "master");
+            index.refresh();
+
+            assertThat(index.get("b.txt").getLastModifiedTime()).isEqualTo(1100000000000L);
+            assertThat(index.get("c.txt").getLastModifiedTime()).isEqualTo(1200000000000L);
+            assertThat(index.get("/").getCreationTime()).isEqualTo(1000000000000L);
+            assertThat(index.get("/").getLastModifiedTime()).isEqualTo(1200000000000L);
+        }
+    }
+
+    private void commit(final Git git,
+                        final String file,
+                        final long when) throws Exception {
+        Files.write(new File(git.getRepository().getWorkTree(),
+                             file).toPath(),
+                    file.getBytes());
+        git.add().addFilepattern(file).call();
+        final PersonIdent ident = new PersonIdent("name",
+                                                  "name@example.com",
+                                                  new Date(when),
+                                                  TimeZone.getTimeZone("UTC"));
+        git.commit().setMessage(file).setAuthor(ident).setCommitter(ident).call();
+    }
+
+    private PathTimesIndex.PathTimes awaitPathTimes(final JGitFileSystem fs,
+                                                    final String path) throws InterruptedException {
+        // the first lookup builds the index in the background
+        PathTimesIndex.PathTimes times = fs.getGit().getPathTimes("master",
+                                                                  path);
+        for (int i = 0; i < 200 && times == null; i++) {
+            Thread.sleep(50);
+            times = fs.getGit().getPathTimes("master",
+                                             path);
+        }
+        return times;
+    }
+
+    private VersionAttributes readAttributes(final String uri) {
+        return provider.getFileAttributeView(provider.getPath(URI.create(uri)),
+                                             VersionAttributeView.class).readAttributes();
+    }
+
+    private void write(final String uri,
+                       final String content) throws IOException {
+        final Path path = provider.getPath(URI.create(uri));
+        try (final OutputStream out = provider.newOutputStream(path)) {
+            out.write(content.getBytes());
+        }
+    }
+}
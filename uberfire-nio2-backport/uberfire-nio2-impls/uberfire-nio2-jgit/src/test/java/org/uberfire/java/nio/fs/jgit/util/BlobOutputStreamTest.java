@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.fs.jgit.AbstractTestInfra;
+import org.uberfire.java.nio.fs.jgit.util.commands.CreateRepository;
+import org.uberfire.java.nio.fs.jgit.util.model.InsertedBlob;
+
+import static org.junit.Assert.*;
+
+public class BlobOutputStreamTest extends AbstractTestInfra {
+
+    @Test
+    public void smallContentIsInsertedFromMemory() throws IOException {
+        final Git git = new CreateRepository(new File(createTempDirectory(),
+                                                      "blob.git")).execute().get();
+        final AtomicReference<InsertedBlob> inserted = new AtomicReference<>();
+
+        final BlobOutputStream out = new BlobOutputStream(git.getRepository(),
+                                                          1024,
+                                                          inserted::set);
+        out.write("my cool content".getBytes());
+        assertFalse(out.isSpilled());
+        out.close();
+        out.close();
+
+        assertNotNull(inserted.get());
+        assertEquals(15,
+                     inserted.get().getLength());
+        assertEquals("my cool content",
+                     new String(git.getRepository().open(inserted.get().getObjectId()).getBytes()));
+    }
+
+    @Test
+    public void bigContentSpillsToDisk() throws IOException {
+        final Git git = new CreateRepository(new File(createTempDirectory(),
+                                                      "blob.git")).execute().get();
+        final AtomicReference<InsertedBlob> inserted = new AtomicReference<>();
+
+        final byte[] content = new byte[10000];
+        Arrays.fill(content,
+                    (byte) 'x');
+
+        final BlobOutputStream out = new BlobOutputStream(git.getRepository(),
+                                                          4096,
+                                                          inserted::set);
+        for (int i = 0; i < content.length; i += 1000) {
+            out.write(content,
+                      i,
+                      1000);
+        }
+        assertTrue(out.isSpilled());
+        out.close();
+
+        assertEquals(content.length,
+                     inserted.get().getLength());
+        assertArrayEquals(content,
+                          git.getRepository().open(inserted.get().getObjectId()).getBytes());
+    }
+
+    @Test
+    public void providerWritesAboveAndBelowThreshold() throws IOException {
+        provider.newFileSystem(URI.create("git://blob-stream-repo"),
+                               EMPTY_ENV);
+
+        final byte[] big = new byte[3 * 1024 * 1024];
+        Arrays.fill(big,
+                    (byte) 'y');
+
+        final Path bigPath = provider.getPath(URI.create("git://blob-stream-repo/big.bin"));
+        try (final OutputStream out = provider.newOutputStream(bigPath)) {
+            out.write(big);
+        }
+        final Path smallPath = provider.getPath(URI.create("git://blob-stream-repo/small.txt"));
+        try (final OutputStream out = provider.newOutputStream(smallPath)) {
+            out.write("small".getBytes());
+        }
+
+        try (final InputStream in = provider.newInputStream(bigPath)) {
+            assertArrayEquals(big,
+                              IOUtils.toByteArray(in));
+        }
+        try (final InputStream in = provider.newInputStream(smallPath)) {
+            assertEquals("small",
+                         new String(IOUtils.toByteArray(in)));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+import org.uberfire.commons.config.ConfigProperties;
+import org.uberfire.java.nio.fs.jgit.AbstractTestInfra;
+import org.uberfire.java.nio.fs.jgit.util.commands.Commit;
+import org.uberfire.java.nio.fs.jgit.util.commands.CreateRepository;
+import org.uberfire.java.nio.fs.jgit.util.commands.GetPathInfo;
+import org.uberfire.java.nio.fs.jgit.util.commands.ListPathContent;
+import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
+import org.uberfire.java.nio.fs.jgit.util.model.PathType;
+
+import static org.junit.Assert.*;
+
+public class PathInfoCacheTest extends AbstractTestInfra {
+
+    @Test
+    public void testLookupsAreCachedPerTree() throws IOException {
+        final File gitFolder = new File(createTempDirectory(),
+                                        "cache.git");
+        final Git git = new CreateRepository(gitFolder).execute().get();
+        commit(git,
+               "path/to/file1.txt",
+               "content");
+
+        final PathInfoCache cache = new PathInfoCache(100,
+                                                      100);
+        final PathInfo first = new GetPathInfo(git,
+                                               "master",
+                                               "path/to/file1.txt",
+                                               cache).execute();
+        final PathInfo second = new GetPathInfo(git,
+                                                "master",
+                                                "path/to/file1.txt",
+                                                cache).execute();
+        assertSame(first,
+                   second);
+        assertEquals(PathType.FILE,
+                     second.getPathType());
+        assertEquals(1,
+                     cache.getHits());
+        assertEquals(1,
+                     cache.getMisses());
+
+        assertEquals(1,
+                     new ListPathContent(git,
+                                         "master",
+                                         "path/to",
+                                         cache).execute().size());
+
+        commit(git,
+               "path/to/file2.txt",
+               "other content");
+
+        final List<PathInfo> content = new ListPathContent(git,
+                                                           "master",
+                                                           "path/to",
+                                                           cache).execute();
+        assertEquals(2,
+                     content.size());
+        assertEquals(PathType.FILE,
+                     new GetPathInfo(git,
+                                     "master",
+                                     "path/to/file2.txt",
+                                     cache).execute().getPathType());
+        assertEquals(0.2d,
+                     cache.getHitRate(),
+                     0d);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws IOException {
+        final File gitFolder = new File(createTempDirectory(),
+                                        "evict.git");
+        final Git git = new CreateRepository(gitFolder).execute().get();
+        commit(git,
+               "file1.txt",
+               "content");
+        commit(git,
+               "file2.txt",
+               "content");
+
+        final PathInfoCache cache = new PathInfoCache(1,
+                                                      1);
+        new GetPathInfo(git,
+                        "master",
+                        "file1.txt",
+                        cache).execute();
+        new GetPathInfo(git,
+                        "master",
+                        "file2.txt",
+                        cache).execute();
+        new GetPathInfo(git,
+                        "master",
+                        "file1.txt",
+                        cache).execute();
+
+        assertEquals(0,
+                     cache.getHits());
+        assertEquals(1,
+                     cache.size());
+    }
+
+    @Test
+    public void testGitUsesTheCacheItWasCreatedWith() throws IOException {
+        final PathInfoCache cache = new PathInfoCache(100,
+                                                      100);
+        final Git git = new CreateRepository(new File(createTempDirectory(),
+                                                      "cached.git"),
+                                             null,
+                                             null,
+                                             cache).execute().get();
+        commit(git,
+               "file1.txt",
+               "content");
+
+        git.getPathInfo("master",
+                        "file1.txt");
+        git.getPathInfo("master",
+                        "file1.txt");
+        git.listPathContent("master",
+                            "");
+
+        assertEquals(1,
+                     cache.getHits());
+        assertEquals(2,
+                     cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidSizesFallBackToDefaults() {
+        final PathInfoCache cache = new PathInfoCache(new ConfigProperties(Collections.singletonMap(PathInfoCache.PATH_INFO_CACHE_SIZE,
+                                                                                                   "lots")));
+        assertEquals(0,
+                     cache.size());
+    }
+
+    private void commit(final Git git,
+                        final String path,
+                        final String content) throws IOException {
+        new Commit(git,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "commit " + path,
+                   null,
+                   new Date(),
+                   false,
+                   new HashMap<String, File>() {{
+                       put(path,
+                           tempFile(content));
+                   }}).execute();
+    }
+}
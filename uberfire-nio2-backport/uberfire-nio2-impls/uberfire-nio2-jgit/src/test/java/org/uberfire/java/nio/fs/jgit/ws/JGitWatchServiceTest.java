@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.ws;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.file.ClosedWatchServiceException;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class JGitWatchServiceTest {
+
+    private JGitWatchEventDispatcher dispatcher;
+    private JGitFileSystemWatchServices watchServices;
+
+    @Before
+    public void setup() {
+        dispatcher = new JGitWatchEventDispatcher(1,
+                                                  1);
+        watchServices = new JGitFileSystemWatchServices(dispatcher);
+    }
+
+    @After
+    public void tearDown() {
+        watchServices.close();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void pollWithTimeoutShouldWaitForEvents() throws Exception {
+        final JGitWatchService ws = (JGitWatchService) watchServices.newWatchService("fs");
+
+        final long start = System.nanoTime();
+        assertNull(ws.poll(100,
+                           TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+
+        final Thread publisher = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (java.lang.InterruptedException ignored) {
+            }
+            watchServices.publishEvents(mock(Path.class),
+                                        events(1));
+        });
+        publisher.start();
+
+        final WatchKey wk = ws.poll(5,
+                                    TimeUnit.SECONDS);
+        assertNotNull(wk);
+        assertEquals(1,
+                     wk.pollEvents().size());
+        publisher.join();
+    }
+
+    @Test(expected = ClosedWatchServiceException.class)
+    public void pollWithTimeoutOnClosedService() {
+        final JGitWatchService ws = (JGitWatchService) watchServices.newWatchService("fs");
+        ws.close();
+        ws.poll(1,
+                TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void subscriberShouldReceivePendingAndNewKeysInOrder() throws Exception {
+        final JGitWatchService ws = (JGitWatchService) watchServices.newWatchService("fs");
+        final Path first = mock(Path.class);
+        final Path second = mock(Path.class);
+        watchServices.publishEvents(first,
+                                    events(1));
+
+        final List<WatchKey> received = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch latch = new CountDownLatch(2);
+        ws.subscribe(wk -> {
+            received.add(wk);
+            latch.countDown();
+        });
+        assertTrue(ws.isSubscribed());
+
+        watchServices.publishEvents(second,
+                                    events(2));
+
+        assertTrue(latch.await(5,
+                               TimeUnit.SECONDS));
+        assertSame(first,
+                   received.get(0).watchable());
+        assertSame(second,
+                   received.get(1).watchable());
+        assertNull(ws.poll());
+        assertTrue(received.get(0).reset());
+    }
+
+    @Test
+    public void overflowShouldCoalesceKeysPerWatchable() throws Exception {
+        final JGitWatchService ws = (JGitWatchService) watchServices.newWatchService("fs");
+        final Path path = mock(Path.class);
+        final Path other = mock(Path.class);
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<WatchKey> received = Collections.synchronizedList(new ArrayList<>());
+        ws.subscribe(wk -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (java.lang.InterruptedException ignored) {
+            }
+            received.add(wk);
+        });
+
+        // first key keeps the thread draining this subscription busy
+        watchServices.publishEvents(path,
+                                    events(1));
+        assertTrue(blocked.await(5,
+                                 TimeUnit.SECONDS));
+
+        // fills the queue (size 1), the rest overflows
+        watchServices.publishEvents(other,
+                                    events(1));
+        watchServices.publishEvents(path,
+                                    events(2));
+        watchServices.publishEvents(path,
+                                    events(3));
+
+        final JGitWatchEventDispatcher.Subscription subscription = ws.getSubscription();
+        assertEquals(2,
+                     subscription.getPending());
+        assertEquals(1,
+                     subscription.getCoalesced());
+
+        release.countDown();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (subscription.getDelivered() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(3,
+                     received.size());
+        assertSame(path,
+                   received.get(0).watchable());
+        assertSame(other,
+                   received.get(1).watchable());
+        assertSame(path,
+                   received.get(2).watchable());
+        assertEquals(5,
+                     received.get(2).pollEvents().size());
+    }
+
+    @Test
+    public void slowListenersShouldNotGrowThePool() throws Exception {
+        final JGitWatchEventDispatcher twoThreads = new JGitWatchEventDispatcher(2,
+                                                                                 1);
+        final JGitFileSystemWatchServices services = new JGitFileSystemWatchServices(twoThreads);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch blocked = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            final JGitWatchService slow = (JGitWatchService) services.newWatchService("fs");
+            slow.subscribe(wk -> {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (java.lang.InterruptedException ignored) {
+                }
+            });
+        }
+
+        try {
+            services.publishEvents(mock(Path.class),
+                                   events(1));
+            // two listeners hold both threads, the third subscription waits for one of them
+            assertFalse(blocked.await(500,
+                                      TimeUnit.MILLISECONDS));
+            assertEquals(1,
+                         blocked.getCount());
+
+            release.countDown();
+            assertTrue(blocked.await(5,
+                                     TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            services.close();
+            twoThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownDispatcherShouldRestartOnNextKey() throws Exception {
+        final JGitWatchService ws = (JGitWatchService) watchServices.newWatchService("fs");
+        final CountDownLatch delivered = new CountDownLatch(1);
+        ws.subscribe(wk -> delivered.countDown());
+
+        dispatcher.shutdown();
+        watchServices.publishEvents(mock(Path.class),
+                                    events(1));
+
+        assertTrue(delivered.await(5,
+                                   TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void closeShouldStopDelivery() {
+        final JGitWatchService ws = (JGitWatchService) watchServices.newWatchService("fs");
+        ws.subscribe(wk -> fail("closed service shouldn't deliver"));
+        ws.close();
+
+        assertFalse(ws.getSubscription().isActive());
+        watchServices.publishEvents(mock(Path.class),
+                                    events(1));
+    }
+
+    private List<WatchEvent<?>> events(final int count) {
+        final WatchEvent<?>[] events = new WatchEvent<?>[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = mock(WatchEvent.class);
+        }
+        return Arrays.asList(events);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.ws.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.fs.jgit.ws.JGitWatchEvent;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class WatchEventsWrapperCodecTest {
+
+    private final WatchEventsWrapperCodec codec = new WatchEventsWrapperCodec();
+
+    @Test
+    public void roundTrip() throws IOException {
+        final List<WatchEvent<?>> events = Arrays.asList(new JGitWatchEvent("session",
+                                                                            "dora",
+                                                                            "a\u00f1adido",
+                                                                            "ADD",
+                                                                            null,
+                                                                            path("git://master@repo/file.txt")),
+                                                         new JGitWatchEvent(null,
+                                                                            null,
+                                                                            null,
+                                                                            "RENAME",
+                                                                            path("git://master@repo/old.txt"),
+                                                                            path("git://master@repo/new.txt")));
+        final WatchEventsWrapper wrapper = new WatchEventsWrapper("node",
+                                                                  "space/repo",
+                                                                  path("git://master@repo/"),
+                                                                  events);
+
+        final WatchEventsWrapper decoded = codec.decode(codec.encode(wrapper));
+
+        assertEquals("node",
+                     decoded.getNodeId());
+        assertEquals("space/repo",
+                     decoded.getFsName());
+        assertEquals(URI.create("git://master@repo/"),
+                     decoded.getWatchableUri());
+        assertEquals(2,
+                     decoded.getEvents().size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(events.get(i).toString(),
+                         decoded.getEvents().get(i).toString());
+        }
+    }
+
+    @Test
+    public void roundTripWithoutWatchableAndEvents() throws IOException {
+        final WatchEventsWrapper decoded = codec.decode(codec.encode(new WatchEventsWrapper("node",
+                                                                                            "repo",
+                                                                                            null,
+                                                                                            Collections.emptyList())));
+        assertNull(decoded.getWatchableUri());
+        assertTrue(decoded.getEvents().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownVersionShouldFail() throws IOException {
+        final byte[] payload = codec.encode(new WatchEventsWrapper("node",
+                                                                   "repo",
+                                                                   null,
+                                                                   Collections.emptyList()));
+        payload[0] = 42;
+        codec.decode(payload);
+    }
+
+    private Path path(final String uri) {
+        final Path path = mock(Path.class);
+        when(path.toUri()).thenReturn(URI.create(uri));
+        return path;
+    }
+}
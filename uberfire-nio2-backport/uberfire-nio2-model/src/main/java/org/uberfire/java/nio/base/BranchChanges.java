@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base;
+
+/**
+ * Attribute names used to ask a versioned file system which paths of a branch changed since a given commit.
+ * <p>
+ * Reading {@code "changes:head"} returns the id of the branch head under {@link #HEAD}. Reading
+ * {@code "changes:<commitId>"} also returns the paths added or modified since that commit under {@link #MODIFIED}
+ * and the paths removed under {@link #DELETED}. When the commit is unknown to the repository only {@link #HEAD}
+ * is returned, so callers can fall back to a full scan.
+ */
+public final class BranchChanges {
+
+    public static final String VIEW = "changes";
+    public static final String HEAD = "head";
+    public static final String MODIFIED = "modified";
+    public static final String DELETED = "deleted";
+
+    private BranchChanges() {
+
+    }
+
+    public static String head() {
+        return VIEW + ":" + HEAD;
+    }
+
+    public static String since(final String commitId) {
+        return VIEW + ":" + commitId;
+    }
+}
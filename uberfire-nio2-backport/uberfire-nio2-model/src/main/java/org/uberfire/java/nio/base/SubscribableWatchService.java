@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base;
+
+import java.util.function.Consumer;
+
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.WatchService;
+
+/**
+ * A {@link WatchService} able to push its keys to a listener instead of having a caller parked on
+ * {@link WatchService#take()}. Once subscribed, keys are no longer queued for take/poll; the listener
+ * is invoked from a shared dispatch thread, one key at a time and in publication order.
+ */
+public interface SubscribableWatchService extends WatchService {
+
+    void subscribe(Consumer<WatchKey> listener);
+
+    boolean isSubscribed();
+}
@@ -16,6 +16,8 @@
 
 package org.uberfire.java.nio.base.version;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -23,5 +25,43 @@ import java.util.List;
  */
 public interface VersionHistory {
 
+    /**
+     * @return every record, oldest first.
+     */
     List<VersionRecord> records();
+
+    /**
+     * Returns a page of the history, newest first: the records from {@code startIndex} (inclusive) to
+     * {@code endIndex} (exclusive, or up to the oldest record if negative).
+     * <p>
+     * Implementations backed by a log walk override this so only the requested page is read.
+     */
+    default List<VersionRecord> page(final int startIndex,
+                                     final int endIndex) {
+        final List<VersionRecord> records = records();
+        final int start = Math.max(0,
+                                   startIndex);
+        final int end = endIndex < 0 || endIndex > records.size() ? records.size() : endIndex;
+        if (start >= end) {
+            return Collections.emptyList();
+        }
+        final List<VersionRecord> result = new ArrayList<>(end - start);
+        for (int i = records.size() - 1 - start; i >= records.size() - end; i--) {
+            result.add(records.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return the most recent record, or null if there is none.
+     */
+    default VersionRecord latest() {
+        final List<VersionRecord> page = page(0,
+                                              1);
+        return page.isEmpty() ? null : page.get(0);
+    }
+
+    default int size() {
+        return records().size();
+    }
 }
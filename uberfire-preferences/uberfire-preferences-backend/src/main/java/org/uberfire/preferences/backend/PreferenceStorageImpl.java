@@ -18,8 +18,12 @@ package org.uberfire.preferences.backend;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
@@ -30,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.annotations.Customizable;
 import org.uberfire.backend.server.io.object.ObjectStorage;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.file.FileVisitResult;
@@ -53,6 +58,7 @@ public class PreferenceStorageImpl implements PreferenceStorage {
 
     public static final String FILE_FORMAT = ".preferences";
     public static final int FILE_FORMAT_SIZE = FILE_FORMAT.length();
+    public static final String RESOLUTION_CACHE_SIZE = "org.uberfire.preferences.resolution.cache.size";
     private static final Logger logger = LoggerFactory.getLogger(PreferenceStorageImpl.class);
     private IOService ioService;
 
@@ -64,6 +70,22 @@ public class PreferenceStorageImpl implements PreferenceStorage {
 
     private ObjectStorage objectStorage;
 
+    private final int resolutionCacheSize = new ConfigProperties(System.getProperties()).get(RESOLUTION_CACHE_SIZE,
+                                                                                             "1000").getIntValue(1000);
+
+    /**
+     * Index, in the scope resolution order, of the scope holding each key. Entries are dropped as soon as the object
+     * storage version moves, so they never outlive a change to any preference.
+     */
+    private final Map<ResolutionKey, Resolution> resolutions = Collections.synchronizedMap(new LinkedHashMap<ResolutionKey, Resolution>(16,
+                                                                                                                                        0.75f,
+                                                                                                                                        true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<ResolutionKey, Resolution> eldest) {
+            return size() > resolutionCacheSize;
+        }
+    });
+
     protected PreferenceStorageImpl() {
     }
 
@@ -96,15 +118,8 @@ public class PreferenceStorageImpl implements PreferenceStorage {
     @Override
     public boolean exists(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
                           final String key) {
-        for (PreferenceScope preferenceScope : scopeResolutionStrategyInfo.order()) {
-            boolean exists = exists(preferenceScope,
-                                    key);
-            if (exists) {
-                return true;
-            }
-        }
-
-        return false;
+        return resolve(scopeResolutionStrategyInfo,
+                       key).value != null;
     }
 
     @Override
@@ -118,30 +133,63 @@ public class PreferenceStorageImpl implements PreferenceStorage {
     @Override
     public <T> T read(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
                       final String key) {
-        for (PreferenceScope preferenceScope : scopeResolutionStrategyInfo.order()) {
-            T result = read(preferenceScope,
-                            key);
-            if (result != null) {
-                return result;
-            }
-        }
-
-        return null;
+        return (T) resolve(scopeResolutionStrategyInfo,
+                           key).value;
     }
 
     @Override
     public <T> PreferenceScopedValue<T> readWithScope(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
                                                       final String key) {
-        for (PreferenceScope scope : scopeResolutionStrategyInfo.order()) {
-            T result = read(scope,
-                            key);
-            if (result != null) {
-                return new PreferenceScopedValue<>(result,
-                                                   scopeFactory.cloneScope(scope));
+        final ResolvedValue resolved = resolve(scopeResolutionStrategyInfo,
+                                               key);
+        if (resolved.value == null) {
+            return null;
+        }
+        return new PreferenceScopedValue<>((T) resolved.value,
+                                           scopeFactory.cloneScope(resolved.scope));
+    }
+
+    /**
+     * Finds the first scope, in resolution order, holding a value for the key. Scopes known to be empty from a
+     * previous lookup are skipped while the object storage has not changed.
+     */
+    ResolvedValue resolve(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                          final String key) {
+        final List<PreferenceScope> order = scopeResolutionStrategyInfo.order();
+        final List<String> scopePaths = new ArrayList<>(order.size());
+        for (PreferenceScope scope : order) {
+            scopePaths.add(buildScopePath(scope));
+        }
+        final ResolutionKey resolutionKey = new ResolutionKey(scopePaths,
+                                                              key);
+
+        final long version = objectStorage.getVersion();
+        final Resolution resolution = resolutions.get(resolutionKey);
+        if (resolution != null && resolution.version == version) {
+            if (resolution.index < 0) {
+                return ResolvedValue.NONE;
+            }
+            final Object value = objectStorage.read(scopePaths.get(resolution.index) + key + FILE_FORMAT);
+            if (value != null) {
+                return new ResolvedValue(value,
+                                         order.get(resolution.index));
             }
         }
 
-        return null;
+        for (int i = 0; i < order.size(); i++) {
+            final Object value = objectStorage.read(scopePaths.get(i) + key + FILE_FORMAT);
+            if (value != null) {
+                resolutions.put(resolutionKey,
+                                new Resolution(version,
+                                               i));
+                return new ResolvedValue(value,
+                                         order.get(i));
+            }
+        }
+        resolutions.put(resolutionKey,
+                        new Resolution(version,
+                                       -1));
+        return ResolvedValue.NONE;
     }
 
     @Override
@@ -223,4 +271,61 @@ public class PreferenceStorageImpl implements PreferenceStorage {
                                      final String key) {
         return buildScopePath(scope) + key + FILE_FORMAT;
     }
+
+    static class ResolvedValue {
+
+        static final ResolvedValue NONE = new ResolvedValue(null,
+                                                            null);
+
+        final Object value;
+        final PreferenceScope scope;
+
+        ResolvedValue(final Object value,
+                      final PreferenceScope scope) {
+            this.value = value;
+            this.scope = scope;
+        }
+    }
+
+    private static class Resolution {
+
+        private final long version;
+        private final int index;
+
+        Resolution(final long version,
+                   final int index) {
+            this.version = version;
+            this.index = index;
+        }
+    }
+
+    private static class ResolutionKey {
+
+        private final List<String> scopePaths;
+        private final String key;
+
+        ResolutionKey(final List<String> scopePaths,
+                      final String key) {
+            this.scopePaths = scopePaths;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ResolutionKey)) {
+                return false;
+            }
+            final ResolutionKey that = (ResolutionKey) o;
+            return key.equals(that.key) && scopePaths.equals(that.scopePaths);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scopePaths,
+                                key);
+        }
+    }
 }
@@ -366,6 +366,29 @@ public class PreferenceStorageImplTest {
                      scopedValue.getScope().key());
     }
 
+    @Test
+    public void resolvedScopeIsRefreshedAfterWritesTest() {
+        preferenceStorageServiceBackendImpl.write(allUsersEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  "global_value");
+        assertEquals("global_value",
+                     preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                              "my.preference.key"));
+
+        preferenceStorageServiceBackendImpl.write(userEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  "user_value");
+        assertEquals("user_value",
+                     preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                              "my.preference.key"));
+
+        preferenceStorageServiceBackendImpl.delete(userEntireApplicationScope,
+                                                   "my.preference.key");
+        assertEquals("global_value",
+                     preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                              "my.preference.key"));
+    }
+
     @Test
     public void deleteFromUserTest() {
         String value;
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.common.services.project.backend.server;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.guvnor.common.services.backend.file.LinkedDirectoryFilter;
+import org.guvnor.common.services.backend.file.LinkedDotFileFilter;
+import org.guvnor.common.services.backend.file.LinkedMetaInfFolderFilter;
+import org.uberfire.commons.config.ConfigProperties;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Files;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
+
+/**
+ * Index of the package folders under a source root, e.g. src/main/java.
+ * <p>
+ * On git file systems the package folders found under a folder are cached by the id of the folder's tree. Trees are
+ * immutable and any change below a folder gives it a new tree id, so entries never need invalidating: after a commit
+ * only the folders on the path to what changed are listed again, everything else is served from unchanged subtrees.
+ * <p>
+ * Other file systems have no tree ids to key the cache by, so {@link #getPackagePaths(IOService, Path)} walks the
+ * whole source root on every call. Callers that only need one package or its direct children should check
+ * {@link #isIndexed(Path)} and look those up on the file system instead.
+ */
+class ProjectStructureIndex {
+
+    public static final String CACHE_SIZE = "org.guvnor.project.structure.cache.size";
+
+    private static final String GIT_SCHEME = "git";
+
+    private final Map<String, Set<String>> packagesByTree;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    ProjectStructureIndex() {
+        final int maxSize = new ConfigProperties(System.getProperties()).get(CACHE_SIZE,
+                                                                             "10000").getIntValue(10000);
+        this.packagesByTree = Collections.synchronizedMap(new LinkedHashMap<String, Set<String>>(16,
+                                                                                                 0.75f,
+                                                                                                 true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Set<String>> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * @return the paths of all package folders under the source root relative to it, "" being the source root itself,
+     * or an empty set if the source root does not exist. META-INF and dot folders are not packages.
+     */
+    Set<String> getPackagePaths(final IOService ioService,
+                                final Path sourceRoot) {
+        if (!Files.exists(sourceRoot)) {
+            return Collections.emptySet();
+        }
+        return getPackagePathsBelow(ioService,
+                                    sourceRoot);
+    }
+
+    /**
+     * @return whether the package folders under the path are cached, i.e. whether it is on a git file system
+     */
+    boolean isIndexed(final Path path) {
+        final FileSystem fileSystem = path.getFileSystem();
+        return fileSystem != null && fileSystem.provider() != null && GIT_SCHEME.equals(fileSystem.provider().getScheme());
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    private Set<String> getPackagePathsBelow(final IOService ioService,
+                                             final Path folder) {
+        final String treeId = getTreeId(ioService,
+                                        folder);
+        if (treeId != null) {
+            final Set<String> cached = packagesByTree.get(treeId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            misses.incrementAndGet();
+        }
+
+        //We're only interested in Directories (and not META-INF) so set-up appropriate filters
+        final LinkedMetaInfFolderFilter metaDataFileFilter = new LinkedMetaInfFolderFilter();
+        final LinkedDotFileFilter dotFileFilter = new LinkedDotFileFilter(metaDataFileFilter);
+        final LinkedDirectoryFilter directoryFilter = new LinkedDirectoryFilter(dotFileFilter);
+
+        final Set<String> packagePaths = new HashSet<>();
+        packagePaths.add("");
+        final DirectoryStream<Path> children = ioService.newDirectoryStream(folder,
+                                                                            directoryFilter);
+        for (Path child : children) {
+            final String name = child.getFileName().toString();
+            for (String childPackagePath : getPackagePathsBelow(ioService,
+                                                                child)) {
+                packagePaths.add(childPackagePath.isEmpty() ? name : name + "/" + childPackagePath);
+            }
+        }
+
+        final Set<String> result = Collections.unmodifiableSet(packagePaths);
+        if (treeId != null) {
+            packagesByTree.put(treeId,
+                               result);
+        }
+        return result;
+    }
+
+    private String getTreeId(final IOService ioService,
+                             final Path folder) {
+        if (!isIndexed(folder)) {
+            return null;
+        }
+        final BasicFileAttributeView view = ioService.getFileAttributeView(folder,
+                                                                           BasicFileAttributeView.class);
+        if (view == null) {
+            return null;
+        }
+        final Object fileKey = view.readAttributes().fileKey();
+        return fileKey == null ? null : fileKey.toString();
+    }
+}
@@ -17,8 +17,10 @@ package org.guvnor.common.services.project.backend.server;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import javax.enterprise.inject.Instance;
@@ -66,6 +68,8 @@ public abstract class ResourceResolver<T extends Project>
     protected BackwardCompatibleUtil backward;
     protected List<ProjectResourcePathResolver> resourcePathResolvers = new ArrayList<>();
 
+    private final ProjectStructureIndex structureIndex = new ProjectStructureIndex();
+
     public ResourceResolver() {
     }
 
@@ -232,31 +236,20 @@ public abstract class ResourceResolver<T extends Project>
     @Override
     public Set<Package> resolvePackages(final Project project) {
         final Set<Package> packages = new HashSet<Package>();
-        final Set<String> packageNames = new HashSet<String>();
         if (project == null) {
             return packages;
         }
         //Build a set of all package names across /src/main/java, /src/main/resources, /src/test/java and /src/test/resources paths
         //It is possible (if the project was not created within the workbench that some packages only exist in certain paths)
-        final Path projectRoot = project.getRootPath();
-        final org.uberfire.java.nio.file.Path nioProjectRootPath = Paths.convert(projectRoot);
-        for (String src : SOURCE_PATHS) {
-            final org.uberfire.java.nio.file.Path nioPackageRootSrcPath = nioProjectRootPath.resolve(src);
-            packageNames.addAll(getPackageNames(nioProjectRootPath,
-                                                nioPackageRootSrcPath,
-                                                true,
-                                                true,
-                                                true));
-        }
+        final org.uberfire.java.nio.file.Path nioProjectRootPath = Paths.convert(project.getRootPath());
+        final Map<String, Set<String>> packagePaths = getPackagePaths(nioProjectRootPath);
 
-        //Construct Package objects for each package name
-        final java.util.Set<String> resolvedPackages = new java.util.HashSet<String>();
-        for (String packagePathSuffix : packageNames) {
-            for (String src : SOURCE_PATHS) {
-                final org.uberfire.java.nio.file.Path nioPackagePath = nioProjectRootPath.resolve(src).resolve(packagePathSuffix);
-                if (Files.exists(nioPackagePath) && !resolvedPackages.contains(packagePathSuffix)) {
-                    packages.add(resolvePackage(Paths.convert(nioPackagePath)));
-                    resolvedPackages.add(packagePathSuffix);
+        //Construct Package objects for each package name, from the first source path it exists in
+        final Set<String> resolvedPackages = new HashSet<String>();
+        for (String src : SOURCE_PATHS) {
+            for (String packagePathSuffix : packagePaths.get(src)) {
+                if (resolvedPackages.add(packagePathSuffix)) {
+                    packages.add(resolvePackage(Paths.convert(nioProjectRootPath.resolve(src).resolve(packagePathSuffix))));
                 }
             }
         }
@@ -274,29 +267,21 @@ public abstract class ResourceResolver<T extends Project>
 
         //Build a set of all package names across /src/main/java, /src/main/resources, /src/test/java and /src/test/resources paths
         //It is possible (if the project was not created within the workbench that some packages only exist in certain paths)
-
-        final Path projectRoot = pkg.getProjectRootPath();
-        final org.uberfire.java.nio.file.Path nioProjectRootPath = Paths.convert(projectRoot);
-
+        final org.uberfire.java.nio.file.Path nioProjectRootPath = Paths.convert(pkg.getProjectRootPath());
+        final Map<String, Set<String>> packagePaths = getIndexedPackagePaths(nioProjectRootPath);
+        final String parentPackagePath = resolvePkgName(pkg.getCaption());
         for (String src : SOURCE_PATHS) {
-            final org.uberfire.java.nio.file.Path nioPackageRootSrcPath = nioProjectRootPath.resolve(src).resolve(resolvePkgName(pkg.getCaption()));
-            packageNames.addAll(getPackageNames(nioProjectRootPath,
-                                                nioPackageRootSrcPath,
-                                                false,
-                                                true,
-                                                false));
+            packageNames.addAll(getChildPackagePaths(nioProjectRootPath,
+                                                     packagePaths,
+                                                     src,
+                                                     parentPackagePath));
         }
 
         //Construct Package objects for each package name
-        final java.util.Set<String> resolvedPackages = new java.util.HashSet<String>();
         for (String packagePathSuffix : packageNames) {
-            for (String src : SOURCE_PATHS) {
-                final org.uberfire.java.nio.file.Path nioPackagePath = nioProjectRootPath.resolve(src).resolve(packagePathSuffix);
-                if (Files.exists(nioPackagePath) && !resolvedPackages.contains(packagePathSuffix)) {
-                    packages.add(resolvePackage(Paths.convert(nioPackagePath)));
-                    resolvedPackages.add(packagePathSuffix);
-                }
-            }
+            packages.add(resolvePackage(nioProjectRootPath,
+                                        packagePaths,
+                                        packagePathSuffix));
         }
 
         return packages;
@@ -310,25 +295,28 @@ public abstract class ResourceResolver<T extends Project>
         }
         //Build a set of all package names across /src/main/java, /src/main/resources, /src/test/java and /src/test/resources paths
         //It is possible (if the project was not created within the workbench that some packages only exist in certain paths)
-        final Path projectRoot = project.getRootPath();
-        final org.uberfire.java.nio.file.Path nioProjectRootPath = Paths.convert(projectRoot);
+        final org.uberfire.java.nio.file.Path nioProjectRootPath = Paths.convert(project.getRootPath());
+        final Map<String, Set<String>> packagePaths = getIndexedPackagePaths(nioProjectRootPath);
         for (String src : SOURCE_PATHS) {
-            final org.uberfire.java.nio.file.Path nioPackageRootSrcPath = nioProjectRootPath.resolve(src);
-            packageNames.addAll(getPackageNames(nioProjectRootPath,
-                                                nioPackageRootSrcPath,
-                                                true,
-                                                true,
-                                                false));
+            if (hasPackage(nioProjectRootPath,
+                           packagePaths,
+                           src,
+                           "")) {
+                packageNames.add("");
+            }
+            packageNames.addAll(getChildPackagePaths(nioProjectRootPath,
+                                                     packagePaths,
+                                                     src,
+                                                     ""));
         }
 
         //Construct Package objects for each package name
-        final java.util.Set<String> resolvedPackages = new java.util.HashSet<String>();
         for (String packagePathSuffix : packageNames) {
-            for (String src : SOURCE_PATHS) {
-                final org.uberfire.java.nio.file.Path nioPackagePath = nioProjectRootPath.resolve(src).resolve(packagePathSuffix);
-                if (Files.exists(nioPackagePath) && !resolvedPackages.contains(packagePathSuffix)) {
-                    return resolvePackage(Paths.convert(nioPackagePath));
-                }
+            final Package pkg = resolvePackage(nioProjectRootPath,
+                                               packagePaths,
+                                               packagePathSuffix);
+            if (pkg != null) {
+                return pkg;
             }
         }
 
@@ -348,45 +336,19 @@ public abstract class ResourceResolver<T extends Project>
 
     @Override
     public Package resolveParentPackage(final Package pkg) {
-        final Set<String> packageNames = new HashSet<String>();
-
-        //Build a set of all package names across /src/main/java, /src/main/resources, /src/test/java and /src/test/resources paths
         final org.uberfire.java.nio.file.Path nioProjectRootPath = Paths.convert(pkg.getProjectRootPath());
-        packageNames.addAll(getPackageNames(nioProjectRootPath,
-                                            Paths.convert(pkg.getPackageMainSrcPath()).getParent(),
-                                            true,
-                                            false,
-                                            false));
-        packageNames.addAll(getPackageNames(nioProjectRootPath,
-                                            Paths.convert(pkg.getPackageMainResourcesPath()).getParent(),
-                                            true,
-                                            false,
-                                            false));
-        packageNames.addAll(getPackageNames(nioProjectRootPath,
-                                            Paths.convert(pkg.getPackageTestSrcPath()).getParent(),
-                                            true,
-                                            false,
-                                            false));
-        packageNames.addAll(getPackageNames(nioProjectRootPath,
-                                            Paths.convert(pkg.getPackageTestResourcesPath()).getParent(),
-                                            true,
-                                            false,
-                                            false));
 
-        //Construct Package objects for each package name
-        for (String packagePathSuffix : packageNames) {
-            for (String src : SOURCE_PATHS) {
-                if (packagePathSuffix == null) {
-                    return null;
-                }
-                final org.uberfire.java.nio.file.Path nioPackagePath = nioProjectRootPath.resolve(src).resolve(packagePathSuffix);
-                if (Files.exists(nioPackagePath)) {
-                    return resolvePackage(Paths.convert(nioPackagePath));
-                }
-            }
+        //The parent of the default package is not a package
+        final String parentPackagePath = getPackagePathSuffix(nioProjectRootPath,
+                                                              Paths.convert(pkg.getPackageMainSrcPath()).getParent());
+        if (parentPackagePath == null) {
+            return null;
         }
 
-        return null;
+        //Find the parent across /src/main/java, /src/main/resources, /src/test/java and /src/test/resources paths
+        return resolvePackage(nioProjectRootPath,
+                              getIndexedPackagePaths(nioProjectRootPath),
+                              parentPackagePath);
     }
 
     @Override
@@ -570,44 +532,85 @@ public abstract class ResourceResolver<T extends Project>
         return pkg;
     }
 
-    private Set<String> getPackageNames(final org.uberfire.java.nio.file.Path nioProjectRootPath,
-                                        final org.uberfire.java.nio.file.Path nioPackageSrcPath,
-                                        final boolean includeDefault,
-                                        final boolean includeChild,
-                                        final boolean recursive) {
-        final Set<String> packageNames = new HashSet<String>();
-        if (!Files.exists(nioPackageSrcPath)) {
-            return packageNames;
+    private Map<String, Set<String>> getPackagePaths(final org.uberfire.java.nio.file.Path nioProjectRootPath) {
+        final Map<String, Set<String>> packagePaths = new HashMap<String, Set<String>>();
+        for (String src : SOURCE_PATHS) {
+            packagePaths.put(src,
+                             structureIndex.getPackagePaths(ioService,
+                                                            nioProjectRootPath.resolve(src)));
         }
-        if (includeDefault || recursive) {
-            packageNames.add(getPackagePathSuffix(nioProjectRootPath,
-                                                  nioPackageSrcPath));
+        return packagePaths;
+    }
+
+    /**
+     * @return the package paths of every source path when the project's file system is indexed, otherwise null and
+     * packages are looked up on the file system directly, one folder at a time
+     */
+    private Map<String, Set<String>> getIndexedPackagePaths(final org.uberfire.java.nio.file.Path nioProjectRootPath) {
+        if (!structureIndex.isIndexed(nioProjectRootPath)) {
+            return null;
+        }
+        return getPackagePaths(nioProjectRootPath);
+    }
+
+    private boolean hasPackage(final org.uberfire.java.nio.file.Path nioProjectRootPath,
+                               final Map<String, Set<String>> packagePaths,
+                               final String src,
+                               final String packagePathSuffix) {
+        if (packagePaths != null) {
+            return packagePaths.get(src).contains(packagePathSuffix);
         }
+        return Files.exists(nioProjectRootPath.resolve(src).resolve(packagePathSuffix));
+    }
 
-        if (!includeChild) {
-            return packageNames;
+    private Set<String> getChildPackagePaths(final org.uberfire.java.nio.file.Path nioProjectRootPath,
+                                             final Map<String, Set<String>> packagePaths,
+                                             final String src,
+                                             final String parentPackagePath) {
+        final Set<String> childPackagePaths = new HashSet<String>();
+        if (!hasPackage(nioProjectRootPath,
+                        packagePaths,
+                        src,
+                        parentPackagePath)) {
+            return childPackagePaths;
+        }
+        final String prefix = parentPackagePath.isEmpty() ? "" : parentPackagePath + "/";
+        if (packagePaths == null) {
+            //We're only interested in Directories (and not META-INF) so set-up appropriate filters
+            final LinkedMetaInfFolderFilter metaDataFileFilter = new LinkedMetaInfFolderFilter();
+            final LinkedDotFileFilter dotFileFilter = new LinkedDotFileFilter(metaDataFileFilter);
+            final LinkedDirectoryFilter directoryFilter = new LinkedDirectoryFilter(dotFileFilter);
+
+            final DirectoryStream<org.uberfire.java.nio.file.Path> nioChildPackageSrcPaths = ioService.newDirectoryStream(nioProjectRootPath.resolve(src).resolve(parentPackagePath),
+                                                                                                                          directoryFilter);
+            for (org.uberfire.java.nio.file.Path nioChildPackageSrcPath : nioChildPackageSrcPaths) {
+                childPackagePaths.add(prefix + nioChildPackageSrcPath.getFileName().toString());
+            }
+            return childPackagePaths;
         }
+        for (String packagePath : packagePaths.get(src)) {
+            if (packagePath.startsWith(prefix)) {
+                final String relativePath = packagePath.substring(prefix.length());
+                if (!relativePath.isEmpty() && !relativePath.contains("/")) {
+                    childPackagePaths.add(packagePath);
+                }
+            }
+        }
+        return childPackagePaths;
+    }
 
-        //We're only interested in Directories (and not META-INF) so set-up appropriate filters
-        final LinkedMetaInfFolderFilter metaDataFileFilter = new LinkedMetaInfFolderFilter();
-        final LinkedDotFileFilter dotFileFilter = new LinkedDotFileFilter(metaDataFileFilter);
-        final LinkedDirectoryFilter directoryFilter = new LinkedDirectoryFilter(dotFileFilter);
-
-        final DirectoryStream<org.uberfire.java.nio.file.Path> nioChildPackageSrcPaths = ioService.newDirectoryStream(nioPackageSrcPath,
-                                                                                                                      directoryFilter);
-        for (org.uberfire.java.nio.file.Path nioChildPackageSrcPath : nioChildPackageSrcPaths) {
-            if (recursive) {
-                packageNames.addAll(getPackageNames(nioProjectRootPath,
-                                                    nioChildPackageSrcPath,
-                                                    includeDefault,
-                                                    includeChild,
-                                                    recursive));
-            } else {
-                packageNames.add(getPackagePathSuffix(nioProjectRootPath,
-                                                      nioChildPackageSrcPath));
+    private Package resolvePackage(final org.uberfire.java.nio.file.Path nioProjectRootPath,
+                                   final Map<String, Set<String>> packagePaths,
+                                   final String packagePathSuffix) {
+        for (String src : SOURCE_PATHS) {
+            if (hasPackage(nioProjectRootPath,
+                           packagePaths,
+                           src,
+                           packagePathSuffix)) {
+                return resolvePackage(Paths.convert(nioProjectRootPath.resolve(src).resolve(packagePathSuffix)));
             }
         }
-        return packageNames;
+        return null;
     }
 
     private String getPackageDisplayName(final String packageName) {
@@ -16,8 +16,12 @@
 
 package org.guvnor.common.services.project.backend.server;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import javax.enterprise.inject.Instance;
 
 import org.guvnor.common.services.backend.util.CommentedOptionFactory;
@@ -32,14 +36,19 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.server.util.Paths;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.Files;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -72,6 +81,9 @@ public class AbstractResourceResolverTest {
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Before
     public void setUp() {
         initProjectResourcePathResolvers(PROJECT_RESOURCE_PATH_RESOLVERS_SIZE);
@@ -168,6 +180,118 @@ public class AbstractResourceResolverTest {
                      packagePath.toURI());
     }
 
+    @Test
+    public void resolvePackagesFindsPackagesOfEverySourcePath() throws Exception {
+        final org.uberfire.java.nio.file.Path root = projectOnDisk("src/main/java/org/foo",
+                                                                   "src/main/resources/org",
+                                                                   "src/test/resources/org/bar");
+        final Set<String> resolved = recordResolvedPackages(root);
+
+        final Project project = mock(Project.class);
+        doReturn(Paths.convert(root)).when(project).getRootPath();
+        resourceResolver.resolvePackages(project);
+
+        // org/bar only exists in src/test/resources, org in src/main/java and src/main/resources
+        assertEquals(new HashSet<>(Arrays.asList("src/main/java",
+                                                 "src/main/java/org",
+                                                 "src/main/java/org/foo",
+                                                 "src/test/resources/org/bar")),
+                     resolved);
+    }
+
+    @Test
+    public void resolvePackagesOfPackageListsDirectChildrenOnly() throws Exception {
+        final org.uberfire.java.nio.file.Path root = projectOnDisk("src/main/java/org/foo/deep",
+                                                                   "src/test/java/org/bar");
+        final Set<String> resolved = recordResolvedPackages(root);
+
+        final Package pkg = mock(Package.class);
+        doReturn(Paths.convert(root)).when(pkg).getProjectRootPath();
+        doReturn("org").when(pkg).getCaption();
+        resourceResolver.resolvePackages(pkg);
+
+        assertEquals(new HashSet<>(Arrays.asList("src/main/java/org/foo",
+                                                 "src/test/java/org/bar")),
+                     resolved);
+        // without tree ids the children are listed one level deep, as before
+        verify(ioService,
+               never()).newDirectoryStream(eq(root.resolve("src/main/java/org/foo")),
+                                           any(DirectoryStream.Filter.class));
+    }
+
+    @Test
+    public void resolveDefaultPackageListsOneLevel() throws Exception {
+        final org.uberfire.java.nio.file.Path root = projectOnDisk("src/main/java/org/foo");
+        final Set<String> resolved = recordResolvedPackages(root);
+
+        final Project project = mock(Project.class);
+        doReturn(Paths.convert(root)).when(project).getRootPath();
+
+        assertNotNull(resourceResolver.resolveDefaultPackage(project));
+        assertEquals(1,
+                     resolved.size());
+        verify(ioService,
+               never()).newDirectoryStream(eq(root.resolve("src/main/java/org")),
+                                           any(DirectoryStream.Filter.class));
+    }
+
+    @Test
+    public void resolveParentPackageLooksUpTheParentOnly() throws Exception {
+        final org.uberfire.java.nio.file.Path root = projectOnDisk("src/main/java/org/foo",
+                                                                   "src/test/resources/org");
+        final Set<String> resolved = recordResolvedPackages(root);
+
+        final Package pkg = mock(Package.class);
+        doReturn(Paths.convert(root)).when(pkg).getProjectRootPath();
+        doReturn(Paths.convert(root.resolve("src/main/java/org/foo"))).when(pkg).getPackageMainSrcPath();
+
+        assertNotNull(resourceResolver.resolveParentPackage(pkg));
+        assertEquals(new HashSet<>(Arrays.asList("src/main/java/org")),
+                     resolved);
+        verify(ioService,
+               never()).newDirectoryStream(any(org.uberfire.java.nio.file.Path.class),
+                                           any(DirectoryStream.Filter.class));
+    }
+
+    @Test
+    public void parentOfDefaultPackageIsNull() throws Exception {
+        final org.uberfire.java.nio.file.Path root = projectOnDisk("src/main/java/org");
+
+        final Package pkg = mock(Package.class);
+        doReturn(Paths.convert(root)).when(pkg).getProjectRootPath();
+        doReturn(Paths.convert(root.resolve("src/main/java"))).when(pkg).getPackageMainSrcPath();
+
+        assertNull(resourceResolver.resolveParentPackage(pkg));
+    }
+
+    /**
+     * Creates the folders under a new project root on the local file system, which has no tree ids.
+     */
+    @SuppressWarnings("unchecked")
+    private org.uberfire.java.nio.file.Path projectOnDisk(final String... folders) throws Exception {
+        final File projectRoot = temporaryFolder.newFolder();
+        for (String folder : folders) {
+            assertTrue(new File(projectRoot,
+                                folder).mkdirs());
+        }
+        when(ioService.newDirectoryStream(any(org.uberfire.java.nio.file.Path.class),
+                                          any(DirectoryStream.Filter.class))).thenAnswer(invocation -> Files.newDirectoryStream((org.uberfire.java.nio.file.Path) invocation.getArguments()[0],
+                                                                                                                                (DirectoryStream.Filter<org.uberfire.java.nio.file.Path>) invocation.getArguments()[1]));
+        return org.uberfire.java.nio.file.Paths.get(projectRoot.toURI());
+    }
+
+    /**
+     * @return the paths, relative to the project root, of the packages the resolver builds
+     */
+    private Set<String> recordResolvedPackages(final org.uberfire.java.nio.file.Path root) {
+        final Set<String> resolved = new HashSet<>();
+        doAnswer(invocation -> {
+            resolved.add(root.relativize(Paths.convert((Path) invocation.getArguments()[0])).toString());
+            return mock(Package.class);
+        }).when(resourceResolver).resolvePackage(any(Path.class));
+        return resolved;
+    }
+
     private void initProjectResourcePathResolvers(int size) {
         for (int i = 0; i < size; i++) {
             projectResourcePathResolvers.add(mock(ProjectResourcePathResolver.class));
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.common.services.project.backend.server;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
+import org.uberfire.java.nio.file.spi.FileSystemProvider;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProjectStructureIndexTest {
+
+    @Mock
+    private IOService ioService;
+
+    @Mock
+    private FileSystem fileSystem;
+
+    @Mock
+    private FileSystemProvider provider;
+
+    private ProjectStructureIndex index;
+
+    private Path sourceRoot;
+    private Path org;
+    private Path foo;
+    private Path bar;
+
+    @Before
+    public void setUp() {
+        when(fileSystem.provider()).thenReturn(provider);
+        when(provider.getScheme()).thenReturn("git");
+
+        index = new ProjectStructureIndex();
+
+        sourceRoot = folder("java",
+                            "root1");
+        org = folder("org",
+                     "org1");
+        foo = folder("foo",
+                     "foo1");
+        bar = folder("bar",
+                     "bar1");
+        children(sourceRoot,
+                 org);
+        children(org,
+                 foo,
+                 bar);
+        children(foo);
+        children(bar);
+    }
+
+    @Test
+    public void packagePaths() {
+        assertEquals(new HashSet<>(Arrays.asList("",
+                                                 "org",
+                                                 "org/foo",
+                                                 "org/bar")),
+                     index.getPackagePaths(ioService,
+                                           sourceRoot));
+    }
+
+    @Test
+    public void unchangedTreeIsNotListedAgain() {
+        index.getPackagePaths(ioService,
+                              sourceRoot);
+        index.getPackagePaths(ioService,
+                              sourceRoot);
+
+        verify(ioService,
+               times(1)).newDirectoryStream(eq(sourceRoot),
+                                            any(DirectoryStream.Filter.class));
+        verify(ioService,
+               times(1)).newDirectoryStream(eq(org),
+                                            any(DirectoryStream.Filter.class));
+        assertEquals(1,
+                     index.getHits());
+    }
+
+    @Test
+    public void onlyChangedFoldersAreListedAgain() {
+        index.getPackagePaths(ioService,
+                              sourceRoot);
+
+        // a new package under org/foo changes the trees of foo, org and the source root, but not of bar
+        final Path baz = folder("baz",
+                                "baz1");
+        children(baz);
+        children(foo,
+                 baz);
+        treeId(foo,
+               "foo2");
+        treeId(org,
+               "org2");
+        treeId(sourceRoot,
+               "root2");
+
+        assertEquals(new HashSet<>(Arrays.asList("",
+                                                 "org",
+                                                 "org/foo",
+                                                 "org/foo/baz",
+                                                 "org/bar")),
+                     index.getPackagePaths(ioService,
+                                           sourceRoot));
+        verify(ioService,
+               times(1)).newDirectoryStream(eq(bar),
+                                            any(DirectoryStream.Filter.class));
+        verify(ioService,
+               times(2)).newDirectoryStream(eq(foo),
+                                            any(DirectoryStream.Filter.class));
+    }
+
+    @Test
+    public void otherFileSystemsAreNotCached() {
+        when(provider.getScheme()).thenReturn("file");
+        assertFalse(index.isIndexed(sourceRoot));
+
+        index.getPackagePaths(ioService,
+                              sourceRoot);
+        index.getPackagePaths(ioService,
+                              sourceRoot);
+
+        verify(ioService,
+               times(2)).newDirectoryStream(eq(sourceRoot),
+                                            any(DirectoryStream.Filter.class));
+        verify(ioService,
+               never()).getFileAttributeView(any(Path.class),
+                                             eq(BasicFileAttributeView.class));
+    }
+
+    private Path folder(final String name,
+                        final String treeId) {
+        final Path folder = mock(Path.class);
+        final Path fileName = mock(Path.class);
+        when(fileName.toString()).thenReturn(name);
+        when(folder.getFileName()).thenReturn(fileName);
+        when(folder.getFileSystem()).thenReturn(fileSystem);
+        treeId(folder,
+               treeId);
+        return folder;
+    }
+
+    private void treeId(final Path folder,
+                        final String treeId) {
+        final BasicFileAttributeView view = mock(BasicFileAttributeView.class);
+        final BasicFileAttributes attributes = mock(BasicFileAttributes.class);
+        when(attributes.fileKey()).thenReturn(treeId);
+        when(view.readAttributes()).thenReturn(attributes);
+        when(ioService.getFileAttributeView(folder,
+                                            BasicFileAttributeView.class)).thenReturn(view);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void children(final Path folder,
+                          final Path... children) {
+        when(ioService.newDirectoryStream(eq(folder),
+                                          any(DirectoryStream.Filter.class))).thenAnswer(invocation -> new DirectoryStream<Path>() {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public Iterator<Path> iterator() {
+                return Arrays.asList(children).iterator();
+            }
+        });
+    }
+}
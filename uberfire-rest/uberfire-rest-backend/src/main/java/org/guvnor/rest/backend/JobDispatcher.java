@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.rest.backend;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands jobs to an executor in submission order, while
+ * <ul>
+ * <li>running at most one job at a time per lane (the repository a job works on), so jobs on the same repository
+ * never contend on its file system locks;</li>
+ * <li>running at most {@value #MAX_CONCURRENT} jobs at once (default: number of processors);</li>
+ * <li>running at most {@value #MAX_CONCURRENT}.&lt;type&gt; jobs of one type at once, e.g.
+ * org.guvnor.rest.jobs.max.concurrent.compileProject (default: the global limit).</li>
+ * </ul>
+ * A job waiting for its lane or type holds back the jobs queued behind it on the same lane, but not the others.
+ */
+public class JobDispatcher {
+
+    public static final String MAX_CONCURRENT = "org.guvnor.rest.jobs.max.concurrent";
+
+    private static final Logger logger = LoggerFactory.getLogger(JobDispatcher.class);
+
+    private final Executor executor;
+    private final int maxConcurrent;
+    private final Map<String, Integer> maxConcurrentByType = new HashMap<>();
+
+    private final LinkedList<Job> pending = new LinkedList<>();
+    private final Set<String> busyLanes = new HashSet<>();
+    private final Map<String, Integer> runningByType = new HashMap<>();
+    private int running;
+
+    public JobDispatcher(final Executor executor) {
+        this(executor,
+             Integer.getInteger(MAX_CONCURRENT,
+                                Runtime.getRuntime().availableProcessors()));
+    }
+
+    public JobDispatcher(final Executor executor,
+                         final int maxConcurrent) {
+        this.executor = executor;
+        this.maxConcurrent = Math.max(1,
+                                      maxConcurrent);
+    }
+
+    /**
+     * Queues a job.
+     * @param lane the lane the job is serialized on, or null if it may run alongside any other job
+     * @param type the job type its concurrency limit is looked up by
+     * @param job the job itself
+     */
+    public void submit(final String lane,
+                       final String type,
+                       final Runnable job) {
+        synchronized (this) {
+            pending.add(new Job(lane,
+                                type,
+                                job));
+        }
+        dispatch();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    private void dispatch() {
+        for (final Job job : take()) {
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                logger.error("Job of type {} on lane {} was rejected by the executor",
+                             job.type,
+                             job.lane,
+                             e);
+                release(job);
+            }
+        }
+    }
+
+    private void run(final Job job) {
+        try {
+            job.runnable.run();
+        } finally {
+            release(job);
+        }
+    }
+
+    private void release(final Job job) {
+        synchronized (this) {
+            running--;
+            runningByType.merge(job.type,
+                                -1,
+                                Integer::sum);
+            if (job.lane != null) {
+                busyLanes.remove(job.lane);
+            }
+        }
+        dispatch();
+    }
+
+    private synchronized List<Job> take() {
+        final List<Job> startable = new ArrayList<>();
+        final Set<String> blockedLanes = new HashSet<>(busyLanes);
+        final Iterator<Job> it = pending.iterator();
+        while (it.hasNext() && running < maxConcurrent) {
+            final Job job = it.next();
+            // once a lane is blocked the rest of its jobs must wait too, to keep them in order
+            if (job.lane != null && !blockedLanes.add(job.lane)) {
+                continue;
+            }
+            if (runningByType.getOrDefault(job.type,
+                                           0) >= getMaxConcurrent(job.type)) {
+                continue;
+            }
+            it.remove();
+            running++;
+            runningByType.merge(job.type,
+                                1,
+                                Integer::sum);
+            if (job.lane != null) {
+                busyLanes.add(job.lane);
+            }
+            startable.add(job);
+        }
+        return startable;
+    }
+
+    private int getMaxConcurrent(final String type) {
+        return maxConcurrentByType.computeIfAbsent(type,
+                                                   t -> Integer.getInteger(MAX_CONCURRENT + "." + t,
+                                                                           maxConcurrent));
+    }
+
+    private static class Job {
+
+        private final String lane;
+        private final String type;
+        private final Runnable runnable;
+
+        Job(final String lane,
+            final String type,
+            final Runnable runnable) {
+            this.lane = lane;
+            this.type = type;
+            this.runnable = runnable;
+        }
+    }
+}
@@ -64,7 +64,7 @@ public class JobRequestScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(JobRequestScheduler.class);
 
-    private ExecutorService executorService;
+    private JobDispatcher jobDispatcher;
 
     private JobResultManager jobResultManager;
 
@@ -78,7 +78,7 @@ public class JobRequestScheduler {
     public JobRequestScheduler(@Managed ExecutorService executorService,
                                JobResultManager jobResultManager,
                                JobRequestHelper jobRequestHelper) {
-        this.executorService = executorService;
+        this.jobDispatcher = new JobDispatcher(executorService);
         this.jobResultManager = jobResultManager;
         this.jobRequestHelper = jobRequestHelper;
     }
@@ -91,6 +91,7 @@ public class JobRequestScheduler {
                    "createOrCloneRepository");
 
         scheduleJob(jobRequest,
+                    params,
                     new CreateOrCloneRepositoryCmd(jobRequestHelper,
                                                    jobResultManager,
                                                    params));
@@ -104,6 +105,7 @@ public class JobRequestScheduler {
                    "removeRepository");
 
         scheduleJob(jobRequest,
+                    params,
                     new RemoveRepositoryCmd(jobRequestHelper,
                                             jobResultManager,
                                             params));
@@ -119,6 +121,7 @@ public class JobRequestScheduler {
                    "createProject");
 
         scheduleJob(jobRequest,
+                    params,
                     new CreateProjectCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -134,6 +137,7 @@ public class JobRequestScheduler {
                    "deleteProject");
 
         scheduleJob(jobRequest,
+                    params,
                     new DeleteProjectCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -149,6 +153,7 @@ public class JobRequestScheduler {
                    "compileProject");
 
         scheduleJob(jobRequest,
+                    params,
                     new CompileProjectCmd(jobRequestHelper,
                                           jobResultManager,
                                           params));
@@ -164,6 +169,7 @@ public class JobRequestScheduler {
                    "installProject");
 
         scheduleJob(jobRequest,
+                    params,
                     new InstallProjectCmd(jobRequestHelper,
                                           jobResultManager,
                                           params));
@@ -179,6 +185,7 @@ public class JobRequestScheduler {
                    "testProject");
 
         scheduleJob(jobRequest,
+                    params,
                     new TestProjectCmd(jobRequestHelper,
                                        jobResultManager,
                                        params));
@@ -194,6 +201,7 @@ public class JobRequestScheduler {
                    "deployProject");
 
         scheduleJob(jobRequest,
+                    params,
                     new DeployProjectCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -205,6 +213,7 @@ public class JobRequestScheduler {
                    "createOrgUnit");
 
         scheduleJob(jobRequest,
+                    params,
                     new CreateOrgUnitCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -216,6 +225,7 @@ public class JobRequestScheduler {
                    "updateOrgUnit");
 
         scheduleJob(jobRequest,
+                    params,
                     new UpdateOrgUnitCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -229,6 +239,7 @@ public class JobRequestScheduler {
                    "addRepositoryToOrgUnit");
 
         scheduleJob(jobRequest,
+                    params,
                     new AddRepositoryToOrgUnitCmd(jobRequestHelper,
                                                   jobResultManager,
                                                   params));
@@ -242,6 +253,7 @@ public class JobRequestScheduler {
                    "removeRepositoryFromOrgUnit");
 
         scheduleJob(jobRequest,
+                    params,
                     new RemoveRepositoryFromOrgUnitCmd(jobRequestHelper,
                                                        jobResultManager,
                                                        params));
@@ -253,6 +265,7 @@ public class JobRequestScheduler {
                    "removeOrgUnit");
 
         scheduleJob(jobRequest,
+                    params,
                     new RemoveOrgUnitCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -270,11 +283,15 @@ public class JobRequestScheduler {
     }
 
     private void scheduleJob(final JobRequest jobRequest,
+                             final Map<String, Object> params,
                              final AbstractJobCommand command) {
         jobRequest.setStatus(JobStatus.APPROVED);
         logger.debug("Scheduling job request with id: {} and command class: {}",
                      jobRequest.getJobId(),
                      command.getClass().getName());
-        this.executorService.execute(command);
+        // jobs on the same repository run one after the other, in the order they were requested
+        this.jobDispatcher.submit((String) params.get("Repository"),
+                                  (String) params.get("Operation"),
+                                  command);
     }
 }
@@ -15,24 +15,61 @@
 
 package org.guvnor.rest.backend;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import org.guvnor.rest.client.JobResult;
+import org.guvnor.rest.client.JobStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.io.object.ObjectStorage;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.Files;
+import org.uberfire.java.nio.file.Path;
 
+/**
+ * Keeps the results of REST jobs. Every result is also written to a journal, a file system of its own next to the
+ * system one, so a job's status survives a restart and can be polled on any node of a cluster, not only on the one
+ * running the job.
+ * <p>
+ * Results are written to the journal in the background, every {@value #JOURNAL_FLUSH_INTERVAL} milliseconds
+ * (default: one second), all the changes since the previous write in a single batch. Job threads never wait for the
+ * journal, a job whose status changes several times within an interval is written once, and the journal gets at most
+ * one commit per interval however many jobs are running. Other nodes see a change up to one interval late.
+ * <p>
+ * The in-memory cache only bounds memory: evicting a job from it leaves its journal entry in place. Journal entries
+ * are deleted when the job is removed, or once the job has been finished for longer than {@value #JOURNAL_RETENTION}
+ * milliseconds (default: one day, a value &lt;= 0 keeps them until removed). Entries found in the journal on start
+ * up, left over by a previous run, are kept for one retention period from then.
+ */
 @ApplicationScoped
 public class JobResultManager {
 
+    public static final String JOURNAL = "default://system_ou/jobs";
+
     private static final Logger logger = LoggerFactory.getLogger(JobResultManager.class);
     private static AtomicInteger created = new AtomicInteger(0);
 
-    private static class Cache extends LinkedHashMap<String, JobResult> {
+    public static final String JOURNAL_RETENTION = "org.guvnor.rest.jobs.journal.retention";
+
+    public static final String JOURNAL_FLUSH_INTERVAL = "org.guvnor.rest.jobs.journal.flush.interval";
+
+    // how often a waiting caller looks at the journal for updates made by other nodes
+    private static final long JOURNAL_POLL_INTERVAL = 1000;
+
+    private class Cache extends LinkedHashMap<String, JobResult> {
 
         private int maxSize = 1000;
 
@@ -42,6 +79,7 @@ public class JobResultManager {
 
         @Override
         protected boolean removeEldestEntry(Map.Entry<String, JobResult> stringFutureEntry) {
+            // the journal entry stays, so the job can still be read back from it
             return size() > maxSize;
         }
 
@@ -54,26 +92,307 @@ public class JobResultManager {
 
     private int maxCacheSize = 10000;
 
+    private ObjectStorage journal;
+
+    private final long journalRetention;
+
+    private final long journalFlushInterval;
+
+    // ids of the journal entries due for pruning, by the time they became due, oldest first
+    private final Map<String, Long> retiredJobs = new LinkedHashMap<>();
+
+    // journal changes not written yet, by job id; a null result deletes the entry
+    private final Map<String, JobResult> pendingWrites = new LinkedHashMap<>();
+
+    // the changes being written by the current flush, guarded by pendingWrites
+    private Map<String, JobResult> flushingWrites = Collections.emptyMap();
+
+    private ScheduledExecutorService journalWriter;
+
+    public JobResultManager() {
+        this(null);
+    }
+
+    @Inject
+    public JobResultManager(final ObjectStorage journal) {
+        this(journal,
+             Long.getLong(JOURNAL_RETENTION,
+                          24 * 60 * 60 * 1000L),
+             Long.getLong(JOURNAL_FLUSH_INTERVAL,
+                          1000L));
+    }
+
+    JobResultManager(final ObjectStorage journal,
+                     final long journalRetention,
+                     final long journalFlushInterval) {
+        this.journal = journal;
+        this.journalRetention = journalRetention;
+        this.journalFlushInterval = journalFlushInterval > 0 ? journalFlushInterval : 1000L;
+        Cache cache = new Cache(maxCacheSize);
+        jobs = Collections.synchronizedMap(cache);
+    }
+
     @PostConstruct
     public void start() {
         if (!created.compareAndSet(0,
                                    1)) {
             throw new IllegalStateException("Only 1 JobResultManager instance is allowed per container!");
         }
-        Cache cache = new Cache(maxCacheSize);
-        jobs = Collections.synchronizedMap(cache);
+        if (journal != null) {
+            journal.init(JOURNAL);
+            retireLeftovers();
+            journalWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable,
+                                                 "JobResultManager journal writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            journalWriter.scheduleWithFixedDelay(this::flushJournal,
+                                                 journalFlushInterval,
+                                                 journalFlushInterval,
+                                                 TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void dispose() {
+        if (journalWriter != null) {
+            journalWriter.shutdown();
+            try {
+                journalWriter.awaitTermination(journalFlushInterval,
+                                               TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushJournal();
+        }
     }
 
     public JobResult getJob(String jobId) {
-        return jobs.get(jobId);
+        final JobResult job = jobs.get(jobId);
+        if (job != null) {
+            return job;
+        }
+        synchronized (pendingWrites) {
+            if (pendingWrites.containsKey(jobId)) {
+                return pendingWrites.get(jobId);
+            }
+            if (flushingWrites.containsKey(jobId)) {
+                return flushingWrites.get(jobId);
+            }
+        }
+        return readFromJournal(jobId);
     }
 
     public void putJob(JobResult job) {
         jobs.put(job.getJobId(),
                  job);
+        if (isFinished(job)) {
+            retire(job.getJobId());
+        }
+        queueForJournal(job.getJobId(),
+                        job);
+        synchronized (this) {
+            notifyAll();
+        }
     }
 
     public JobResult removeJob(String jobId) {
-        return jobs.remove(jobId);
+        JobResult job = jobs.remove(jobId);
+        if (job == null) {
+            job = getJob(jobId);
+        }
+        synchronized (retiredJobs) {
+            retiredJobs.remove(jobId);
+        }
+        queueForJournal(jobId,
+                        null);
+        return job;
+    }
+
+    /**
+     * Waits until the job is finished, is gone, or the timeout expires, whichever comes first.
+     * @return the job as it is when the wait ends, or null if it is not known
+     */
+    public JobResult awaitJob(final String jobId,
+                              final long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        JobResult job = getJob(jobId);
+        while (job != null && !isFinished(job)) {
+            final long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            synchronized (this) {
+                wait(Math.min(remaining,
+                              JOURNAL_POLL_INTERVAL));
+            }
+            job = getJob(jobId);
+        }
+        return job;
+    }
+
+    public static boolean isFinished(final JobResult job) {
+        return !JobStatus.ACCEPTED.equals(job.getStatus()) && !JobStatus.APPROVED.equals(job.getStatus());
+    }
+
+    private void retire(final String jobId) {
+        if (journal == null || journalRetention <= 0) {
+            return;
+        }
+        synchronized (retiredJobs) {
+            retiredJobs.remove(jobId);
+            retiredJobs.put(jobId,
+                            System.currentTimeMillis());
+        }
+    }
+
+    private void queueForJournal(final String jobId,
+                                 final JobResult job) {
+        if (journal == null) {
+            return;
+        }
+        synchronized (pendingWrites) {
+            pendingWrites.put(jobId,
+                              job);
+        }
+    }
+
+    /**
+     * Writes the journal changes queued since the last flush in a single batch. Changes that could not be written are
+     * kept for the next flush.
+     */
+    synchronized void flushJournal() {
+        if (journal == null) {
+            return;
+        }
+        pruneJournal();
+        final Map<String, JobResult> writes;
+        synchronized (pendingWrites) {
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            writes = new LinkedHashMap<>(pendingWrites);
+            pendingWrites.clear();
+            flushingWrites = writes;
+        }
+        boolean written = false;
+        try {
+            journal.batch(() -> writes.forEach((jobId, job) -> {
+                if (job == null) {
+                    deleteFromJournal(jobId);
+                } else {
+                    writeToJournal(job);
+                }
+            }));
+            written = true;
+        } catch (Exception e) {
+            logger.warn("Unable to write {} jobs to the journal, retrying on the next flush",
+                        writes.size(),
+                        e);
+        } finally {
+            synchronized (pendingWrites) {
+                if (!written) {
+                    // changes queued while writing are newer than these
+                    writes.forEach(pendingWrites::putIfAbsent);
+                }
+                flushingWrites = Collections.emptyMap();
+            }
+        }
+    }
+
+    /**
+     * Queues the deletion of the journal entries retired for longer than the retention period.
+     */
+    private void pruneJournal() {
+        final long expiry = System.currentTimeMillis() - journalRetention;
+        final List<String> expired = new ArrayList<>();
+        synchronized (retiredJobs) {
+            final Iterator<Map.Entry<String, Long>> it = retiredJobs.entrySet().iterator();
+            while (it.hasNext()) {
+                final Map.Entry<String, Long> entry = it.next();
+                if (entry.getValue() > expiry) {
+                    break;
+                }
+                expired.add(entry.getKey());
+                it.remove();
+            }
+        }
+        for (String jobId : expired) {
+            queueForJournal(jobId,
+                            null);
+        }
+    }
+
+    /**
+     * Retires the journal entries written before this start, whatever the status they were left in.
+     */
+    private void retireLeftovers() {
+        if (journalRetention <= 0) {
+            return;
+        }
+        try {
+            final Path root = journal.getPath("/");
+            if (!Files.exists(root)) {
+                return;
+            }
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+                for (Path entry : entries) {
+                    final String fileName = entry.getFileName().toString();
+                    if (fileName.endsWith(".job")) {
+                        retire(fileName.substring(0,
+                                                  fileName.length() - ".job".length()));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to list the job journal, its entries are kept until removed",
+                        e);
+        }
+    }
+
+    private JobResult readFromJournal(final String jobId) {
+        if (journal == null) {
+            return null;
+        }
+        try {
+            return journal.read(journalPath(jobId));
+        } catch (Exception e) {
+            logger.warn("Unable to read job {} from the journal",
+                        jobId,
+                        e);
+            return null;
+        }
+    }
+
+    private void writeToJournal(final JobResult job) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(journalPath(job.getJobId()),
+                          job);
+        } catch (Exception e) {
+            logger.warn("Unable to write job {} to the journal",
+                        job.getJobId(),
+                        e);
+        }
+    }
+
+    private void deleteFromJournal(final String jobId) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.delete(journalPath(jobId));
+        } catch (Exception e) {
+            logger.warn("Unable to delete job {} from the journal",
+                        jobId,
+                        e);
+        }
+    }
+
+    private String journalPath(final String jobId) {
+        return "/" + jobId + ".job";
     }
-}
\ No newline at end of file
+}
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.security.RolesAllowed;
 import javax.enterprise.context.ApplicationScoped;
@@ -28,11 +29,13 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
@@ -83,6 +86,9 @@ public class ProjectResource {
 
     private static final Logger logger = LoggerFactory.getLogger(ProjectResource.class);
 
+    private static final long MAX_JOB_WAIT = Long.getLong("org.guvnor.rest.jobs.wait.max",
+                                                          60000);
+
     @Context
     protected UriInfo uriInfo;
 
@@ -107,6 +113,10 @@ public class ProjectResource {
 
     private AtomicLong counter = new AtomicLong(0);
 
+    // job ids are shared through the job journal, so they must not clash with ids handed out by other nodes
+    private final String node = UUID.randomUUID().toString().substring(0,
+                                                                        8);
+
     private void addAcceptedJobResult(String jobId) {
         JobResult jobResult = new JobResult();
         jobResult.setJobId(jobId);
@@ -134,6 +144,34 @@ public class ProjectResource {
         return job;
     }
 
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/jobs/{jobId}/wait")
+    @RolesAllowed({REST_ROLE, REST_PROJECT_ROLE})
+    public JobResult waitForJob(@PathParam("jobId") String jobId,
+                                @QueryParam("timeout") @DefaultValue("30000") long timeout) {
+        logger.debug("-----waitForJob--- , jobId: {}, timeout: {}",
+                     jobId,
+                     timeout);
+
+        JobResult job;
+        try {
+            job = jobManager.awaitJob(jobId,
+                                      Math.max(0,
+                                               Math.min(timeout,
+                                                        MAX_JOB_WAIT)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job = jobManager.getJob(jobId);
+        }
+        if (job == null) {
+            job = new JobResult();
+            job.setStatus(JobStatus.GONE);
+        }
+
+        return job;
+    }
+
     @DELETE
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/jobs/{jobId}")
@@ -653,6 +691,6 @@ public class ProjectResource {
     }
 
     private String newId() {
-        return "" + System.currentTimeMillis() + "-" + counter.incrementAndGet();
+        return "" + System.currentTimeMillis() + "-" + counter.incrementAndGet() + "-" + node;
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.rest.backend;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JobDispatcherTest {
+
+    private LinkedList<Runnable> executed;
+    private List<String> ran;
+
+    @Before
+    public void setUp() {
+        executed = new LinkedList<>();
+        ran = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(JobDispatcher.MAX_CONCURRENT + ".compileProject");
+    }
+
+    @Test
+    public void jobsOnSameLaneRunInOrderOneAtATime() {
+        final JobDispatcher dispatcher = new JobDispatcher(executed::add,
+                                                           10);
+        dispatcher.submit("repo1",
+                          "createProject",
+                          job("a1"));
+        dispatcher.submit("repo1",
+                          "compileProject",
+                          job("a2"));
+        dispatcher.submit("repo2",
+                          "compileProject",
+                          job("b1"));
+
+        assertEquals(2,
+                     dispatcher.getRunningCount());
+        assertEquals(1,
+                     dispatcher.getPendingCount());
+
+        runNext();
+        runNext();
+        assertEquals(ran.toString(),
+                     2,
+                     ran.size());
+        assertEquals("a1",
+                     ran.get(0));
+        assertEquals("b1",
+                     ran.get(1));
+
+        runNext();
+        assertEquals("a2",
+                     ran.get(2));
+        assertEquals(0,
+                     dispatcher.getRunningCount());
+        assertEquals(0,
+                     dispatcher.getPendingCount());
+    }
+
+    @Test
+    public void globalLimit() {
+        final JobDispatcher dispatcher = new JobDispatcher(executed::add,
+                                                           2);
+        dispatcher.submit("repo1",
+                          "createProject",
+                          job("a"));
+        dispatcher.submit("repo2",
+                          "createProject",
+                          job("b"));
+        dispatcher.submit(null,
+                          "createOrgUnit",
+                          job("c"));
+
+        assertEquals(2,
+                     executed.size());
+        assertEquals(1,
+                     dispatcher.getPendingCount());
+
+        runNext();
+        assertEquals(2,
+                     executed.size());
+        assertEquals(0,
+                     dispatcher.getPendingCount());
+    }
+
+    @Test
+    public void typeLimitDoesNotBlockOtherTypes() {
+        System.setProperty(JobDispatcher.MAX_CONCURRENT + ".compileProject",
+                           "1");
+        final JobDispatcher dispatcher = new JobDispatcher(executed::add,
+                                                           10);
+        dispatcher.submit("repo1",
+                          "compileProject",
+                          job("a1"));
+        dispatcher.submit("repo2",
+                          "compileProject",
+                          job("b1"));
+        dispatcher.submit("repo2",
+                          "deleteProject",
+                          job("b2"));
+        dispatcher.submit("repo3",
+                          "deleteProject",
+                          job("c1"));
+
+        // b1 waits for the compile slot and keeps b2 behind it, c1 is free to go
+        assertEquals(2,
+                     dispatcher.getRunningCount());
+        assertEquals(2,
+                     dispatcher.getPendingCount());
+
+        while (!executed.isEmpty()) {
+            runNext();
+        }
+        assertEquals("[a1, c1, b1, b2]",
+                     ran.toString());
+    }
+
+    @Test
+    public void failedJobReleasesLane() {
+        final JobDispatcher dispatcher = new JobDispatcher(executed::add,
+                                                           10);
+        dispatcher.submit("repo1",
+                          "compileProject",
+                          () -> {
+                              throw new RuntimeException("failed");
+                          });
+        dispatcher.submit("repo1",
+                          "compileProject",
+                          job("a2"));
+
+        try {
+            runNext();
+            fail("job failure should be propagated");
+        } catch (RuntimeException e) {
+            assertEquals("failed",
+                         e.getMessage());
+        }
+        runNext();
+        assertEquals("[a2]",
+                     ran.toString());
+    }
+
+    private Runnable job(final String name) {
+        return () -> ran.add(name);
+    }
+
+    private void runNext() {
+        executed.removeFirst().run();
+    }
+}
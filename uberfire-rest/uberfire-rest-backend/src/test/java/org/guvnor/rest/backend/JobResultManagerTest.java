@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.rest.backend;
+
+import org.guvnor.rest.client.JobResult;
+import org.guvnor.rest.client.JobStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.server.io.object.ObjectStorage;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobResultManagerTest {
+
+    @Mock
+    private ObjectStorage journal;
+
+    private JobResultManager manager;
+
+    @Before
+    public void setUp() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(journal).batch(any(Runnable.class));
+        manager = new JobResultManager(journal);
+    }
+
+    @Test
+    public void jobsAreJournaled() {
+        final JobResult job = job("1",
+                                  JobStatus.ACCEPTED);
+        manager.putJob(job);
+
+        verify(journal,
+               never()).write(anyString(),
+                              any());
+        manager.flushJournal();
+        verify(journal).write("/1.job",
+                              job);
+        assertSame(job,
+                   manager.getJob("1"));
+        verify(journal,
+               never()).read(anyString());
+    }
+
+    @Test
+    public void changesAreWrittenInOneBatch() {
+        final JobResult first = job("11",
+                                    JobStatus.ACCEPTED);
+        manager.putJob(first);
+        manager.putJob(job("12",
+                           JobStatus.ACCEPTED));
+        first.setStatus(JobStatus.SUCCESS);
+        manager.putJob(first);
+
+        manager.flushJournal();
+        manager.flushJournal();
+
+        verify(journal,
+               times(1)).batch(any(Runnable.class));
+        verify(journal,
+               times(1)).write("/11.job",
+                               first);
+        verify(journal,
+               times(2)).write(anyString(),
+                               any());
+    }
+
+    @Test
+    public void failedBatchIsRetried() {
+        final JobResult job = job("13",
+                                  JobStatus.ACCEPTED);
+        manager.putJob(job);
+        doThrow(new RuntimeException("unavailable")).when(journal).batch(any(Runnable.class));
+        manager.flushJournal();
+        verify(journal,
+               never()).write(anyString(),
+                              any());
+
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(journal).batch(any(Runnable.class));
+        manager.flushJournal();
+        verify(journal).write("/13.job",
+                              job);
+    }
+
+    @Test
+    public void unknownJobsAreReadFromJournal() {
+        final JobResult job = job("2",
+                                  JobStatus.SUCCESS);
+        when(journal.read("/2.job")).thenReturn(job);
+
+        assertSame(job,
+                   manager.getJob("2"));
+        assertNull(manager.getJob("3"));
+    }
+
+    @Test
+    public void removedJobsLeaveJournal() {
+        manager.putJob(job("4",
+                           JobStatus.SUCCESS));
+
+        assertNotNull(manager.removeJob("4"));
+        manager.flushJournal();
+        verify(journal).delete("/4.job");
+        verify(journal,
+               never()).write(anyString(),
+                              any());
+    }
+
+    @Test
+    public void evictedJobsStayInJournal() {
+        for (int i = 0; i <= 10000; i++) {
+            manager.putJob(job("evicted" + i,
+                               JobStatus.ACCEPTED));
+        }
+        manager.flushJournal();
+        final JobResult job = job("evicted0",
+                                  JobStatus.ACCEPTED);
+        when(journal.read("/evicted0.job")).thenReturn(job);
+
+        assertSame(job,
+                   manager.getJob("evicted0"));
+        verify(journal,
+               never()).delete(anyString());
+    }
+
+    @Test
+    public void finishedJobsArePrunedAfterRetention() throws Exception {
+        manager = new JobResultManager(journal,
+                                       1,
+                                       1000);
+        manager.putJob(job("8",
+                           JobStatus.SUCCESS));
+        manager.putJob(job("9",
+                           JobStatus.APPROVED));
+        manager.flushJournal();
+        Thread.sleep(10);
+
+        manager.flushJournal();
+
+        verify(journal).delete("/8.job");
+        // unfinished jobs are never pruned
+        verify(journal,
+               never()).delete("/9.job");
+    }
+
+    @Test
+    public void awaitReturnsOnceFinished() throws Exception {
+        final JobResult job = job("5",
+                                  JobStatus.APPROVED);
+        manager.putJob(job);
+
+        final Thread worker = new Thread(() -> {
+            job.setStatus(JobStatus.SUCCESS);
+            manager.putJob(job);
+        });
+        worker.start();
+
+        final JobResult result = manager.awaitJob("5",
+                                                  10000);
+        assertEquals(JobStatus.SUCCESS,
+                     result.getStatus());
+        worker.join();
+    }
+
+    @Test
+    public void awaitTimesOut() throws Exception {
+        manager.putJob(job("6",
+                           JobStatus.APPROVED));
+
+        assertEquals(JobStatus.APPROVED,
+                     manager.awaitJob("6",
+                                      50).getStatus());
+        assertNull(manager.awaitJob("7",
+                                    50));
+    }
+
+    private JobResult job(final String jobId,
+                          final JobStatus status) {
+        final JobResult job = new JobResult();
+        job.setJobId(jobId);
+        job.setStatus(status);
+        return job;
+    }
+}
@@ -17,8 +17,11 @@ package org.uberfire.security.impl.authz;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -51,6 +54,21 @@ public class DefaultPermissionManager implements PermissionManager {
     private VotingStrategy defaultVotingStrategy = VotingStrategy.PRIORITY;
     private Map<VotingStrategy, VotingAlgorithm> votingAlgorithmMap = new HashMap<>();
 
+    private static final int COMPILED_PERMISSIONS_CACHE_SIZE = 1000;
+
+    /**
+     * The permissions resolved by priority for every combination of roles and groups seen, compiled for fast
+     * lookup. Cleared whenever the policy changes.
+     */
+    private final Map<RolesAndGroups, CompiledPermissions> compiledPermissions = new LinkedHashMap<RolesAndGroups, CompiledPermissions>(16,
+                                                                                                                                       0.75f,
+                                                                                                                                       true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<RolesAndGroups, CompiledPermissions> eldest) {
+            return size() > COMPILED_PERMISSIONS_CACHE_SIZE;
+        }
+    };
+
     @Inject
     public DefaultPermissionManager(PermissionTypeRegistry permissionTypeRegistry) {
         this(permissionTypeRegistry,
@@ -81,6 +99,9 @@ public class DefaultPermissionManager implements PermissionManager {
     public void setAuthorizationPolicy(AuthorizationPolicy authorizationPolicy) {
         this.authorizationPolicy = authorizationPolicy != null ? authorizationPolicy : new DefaultAuthorizationPolicy();
         this.cache.clear();
+        synchronized (compiledPermissions) {
+            compiledPermissions.clear();
+        }
     }
 
     @Override
@@ -179,10 +200,15 @@ public class DefaultPermissionManager implements PermissionManager {
                                                    VotingStrategy votingStrategy) {
 
         if (VotingStrategy.PRIORITY.equals(votingStrategy)) {
-            PermissionCollection userPermissions = resolvePermissions(user,
-                                                                      VotingStrategy.PRIORITY);
-            return _checkPermission(permission,
-                                    userPermissions);
+            if (user == null) {
+                return _checkPermission(permission,
+                                        resolvePermissions(user,
+                                                           VotingStrategy.PRIORITY));
+            }
+            CompiledPermissions userPermissions = getCompiledPermissions(user);
+            AuthorizationResult result = userPermissions.trie != null ? userPermissions.trie.check(permission) : null;
+            return result != null ? result : _checkPermission(permission,
+                                                              userPermissions.collection);
         } else {
             List<AuthorizationResult> permList = _checkRoleAndGroupPermissions(permission,
                                                                                user);
@@ -275,6 +301,26 @@ public class DefaultPermissionManager implements PermissionManager {
         return result;
     }
 
+    /**
+     * Get the permissions resolved by priority for the user's roles and groups, compiling them the first time
+     * that combination is seen.
+     */
+    private CompiledPermissions getCompiledPermissions(User user) {
+        RolesAndGroups key = new RolesAndGroups(user);
+        synchronized (compiledPermissions) {
+            CompiledPermissions compiled = compiledPermissions.get(key);
+            if (compiled == null) {
+                PermissionCollection collection = resolvePermissions(user,
+                                                                     VotingStrategy.PRIORITY);
+                compiled = new CompiledPermissions(collection,
+                                                   DotNamedPermissionTrie.compile(collection));
+                compiledPermissions.put(key,
+                                        compiled);
+            }
+            return compiled;
+        }
+    }
+
     /**
      * Get all the permissions assigned to any of the user's roles/groups plus the default permissions
      * ({@link AuthorizationPolicy#getPermissions()}) and it creates a single permission collection where
@@ -356,4 +402,55 @@ public class DefaultPermissionManager implements PermissionManager {
         }
         return -1;
     }
+
+    private static class CompiledPermissions {
+
+        private final PermissionCollection collection;
+        private final DotNamedPermissionTrie trie;
+
+        CompiledPermissions(PermissionCollection collection,
+                            DotNamedPermissionTrie trie) {
+            this.collection = collection;
+            this.trie = trie;
+        }
+    }
+
+    /**
+     * The only parts of a user the priority resolution depends on.
+     */
+    private static class RolesAndGroups {
+
+        private final Set<String> roles = new HashSet<>();
+        private final Set<String> groups = new HashSet<>();
+
+        RolesAndGroups(User user) {
+            if (user.getRoles() != null) {
+                for (Role role : user.getRoles()) {
+                    roles.add(role.getName());
+                }
+            }
+            if (user.getGroups() != null) {
+                for (Group group : user.getGroups()) {
+                    groups.add(group.getName());
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RolesAndGroups)) {
+                return false;
+            }
+            RolesAndGroups other = (RolesAndGroups) o;
+            return roles.equals(other.roles) && groups.equals(other.groups);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * roles.hashCode() + groups.hashCode();
+        }
+    }
 }
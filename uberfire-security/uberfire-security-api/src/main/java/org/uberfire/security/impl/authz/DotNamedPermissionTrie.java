@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.security.impl.authz;
+
+import java.util.Arrays;
+
+import org.uberfire.security.authz.AuthorizationResult;
+import org.uberfire.security.authz.Permission;
+import org.uberfire.security.authz.PermissionCollection;
+
+import static org.uberfire.security.authz.AuthorizationResult.ACCESS_ABSTAIN;
+import static org.uberfire.security.authz.AuthorizationResult.ACCESS_DENIED;
+import static org.uberfire.security.authz.AuthorizationResult.ACCESS_GRANTED;
+
+/**
+ * An immutable, character keyed trie over the names of a collection of {@link DotNamedPermission}s.
+ * <p>
+ * {@link #check(Permission)} gives the same answer as checking the permission against the collection it was
+ * compiled from (see {@link DefaultPermissionManager}), but walks the permission name once instead of scanning
+ * the collection, and does so without allocating.
+ */
+public class DotNamedPermissionTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    private DotNamedPermissionTrie() {
+    }
+
+    /**
+     * @return the trie, or null if the collection holds permissions it can not represent (no name, no result or
+     * other than dot named)
+     */
+    public static DotNamedPermissionTrie compile(final PermissionCollection collection) {
+        final DotNamedPermissionTrie trie = new DotNamedPermissionTrie();
+        if (collection == null) {
+            return trie;
+        }
+        for (Permission permission : collection.collection()) {
+            if (!(permission instanceof DotNamedPermission)
+                    || permission.getName() == null
+                    || permission.getResult() == null) {
+                return null;
+            }
+            trie.add(permission.getName(),
+                     permission.getResult());
+        }
+        return trie;
+    }
+
+    private void add(final String name,
+                     final AuthorizationResult result) {
+        Node node = root;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.getOrAddChild(name.charAt(i));
+        }
+        node.result = result;
+    }
+
+    /**
+     * @return the result of the check, or null if it can only be answered by the collection (the permission has
+     * no name or no result)
+     */
+    public AuthorizationResult check(final Permission permission) {
+        final String name = permission.getName();
+        final AuthorizationResult result = permission.getResult();
+        if (name == null || result == null) {
+            return null;
+        }
+
+        final AuthorizationResult inverted = result.invert();
+        boolean implied = false;
+        boolean invertedImplied = false;
+
+        Node node = root;
+        final int length = name.length();
+        for (int i = 0; node != null; i++) {
+            final boolean atBoundary = i == length || name.charAt(i) == '.';
+            if (node.result != null && atBoundary) {
+                if (i == length) {
+                    // A permission with the very same name decides
+                    return node.result.equals(result) ? ACCESS_GRANTED : ACCESS_DENIED;
+                }
+                implied |= impliesResult(node.result,
+                                         result);
+                invertedImplied |= impliesResult(node.result,
+                                                 inverted);
+            }
+            if (i == length) {
+                break;
+            }
+            node = node.getChild(name.charAt(i));
+        }
+
+        if (implied) {
+            return ACCESS_GRANTED;
+        }
+        if (invertedImplied) {
+            return ACCESS_DENIED;
+        }
+        return ACCESS_ABSTAIN;
+    }
+
+    /**
+     * Same as {@link DotNamedPermission#impliesResult(Permission)}
+     */
+    private static boolean impliesResult(final AuthorizationResult result,
+                                         final AuthorizationResult other) {
+        if (ACCESS_ABSTAIN.equals(result)) {
+            return ACCESS_ABSTAIN.equals(other);
+        }
+        return ACCESS_DENIED.equals(result) == ACCESS_DENIED.equals(other);
+    }
+
+    private static class Node {
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private AuthorizationResult result;
+
+        Node getChild(final char key) {
+            final int index = Arrays.binarySearch(keys,
+                                                  key);
+            return index < 0 ? null : children[index];
+        }
+
+        Node getOrAddChild(final char key) {
+            final int index = Arrays.binarySearch(keys,
+                                                  key);
+            if (index >= 0) {
+                return children[index];
+            }
+            final int insertAt = -index - 1;
+            final char[] newKeys = new char[keys.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys,
+                             0,
+                             newKeys,
+                             0,
+                             insertAt);
+            System.arraycopy(children,
+                             0,
+                             newChildren,
+                             0,
+                             insertAt);
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(keys,
+                             insertAt,
+                             newKeys,
+                             insertAt + 1,
+                             keys.length - insertAt);
+            System.arraycopy(children,
+                             insertAt,
+                             newChildren,
+                             insertAt + 1,
+                             children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.uberfire.security.impl.authz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.uberfire.security.authz.AuthorizationResult;
+import org.uberfire.security.authz.Permission;
+import org.uberfire.security.authz.PermissionCollection;
+
+import static org.junit.Assert.*;
+import static org.uberfire.security.authz.AuthorizationResult.ACCESS_ABSTAIN;
+import static org.uberfire.security.authz.AuthorizationResult.ACCESS_DENIED;
+import static org.uberfire.security.authz.AuthorizationResult.ACCESS_GRANTED;
+
+public class DotNamedPermissionTrieTest {
+
+    private DefaultPermissionManager permissionManager = new DefaultPermissionManager();
+
+    @Test
+    public void testExactNameDecides() {
+        PermissionCollection collection = new DefaultPermissionCollection();
+        collection.add(new DotNamedPermission("project.read",
+                                              false));
+        collection.add(new DotNamedPermission("project.read.p1",
+                                              true));
+        DotNamedPermissionTrie trie = DotNamedPermissionTrie.compile(collection);
+
+        assertEquals(ACCESS_GRANTED,
+                     trie.check(new DotNamedPermission("project.read.p1",
+                                                       true)));
+        assertEquals(ACCESS_DENIED,
+                     trie.check(new DotNamedPermission("project.read.p2",
+                                                       true)));
+        assertEquals(ACCESS_ABSTAIN,
+                     trie.check(new DotNamedPermission("project.readonly",
+                                                       true)));
+        assertEquals(ACCESS_ABSTAIN,
+                     trie.check(new DotNamedPermission("project",
+                                                       true)));
+    }
+
+    @Test
+    public void testNoNameIsLeftToTheCollection() {
+        DotNamedPermissionTrie trie = DotNamedPermissionTrie.compile(new DefaultPermissionCollection());
+
+        assertNull(trie.check(new DotNamedPermission(null,
+                                                     true)));
+        assertNull(trie.check(new DotNamedPermission("project.read",
+                                                     (AuthorizationResult) null)));
+    }
+
+    @Test
+    public void testDeepTreesMatchTheCollection() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            PermissionCollection collection = new DefaultPermissionCollection();
+            for (int i = 0; i < 200; i++) {
+                collection.add(new DotNamedPermission(randomName(random),
+                                                      randomResult(random)));
+            }
+            DotNamedPermissionTrie trie = DotNamedPermissionTrie.compile(collection);
+            assertNotNull(trie);
+
+            for (int i = 0; i < 500; i++) {
+                Permission permission = new DotNamedPermission(randomName(random),
+                                                               randomResult(random));
+                assertEquals(permission.toString(),
+                             permissionManager._checkPermission(permission,
+                                                                collection),
+                             trie.check(permission));
+            }
+        }
+    }
+
+    private static String randomName(Random random) {
+        int depth = 1 + random.nextInt(8);
+        List<String> segments = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            segments.add("s" + random.nextInt(3));
+        }
+        return String.join(".",
+                           segments);
+    }
+
+    private static AuthorizationResult randomResult(Random random) {
+        return AuthorizationResult.values()[random.nextInt(AuthorizationResult.values().length)];
+    }
+}
@@ -77,6 +77,17 @@ public class MockIOService
 
     }
 
+    @Override
+    public void startBatch(FileSystem... fileSystem) throws InterruptedException {
+
+    }
+
+    @Override
+    public void startBatch(FileSystem[] fileSystem,
+                           Option... options) throws InterruptedException {
+
+    }
+
     @Override
     public void endBatch() {
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.structure.server.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server side only event carrying which config groups of the system repository were added, updated or removed, so
+ * the repository and organizational unit registries can apply the delta instead of reloading everything. It is fired
+ * to them in place of the qualified {@link org.guvnor.structure.config.SystemRepositoryChangedEvent} when the changed
+ * files are known; the unqualified event is fired as before. It is not portable and never reaches the client.
+ */
+public class ConfigGroupsChangedEvent {
+
+    private final Map<ConfigType, List<ConfigGroup>> added = new EnumMap<>(ConfigType.class);
+    private final Map<ConfigType, List<ConfigGroup>> updated = new EnumMap<>(ConfigType.class);
+    private final Map<ConfigType, List<ConfigGroup>> removed = new EnumMap<>(ConfigType.class);
+
+    public void added(final ConfigGroup configGroup) {
+        add(added,
+            configGroup);
+    }
+
+    public void updated(final ConfigGroup configGroup) {
+        add(updated,
+            configGroup);
+    }
+
+    public void removed(final ConfigGroup configGroup) {
+        add(removed,
+            configGroup);
+    }
+
+    public List<ConfigGroup> getAdded(final ConfigType type) {
+        return get(added,
+                   type);
+    }
+
+    public List<ConfigGroup> getUpdated(final ConfigType type) {
+        return get(updated,
+                   type);
+    }
+
+    public List<ConfigGroup> getRemoved(final ConfigType type) {
+        return get(removed,
+                   type);
+    }
+
+    public boolean hasChanges(final ConfigType type) {
+        return added.containsKey(type) || updated.containsKey(type) || removed.containsKey(type);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    private static void add(final Map<ConfigType, List<ConfigGroup>> changes,
+                            final ConfigGroup configGroup) {
+        changes.computeIfAbsent(configGroup.getType(),
+                                type -> new ArrayList<>()).add(configGroup);
+    }
+
+    private static List<ConfigGroup> get(final Map<ConfigType, List<ConfigGroup>> changes,
+                                         final ConfigType type) {
+        final List<ConfigGroup> groups = changes.get(type);
+        return groups == null ? Collections.<ConfigGroup>emptyList() : Collections.unmodifiableList(groups);
+    }
+}
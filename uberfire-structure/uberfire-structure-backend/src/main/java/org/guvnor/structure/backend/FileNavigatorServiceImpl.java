@@ -33,6 +33,7 @@ import org.ocpsoft.prettytime.PrettyTime;
 import org.uberfire.backend.server.util.Paths;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.base.version.VersionAttributeView;
+import org.uberfire.java.nio.base.version.VersionRecord;
 import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.Files;
 import org.uberfire.java.nio.file.Path;
@@ -64,11 +65,12 @@ public class FileNavigatorServiceImpl implements FileNavigatorService {
         for (final Path activePath : stream) {
             final VersionAttributeView versionAttributeView = ioService.getFileAttributeView(activePath,
                                                                                              VersionAttributeView.class);
-            int index = versionAttributeView.readAttributes().history().records().size() - 1;
+            final VersionRecord latest = versionAttributeView.readAttributes().history().latest();
 
-            final String authorEmail = versionAttributeView.readAttributes().history().records().get(index).email();
-            final String author = versionAttributeView.readAttributes().history().records().get(index).author();
-            final String comment = versionAttributeView.readAttributes().history().records().get(index).comment();
+            // a path without history (e.g. a directory) has no author nor comment
+            final String authorEmail = latest != null ? latest.email() : null;
+            final String author = latest != null ? latest.author() : null;
+            final String comment = latest != null ? latest.comment() : null;
 
             final String time = p.format(new Date(Files.getLastModifiedTime(activePath).toMillis()));
             result.add(new DataContent(Files.isDirectory(activePath),
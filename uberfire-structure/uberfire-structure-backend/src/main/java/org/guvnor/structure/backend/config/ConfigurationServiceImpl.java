@@ -17,11 +17,13 @@ package org.guvnor.structure.backend.config;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -42,6 +44,7 @@ import org.guvnor.structure.backend.config.watch.ConfigServiceWatchServiceExecut
 import org.guvnor.structure.backend.config.watch.ConfigServiceWatchServiceExecutorImpl;
 import org.guvnor.structure.config.SystemRepositoryChangedEvent;
 import org.guvnor.structure.server.config.ConfigGroup;
+import org.guvnor.structure.server.config.ConfigGroupsChangedEvent;
 import org.guvnor.structure.server.config.ConfigType;
 import org.guvnor.structure.server.config.ConfigurationService;
 import org.jboss.errai.security.shared.api.identity.User;
@@ -50,6 +53,7 @@ import org.slf4j.LoggerFactory;
 import org.uberfire.commons.async.DescriptiveRunnable;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.SubscribableWatchService;
 import org.uberfire.java.nio.base.WatchContext;
 import org.uberfire.java.nio.base.options.CommentedOption;
 import org.uberfire.java.nio.file.DirectoryStream;
@@ -80,8 +84,8 @@ public class ConfigurationServiceImpl implements ConfigurationService,
 
     private User identity;
 
-    //Cache of ConfigGroups to avoid reloading them from file
-    private final Map<ConfigType, List<ConfigGroup>> configuration = new ConcurrentHashMap<ConfigType, List<ConfigGroup>>();
+    //Cache of ConfigGroups by file name to avoid reloading them from file
+    private final Map<ConfigType, Map<String, ConfigGroup>> configuration = new ConcurrentHashMap<ConfigType, Map<String, ConfigGroup>>();
     private AtomicLong localLastModifiedValue = new AtomicLong(-1);
 
     private IOService ioService;
@@ -90,6 +94,8 @@ public class ConfigurationServiceImpl implements ConfigurationService,
     private Event<SystemRepositoryChangedEvent> repoChangedEvent;
     private Event<SystemRepositoryChangedEvent> orgUnitChangedEvent;
     private Event<SystemRepositoryChangedEvent> changedEvent;
+    private Event<ConfigGroupsChangedEvent> repoConfigGroupsChangedEvent;
+    private Event<ConfigGroupsChangedEvent> orgUnitConfigGroupsChangedEvent;
 
     private final ExecutorService executorService = Executors.newSingleThreadExecutor();
 
@@ -114,6 +120,8 @@ public class ConfigurationServiceImpl implements ConfigurationService,
                                     final @Repository Event<SystemRepositoryChangedEvent> repoChangedEvent,
                                     final @OrgUnit Event<SystemRepositoryChangedEvent> orgUnitChangedEvent,
                                     final Event<SystemRepositoryChangedEvent> changedEvent,
+                                    final @Repository Event<ConfigGroupsChangedEvent> repoConfigGroupsChangedEvent,
+                                    final @OrgUnit Event<ConfigGroupsChangedEvent> orgUnitConfigGroupsChangedEvent,
                                     final @Named("systemFS") FileSystem fs) {
         this.systemRepository = systemRepository;
         this.marshaller = marshaller;
@@ -122,6 +130,8 @@ public class ConfigurationServiceImpl implements ConfigurationService,
         this.repoChangedEvent = repoChangedEvent;
         this.orgUnitChangedEvent = orgUnitChangedEvent;
         this.changedEvent = changedEvent;
+        this.repoConfigGroupsChangedEvent = repoConfigGroupsChangedEvent;
+        this.orgUnitConfigGroupsChangedEvent = orgUnitConfigGroupsChangedEvent;
         this.fs = fs;
     }
 
@@ -146,17 +156,27 @@ public class ConfigurationServiceImpl implements ConfigurationService,
             watchService = fs.newWatchService();
             configUpdates = new CheckConfigurationUpdates(watchService);
             final ConfigServiceWatchServiceExecutor configServiceWatchServiceExecutor = getWatchServiceExecutor();
-            jobs.add(executorService.submit(new DescriptiveRunnable() {
-                @Override
-                public String getDescription() {
-                    return configUpdates.getDescription();
-                }
+            if (watchService instanceof SubscribableWatchService) {
+                ((SubscribableWatchService) watchService).subscribe(wk -> {
+                    // same as the polling loop: once the key is no longer valid no more events will follow
+                    if (!configUpdates.process(wk,
+                                               configServiceWatchServiceExecutor)) {
+                        watchService.close();
+                    }
+                });
+            } else {
+                jobs.add(executorService.submit(new DescriptiveRunnable() {
+                    @Override
+                    public String getDescription() {
+                        return configUpdates.getDescription();
+                    }
 
-                @Override
-                public void run() {
-                    configUpdates.execute(configServiceWatchServiceExecutor);
-                }
-            }));
+                    @Override
+                    public void run() {
+                        configUpdates.execute(configServiceWatchServiceExecutor);
+                    }
+                }));
+            }
         }
     }
 
@@ -205,10 +225,11 @@ public class ConfigurationServiceImpl implements ConfigurationService,
 
     @Override
     public List<ConfigGroup> getConfiguration(final ConfigType type) {
-        if (configuration.containsKey(type)) {
-            return configuration.get(type);
+        final Map<String, ConfigGroup> cached = configuration.get(type);
+        if (cached != null) {
+            return new ArrayList<ConfigGroup>(cached.values());
         }
-        final List<ConfigGroup> configGroups = new ArrayList<ConfigGroup>();
+        final Map<String, ConfigGroup> configGroups = new ConcurrentSkipListMap<String, ConfigGroup>();
         final DirectoryStream<Path> foundConfigs = ioService.newDirectoryStream(ioService.get(systemRepository.getUri()),
                                                                                 new DirectoryStream.Filter<Path>() {
                                                                                     @Override
@@ -226,14 +247,16 @@ public class ConfigurationServiceImpl implements ConfigurationService,
         final Iterator<Path> it = foundConfigs.iterator();
         if (it.hasNext()) {
             while (it.hasNext()) {
-                final String content = ioService.readAllString(it.next());
+                final Path configPath = it.next();
+                final String content = ioService.readAllString(configPath);
                 final ConfigGroup configGroup = marshaller.unmarshall(content);
-                configGroups.add(configGroup);
+                configGroups.put(configPath.getFileName().toString(),
+                                 configGroup);
             }
             configuration.put(type,
                               configGroups);
         }
-        return configGroups;
+        return new ArrayList<ConfigGroup>(configGroups.values());
     }
 
     @Override
@@ -261,8 +284,9 @@ public class ConfigurationServiceImpl implements ConfigurationService,
         } finally {
             ioService.endBatch();
         }
-        //Invalidate cache if a new item has been created; otherwise cached value is stale
-        configuration.remove(configGroup.getType());
+        //Reload the item created; otherwise cached value is stale
+        reload(configGroup.getType(),
+               filePath);
 
         return true;
     }
@@ -288,8 +312,9 @@ public class ConfigurationServiceImpl implements ConfigurationService,
         } finally {
             ioService.endBatch();
         }
-        //Invalidate cache if a new item has been created; otherwise cached value is stale
-        configuration.remove(configGroup.getType());
+        //Reload the item updated; otherwise cached value is stale
+        reload(configGroup.getType(),
+               filePath);
 
         return true;
     }
@@ -297,11 +322,14 @@ public class ConfigurationServiceImpl implements ConfigurationService,
     @Override
     public boolean removeConfiguration(final ConfigGroup configGroup) {
 
-        //Invalidate cache if an item has been removed; otherwise cached value is stale
-        configuration.remove(configGroup.getType());
         String filename = configGroup.getName().replaceAll(INVALID_FILENAME_CHARS,
                                                            "_");
         final Path filePath = ioService.get(systemRepository.getUri()).resolve(filename + configGroup.getType().getExt());
+        //Drop the item removed; otherwise cached value is stale
+        final Map<String, ConfigGroup> cached = configuration.get(configGroup.getType());
+        if (cached != null) {
+            cached.remove(filePath.getFileName().toString());
+        }
 
         // avoid duplicated writes to not cause cyclic cluster sync
         if (!ioService.exists(filePath)) {
@@ -357,10 +385,85 @@ public class ConfigurationServiceImpl implements ConfigurationService,
         configuration.clear();
     }
 
+    @Override
+    public ConfigGroupsChangedEvent callback(final long value,
+                                             final Set<String> changedFiles) {
+        if (changedFiles == null) {
+            callback(value);
+            return null;
+        }
+        localLastModifiedValue.set(value);
+
+        final ConfigGroupsChangedEvent changes = new ConfigGroupsChangedEvent();
+        final Path root = ioService.get(systemRepository.getUri());
+        for (final String fileName : changedFiles) {
+            final ConfigType type = getConfigType(fileName);
+            if (type == null) {
+                continue;
+            }
+            final Map<String, ConfigGroup> cached = configuration.get(type);
+            if (cached == null) {
+                // without the groups of the type there is no telling an added group from an updated one, nor what a
+                // deleted file held
+                callback(value);
+                return null;
+            }
+            final ConfigGroup previous = cached.get(fileName);
+            final ConfigGroup current = reload(type,
+                                               root.resolve(fileName));
+            if (current == null) {
+                if (previous != null) {
+                    changes.removed(previous);
+                }
+            } else if (previous == null) {
+                changes.added(current);
+            } else {
+                changes.updated(current);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Reads a single config file and replaces its cached group, when the groups of its type are cached.
+     * @return the group read, or null if the file does not exist
+     */
+    private ConfigGroup reload(final ConfigType type,
+                               final Path filePath) {
+        final String fileName = filePath.getFileName().toString();
+        final Map<String, ConfigGroup> cached = configuration.get(type);
+        if (!ioService.exists(filePath)) {
+            if (cached != null) {
+                cached.remove(fileName);
+            }
+            return null;
+        }
+        final ConfigGroup configGroup = marshaller.unmarshall(ioService.readAllString(filePath));
+        if (cached != null) {
+            cached.put(fileName,
+                       configGroup);
+        }
+        return configGroup;
+    }
+
+    static ConfigType getConfigType(final String fileName) {
+        if (fileName.startsWith(".")) {
+            return null;
+        }
+        for (final ConfigType type : ConfigType.values()) {
+            if (fileName.endsWith(type.getExt())) {
+                return type;
+            }
+        }
+        return null;
+    }
+
     private class CheckConfigurationUpdates implements AsyncConfigWatchService {
 
         private final WatchService ws;
         private boolean active = true;
+        // config files changed since the last marker update, null once an event could not be attributed to a file
+        private Set<String> changedFiles = new HashSet<String>();
 
         public CheckConfigurationUpdates(final WatchService watchService) {
             this.ws = watchService;
@@ -382,45 +485,74 @@ public class ConfigurationServiceImpl implements ConfigurationService,
                         break;
                     }
 
-                    final List<WatchEvent<?>> events = wk.pollEvents();
-
-                    boolean markerFileModified = false;
-                    for (final WatchEvent<?> event : events) {
-                        final WatchContext context = (WatchContext) event.context();
-                        if (event.kind().equals(StandardWatchEventKind.ENTRY_MODIFY)) {
-                            if (context.getOldPath().getFileName().toString().equals(LAST_MODIFIED_MARKER_FILE)) {
-                                markerFileModified = true;
-                                break;
-                            }
-                        } else if (event.kind().equals(StandardWatchEventKind.ENTRY_CREATE)) {
-                            if (context.getPath().getFileName().toString().equals(LAST_MODIFIED_MARKER_FILE)) {
-                                markerFileModified = true;
-                                break;
-                            }
-                        } else if (event.kind().equals(StandardWatchEventKind.ENTRY_RENAME)) {
-                            if (context.getOldPath().getFileName().toString().equals(LAST_MODIFIED_MARKER_FILE)) {
-                                markerFileModified = true;
-                                break;
-                            }
-                        } else if (event.kind().equals(StandardWatchEventKind.ENTRY_DELETE)) {
-                            if (context.getOldPath().getFileName().toString().equals(LAST_MODIFIED_MARKER_FILE)) {
-                                markerFileModified = true;
-                                break;
-                            }
-                        }
+                    if (!process(wk,
+                                 wsExecutor)) {
+                        break;
                     }
+                } catch (final Exception ignored) {
+                }
+            }
+        }
 
-                    if (markerFileModified) {
-                        wsExecutor.execute(wk,
-                                           localLastModifiedValue.get(),
-                                           ConfigurationServiceImpl.this);
-                    }
+        /**
+         * Reloads the configuration if the key carries a change of the marker file.
+         * @return false once the key is no longer valid and no more events will follow
+         */
+        boolean process(final WatchKey wk,
+                        final ConfigServiceWatchServiceExecutor wsExecutor) {
+            if (!active) {
+                return false;
+            }
 
-                    boolean valid = wk.reset();
-                    if (!valid) {
-                        break;
+            final List<WatchEvent<?>> events = wk.pollEvents();
+
+            boolean markerFileModified = false;
+            for (final WatchEvent<?> event : events) {
+                if (!(event.context() instanceof WatchContext)) {
+                    changedFiles = null;
+                    continue;
+                }
+                final WatchContext context = (WatchContext) event.context();
+                if (changedFiles != null) {
+                    collectConfigFile(context.getPath());
+                    collectConfigFile(context.getOldPath());
+                }
+                if (event.kind().equals(StandardWatchEventKind.ENTRY_MODIFY)) {
+                    if (context.getOldPath().getFileName().toString().equals(LAST_MODIFIED_MARKER_FILE)) {
+                        markerFileModified = true;
                     }
-                } catch (final Exception ignored) {
+                } else if (event.kind().equals(StandardWatchEventKind.ENTRY_CREATE)) {
+                    if (context.getPath().getFileName().toString().equals(LAST_MODIFIED_MARKER_FILE)) {
+                        markerFileModified = true;
+                    }
+                } else if (event.kind().equals(StandardWatchEventKind.ENTRY_RENAME)) {
+                    if (context.getOldPath().getFileName().toString().equals(LAST_MODIFIED_MARKER_FILE)) {
+                        markerFileModified = true;
+                    }
+                } else if (event.kind().equals(StandardWatchEventKind.ENTRY_DELETE)) {
+                    if (context.getOldPath().getFileName().toString().equals(LAST_MODIFIED_MARKER_FILE)) {
+                        markerFileModified = true;
+                    }
+                }
+            }
+
+            if (markerFileModified) {
+                final Set<String> changed = changedFiles;
+                changedFiles = new HashSet<String>();
+                wsExecutor.execute(wk,
+                                   localLastModifiedValue.get(),
+                                   changed,
+                                   ConfigurationServiceImpl.this);
+            }
+
+            return wk.reset();
+        }
+
+        private void collectConfigFile(final Path path) {
+            if (path != null && path.getFileName() != null) {
+                final String fileName = path.getFileName().toString();
+                if (getConfigType(fileName) != null) {
+                    changedFiles.add(fileName);
                 }
             }
         }
@@ -445,7 +577,9 @@ public class ConfigurationServiceImpl implements ConfigurationService,
                                                                               ioService,
                                                                               repoChangedEvent,
                                                                               orgUnitChangedEvent,
-                                                                              changedEvent);
+                                                                              changedEvent,
+                                                                              repoConfigGroupsChangedEvent,
+                                                                              orgUnitConfigGroupsChangedEvent);
             }
             executor = _executor;
         }
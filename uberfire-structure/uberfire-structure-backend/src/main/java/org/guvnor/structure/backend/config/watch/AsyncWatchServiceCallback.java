@@ -15,7 +15,19 @@
 
 package org.guvnor.structure.backend.config.watch;
 
+import java.util.Set;
+
+import org.guvnor.structure.server.config.ConfigGroupsChangedEvent;
+
 public interface AsyncWatchServiceCallback {
 
     public void callback(long value);
+
+    /**
+     * Reloads only the given config files.
+     * @param changedFiles names of the config files changed, or null when unknown
+     * @return the config groups changed, or null when everything had to be invalidated
+     */
+    public ConfigGroupsChangedEvent callback(long value,
+                                             Set<String> changedFiles);
 }
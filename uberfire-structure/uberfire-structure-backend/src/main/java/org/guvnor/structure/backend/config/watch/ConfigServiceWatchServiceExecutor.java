@@ -15,6 +15,8 @@
 
 package org.guvnor.structure.backend.config.watch;
 
+import java.util.Set;
+
 import org.uberfire.java.nio.file.WatchKey;
 
 public interface ConfigServiceWatchServiceExecutor {
@@ -22,4 +24,12 @@ public interface ConfigServiceWatchServiceExecutor {
     void execute(final WatchKey watchKey,
                  final long localLastModifiedValue,
                  final AsyncWatchServiceCallback callback);
+
+    /**
+     * @param changedFiles names of the config files the watch key reported as changed, or null when unknown
+     */
+    void execute(final WatchKey watchKey,
+                 final long localLastModifiedValue,
+                 final Set<String> changedFiles,
+                 final AsyncWatchServiceCallback callback);
 }
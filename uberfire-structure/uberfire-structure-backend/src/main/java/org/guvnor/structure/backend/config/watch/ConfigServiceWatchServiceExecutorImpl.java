@@ -15,6 +15,7 @@
 
 package org.guvnor.structure.backend.config.watch;
 
+import java.util.Set;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
 import javax.ejb.TransactionAttribute;
@@ -26,6 +27,7 @@ import org.guvnor.structure.backend.config.ConfigurationServiceImpl;
 import org.guvnor.structure.backend.config.OrgUnit;
 import org.guvnor.structure.backend.config.Repository;
 import org.guvnor.structure.config.SystemRepositoryChangedEvent;
+import org.guvnor.structure.server.config.ConfigGroupsChangedEvent;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.WatchKey;
@@ -54,30 +56,63 @@ public class ConfigServiceWatchServiceExecutorImpl implements ConfigServiceWatch
     private Event<SystemRepositoryChangedEvent> orgUnitChangedEvent;
     @Inject
     private Event<SystemRepositoryChangedEvent> changedEvent;
+    @Inject
+    @Repository
+    private Event<ConfigGroupsChangedEvent> repoConfigGroupsChangedEvent;
+    @Inject
+    @OrgUnit
+    private Event<ConfigGroupsChangedEvent> orgUnitConfigGroupsChangedEvent;
 
     public void setConfig(final org.guvnor.structure.repositories.Repository systemRepository,
                           final IOService ioService,
                           final Event<SystemRepositoryChangedEvent> repoChangedEvent,
                           final Event<SystemRepositoryChangedEvent> orgUnitChangedEvent,
-                          final Event<SystemRepositoryChangedEvent> changedEvent) {
+                          final Event<SystemRepositoryChangedEvent> changedEvent,
+                          final Event<ConfigGroupsChangedEvent> repoConfigGroupsChangedEvent,
+                          final Event<ConfigGroupsChangedEvent> orgUnitConfigGroupsChangedEvent) {
         this.systemRepository = systemRepository;
         this.ioService = ioService;
         this.repoChangedEvent = repoChangedEvent;
         this.orgUnitChangedEvent = orgUnitChangedEvent;
         this.changedEvent = changedEvent;
+        this.repoConfigGroupsChangedEvent = repoConfigGroupsChangedEvent;
+        this.orgUnitConfigGroupsChangedEvent = orgUnitConfigGroupsChangedEvent;
+    }
+
+    @Override
+    public void execute(final WatchKey watchKey,
+                        final long localLastModifiedValue,
+                        final AsyncWatchServiceCallback callback) {
+        execute(watchKey,
+                localLastModifiedValue,
+                null,
+                callback);
     }
 
     @Override
     public void execute(final WatchKey watchKey,
                         final long localLastModifiedValue,
+                        final Set<String> changedFiles,
                         final AsyncWatchServiceCallback callback) {
         final long currentValue = getLastModified();
         if (currentValue > localLastModifiedValue) {
-            callback.callback(currentValue);
-            // notify first repository
-            repoChangedEvent.fire(new SystemRepositoryChangedEvent());
-            // then org unit
-            orgUnitChangedEvent.fire(new SystemRepositoryChangedEvent());
+            final ConfigGroupsChangedEvent changes;
+            if (changedFiles == null) {
+                callback.callback(currentValue);
+                changes = null;
+            } else {
+                changes = callback.callback(currentValue,
+                                            changedFiles);
+            }
+            if (changes == null) {
+                // notify first repository
+                repoChangedEvent.fire(new SystemRepositoryChangedEvent());
+                // then org unit
+                orgUnitChangedEvent.fire(new SystemRepositoryChangedEvent());
+            } else {
+                repoConfigGroupsChangedEvent.fire(changes);
+                orgUnitConfigGroupsChangedEvent.fire(changes);
+            }
             // lastly all others
             changedEvent.fire(new SystemRepositoryChangedEvent());
         }
@@ -17,9 +17,15 @@ package org.guvnor.structure.backend.organizationalunit;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
@@ -39,12 +45,19 @@ import org.guvnor.structure.organizationalunit.UpdatedOrganizationalUnitEvent;
 import org.guvnor.structure.repositories.Repository;
 import org.guvnor.structure.repositories.RepositoryEnvironmentUpdatedEvent;
 import org.guvnor.structure.server.config.ConfigGroup;
+import org.guvnor.structure.server.config.ConfigGroupsChangedEvent;
 import org.guvnor.structure.server.config.ConfigItem;
 import org.guvnor.structure.server.config.ConfigType;
 import org.guvnor.structure.server.config.ConfigurationFactory;
 import org.guvnor.structure.server.config.ConfigurationService;
 import org.guvnor.structure.server.organizationalunit.OrganizationalUnitFactory;
 import org.jboss.errai.bus.server.annotations.Service;
+import org.jboss.errai.security.shared.api.Group;
+import org.jboss.errai.security.shared.api.Role;
+import org.jboss.errai.security.shared.api.identity.User;
+import org.uberfire.backend.events.AuthorizationPolicyDeployedEvent;
+import org.uberfire.backend.events.AuthorizationPolicySavedEvent;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.rpc.SessionInfo;
 import org.uberfire.security.authz.AuthorizationManager;
 
@@ -74,7 +87,25 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
 
     private SessionInfo sessionInfo;
 
-    Map<String, OrganizationalUnit> registeredOrganizationalUnits = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private static final int AUTHORIZED_CACHE_SIZE = new ConfigProperties(System.getProperties()).get("org.uberfire.structure.ou.authorized.cache.size",
+                                                                                                      "1000").getIntValue(1000);
+
+    Map<String, OrganizationalUnit> registeredOrganizationalUnits = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    // repository alias -> organizational unit holding it, kept in step with registeredOrganizationalUnits
+    private final Map<String, OrganizationalUnit> parentByRepositoryAlias = new ConcurrentHashMap<>();
+
+    // bumped on every registry or policy change, so cached authorized views know they are stale
+    private final AtomicLong registryVersion = new AtomicLong();
+
+    private final Map<String, AuthorizedOrganizationalUnits> authorizedByIdentity = Collections.synchronizedMap(new LinkedHashMap<String, AuthorizedOrganizationalUnits>(16,
+                                                                                                                                                                        0.75f,
+                                                                                                                                                                        true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, AuthorizedOrganizationalUnits> eldest) {
+            return size() > AUTHORIZED_CACHE_SIZE;
+        }
+    });
 
     @Inject
     public OrganizationalUnitServiceImpl(final ConfigurationService configurationService,
@@ -116,8 +147,7 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
                 }
 
                 OrganizationalUnit ou = organizationalUnitFactory.newOrganizationalUnit(groupConfig);
-                registeredOrganizationalUnits.put(ou.getName(),
-                                                  ou);
+                register(ou);
             }
         }
     }
@@ -134,10 +164,31 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
 
     @Override
     public Collection<OrganizationalUnit> getOrganizationalUnits() {
-        ArrayList result = new ArrayList<>();
+        final User identity = sessionInfo.getIdentity();
+        if (identity == null || identity.getIdentifier() == null) {
+            return authorizedOrganizationalUnits(identity);
+        }
+
+        final long version = registryVersion.get();
+        final AuthorizedOrganizationalUnits cached = authorizedByIdentity.get(identity.getIdentifier());
+        if (cached != null && cached.isValidFor(identity,
+                                                version)) {
+            return new ArrayList<>(cached.organizationalUnits);
+        }
+
+        final List<OrganizationalUnit> result = authorizedOrganizationalUnits(identity);
+        authorizedByIdentity.put(identity.getIdentifier(),
+                                 new AuthorizedOrganizationalUnits(identity,
+                                                                   version,
+                                                                   result));
+        return new ArrayList<>(result);
+    }
+
+    private List<OrganizationalUnit> authorizedOrganizationalUnits(final User identity) {
+        final List<OrganizationalUnit> result = new ArrayList<>();
         for (OrganizationalUnit ou : registeredOrganizationalUnits.values()) {
             if (authorizationManager.authorize(ou,
-                                               sessionInfo.getIdentity())) {
+                                               identity)) {
                 result.add(ou);
             }
         }
@@ -199,8 +250,7 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
             configurationService.addConfiguration(groupConfig);
 
             newOrganizationalUnit = organizationalUnitFactory.newOrganizationalUnit(groupConfig);
-            registeredOrganizationalUnits.put(newOrganizationalUnit.getName(),
-                                              newOrganizationalUnit);
+            register(newOrganizationalUnit);
 
             return newOrganizationalUnit;
         } finally {
@@ -257,8 +307,7 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
                 configurationService.updateConfiguration(thisGroupConfig);
 
                 updatedOrganizationalUnit = organizationalUnitFactory.newOrganizationalUnit(thisGroupConfig);
-                registeredOrganizationalUnits.put(updatedOrganizationalUnit.getName(),
-                                                  updatedOrganizationalUnit);
+                register(updatedOrganizationalUnit);
 
                 return updatedOrganizationalUnit;
             } finally {
@@ -288,8 +337,7 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
                 configurationService.updateConfiguration(thisGroupConfig);
 
                 final OrganizationalUnit updatedOrganizationalUnit = organizationalUnitFactory.newOrganizationalUnit(thisGroupConfig);
-                registeredOrganizationalUnits.put(updatedOrganizationalUnit.getName(),
-                                                  updatedOrganizationalUnit);
+                register(updatedOrganizationalUnit);
             } finally {
                 configurationService.endBatch();
                 repoAddedToOrgUnitEvent.fire(new RepoAddedToOrganizationalUnitEvent(organizationalUnit,
@@ -316,8 +364,7 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
                 configurationService.updateConfiguration(thisGroupConfig);
 
                 final OrganizationalUnit updatedOrganizationalUnit = organizationalUnitFactory.newOrganizationalUnit(thisGroupConfig);
-                registeredOrganizationalUnits.put(updatedOrganizationalUnit.getName(),
-                                                  updatedOrganizationalUnit);
+                register(updatedOrganizationalUnit);
             } finally {
                 configurationService.endBatch();
                 repoRemovedFromOrgUnitEvent.fire(new RepoRemovedFromOrganizationalUnitEvent(organizationalUnit,
@@ -345,8 +392,7 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
                 configurationService.updateConfiguration(thisGroupConfig);
 
                 updatedOrganizationalUnit = organizationalUnitFactory.newOrganizationalUnit(thisGroupConfig);
-                registeredOrganizationalUnits.put(updatedOrganizationalUnit.getName(),
-                                                  updatedOrganizationalUnit);
+                register(updatedOrganizationalUnit);
             } finally {
                 configurationService.endBatch();
                 if (updatedOrganizationalUnit != null) {
@@ -375,8 +421,7 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
                 configurationService.updateConfiguration(thisGroupConfig);
 
                 updatedOrganizationalUnit = organizationalUnitFactory.newOrganizationalUnit(thisGroupConfig);
-                registeredOrganizationalUnits.put(updatedOrganizationalUnit.getName(),
-                                                  updatedOrganizationalUnit);
+                register(updatedOrganizationalUnit);
             } finally {
                 configurationService.endBatch();
                 if (updatedOrganizationalUnit != null) {
@@ -410,7 +455,7 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
             try {
                 configurationService.startBatch();
                 configurationService.removeConfiguration(thisGroupConfig);
-                ou = registeredOrganizationalUnits.remove(groupName);
+                ou = unregister(groupName);
             } finally {
                 configurationService.endBatch();
                 if (ou != null) {
@@ -423,13 +468,10 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
 
     @Override
     public OrganizationalUnit getParentOrganizationalUnit(final Repository repository) {
-        for (OrganizationalUnit organizationalUnit : registeredOrganizationalUnits.values()) {
-            if (organizationalUnit.getRepositories() != null &&
-                    organizationalUnit.getRepositories().contains(repository)) {
-                return organizationalUnit;
-            }
+        if (repository == null || repository.getAlias() == null) {
+            return null;
         }
-        return null;
+        return parentByRepositoryAlias.get(repository.getAlias());
     }
 
     @Override
@@ -450,13 +492,87 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
     }
 
     public void updateRegisteredOU(@Observes @OrgUnit SystemRepositoryChangedEvent changedEvent) {
-        registeredOrganizationalUnits.clear();
-        loadOrganizationalUnits();
+        reloadOrganizationalUnits();
+    }
+
+    public void updateRegisteredOU(@Observes @OrgUnit ConfigGroupsChangedEvent changes) {
+        if (changes.hasChanges(ConfigType.REPOSITORY)) {
+            // repositories are resolved into every organizational unit, so a repository change touches them all
+            reloadOrganizationalUnits();
+        } else {
+            apply(changes);
+        }
+    }
+
+    /**
+     * Rebuilds only the organizational units whose config group changed.
+     */
+    void apply(final ConfigGroupsChangedEvent changes) {
+        for (ConfigGroup groupConfig : changes.getRemoved(ConfigType.ORGANIZATIONAL_UNIT)) {
+            unregister(groupConfig.getName());
+        }
+        for (ConfigGroup groupConfig : changes.getAdded(ConfigType.ORGANIZATIONAL_UNIT)) {
+            OrganizationalUnit ou = organizationalUnitFactory.newOrganizationalUnit(groupConfig);
+            register(ou);
+        }
+        for (ConfigGroup groupConfig : changes.getUpdated(ConfigType.ORGANIZATIONAL_UNIT)) {
+            OrganizationalUnit ou = organizationalUnitFactory.newOrganizationalUnit(groupConfig);
+            register(ou);
+        }
     }
 
     // refresh org unit in case repository changed otherwise it will have outdated information
     public void updateRegisteredOUonRepoChange(@Observes RepositoryEnvironmentUpdatedEvent changedEvent) {
+        reloadOrganizationalUnits();
+    }
+
+    public void onPolicySaved(@Observes AuthorizationPolicySavedEvent event) {
+        invalidateAuthorizedOrganizationalUnits();
+    }
+
+    public void onPolicyDeployed(@Observes AuthorizationPolicyDeployedEvent event) {
+        invalidateAuthorizedOrganizationalUnits();
+    }
+
+    private void invalidateAuthorizedOrganizationalUnits() {
+        registryVersion.incrementAndGet();
+        authorizedByIdentity.clear();
+    }
+
+    private synchronized void register(final OrganizationalUnit organizationalUnit) {
+        final OrganizationalUnit previous = registeredOrganizationalUnits.put(organizationalUnit.getName(),
+                                                                              organizationalUnit);
+        unindexRepositories(previous);
+        if (organizationalUnit.getRepositories() != null) {
+            for (Repository repository : organizationalUnit.getRepositories()) {
+                parentByRepositoryAlias.put(repository.getAlias(),
+                                            organizationalUnit);
+            }
+        }
+        registryVersion.incrementAndGet();
+    }
+
+    private synchronized OrganizationalUnit unregister(final String name) {
+        final OrganizationalUnit removed = registeredOrganizationalUnits.remove(name);
+        unindexRepositories(removed);
+        registryVersion.incrementAndGet();
+        return removed;
+    }
+
+    private void unindexRepositories(final OrganizationalUnit organizationalUnit) {
+        if (organizationalUnit == null || organizationalUnit.getRepositories() == null) {
+            return;
+        }
+        for (Repository repository : organizationalUnit.getRepositories()) {
+            parentByRepositoryAlias.remove(repository.getAlias(),
+                                           organizationalUnit);
+        }
+    }
+
+    private synchronized void reloadOrganizationalUnits() {
         registeredOrganizationalUnits.clear();
+        parentByRepositoryAlias.clear();
+        registryVersion.incrementAndGet();
         loadOrganizationalUnits();
     }
 
@@ -468,4 +584,52 @@ public class OrganizationalUnitServiceImpl implements OrganizationalUnitService
             return "system";
         }
     }
+
+    /**
+     * Organizational units a given identity was authorized for, valid while neither the registry nor the
+     * identity's roles and groups change.
+     */
+    private static class AuthorizedOrganizationalUnits {
+
+        private final long version;
+        private final Set<String> roles;
+        private final Set<String> groups;
+        private final List<OrganizationalUnit> organizationalUnits;
+
+        AuthorizedOrganizationalUnits(final User identity,
+                                      final long version,
+                                      final List<OrganizationalUnit> organizationalUnits) {
+            this.version = version;
+            this.roles = roleNames(identity);
+            this.groups = groupNames(identity);
+            this.organizationalUnits = organizationalUnits;
+        }
+
+        boolean isValidFor(final User identity,
+                           final long currentVersion) {
+            return version == currentVersion
+                    && roles.equals(roleNames(identity))
+                    && groups.equals(groupNames(identity));
+        }
+
+        private static Set<String> roleNames(final User identity) {
+            final Set<String> names = new HashSet<>();
+            if (identity.getRoles() != null) {
+                for (Role role : identity.getRoles()) {
+                    names.add(role.getName());
+                }
+            }
+            return names;
+        }
+
+        private static Set<String> groupNames(final User identity) {
+            final Set<String> names = new HashSet<>();
+            if (identity.getGroups() != null) {
+                for (Group group : identity.getGroups()) {
+                    names.add(group.getName());
+                }
+            }
+            return names;
+        }
+    }
 }
@@ -17,9 +17,10 @@
 package org.guvnor.structure.backend.repositories;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
@@ -31,6 +32,7 @@ import org.guvnor.structure.repositories.NewBranchEvent;
 import org.guvnor.structure.repositories.Repository;
 import org.guvnor.structure.repositories.impl.git.GitRepository;
 import org.guvnor.structure.server.config.ConfigGroup;
+import org.guvnor.structure.server.config.ConfigGroupsChangedEvent;
 import org.guvnor.structure.server.config.ConfigurationService;
 import org.guvnor.structure.server.repositories.RepositoryFactory;
 import org.uberfire.backend.vfs.Path;
@@ -49,8 +51,13 @@ public class ConfiguredRepositories {
     private RepositoryFactory repositoryFactory;
     private Repository systemRepository;
 
-    private Map<String, Repository> repositoriesByAlias = new HashMap<>();
-    private Map<Path, Repository> repositoriesByBranchRoot = new HashMap<>();
+    private Map<String, Repository> repositoriesByAlias = new ConcurrentHashMap<>();
+    private Map<Path, Repository> repositoriesByBranchRoot = new ConcurrentHashMap<>();
+    private Map<String, Set<Path>> branchRootsByAlias = new ConcurrentHashMap<>();
+    // filled on lookup, as resolving a file system needs the repository root to be a live path
+    private Map<FileSystem, Repository> repositoriesByFileSystem = new ConcurrentHashMap<>();
+    private volatile boolean fileSystemsIndexed = false;
+    private volatile FileSystem systemFileSystem;
 
     public ConfiguredRepositories() {
     }
@@ -66,9 +73,12 @@ public class ConfiguredRepositories {
 
     @SuppressWarnings("unchecked")
     @PostConstruct
-    public void loadRepositories() {
+    public synchronized void loadRepositories() {
         repositoriesByAlias.clear();
         repositoriesByBranchRoot.clear();
+        branchRootsByAlias.clear();
+        repositoriesByFileSystem.clear();
+        fileSystemsIndexed = false;
 
         final List<ConfigGroup> repoConfigs = configurationService.getConfiguration(REPOSITORY);
         if (!(repoConfigs == null || repoConfigs.isEmpty())) {
@@ -98,17 +108,32 @@ public class ConfiguredRepositories {
             return null;
         }
 
-        if (convert(systemRepository.getRoot()).getFileSystem().equals(fs)) {
+        if (systemFileSystem == null) {
+            systemFileSystem = convert(systemRepository.getRoot()).getFileSystem();
+        }
+        if (systemFileSystem.equals(fs)) {
             return systemRepository;
         }
 
-        for (final Repository repository : repositoriesByAlias.values()) {
-            if (convert(repository.getRoot()).getFileSystem().equals(fs)) {
-                return repository;
-            }
+        final Repository indexed = repositoriesByFileSystem.get(fs);
+        if (indexed != null || fileSystemsIndexed) {
+            return indexed;
         }
 
-        return null;
+        indexFileSystems();
+
+        return repositoriesByFileSystem.get(fs);
+    }
+
+    private synchronized void indexFileSystems() {
+        if (fileSystemsIndexed) {
+            return;
+        }
+        for (final Repository repository : repositoriesByAlias.values()) {
+            repositoriesByFileSystem.putIfAbsent(convert(repository.getRoot()).getFileSystem(),
+                                                 repository);
+        }
+        fileSystemsIndexed = true;
     }
 
     /**
@@ -130,29 +155,44 @@ public class ConfiguredRepositories {
         return repositoriesByAlias.containsKey(alias) || SystemRepository.SYSTEM_REPO.getAlias().equals(alias);
     }
 
-    public void add(final Repository repository) {
-        repositoriesByAlias.put(repository.getAlias(),
-                                repository);
+    public synchronized void add(final Repository repository) {
+        final Repository previous = repositoriesByAlias.put(repository.getAlias(),
+                                                            repository);
+        if (previous != null) {
+            repositoriesByFileSystem.values().remove(previous);
+        }
+        fileSystemsIndexed = false;
 
         if (repository instanceof GitRepository &&
                 repository.getBranches() != null) {
             for (String branch : repository.getBranches()) {
-                repositoriesByBranchRoot.put(repository.getBranchRoot(branch),
-                                             repository);
+                addBranchRoot(repository,
+                              repository.getBranchRoot(branch));
             }
         } else {
-            repositoriesByBranchRoot.put(repository.getRoot(),
-                                         repository);
+            addBranchRoot(repository,
+                          repository.getRoot());
         }
     }
 
+    private void addBranchRoot(final Repository repository,
+                               final Path branchRoot) {
+        repositoriesByBranchRoot.put(branchRoot,
+                                     repository);
+        branchRootsByAlias.computeIfAbsent(repository.getAlias(),
+                                           alias -> ConcurrentHashMap.newKeySet()).add(branchRoot);
+    }
+
     public void update(final Repository updatedRepo) {
         add(updatedRepo);
     }
 
-    public Repository remove(final String alias) {
+    public synchronized Repository remove(final String alias) {
 
         final Repository removed = repositoriesByAlias.remove(alias);
+        if (removed != null) {
+            repositoriesByFileSystem.values().remove(removed);
+        }
 
         removeFromRootByAlias(alias);
 
@@ -160,22 +200,15 @@ public class ConfiguredRepositories {
     }
 
     private void removeFromRootByAlias(final String alias) {
-        for (Path path : findFromRootMapByAlias(alias)) {
-            repositoriesByBranchRoot.remove(path);
-        }
-    }
-
-    private List<Path> findFromRootMapByAlias(final String alias) {
-        List<Path> result = new ArrayList<>();
-        for (Path path : repositoriesByBranchRoot.keySet()) {
-            if (repositoriesByBranchRoot.get(path).getAlias().equals(alias)) {
-                result.add(path);
+        final Set<Path> branchRoots = branchRootsByAlias.remove(alias);
+        if (branchRoots != null) {
+            for (Path path : branchRoots) {
+                repositoriesByBranchRoot.remove(path);
             }
         }
-        return result;
     }
 
-    public void onNewBranch(final @Observes NewBranchEvent changedEvent) {
+    public synchronized void onNewBranch(final @Observes NewBranchEvent changedEvent) {
 
         if (repositoriesByAlias.containsKey(changedEvent.getRepositoryAlias())) {
 
@@ -183,8 +216,8 @@ public class ConfiguredRepositories {
             if (repository instanceof GitRepository) {
                 ((GitRepository) repository).addBranch(changedEvent.getBranchName(),
                                                        changedEvent.getBranchPath());
-                repositoriesByBranchRoot.put(changedEvent.getBranchPath(),
-                                             repository);
+                addBranchRoot(repository,
+                              changedEvent.getBranchPath());
             }
         }
     }
@@ -192,4 +225,29 @@ public class ConfiguredRepositories {
     public void flush(final @Observes @org.guvnor.structure.backend.config.Repository SystemRepositoryChangedEvent changedEvent) {
         loadRepositories();
     }
+
+    public void flush(final @Observes @org.guvnor.structure.backend.config.Repository ConfigGroupsChangedEvent changes) {
+        apply(changes);
+    }
+
+    /**
+     * Rebuilds only the repositories whose config group changed.
+     */
+    void apply(final ConfigGroupsChangedEvent changes) {
+        for (final ConfigGroup configGroup : changes.getRemoved(REPOSITORY)) {
+            remove(configGroup.getName());
+        }
+        for (final ConfigGroup configGroup : changes.getAdded(REPOSITORY)) {
+            replace(configGroup);
+        }
+        for (final ConfigGroup configGroup : changes.getUpdated(REPOSITORY)) {
+            replace(configGroup);
+        }
+    }
+
+    private void replace(final ConfigGroup configGroup) {
+        final Repository repository = repositoryFactory.newRepository(configGroup);
+        remove(repository.getAlias());
+        add(repository);
+    }
 }
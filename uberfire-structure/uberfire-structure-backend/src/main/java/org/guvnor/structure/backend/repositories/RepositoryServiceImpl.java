@@ -157,23 +157,11 @@ public class RepositoryServiceImpl implements RepositoryService {
 
         final VersionAttributeView versionAttributeView = ioService.getFileAttributeView(convert(repo.getRoot()),
                                                                                          VersionAttributeView.class);
-        final List<VersionRecord> records = versionAttributeView.readAttributes().history().records();
+        final List<VersionRecord> records = versionAttributeView.readAttributes().history().page(startIndex,
+                                                                                                endIndex);
 
-        if (startIndex < 0) {
-            startIndex = 0;
-        }
-        if (endIndex < 0 || endIndex > records.size()) {
-            endIndex = records.size();
-        }
-        if (startIndex >= records.size() || startIndex >= endIndex) {
-            return Collections.emptyList();
-        }
-
-        Collections.reverse(records);
-
-        final List<VersionRecord> result = new ArrayList<VersionRecord>(endIndex - startIndex);
-        for (VersionRecord record : records.subList(startIndex,
-                                                    endIndex)) {
+        final List<VersionRecord> result = new ArrayList<VersionRecord>(records.size());
+        for (VersionRecord record : records) {
             result.add(new PortableVersionRecord(record.id(),
                                                  record.author(),
                                                  record.email(),
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.structure.backend.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import javax.enterprise.event.Event;
+
+import org.guvnor.structure.config.SystemRepositoryChangedEvent;
+import org.guvnor.structure.server.config.ConfigGroup;
+import org.guvnor.structure.server.config.ConfigGroupsChangedEvent;
+import org.guvnor.structure.server.config.ConfigType;
+import org.jboss.errai.security.shared.api.identity.User;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigurationServiceImplTest {
+
+    @Mock
+    private org.guvnor.structure.repositories.Repository systemRepository;
+
+    @Mock
+    private ConfigGroupMarshaller marshaller;
+
+    @Mock
+    private User identity;
+
+    @Mock
+    private IOService ioService;
+
+    @Mock
+    private Event<SystemRepositoryChangedEvent> repoChangedEvent;
+
+    @Mock
+    private Event<SystemRepositoryChangedEvent> orgUnitChangedEvent;
+
+    @Mock
+    private Event<SystemRepositoryChangedEvent> changedEvent;
+
+    @Mock
+    private Event<ConfigGroupsChangedEvent> repoConfigGroupsChangedEvent;
+
+    @Mock
+    private Event<ConfigGroupsChangedEvent> orgUnitConfigGroupsChangedEvent;
+
+    @Mock
+    private FileSystem fs;
+
+    @Mock
+    private Path root;
+
+    private ConfigurationServiceImpl configurationService;
+
+    @Before
+    public void setUp() {
+        when(systemRepository.getUri()).thenReturn("default://system");
+        when(ioService.get("default://system")).thenReturn(root);
+
+        configurationService = new ConfigurationServiceImpl(systemRepository,
+                                                            marshaller,
+                                                            identity,
+                                                            ioService,
+                                                            repoChangedEvent,
+                                                            orgUnitChangedEvent,
+                                                            changedEvent,
+                                                            repoConfigGroupsChangedEvent,
+                                                            orgUnitConfigGroupsChangedEvent,
+                                                            fs);
+    }
+
+    @Test
+    public void callbackReloadsOnlyChangedFiles() {
+        final ConfigGroup updatedBefore = file("updated.repository",
+                                               "updated-v1");
+        final ConfigGroup removedBefore = file("removed.repository",
+                                               "removed-v1");
+        listed("updated.repository",
+               "removed.repository");
+        assertEquals(2,
+                     configurationService.getConfiguration(ConfigType.REPOSITORY).size());
+
+        final ConfigGroup updatedAfter = file("updated.repository",
+                                              "updated-v2");
+        final ConfigGroup added = file("added.repository",
+                                       "added-v1");
+        when(ioService.exists(root.resolve("removed.repository"))).thenReturn(false);
+
+        final ConfigGroupsChangedEvent changes = configurationService.callback(10L,
+                                                                               new HashSet<>(Arrays.asList("updated.repository",
+                                                                                                           "removed.repository",
+                                                                                                           "added.repository",
+                                                                                                           ".gitignore")));
+
+        assertEquals(Collections.singletonList(added),
+                     changes.getAdded(ConfigType.REPOSITORY));
+        assertEquals(Collections.singletonList(updatedAfter),
+                     changes.getUpdated(ConfigType.REPOSITORY));
+        assertEquals(Collections.singletonList(removedBefore),
+                     changes.getRemoved(ConfigType.REPOSITORY));
+        assertFalse(changes.hasChanges(ConfigType.ORGANIZATIONAL_UNIT));
+
+        // the cache was patched in place, the directory is not listed again
+        final List<ConfigGroup> configuration = configurationService.getConfiguration(ConfigType.REPOSITORY);
+        assertEquals(2,
+                     configuration.size());
+        assertTrue(configuration.contains(added));
+        assertTrue(configuration.contains(updatedAfter));
+        verify(ioService,
+               times(1)).newDirectoryStream(eq(root),
+                                            any(DirectoryStream.Filter.class));
+    }
+
+    @Test
+    public void callbackInvalidatesEverythingWhenTypeIsNotCached() {
+        file("repo.repository",
+             "repo-v1");
+        listed("repo.repository");
+        configurationService.getConfiguration(ConfigType.REPOSITORY);
+        file("ou.organizationalunit",
+             "ou-v1");
+
+        assertNull(configurationService.callback(10L,
+                                                 Collections.singleton("ou.organizationalunit")));
+
+        configurationService.getConfiguration(ConfigType.REPOSITORY);
+        verify(ioService,
+               times(2)).newDirectoryStream(eq(root),
+                                            any(DirectoryStream.Filter.class));
+    }
+
+    @Test
+    public void callbackWithoutChangedFilesInvalidatesEverything() {
+        file("repo.repository",
+             "repo-v1");
+        listed("repo.repository");
+        configurationService.getConfiguration(ConfigType.REPOSITORY);
+
+        assertNull(configurationService.callback(10L,
+                                                 null));
+
+        configurationService.getConfiguration(ConfigType.REPOSITORY);
+        verify(ioService,
+               times(2)).newDirectoryStream(eq(root),
+                                            any(DirectoryStream.Filter.class));
+    }
+
+    /**
+     * Makes the file exist in the system repository with the given content, unmarshalled to a new group.
+     */
+    private ConfigGroup file(final String fileName,
+                             final String content) {
+        Path path = root.resolve(fileName);
+        if (path == null) {
+            path = mock(Path.class);
+            final Path name = mock(Path.class);
+            when(name.toString()).thenReturn(fileName);
+            when(path.getFileName()).thenReturn(name);
+            when(root.resolve(fileName)).thenReturn(path);
+        }
+        final ConfigGroup configGroup = new ConfigGroup();
+        configGroup.setName(content);
+        configGroup.setType(ConfigurationServiceImpl.getConfigType(fileName));
+        when(ioService.exists(path)).thenReturn(true);
+        when(ioService.readAllString(path)).thenReturn(content);
+        when(marshaller.unmarshall(content)).thenReturn(configGroup);
+        return configGroup;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void listed(final String... fileNames) {
+        final List<Path> paths = new ArrayList<>();
+        for (String fileName : fileNames) {
+            paths.add(root.resolve(fileName));
+        }
+        when(ioService.newDirectoryStream(eq(root),
+                                          any(DirectoryStream.Filter.class))).thenAnswer(invocation -> new DirectoryStream<Path>() {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public Iterator<Path> iterator() {
+                return paths.iterator();
+            }
+        });
+    }
+}
@@ -18,6 +18,7 @@ package org.guvnor.structure.backend.organizationalunit;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import javax.enterprise.event.Event;
 
@@ -29,8 +30,13 @@ import org.guvnor.structure.organizationalunit.RemoveOrganizationalUnitEvent;
 import org.guvnor.structure.organizationalunit.RepoAddedToOrganizationalUnitEvent;
 import org.guvnor.structure.organizationalunit.RepoRemovedFromOrganizationalUnitEvent;
 import org.guvnor.structure.organizationalunit.UpdatedOrganizationalUnitEvent;
+import org.guvnor.structure.repositories.Repository;
 import org.guvnor.structure.repositories.RepositoryService;
+import org.guvnor.structure.repositories.impl.git.GitRepository;
 import org.guvnor.structure.security.OrganizationalUnitAction;
+import org.guvnor.structure.server.config.ConfigGroup;
+import org.guvnor.structure.server.config.ConfigGroupsChangedEvent;
+import org.guvnor.structure.server.config.ConfigType;
 import org.guvnor.structure.server.config.ConfigurationService;
 import org.guvnor.structure.server.organizationalunit.OrganizationalUnitFactory;
 import org.jboss.errai.security.shared.api.identity.User;
@@ -41,6 +47,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.events.AuthorizationPolicySavedEvent;
 import org.uberfire.rpc.SessionInfo;
 import org.uberfire.security.Resource;
 import org.uberfire.security.authz.AuthorizationManager;
@@ -164,9 +171,100 @@ public class OrganizationalUnitServiceTest {
                      ou.getContributors());
     }
 
+    @Test
+    public void authorizedOrgUnitsAreCachedPerIdentityTest() {
+        final User user = mock(User.class);
+        when(user.getIdentifier()).thenReturn("user");
+        when(sessionInfo.getIdentity()).thenReturn(user);
+
+        assertEquals(0,
+                     organizationalUnitService.getOrganizationalUnits().size());
+        assertEquals(0,
+                     organizationalUnitService.getOrganizationalUnits().size());
+
+        verify(authorizationManager,
+               times(1)).authorize(any(Resource.class),
+                                   any(User.class));
+
+        organizationalUnitService.onPolicySaved(new AuthorizationPolicySavedEvent());
+        organizationalUnitService.getOrganizationalUnits();
+
+        verify(authorizationManager,
+               times(2)).authorize(any(Resource.class),
+                                   any(User.class));
+    }
+
+    @Test
+    public void parentOrganizationalUnitIsIndexedByRepositoryAliasTest() {
+        final Repository repository = new GitRepository("repo");
+        final OrganizationalUnit ou = mock(OrganizationalUnit.class);
+        when(ou.getName()).thenReturn("B");
+        when(ou.getRepositories()).thenReturn(Collections.singletonList(repository));
+
+        final ConfigGroup groupConfig = new ConfigGroup();
+        groupConfig.setName("B");
+        groupConfig.setType(ConfigType.ORGANIZATIONAL_UNIT);
+        doReturn(ou).when(organizationalUnitFactory).newOrganizationalUnit(groupConfig);
+
+        final ConfigGroupsChangedEvent added = new ConfigGroupsChangedEvent();
+        added.added(groupConfig);
+        organizationalUnitService.updateRegisteredOU(added);
+
+        assertEquals(ou,
+                     organizationalUnitService.getParentOrganizationalUnit(new GitRepository("repo")));
+
+        final ConfigGroupsChangedEvent removed = new ConfigGroupsChangedEvent();
+        removed.removed(groupConfig);
+        organizationalUnitService.updateRegisteredOU(removed);
+
+        assertNull(organizationalUnitService.getParentOrganizationalUnit(repository));
+    }
+
+    @Test
+    public void orgUnitChangesAreAppliedWithoutReloadTest() {
+        final OrganizationalUnit ou = mock(OrganizationalUnit.class);
+        when(ou.getName()).thenReturn("A");
+        final ConfigGroup groupConfig = new ConfigGroup();
+        groupConfig.setName("A");
+        groupConfig.setType(ConfigType.ORGANIZATIONAL_UNIT);
+        doReturn(ou).when(organizationalUnitFactory).newOrganizationalUnit(groupConfig);
+
+        final ConfigGroupsChangedEvent updated = new ConfigGroupsChangedEvent();
+        updated.updated(groupConfig);
+        organizationalUnitService.updateRegisteredOU(updated);
+
+        assertSame(ou,
+                   organizationalUnitService.getOrganizationalUnit("A"));
+        assertEquals(1,
+                     organizationalUnitService.getAllOrganizationalUnits().size());
+
+        final ConfigGroupsChangedEvent removed = new ConfigGroupsChangedEvent();
+        removed.removed(groupConfig);
+        organizationalUnitService.updateRegisteredOU(removed);
+
+        assertTrue(organizationalUnitService.getAllOrganizationalUnits().isEmpty());
+        verify(configurationService,
+               never()).getConfiguration(ConfigType.ORGANIZATIONAL_UNIT);
+    }
+
+    @Test
+    public void repositoryChangesReloadAllOrgUnitsTest() {
+        final ConfigGroup repositoryConfig = new ConfigGroup();
+        repositoryConfig.setName("repo");
+        repositoryConfig.setType(ConfigType.REPOSITORY);
+        when(configurationService.getConfiguration(ConfigType.ORGANIZATIONAL_UNIT)).thenReturn(Collections.emptyList());
+
+        final ConfigGroupsChangedEvent changes = new ConfigGroupsChangedEvent();
+        changes.updated(repositoryConfig);
+        organizationalUnitService.updateRegisteredOU(changes);
+
+        verify(configurationService).getConfiguration(ConfigType.ORGANIZATIONAL_UNIT);
+        assertTrue(organizationalUnitService.getAllOrganizationalUnits().isEmpty());
+    }
+
     private void setOUCreationPermission(final boolean hasPermission) {
         when(authorizationManager.authorize(eq(OrganizationalUnit.RESOURCE_TYPE),
                                             eq(OrganizationalUnitAction.CREATE),
                                             any(User.class))).thenReturn(hasPermission);
     }
-}
\ No newline at end of file
+}
@@ -19,10 +19,12 @@ package org.guvnor.structure.backend.repositories;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import org.guvnor.structure.config.SystemRepositoryChangedEvent;
 import org.guvnor.structure.repositories.NewBranchEvent;
 import org.guvnor.structure.repositories.Repository;
 import org.guvnor.structure.repositories.impl.git.GitRepository;
 import org.guvnor.structure.server.config.ConfigGroup;
+import org.guvnor.structure.server.config.ConfigGroupsChangedEvent;
 import org.guvnor.structure.server.config.ConfigurationService;
 import org.guvnor.structure.server.repositories.RepositoryFactory;
 import org.junit.Before;
@@ -157,4 +159,54 @@ public class ConfiguredRepositoriesTest {
         assertEquals(branchPath,
                      single.getBranchRoot("mybranch"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFlushAppliesConfigGroupChanges() throws Exception {
+        final ConfigGroup removed = new ConfigGroup();
+        removed.setName("single");
+        removed.setType(REPOSITORY);
+        final ConfigGroup added = addRepository("added",
+                                                "master");
+        added.setName("added");
+        added.setType(REPOSITORY);
+
+        final ConfigGroupsChangedEvent changes = new ConfigGroupsChangedEvent();
+        changes.removed(removed);
+        changes.added(added);
+
+        configuredRepositories.flush(changes);
+
+        assertFalse(configuredRepositories.containsAlias("single"));
+        assertTrue(configuredRepositories.containsAlias("added"));
+        assertTrue(configuredRepositories.containsAlias("multibranch"));
+        assertEquals(2,
+                     configuredRepositories.getAllConfiguredRepositories().size());
+
+        // only the changed groups are rebuilt, the configuration is not read again
+        verify(configurationService,
+               times(1)).getConfiguration(REPOSITORY);
+    }
+
+    @Test
+    public void testFlushReloadsOnPlainEvent() throws Exception {
+        configuredRepositories.flush(new SystemRepositoryChangedEvent());
+
+        verify(configurationService,
+               times(2)).getConfiguration(REPOSITORY);
+    }
+
+    @Test
+    public void testRemoveDropsNewBranchRoot() throws Exception {
+        final Path branchPath = mock(Path.class);
+        configuredRepositories.onNewBranch(new NewBranchEvent("single",
+                                                              "mybranch",
+                                                              branchPath,
+                                                              System.currentTimeMillis()));
+
+        assertNotNull(configuredRepositories.remove("single"));
+
+        assertNull(configuredRepositories.getRepositoryByRootPath(branchPath));
+        final Path devRoot = configuredRepositories.getRepositoryByRepositoryAlias("multibranch").getBranchRoot("dev");
+        assertNotNull(configuredRepositories.getRepositoryByRootPath(devRoot));
+    }
+}